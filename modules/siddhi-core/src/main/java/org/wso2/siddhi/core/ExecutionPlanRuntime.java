@@ -16,6 +16,7 @@
 package org.wso2.siddhi.core;
 
 import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.DisruptorConfig;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.exception.DefinitionNotExistException;
 import org.wso2.siddhi.core.exception.QueryNotExistException;
@@ -30,6 +31,7 @@ import org.wso2.siddhi.core.table.EventTable;
 import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -92,12 +94,49 @@ public class ExecutionPlanRuntime {
         queryRuntime.addCallback(callback);
     }
 
+    /**
+     * @param queryName name of the query given by @info(name=...)
+     * @return runtime of the query
+     */
+    public QueryRuntime getQueryRuntime(String queryName) {
+        QueryRuntime queryRuntime = queryProcessorMap.get(queryName);
+        if (queryRuntime == null) {
+            throw new QueryNotExistException("No query fund with name: " + queryName);
+        }
+        return queryRuntime;
+    }
+
     public InputHandler getInputHandler(String streamId) {
         return inputManager.getInputHandler(streamId);
     }
 
+    /**
+     * @param streamId id of the stream
+     * @return disruptor settings in effect for the stream, null when the stream is not processed in parallel
+     */
+    public DisruptorConfig getDisruptorConfig(String streamId) {
+        StreamJunction streamJunction = streamJunctionMap.get(streamId);
+        if (streamJunction == null) {
+            throw new DefinitionNotExistException("No stream fund with name: " + streamId);
+        }
+        return streamJunction.getDisruptorConfig();
+    }
+
+    /**
+     * @param partitionId name of the partition given by @info(name=...)
+     * @return runtime of the partition
+     */
+    public PartitionRuntime getPartitionRuntime(String partitionId) {
+        PartitionRuntime partitionRuntime = partitionMap.get(partitionId);
+        if (partitionRuntime == null) {
+            throw new DefinitionNotExistException("No partition fund with name: " + partitionId);
+        }
+        return partitionRuntime;
+    }
+
     public synchronized void shutdown() {
-        for (EternalReferencedHolder eternalReferencedHolder : executionPlanContext.getEternalReferencedHolders()) {
+        for (EternalReferencedHolder eternalReferencedHolder :
+                new ArrayList<EternalReferencedHolder>(executionPlanContext.getEternalReferencedHolders())) {
             try {
                 eternalReferencedHolder.stop();
             } catch (Throwable t) {
@@ -135,7 +174,8 @@ public class ExecutionPlanRuntime {
     }
 
     public synchronized void start() {
-        for (EternalReferencedHolder eternalReferencedHolder : executionPlanContext.getEternalReferencedHolders()) {
+        for (EternalReferencedHolder eternalReferencedHolder :
+                new ArrayList<EternalReferencedHolder>(executionPlanContext.getEternalReferencedHolders())) {
             eternalReferencedHolder.start();
         }
         inputManager.startProcessing();
@@ -148,6 +188,13 @@ public class ExecutionPlanRuntime {
         return executionPlanContext.getPersistenceService().persist();
     }
 
+    /**
+     * @return time processing was held to capture the state of the last persisted revision, in nanoseconds
+     */
+    public long getLastPersistPauseTime() {
+        return executionPlanContext.getPersistenceService().getLastPauseTime();
+    }
+
     public void restoreRevision(String revision) {
         executionPlanContext.getPersistenceService().restoreRevision(revision);
     }
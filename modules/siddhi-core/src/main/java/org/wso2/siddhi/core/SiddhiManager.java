@@ -20,6 +20,7 @@ import org.wso2.siddhi.core.config.SiddhiContext;
 import org.wso2.siddhi.core.util.ExecutionPlanRuntimeBuilder;
 import org.wso2.siddhi.core.util.parser.ExecutionPlanParser;
 import org.wso2.siddhi.core.util.persistence.PersistenceStore;
+import org.wso2.siddhi.core.util.snapshot.StateCodec;
 import org.wso2.siddhi.query.api.ExecutionPlan;
 import org.wso2.siddhi.query.compiler.SiddhiCompiler;
 
@@ -77,6 +78,13 @@ public class SiddhiManager {
         this.siddhiContext.setPersistenceStore(persistenceStore);
     }
 
+    /**
+     * @param stateCodec codec encoding the states of the execution plans created afterwards
+     */
+    public void setStateCodec(StateCodec stateCodec) {
+        this.siddhiContext.setStateCodec(stateCodec);
+    }
+
     public void setExtension(String name, Class clazz) {
         siddhiContext.getSiddhiExtensions().put(name, clazz);
     }
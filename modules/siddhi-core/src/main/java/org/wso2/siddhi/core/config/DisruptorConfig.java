@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.siddhi.core.config;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.PhasedBackoffWaitStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings used to construct the disruptors of StreamJunctions and async callbacks
+ */
+public class DisruptorConfig {
+
+    public enum WaitStrategyType {
+        PHASED_BACKOFF, BUSY_SPIN, YIELDING, SLEEPING, BLOCKING
+    }
+
+    private static final boolean CONFIGURABLE_DISRUPTOR_AVAILABLE = isConfigurableDisruptorAvailable();
+
+    private final WaitStrategyType waitStrategyType;
+    private final int bufferSize;
+    private final ProducerType producerType;        //null when it is decided by the number of publishers
+    private final int workers;
+    private final boolean ordered;
+
+    public DisruptorConfig(int bufferSize) {
+        this(WaitStrategyType.PHASED_BACKOFF, bufferSize, null);
+    }
+
+    public DisruptorConfig(WaitStrategyType waitStrategyType, int bufferSize, ProducerType producerType) {
+        this(waitStrategyType, bufferSize, producerType, 1, true);
+    }
+
+    public DisruptorConfig(WaitStrategyType waitStrategyType, int bufferSize, ProducerType producerType,
+                           int workers, boolean ordered) {
+        this.waitStrategyType = waitStrategyType;
+        this.bufferSize = bufferSize;
+        this.producerType = producerType;
+        this.workers = workers;
+        this.ordered = ordered;
+    }
+
+    public WaitStrategyType getWaitStrategyType() {
+        return waitStrategyType;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public ProducerType getProducerType() {
+        return producerType;
+    }
+
+    /**
+     * @return number of handlers sharing the ring when the only receiver is a stateless query
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @return whether the output of the workers is emitted in the order the events were published
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public WaitStrategy createWaitStrategy() {
+        switch (waitStrategyType) {
+            case BUSY_SPIN:
+                return new BusySpinWaitStrategy();
+            case YIELDING:
+                return new YieldingWaitStrategy();
+            case SLEEPING:
+                return new SleepingWaitStrategy();
+            case BLOCKING:
+                return new BlockingWaitStrategy();
+            default:
+                return PhasedBackoffWaitStrategy.withLiteLock(1, 4, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Resolves the settings that will take effect, the producer type falls back to the given default and
+     * when the disruptor classes in use cannot take a wait strategy and producer type their defaults are used
+     *
+     * @param defaultProducerType producer type used when it is not configured
+     * @return effective settings
+     */
+    public DisruptorConfig resolve(ProducerType defaultProducerType) {
+        if (!CONFIGURABLE_DISRUPTOR_AVAILABLE) {
+            return new DisruptorConfig(WaitStrategyType.BLOCKING, bufferSize, ProducerType.MULTI, workers, ordered);
+        }
+        return new DisruptorConfig(waitStrategyType, bufferSize,
+                producerType != null ? producerType : defaultProducerType, workers, ordered);
+    }
+
+    /**
+     * @param producerType producer type to be used regardless of the configured one
+     * @return copy of the settings with the given producer type
+     */
+    public DisruptorConfig withProducerType(ProducerType producerType) {
+        return new DisruptorConfig(waitStrategyType, bufferSize, producerType, workers, ordered);
+    }
+
+    public <T> Disruptor<T> createDisruptor(EventFactory<T> eventFactory, ExecutorService executorService) {
+        if (CONFIGURABLE_DISRUPTOR_AVAILABLE) {
+            return new Disruptor<T>(eventFactory, bufferSize, executorService,
+                    producerType != null ? producerType : ProducerType.MULTI, createWaitStrategy());
+        }
+        return new Disruptor<T>(eventFactory, bufferSize, executorService);
+    }
+
+    private static boolean isConfigurableDisruptorAvailable() {
+        for (Constructor constructor : Disruptor.class.getConstructors()) {
+            if (constructor.getParameterTypes().length == 5) {      //if new disruptor classes available
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "DisruptorConfig{" +
+                "waitStrategyType=" + waitStrategyType +
+                ", bufferSize=" + bufferSize +
+                ", producerType=" + producerType +
+                ", workers=" + workers +
+                ", ordered=" + ordered +
+                '}';
+    }
+
+}
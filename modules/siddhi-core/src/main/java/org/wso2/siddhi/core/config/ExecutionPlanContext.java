@@ -18,13 +18,17 @@ package org.wso2.siddhi.core.config;
 
 import org.wso2.siddhi.core.function.EvalScript;
 import org.wso2.siddhi.core.util.ElementIdGenerator;
+import org.wso2.siddhi.core.util.TimerWheel;
 import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
 import org.wso2.siddhi.core.util.persistence.PersistenceService;
 import org.wso2.siddhi.core.util.snapshot.SnapshotService;
 import org.wso2.siddhi.core.util.timestamp.TimestampGenerator;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -38,10 +42,13 @@ public class ExecutionPlanContext {
     private boolean playback;
     private boolean enforceOrder;
     private boolean parallel;
+    private DisruptorConfig disruptorConfig;
 
     private ExecutorService executorService;
     private ScheduledExecutorService scheduledExecutorService;
+    private TimerWheel timerWheel;
     private List<EternalReferencedHolder> eternalReferencedHolders;
+    private final ThreadLocal<List<EternalReferencedHolder>> collectedEternalReferencedHolders = new ThreadLocal<List<EternalReferencedHolder>>();
     private SnapshotService snapshotService;
 
     public static boolean statEnable = false;
@@ -53,7 +60,7 @@ public class ExecutionPlanContext {
     private Map<String, EvalScript> scriptFunctionMap;
 
     public ExecutionPlanContext() {
-        this.eternalReferencedHolders = new ArrayList<EternalReferencedHolder>();
+        this.eternalReferencedHolders = Collections.synchronizedList(new ArrayList<EternalReferencedHolder>());
         this.scriptFunctionMap = new HashMap<String, EvalScript>();
     }
 
@@ -81,6 +88,17 @@ public class ExecutionPlanContext {
         this.parallel = parallel;
     }
 
+    /**
+     * @return default disruptor settings of the execution plan, null when they are not configured
+     */
+    public DisruptorConfig getDisruptorConfig() {
+        return disruptorConfig;
+    }
+
+    public void setDisruptorConfig(DisruptorConfig disruptorConfig) {
+        this.disruptorConfig = disruptorConfig;
+    }
+
     public boolean isPlayback() {
         return playback;
     }
@@ -105,8 +123,49 @@ public class ExecutionPlanContext {
         this.scheduledExecutorService = scheduledExecutorService;
     }
 
+    public TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    public void setTimerWheel(TimerWheel timerWheel) {
+        this.timerWheel = timerWheel;
+    }
+
     public void addEternalReferencedHolder(EternalReferencedHolder eternalReferencedHolder) {
         eternalReferencedHolders.add(eternalReferencedHolder);
+        List<EternalReferencedHolder> collected = collectedEternalReferencedHolders.get();
+        if (collected != null) {
+            collected.add(eternalReferencedHolder);
+        }
+    }
+
+    /**
+     * Adds the holder only to the EternalReferencedHolders being collected, for the elements of a partition
+     * instance that are to be stopped when the instance is purged, but need not be stopped with the execution plan
+     */
+    public void addCollectedEternalReferencedHolder(EternalReferencedHolder eternalReferencedHolder) {
+        List<EternalReferencedHolder> collected = collectedEternalReferencedHolders.get();
+        if (collected != null) {
+            collected.add(eternalReferencedHolder);
+        }
+    }
+
+    public void removeEternalReferencedHolders(Collection<EternalReferencedHolder> holders) {
+        eternalReferencedHolders.removeAll(new HashSet<EternalReferencedHolder>(holders));
+    }
+
+    /**
+     * Collects the EternalReferencedHolders added by the current thread till {@link #stopCollecting()} is called,
+     * used to find the elements created for a partition instance
+     */
+    public void startCollecting() {
+        collectedEternalReferencedHolders.set(new ArrayList<EternalReferencedHolder>());
+    }
+
+    public List<EternalReferencedHolder> stopCollecting() {
+        List<EternalReferencedHolder> collected = collectedEternalReferencedHolders.get();
+        collectedEternalReferencedHolders.remove();
+        return collected;
     }
 
     public List<EternalReferencedHolder> getEternalReferencedHolders() {
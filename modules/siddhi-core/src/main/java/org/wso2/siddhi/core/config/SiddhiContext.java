@@ -19,6 +19,8 @@ package org.wso2.siddhi.core.config;
 import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.SiddhiExtensionLoader;
 import org.wso2.siddhi.core.util.persistence.PersistenceStore;
+import org.wso2.siddhi.core.util.snapshot.BinaryStateCodec;
+import org.wso2.siddhi.core.util.snapshot.StateCodec;
 
 import javax.sql.DataSource;
 import java.util.Map;
@@ -29,6 +31,7 @@ public class SiddhiContext {
     private int eventBufferSize;
     private Map<String, Class> siddhiExtensions;
     private PersistenceStore persistenceStore = null;
+    private StateCodec stateCodec = new BinaryStateCodec();
     private ConcurrentHashMap<String, DataSource> siddhiDataSources;
 
     public SiddhiContext() {
@@ -61,6 +64,14 @@ public class SiddhiContext {
         this.persistenceStore = persistenceStore;
     }
 
+    public StateCodec getStateCodec() {
+        return stateCodec;
+    }
+
+    public void setStateCodec(StateCodec stateCodec) {
+        this.stateCodec = stateCodec;
+    }
+
     public DataSource getSiddhiDataSource(String dataSourceName) {
         if (dataSourceName != null) {
             return siddhiDataSources.get(dataSourceName);
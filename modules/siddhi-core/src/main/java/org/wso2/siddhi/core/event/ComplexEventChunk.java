@@ -15,6 +15,8 @@
  */
 package org.wso2.siddhi.core.event;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -211,6 +213,17 @@ public class ComplexEventChunk<E extends ComplexEvent> implements Iterator<E>, S
         }
     }
 
+    /**
+     * Events are serialized as a chain from the first event, hence the last event read separately is not part
+     * of the restored chain and is looked up again
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        last = first != null ? getLastEvent(first) : null;
+        previousToLastReturned = null;
+        lastReturned = null;
+    }
+
     @Override
     public String toString() {
         return "EventChunk{" +
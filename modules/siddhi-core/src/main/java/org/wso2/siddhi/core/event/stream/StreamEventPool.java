@@ -15,26 +15,48 @@
  */
 package org.wso2.siddhi.core.event.stream;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
- * Event pool containing StreamEvent for reuse
- * This is not a thread safe implementation
+ * Event pool containing StreamEvent for reuse, which can be shared by several threads.
+ * Each thread borrows from and returns to its own cache, the first thread using the pool reaches its cache without
+ * a ThreadLocal lookup. When more than one thread uses the pool, events returned to a full cache, or by a thread
+ * that does not borrow, are pushed to a lock-free overflow stack, from which a thread with an empty cache takes them
+ * all at once, so that events borrowed in one thread and returned in another are still reused.
+ * The capacity of a cache and of the overflow stack starts at the given size, it is doubled when more than an
+ * eighth of the borrows of an interval miss the pool, and halved when half of the cached events were not used
+ * during several intervals.
+ * The caches do not refer to the pool, so that the ThreadLocal entries of a pool no longer used can be collected
+ * with it, and {@link #discard()} drops them when the owner of the pool is removed.
  */
 public class StreamEventPool {
 
+    private static final int ADAPTATION_INTERVAL = 256;
+    private static final int SHRINK_INTERVALS = 16;
+    private static final int MAX_SIZE = 65536;
+
     private StreamEventFactory eventFactory;
-    private int size;
-    private int index = 0;
-    private StreamEvent streamEventList;
+    private final int initialSize;
+    private final int maxSize;
+    private volatile int size;
+    private volatile Cache ownerCache;
+    private volatile ThreadLocal<Cache> threadCache = new ThreadLocal<Cache>();
+    private final List<Cache> caches = new CopyOnWriteArrayList<Cache>();
+    private final AtomicReference<StreamEvent> overflowStack = new AtomicReference<StreamEvent>();
+    private final AtomicInteger overflowCount = new AtomicInteger();
 
     public StreamEventPool(MetaStreamEvent metaStreamEvent, int size) {
-        eventFactory = new StreamEventFactory(metaStreamEvent.getBeforeWindowData().size(),
-                metaStreamEvent.getOnAfterWindowData().size(),
-                metaStreamEvent.getOutputData().size());
-        this.size = size;
+        this(metaStreamEvent.getBeforeWindowData().size(), metaStreamEvent.getOnAfterWindowData().size(),
+                metaStreamEvent.getOutputData().size(), size);
     }
 
     public StreamEventPool(int beforeWindowDataSize, int onAfterWindowDataSize, int outputDataSize, int poolSize) {
         eventFactory = new StreamEventFactory(beforeWindowDataSize, onAfterWindowDataSize, outputDataSize);
+        this.initialSize = poolSize;
+        this.maxSize = Math.max(poolSize, MAX_SIZE);
         this.size = poolSize;
     }
 
@@ -44,15 +66,30 @@ public class StreamEventPool {
      * @return if StreamEvent exist in the pool an existing event if not a new StreamEvent will be returned
      */
     public StreamEvent borrowEvent() {
-        if (index > 0) {
-            StreamEvent event = streamEventList;
-            streamEventList = streamEventList.getNext();
+        Cache cache = getCache();
+        if (cache.count == 0 && overflowStack.get() != null) {
+            takeOverflow(cache);
+        }
+        StreamEvent event;
+        if (cache.count > 0) {
+            event = cache.first;
+            cache.first = event.getNext();
             event.setNext(null);
-            index--;
-            return event;
+            cache.count--;
+            cache.hitCount++;
+            if (cache.count < cache.lowWatermark) {
+                cache.lowWatermark = cache.count;
+            }
         } else {
-            return eventFactory.newInstance();
+            event = eventFactory.newInstance();
+            cache.missCount++;
+            cache.intervalMissCount++;
+            cache.lowWatermark = 0;
         }
+        if (++cache.intervalBorrowCount == ADAPTATION_INTERVAL) {
+            adapt(cache);
+        }
+        return event;
     }
 
     /**
@@ -63,29 +100,187 @@ public class StreamEventPool {
      */
     public void returnEvents(StreamEvent streamEvent) {
         if (streamEvent != null) {
-            if (index < size) {
-                StreamEvent first = streamEvent;
-                StreamEvent last = streamEvent;
-                while (streamEvent != null) {
-                    last = streamEvent;
-                    index++;
-                    streamEvent = streamEvent.getNext();
+            Cache cache = getCache();
+            int size = this.size;
+            boolean borrowing = cache.hitCount != 0 || cache.missCount != 0 || caches.size() == 1;
+            boolean toCache = cache.count < size && borrowing;
+            if (!toCache && (caches.size() == 1 || overflowCount.get() >= size)) {
+                return;
+            }
+            StreamEvent last = streamEvent;
+            int count = 1;
+            while (last.getNext() != null) {
+                last = last.getNext();
+                count++;
+            }
+            if (toCache) {
+                last.setNext(cache.first);
+                cache.first = streamEvent;
+                cache.count += count;
+            } else {
+                StreamEvent head;
+                do {
+                    head = overflowStack.get();
+                    last.setNext(head);
+                } while (!overflowStack.compareAndSet(head, streamEvent));
+                overflowCount.addAndGet(count);
+            }
+        }
+    }
+
+    private Cache getCache() {
+        Thread thread = Thread.currentThread();
+        //The owner's cache and its thread are published together, so a discard cannot be seen half done
+        Cache ownerCache = this.ownerCache;
+        if (ownerCache != null && ownerCache.thread == thread) {
+            return ownerCache;
+        }
+        if (ownerCache == null) {
+            synchronized (this) {
+                if (this.ownerCache == null) {
+                    ownerCache = newCache(thread);
+                    this.ownerCache = ownerCache;
+                    return ownerCache;
                 }
-                last.setNext(streamEventList);
-                streamEventList = first;
             }
         }
+        ThreadLocal<Cache> threadCache = this.threadCache;
+        Cache cache = threadCache.get();
+        if (cache == null) {
+            cache = newCache(thread);
+            threadCache.set(cache);
+        }
+        return cache;
+    }
+
+    private Cache newCache(Thread thread) {
+        Cache cache = new Cache(thread);
+        caches.add(cache);
+        return cache;
+    }
 
+    /**
+     * Takes all the events of the overflow stack to the cache, the stack is swapped out as a whole so that a
+     * concurrent push of a reused event cannot corrupt it
+     */
+    private void takeOverflow(Cache cache) {
+        StreamEvent taken = overflowStack.getAndSet(null);
+        int takenCount = 0;
+        while (taken != null) {
+            StreamEvent next = taken.getNext();
+            taken.setNext(cache.first);
+            cache.first = taken;
+            cache.count++;
+            takenCount++;
+            taken = next;
+        }
+        overflowCount.addAndGet(-takenCount);
+    }
+
+    /**
+     * Drops the pooled events and the caches of the threads, called once the pool is no longer used.
+     * The pool starts afresh if it is used again.
+     */
+    public synchronized void discard() {
+        threadCache = new ThreadLocal<Cache>();
+        ownerCache = null;
+        caches.clear();
+        overflowStack.set(null);
+        overflowCount.set(0);
+    }
+
+    private void adapt(Cache cache) {
+        int size = this.size;
+        cache.intervalBorrowCount = 0;
+        if (cache.intervalMissCount > ADAPTATION_INTERVAL >> 3) {
+            if (size < maxSize) {
+                this.size = Math.min(Math.max(size << 1, 1), maxSize);
+            }
+            cache.shrinkIntervalCount = 0;
+            cache.lowWatermark = cache.count;
+        } else if (++cache.shrinkIntervalCount == SHRINK_INTERVALS) {
+            if (cache.lowWatermark > size >> 1 && size > initialSize) {
+                size = Math.max(size >> 1, initialSize);
+                this.size = size;
+                cache.trim(size);
+            }
+            cache.shrinkIntervalCount = 0;
+            cache.lowWatermark = cache.count;
+        }
+        cache.intervalMissCount = 0;
     }
 
     /**
      * @return Occupied buffer size
      */
     public int getBufferedEventsSize() {
-        return index;
+        int bufferedEventsSize = overflowCount.get();
+        for (Cache cache : caches) {
+            bufferedEventsSize += cache.count;
+        }
+        return bufferedEventsSize;
     }
 
+    /**
+     * @return current capacity of the cache of a thread
+     */
     public int getSize() {
         return size;
     }
+
+    /**
+     * @return number of borrows served from the pool, approximate while the pool is in use by other threads
+     */
+    public long getHitCount() {
+        long hitCount = 0;
+        for (Cache cache : caches) {
+            hitCount += cache.hitCount;
+        }
+        return hitCount;
+    }
+
+    /**
+     * @return number of borrows that created a new StreamEvent, approximate while the pool is in use by other threads
+     */
+    public long getMissCount() {
+        long missCount = 0;
+        for (Cache cache : caches) {
+            missCount += cache.missCount;
+        }
+        return missCount;
+    }
+
+    /**
+     * Free events of a thread, only accessed by that thread
+     */
+    private static final class Cache {
+        private final Thread thread;
+        private StreamEvent first;
+        private int count;
+        private long hitCount;
+        private long missCount;
+        private int intervalBorrowCount;
+        private int intervalMissCount;
+        private int shrinkIntervalCount;
+        private int lowWatermark;
+
+        private Cache(Thread thread) {
+            this.thread = thread;
+        }
+
+        private void trim(int size) {
+            if (count > size) {
+                StreamEvent last = first;
+                for (int i = 1; i < size; i++) {
+                    last = last.getNext();
+                }
+                if (size == 0) {
+                    first = null;
+                } else {
+                    last.setNext(null);
+                }
+                count = size;
+            }
+        }
+    }
 }
@@ -96,6 +96,39 @@ public class ConversionStreamEventChunk extends ComplexEventChunk<StreamEvent> {
 
     }
 
+    /**
+     * Adds an event that is already in the StreamEvent layout by swapping its attribute arrays with a
+     * borrowed event, so the given event can be reused without copying its attributes
+     *
+     * @param streamEvent event to be taken over
+     */
+    public void swapAndAdd(StreamEvent streamEvent) {
+        StreamEvent borrowedEvent = streamEventPool.borrowEvent();
+
+        Object[] beforeWindowData = borrowedEvent.getBeforeWindowData();
+        borrowedEvent.setBeforeWindowData(streamEvent.getBeforeWindowData());
+        streamEvent.setBeforeWindowData(beforeWindowData);
+
+        Object[] onAfterWindowData = borrowedEvent.getOnAfterWindowData();
+        borrowedEvent.setOnAfterWindowData(streamEvent.getOnAfterWindowData());
+        streamEvent.setOnAfterWindowData(onAfterWindowData);
+
+        Object[] outputData = borrowedEvent.getOutputData();
+        borrowedEvent.setOutputData(streamEvent.getOutputData());
+        streamEvent.setOutputData(outputData);
+
+        borrowedEvent.setTimestamp(streamEvent.getTimestamp());
+        borrowedEvent.setType(streamEvent.getType());
+
+        if (first == null) {
+            first = borrowedEvent;
+            last = first;
+        } else {
+            last.setNext(borrowedEvent);
+            last = borrowedEvent;
+        }
+    }
+
     private StreamEvent convertAllStreamEvents(ComplexEvent complexEvents, StreamEvent firstEvent) {
         streamEventConverter.convertStreamEvent(complexEvents, firstEvent);
         StreamEvent currentEvent = firstEvent;
@@ -19,13 +19,26 @@ package org.wso2.siddhi.core.executor;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
-public class ConstantExpressionExecutor implements ExpressionExecutor {
+public class ConstantExpressionExecutor implements PrimitiveExpressionExecutor {
     private Object value;
     private Attribute.Type type;
+    private boolean primitive;
+    private int intValue;
+    private long longValue;
+    private float floatValue;
+    private double doubleValue;
 
     public ConstantExpressionExecutor(Object value, Attribute.Type type) {
         this.value = value;
         this.type = type;
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            primitive = true;
+            intValue = number.intValue();
+            longValue = number.longValue();
+            floatValue = number.floatValue();
+            doubleValue = number.doubleValue();
+        }
     }
 
     @Override
@@ -33,6 +46,36 @@ public class ConstantExpressionExecutor implements ExpressionExecutor {
         return value;
     }
 
+    @Override
+    public boolean isPrimitive() {
+        return primitive;
+    }
+
+    @Override
+    public boolean isNull(ComplexEvent event) {
+        return value == null;
+    }
+
+    @Override
+    public int executeInt(ComplexEvent event) {
+        return intValue;
+    }
+
+    @Override
+    public long executeLong(ComplexEvent event) {
+        return longValue;
+    }
+
+    @Override
+    public float executeFloat(ComplexEvent event) {
+        return floatValue;
+    }
+
+    @Override
+    public double executeDouble(ComplexEvent event) {
+        return doubleValue;
+    }
+
     public Attribute.Type getReturnType() {
         return type;
     }
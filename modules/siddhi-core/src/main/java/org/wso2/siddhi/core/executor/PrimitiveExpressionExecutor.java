@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.executor;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+
+/**
+ * Executor of a numeric expression that can be evaluated into a primitive, without boxing the attributes
+ * read from the event or the intermediate results. The typed methods are only to be used when
+ * {@link #isPrimitive()} is true and {@link #isNull(ComplexEvent)} is false for the event, and they narrow
+ * or widen the value the same way {@link Number} does.
+ */
+public interface PrimitiveExpressionExecutor extends ExpressionExecutor {
+
+    public boolean isPrimitive();
+
+    public boolean isNull(ComplexEvent event);
+
+    public int executeInt(ComplexEvent event);
+
+    public long executeLong(ComplexEvent event);
+
+    public float executeFloat(ComplexEvent event);
+
+    public double executeDouble(ComplexEvent event);
+
+}
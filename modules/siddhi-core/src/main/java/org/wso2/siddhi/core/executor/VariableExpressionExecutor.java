@@ -21,7 +21,7 @@ import org.wso2.siddhi.query.api.definition.Attribute;
 
 import static org.wso2.siddhi.core.util.SiddhiConstants.*;
 
-public class VariableExpressionExecutor implements ExpressionExecutor {
+public class VariableExpressionExecutor implements PrimitiveExpressionExecutor {
     private Attribute attribute;
     private int[] position = new int[]{UNKNOWN_STATE, UNKNOWN_STATE, UNKNOWN_STATE, UNKNOWN_STATE};
     //Position[stream event chain index, stream event index, stream attribute type index, stream attribute index]
@@ -38,6 +38,43 @@ public class VariableExpressionExecutor implements ExpressionExecutor {
         return event.getAttribute(position);
     }
 
+    @Override
+    public boolean isPrimitive() {
+        switch (attribute.getType()) {
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public boolean isNull(ComplexEvent event) {
+        return event.getAttribute(position) == null;
+    }
+
+    @Override
+    public int executeInt(ComplexEvent event) {
+        return ((Number) event.getAttribute(position)).intValue();
+    }
+
+    @Override
+    public long executeLong(ComplexEvent event) {
+        return ((Number) event.getAttribute(position)).longValue();
+    }
+
+    @Override
+    public float executeFloat(ComplexEvent event) {
+        return ((Number) event.getAttribute(position)).floatValue();
+    }
+
+    @Override
+    public double executeDouble(ComplexEvent event) {
+        return ((Number) event.getAttribute(position)).doubleValue();
+    }
 
     public Attribute.Type getReturnType() {
         return attribute.getType();
@@ -17,22 +17,46 @@ package org.wso2.siddhi.core.executor.condition.compare;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.PrimitiveExpressionExecutor;
 import org.wso2.siddhi.core.executor.condition.ConditionExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
 
 
 public abstract class CompareConditionExpressionExecutor extends ConditionExpressionExecutor {
 
     protected ExpressionExecutor leftExpressionExecutor;
     protected ExpressionExecutor rightExpressionExecutor;
+    private PrimitiveExpressionExecutor leftPrimitiveExecutor;
+    private PrimitiveExpressionExecutor rightPrimitiveExecutor;
+    //type both numeric operands are promoted to before comparison, null when they are not compared as primitives
+    private Attribute.Type primitiveType;
 
     public CompareConditionExpressionExecutor(ExpressionExecutor leftExpressionExecutor,
                                               ExpressionExecutor rightExpressionExecutor) {
         this.leftExpressionExecutor = leftExpressionExecutor;
         this.rightExpressionExecutor = rightExpressionExecutor;
+        if (isPrimitive(leftExpressionExecutor) && isPrimitive(rightExpressionExecutor)) {
+            leftPrimitiveExecutor = (PrimitiveExpressionExecutor) leftExpressionExecutor;
+            rightPrimitiveExecutor = (PrimitiveExpressionExecutor) rightExpressionExecutor;
+            primitiveType = promote(leftExpressionExecutor.getReturnType(), rightExpressionExecutor.getReturnType());
+        }
     }
 
 
     public Boolean execute(ComplexEvent event) {
+        if (primitiveType != null) {
+            if (leftPrimitiveExecutor.isNull(event) || rightPrimitiveExecutor.isNull(event)) {
+                return false;
+            }
+            switch (primitiveType) {
+                case LONG:
+                    return compare(leftPrimitiveExecutor.executeLong(event), rightPrimitiveExecutor.executeLong(event));
+                case FLOAT:
+                    return compare(leftPrimitiveExecutor.executeFloat(event), rightPrimitiveExecutor.executeFloat(event));
+                default:
+                    return compare(leftPrimitiveExecutor.executeDouble(event), rightPrimitiveExecutor.executeDouble(event));
+            }
+        }
         Object left = leftExpressionExecutor.execute(event);
         Object right = rightExpressionExecutor.execute(event);
         return !(left == null || right == null) && execute(left, right);
@@ -40,4 +64,33 @@ public abstract class CompareConditionExpressionExecutor extends ConditionExpres
 
     protected abstract Boolean execute(Object left, Object right);
 
+    protected abstract boolean compare(long left, long right);
+
+    protected abstract boolean compare(float left, float right);
+
+    protected abstract boolean compare(double left, double right);
+
+    /**
+     * Type numeric operands are compared in, following the binary numeric promotion of Java, which the typed
+     * executors comparing the boxed values rely on.
+     *
+     * @param leftType  return type of the left operand
+     * @param rightType return type of the right operand
+     * @return LONG, FLOAT or DOUBLE
+     */
+    protected Attribute.Type promote(Attribute.Type leftType, Attribute.Type rightType) {
+        if (leftType == Attribute.Type.DOUBLE || rightType == Attribute.Type.DOUBLE) {
+            return Attribute.Type.DOUBLE;
+        } else if (leftType == Attribute.Type.FLOAT || rightType == Attribute.Type.FLOAT) {
+            return Attribute.Type.FLOAT;
+        } else {
+            return Attribute.Type.LONG;
+        }
+    }
+
+    private static boolean isPrimitive(ExpressionExecutor expressionExecutor) {
+        return expressionExecutor instanceof PrimitiveExpressionExecutor &&
+                ((PrimitiveExpressionExecutor) expressionExecutor).isPrimitive();
+    }
+
 }
@@ -24,4 +24,19 @@ public abstract class LessThanEqualCompareConditionExpressionExecutor extends Co
                                                            ExpressionExecutor rightExpressionExecutor) {
         super(leftExpressionExecutor, rightExpressionExecutor);
     }
+
+    @Override
+    protected boolean compare(long left, long right) {
+        return left <= right;
+    }
+
+    @Override
+    protected boolean compare(float left, float right) {
+        return left <= right;
+    }
+
+    @Override
+    protected boolean compare(double left, double right) {
+        return left <= right;
+    }
 }
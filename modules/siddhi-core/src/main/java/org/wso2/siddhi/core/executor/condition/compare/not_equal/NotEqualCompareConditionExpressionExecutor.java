@@ -17,6 +17,7 @@ package org.wso2.siddhi.core.executor.condition.compare.not_equal;
 
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.condition.compare.CompareConditionExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
 
 public abstract class NotEqualCompareConditionExpressionExecutor extends CompareConditionExpressionExecutor {
 
@@ -24,4 +25,29 @@ public abstract class NotEqualCompareConditionExpressionExecutor extends Compare
                                                       ExpressionExecutor rightExpressionExecutor) {
         super(leftExpressionExecutor, rightExpressionExecutor);
     }
+
+    @Override
+    protected boolean compare(long left, long right) {
+        return left != right;
+    }
+
+    @Override
+    protected boolean compare(float left, float right) {
+        return left != right;
+    }
+
+    @Override
+    protected boolean compare(double left, double right) {
+        return left != right;
+    }
+
+    @Override
+    protected Attribute.Type promote(Attribute.Type leftType, Attribute.Type rightType) {
+        if ((leftType == Attribute.Type.LONG && rightType == Attribute.Type.FLOAT) ||
+                (leftType == Attribute.Type.FLOAT && rightType == Attribute.Type.LONG)) {
+            //long and float are checked for equality as doubles
+            return Attribute.Type.DOUBLE;
+        }
+        return super.promote(leftType, rightType);
+    }
 }
@@ -17,21 +17,29 @@ package org.wso2.siddhi.core.executor.math.divide;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
-public class DivideExpressionExecutorFloat implements ExpressionExecutor {
-    private ExpressionExecutor leftExpressionExecutor;
-    private ExpressionExecutor rightExpressionExecutor;
+public class DivideExpressionExecutorFloat extends MathExpressionExecutor {
 
+    /**
+     * Divisor of the event, evaluated once by {@link #isNull(ComplexEvent)} which precedes the typed methods
+     */
+    private float divisor;
 
     public DivideExpressionExecutorFloat(ExpressionExecutor leftExpressionExecutor,
                                          ExpressionExecutor rightExpressionExecutor) {
-        this.leftExpressionExecutor = leftExpressionExecutor;
-        this.rightExpressionExecutor = rightExpressionExecutor;
+        super(leftExpressionExecutor, rightExpressionExecutor);
     }
 
     @Override
     public Object execute(ComplexEvent event) {
+        if (leftPrimitiveExecutor != null) {
+            if (isNull(event)) {
+                return null;
+            }
+            return executeFloat(event);
+        }
         Object leftObject = leftExpressionExecutor.execute(event);
         Object rightObject = rightExpressionExecutor.execute(event);
         if (leftObject == null || rightObject == null) {
@@ -41,7 +49,36 @@ public class DivideExpressionExecutorFloat implements ExpressionExecutor {
         if (right == 0.0f) {
             return null;
         }
-        return ((Number) leftExpressionExecutor.execute(event)).floatValue() / right;
+        return ((Number) leftObject).floatValue() / right;
+    }
+
+    @Override
+    public boolean isNull(ComplexEvent event) {
+        if (super.isNull(event)) {
+            return true;
+        }
+        divisor = rightPrimitiveExecutor.executeFloat(event);
+        return divisor == 0.0f;
+    }
+
+    @Override
+    public int executeInt(ComplexEvent event) {
+        return (int) executeFloat(event);
+    }
+
+    @Override
+    public long executeLong(ComplexEvent event) {
+        return (long) executeFloat(event);
+    }
+
+    @Override
+    public float executeFloat(ComplexEvent event) {
+        return leftPrimitiveExecutor.executeFloat(event) / divisor;
+    }
+
+    @Override
+    public double executeDouble(ComplexEvent event) {
+        return executeFloat(event);
     }
 
     public Attribute.Type getReturnType() {
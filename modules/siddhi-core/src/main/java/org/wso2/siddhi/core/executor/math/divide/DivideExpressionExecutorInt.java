@@ -17,21 +17,29 @@ package org.wso2.siddhi.core.executor.math.divide;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
-public class DivideExpressionExecutorInt implements ExpressionExecutor {
-    private ExpressionExecutor leftExpressionExecutor;
-    private ExpressionExecutor rightExpressionExecutor;
+public class DivideExpressionExecutorInt extends MathExpressionExecutor {
 
+    /**
+     * Divisor of the event, evaluated once by {@link #isNull(ComplexEvent)} which precedes the typed methods
+     */
+    private int divisor;
 
     public DivideExpressionExecutorInt(ExpressionExecutor leftExpressionExecutor,
                                        ExpressionExecutor rightExpressionExecutor) {
-        this.leftExpressionExecutor = leftExpressionExecutor;
-        this.rightExpressionExecutor = rightExpressionExecutor;
+        super(leftExpressionExecutor, rightExpressionExecutor);
     }
 
     @Override
     public Object execute(ComplexEvent event) {
+        if (leftPrimitiveExecutor != null) {
+            if (isNull(event)) {
+                return null;
+            }
+            return executeInt(event);
+        }
         Object leftObject = leftExpressionExecutor.execute(event);
         Object rightObject = rightExpressionExecutor.execute(event);
         if (leftObject == null || rightObject == null) {
@@ -41,7 +49,36 @@ public class DivideExpressionExecutorInt implements ExpressionExecutor {
         if (right == 0) {
             return null;
         }
-        return  ((Number) leftExpressionExecutor.execute(event)).intValue() / right;
+        return ((Number) leftObject).intValue() / right;
+    }
+
+    @Override
+    public boolean isNull(ComplexEvent event) {
+        if (super.isNull(event)) {
+            return true;
+        }
+        divisor = rightPrimitiveExecutor.executeInt(event);
+        return divisor == 0;
+    }
+
+    @Override
+    public int executeInt(ComplexEvent event) {
+        return leftPrimitiveExecutor.executeInt(event) / divisor;
+    }
+
+    @Override
+    public long executeLong(ComplexEvent event) {
+        return executeInt(event);
+    }
+
+    @Override
+    public float executeFloat(ComplexEvent event) {
+        return executeInt(event);
+    }
+
+    @Override
+    public double executeDouble(ComplexEvent event) {
+        return executeInt(event);
     }
 
     public Attribute.Type getReturnType() {
@@ -17,21 +17,29 @@ package org.wso2.siddhi.core.executor.math.divide;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
-public class DivideExpressionExecutorLong implements ExpressionExecutor {
-    private ExpressionExecutor leftExpressionExecutor;
-    private ExpressionExecutor rightExpressionExecutor;
+public class DivideExpressionExecutorLong extends MathExpressionExecutor {
 
+    /**
+     * Divisor of the event, evaluated once by {@link #isNull(ComplexEvent)} which precedes the typed methods
+     */
+    private long divisor;
 
     public DivideExpressionExecutorLong(ExpressionExecutor leftExpressionExecutor,
                                         ExpressionExecutor rightExpressionExecutor) {
-        this.leftExpressionExecutor = leftExpressionExecutor;
-        this.rightExpressionExecutor = rightExpressionExecutor;
+        super(leftExpressionExecutor, rightExpressionExecutor);
     }
 
     @Override
     public Object execute(ComplexEvent event) {
+        if (leftPrimitiveExecutor != null) {
+            if (isNull(event)) {
+                return null;
+            }
+            return executeLong(event);
+        }
         Object leftObject = leftExpressionExecutor.execute(event);
         Object rightObject = rightExpressionExecutor.execute(event);
         if (leftObject == null || rightObject == null) {
@@ -41,7 +49,36 @@ public class DivideExpressionExecutorLong implements ExpressionExecutor {
         if (right == 0l) {
             return null;
         }
-        return ((Number) leftExpressionExecutor.execute(event)).longValue() / right;
+        return ((Number) leftObject).longValue() / right;
+    }
+
+    @Override
+    public boolean isNull(ComplexEvent event) {
+        if (super.isNull(event)) {
+            return true;
+        }
+        divisor = rightPrimitiveExecutor.executeLong(event);
+        return divisor == 0l;
+    }
+
+    @Override
+    public int executeInt(ComplexEvent event) {
+        return (int) executeLong(event);
+    }
+
+    @Override
+    public long executeLong(ComplexEvent event) {
+        return leftPrimitiveExecutor.executeLong(event) / divisor;
+    }
+
+    @Override
+    public float executeFloat(ComplexEvent event) {
+        return executeLong(event);
+    }
+
+    @Override
+    public double executeDouble(ComplexEvent event) {
+        return executeLong(event);
     }
 
     public Attribute.Type getReturnType() {
@@ -16,26 +16,61 @@
 package org.wso2.siddhi.core.partition;
 
 import org.wso2.siddhi.core.query.QueryRuntime;
+import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
+import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 
+import java.util.Collections;
 import java.util.List;
 
 public class PartitionInstanceRuntime {
-    private String key;
+    private Object key;
     private List<QueryRuntime> queryRuntimeList;
+    private List<Snapshotable> snapshotables = Collections.emptyList();
+    private List<EternalReferencedHolder> eternalReferencedHolders = Collections.emptyList();
+    private volatile long lastAccessTime;
 
-    public PartitionInstanceRuntime(String key, List<QueryRuntime> queryRuntimeList) {
+    public PartitionInstanceRuntime(Object key, List<QueryRuntime> queryRuntimeList) {
         this.key = key;
         this.queryRuntimeList = queryRuntimeList;
     }
 
+    /**
+     * @param key                      partition key
+     * @param queryRuntimeList         queries cloned for the key
+     * @param snapshotables            Snapshotables created for the key, in the order they are created
+     * @param eternalReferencedHolders EternalReferencedHolders created for the key
+     */
+    public PartitionInstanceRuntime(Object key, List<QueryRuntime> queryRuntimeList, List<Snapshotable> snapshotables,
+                                    List<EternalReferencedHolder> eternalReferencedHolders) {
+        this(key, queryRuntimeList);
+        this.snapshotables = snapshotables;
+        this.eternalReferencedHolders = eternalReferencedHolders;
+    }
+
     public List<QueryRuntime> getQueryRuntimeList() {
         return queryRuntimeList;
     }
 
-    public String getKey() {
+    public Object getKey() {
         return key;
     }
 
+    public List<Snapshotable> getSnapshotables() {
+        return snapshotables;
+    }
+
+    public List<EternalReferencedHolder> getEternalReferencedHolders() {
+        return eternalReferencedHolders;
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    public void setLastAccessTime(long lastAccessTime) {
+        this.lastAccessTime = lastAccessTime;
+    }
+
 }
 
 
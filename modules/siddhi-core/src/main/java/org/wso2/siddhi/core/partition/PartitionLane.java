@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.partition;
+
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import org.wso2.siddhi.core.config.DisruptorConfig;
+import org.wso2.siddhi.core.event.ComplexEvent;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Ring buffer and thread processing the events of the partition keys hashed onto it, so that the instances of
+ * a partition run on several cores while the events of each key are processed in the order they arrived.
+ */
+public class PartitionLane {
+
+    private final int index;
+    private final int bufferSize;
+    private final Disruptor<LaneEvent> disruptor;
+    private RingBuffer<LaneEvent> ringBuffer;
+
+    public PartitionLane(int index, DisruptorConfig disruptorConfig, ExecutorService executorService) {
+        this.index = index;
+        this.bufferSize = disruptorConfig.getBufferSize();
+        disruptor = disruptorConfig.createDisruptor(new LaneEventFactory(), executorService);
+        disruptor.handleEventsWith(new LaneEventHandler());
+    }
+
+    /**
+     * @param key       partition key
+     * @param laneCount number of lanes of the partition
+     * @return index of the lane the key is processed on
+     */
+    public static int indexOf(Object key, int laneCount) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % laneCount;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public synchronized void start() {
+        ringBuffer = disruptor.start();
+    }
+
+    public synchronized void stop() {
+        disruptor.shutdown();
+    }
+
+    /**
+     * Copy the event chain to the ring, claiming at most the ring size of sequences at once
+     *
+     * @param receiver     receiver the events arrived at
+     * @param key          partition key of the events, null when they are sent to all the keys of the lane
+     * @param complexEvent head of the event chain
+     */
+    public void publish(PartitionStreamReceiver receiver, Object key, ComplexEvent complexEvent) {
+        while (complexEvent != null) {
+            int batchSize = 1;
+            for (ComplexEvent nextEvent = complexEvent.getNext(); nextEvent != null && batchSize < bufferSize;
+                 nextEvent = nextEvent.getNext()) {
+                batchSize++;
+            }
+            long hi = ringBuffer.next(batchSize);
+            long lo = hi - (batchSize - 1);
+            try {
+                for (long sequenceNo = lo; sequenceNo <= hi; sequenceNo++) {
+                    ringBuffer.get(sequenceNo).copyFrom(receiver, key, complexEvent);
+                    complexEvent = complexEvent.getNext();
+                }
+            } finally {
+                ringBuffer.publish(lo, hi);
+            }
+        }
+    }
+
+    /**
+     * Slot of the lane's ring
+     */
+    public static class LaneEvent {
+
+        private PartitionStreamReceiver receiver;
+        private Object key;
+        private long timestamp;
+        private ComplexEvent.Type type;
+        private Object[] data;
+
+        private void copyFrom(PartitionStreamReceiver receiver, Object key, ComplexEvent complexEvent) {
+            Object[] outputData = complexEvent.getOutputData();
+            if (data == null || data.length != outputData.length) {
+                data = new Object[outputData.length];
+            }
+            System.arraycopy(outputData, 0, data, 0, outputData.length);
+            this.receiver = receiver;
+            this.key = key;
+            this.timestamp = complexEvent.getTimestamp();
+            this.type = complexEvent.getType();
+        }
+    }
+
+    private static class LaneEventFactory implements EventFactory<LaneEvent> {
+
+        @Override
+        public LaneEvent newInstance() {
+            return new LaneEvent();
+        }
+    }
+
+    private class LaneEventHandler implements EventHandler<LaneEvent> {
+
+        @Override
+        public void onEvent(LaneEvent laneEvent, long sequence, boolean endOfBatch) {
+            laneEvent.receiver.receive(laneEvent.key, laneEvent.timestamp, laneEvent.type, laneEvent.data, index);
+        }
+    }
+}
@@ -15,21 +15,33 @@
  */
 package org.wso2.siddhi.core.partition;
 
+import com.lmax.disruptor.dsl.ProducerType;
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.DisruptorConfig;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.event.state.MetaStateEvent;
 import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
+import org.wso2.siddhi.core.exception.ExecutionPlanCreationException;
+import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.partition.executor.PartitionExecutor;
+import org.wso2.siddhi.core.partition.executor.ValuePartitionExecutor;
 import org.wso2.siddhi.core.query.QueryRuntime;
 import org.wso2.siddhi.core.query.input.stream.join.JoinStreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.StateStreamRuntime;
 import org.wso2.siddhi.core.query.output.callback.InsertIntoStreamCallback;
 import org.wso2.siddhi.core.stream.StreamJunction;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
+import org.wso2.siddhi.core.util.parser.DisruptorConfigParser;
+import org.wso2.siddhi.core.util.parser.helper.AnnotationParserHelper;
 import org.wso2.siddhi.core.util.parser.helper.DefinitionParserHelper;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+import org.wso2.siddhi.query.api.annotation.Annotation;
 import org.wso2.siddhi.query.api.annotation.Element;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
+import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
 import org.wso2.siddhi.query.api.exception.DuplicateAnnotationException;
 import org.wso2.siddhi.query.api.execution.partition.Partition;
@@ -42,13 +54,24 @@ import org.wso2.siddhi.query.api.execution.query.output.stream.InsertIntoStream;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class PartitionRuntime implements Snapshotable {
+public class PartitionRuntime implements Snapshotable, EternalReferencedHolder {
+
+    private static final Logger log = Logger.getLogger(PartitionRuntime.class);
+    private static final long DEFAULT_PURGE_INTERVAL = 1000;
 
 
     private String partitionId;
@@ -59,9 +82,21 @@ public class PartitionRuntime implements Snapshotable {
     private ConcurrentMap<String, AbstractDefinition> streamDefinitionMap;
     private ConcurrentMap<String, StreamJunction> streamJunctionMap;
     private ConcurrentMap<String, QueryRuntime> metaQueryRuntimeMap = new ConcurrentHashMap<String, QueryRuntime>();
-    private List<PartitionInstanceRuntime> partitionInstanceRuntimeList = new ArrayList<PartitionInstanceRuntime>();
+    private ConcurrentMap<Object, PartitionInstanceRuntime> partitionInstanceRuntimeMap = new ConcurrentHashMap<Object, PartitionInstanceRuntime>();
+    private ConcurrentMap<Object, Object> partitionCreationLocks = new ConcurrentHashMap<Object, Object>();
     private ConcurrentMap<String, PartitionStreamReceiver> partitionStreamReceivers = new ConcurrentHashMap<String, PartitionStreamReceiver>();
     private ExecutionPlanContext executionPlanContext;
+    private long idlePeriod;
+    private long maxInstances;
+    private long purgeInterval;
+    private long spillPeriod;
+    private PartitionSpillStore spillStore;
+    private ReadWriteLock purgeLock;
+    private ScheduledFuture purgeFuture;
+    private PartitionLane[] lanes;
+    private List<ValuePartitionExecutor> valuePartitionExecutors = new ArrayList<ValuePartitionExecutor>();
+    private Attribute.Type keyType;
+    private boolean stringKeys;
 
     public PartitionRuntime(ConcurrentMap<String, AbstractDefinition> streamDefinitionMap,ConcurrentMap<String, StreamJunction> streamJunctionMap, Partition partition, ExecutionPlanContext executionPlanContext) {
         this.executionPlanContext = executionPlanContext;
@@ -80,6 +115,51 @@ public class PartitionRuntime implements Snapshotable {
         this.partition = partition;
         this.streamDefinitionMap = streamDefinitionMap;
         this.streamJunctionMap = streamJunctionMap;
+
+        Annotation purgeAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PURGE, partition.getAnnotations());
+        if (purgeAnnotation != null) {
+            idlePeriod = AnnotationParserHelper.parseNonNegativeLong(purgeAnnotation,
+                    SiddhiConstants.ANNOTATION_ELEMENT_IDLE_PERIOD);
+            maxInstances = AnnotationParserHelper.parseNonNegativeLong(purgeAnnotation,
+                    SiddhiConstants.ANNOTATION_ELEMENT_MAX_INSTANCES);
+            purgeInterval = AnnotationParserHelper.parseNonNegativeLong(purgeAnnotation,
+                    SiddhiConstants.ANNOTATION_ELEMENT_INTERVAL);
+            spillPeriod = AnnotationParserHelper.parseNonNegativeLong(purgeAnnotation,
+                    SiddhiConstants.ANNOTATION_ELEMENT_SPILL_PERIOD);
+            if (idlePeriod == 0 && maxInstances == 0) {
+                throw new ExecutionPlanCreationException("@" + purgeAnnotation.getName() + " of partition '" + partitionId +
+                        "' should define " + SiddhiConstants.ANNOTATION_ELEMENT_IDLE_PERIOD + " or " +
+                        SiddhiConstants.ANNOTATION_ELEMENT_MAX_INSTANCES);
+            }
+            if (purgeInterval == 0) {
+                purgeInterval = DEFAULT_PURGE_INTERVAL;
+            }
+            spillStore = new PartitionSpillStore(executionPlanContext.getName() + "-" + partitionId);
+            purgeLock = new ReentrantReadWriteLock();
+        }
+
+        Annotation parallelAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PARALLEL, partition.getAnnotations());
+        if (parallelAnnotation != null) {
+            DisruptorConfig defaultDisruptorConfig = executionPlanContext.getDisruptorConfig();
+            if (defaultDisruptorConfig == null) {
+                defaultDisruptorConfig = new DisruptorConfig(executionPlanContext.getSiddhiContext().getEventBufferSize());
+            }
+            DisruptorConfig laneDisruptorConfig = DisruptorConfigParser.parse(parallelAnnotation, defaultDisruptorConfig)
+                    .resolve(ProducerType.MULTI);
+            int workers = laneDisruptorConfig.getWorkers();
+            if (!executionPlanContext.isParallel()) {
+                log.warn("Partition " + partitionId + " is configured with " + workers + " workers but its execution plan " +
+                        "is not parallel, hence processing it on the threads delivering the events");
+            } else if (workers > 1) {
+                lanes = new PartitionLane[workers];
+                for (int i = 0; i < workers; i++) {
+                    lanes[i] = new PartitionLane(i, laneDisruptorConfig, executionPlanContext.getExecutorService());
+                }
+            }
+        }
+        if (spillStore != null || lanes != null) {
+            executionPlanContext.addEternalReferencedHolder(this);
+        }
     }
 
     public QueryRuntime addQuery(QueryRuntime metaQueryRuntime) {
@@ -115,6 +195,9 @@ public class PartitionRuntime implements Snapshotable {
                             executionPlanContext.getSiddhiContext().getEventBufferSize(), executionPlanContext);
                     streamJunctionMap.putIfAbsent(id, outputStreamJunction);
                 }
+                if (lanes != null) {
+                    streamJunctionMap.get(id).setConcurrentlyPublished();
+                }
                 insertIntoStreamCallback.init(streamJunctionMap.get(id));
             }
         }
@@ -165,6 +248,36 @@ public class PartitionRuntime implements Snapshotable {
                     (StreamDefinition) streamDefinitionMap.get(streamId), partitionExecutors, this);
             partitionStreamReceivers.put(partitionStreamReceiver.getStreamId(), partitionStreamReceiver);
             streamJunctionMap.get(partitionStreamReceiver.getStreamId()).subscribe(partitionStreamReceiver);
+            for (PartitionExecutor partitionExecutor : partitionExecutors) {
+                addPartitionExecutor(partitionExecutor);
+            }
+        }
+    }
+
+    /**
+     * Keys are the typed values of the partition expressions, when the streams are partitioned by values of
+     * different types all the keys are converted to strings so that equal values still fall into the same partition
+     *
+     * @param partitionExecutor executor of a partitioned stream
+     */
+    private void addPartitionExecutor(PartitionExecutor partitionExecutor) {
+        Attribute.Type type = Attribute.Type.STRING;
+        if (partitionExecutor instanceof ValuePartitionExecutor) {
+            ValuePartitionExecutor valuePartitionExecutor = (ValuePartitionExecutor) partitionExecutor;
+            valuePartitionExecutors.add(valuePartitionExecutor);
+            type = valuePartitionExecutor.getKeyType();
+        }
+        if (keyType == null) {
+            keyType = type;
+        } else if (keyType != type && !stringKeys) {
+            stringKeys = true;
+            log.warn("Streams of partition " + partitionId + " are partitioned by values of different types, hence " +
+                    "using their string forms as the partition keys");
+        }
+        if (stringKeys) {
+            for (ValuePartitionExecutor valuePartitionExecutor : valuePartitionExecutors) {
+                valuePartitionExecutor.setStringKeys(true);
+            }
         }
     }
 
@@ -174,70 +287,307 @@ public class PartitionRuntime implements Snapshotable {
      *
      * @param key partition key
      */
-    public void cloneIfNotExist(String key) {
-        PartitionInstanceRuntime partitionInstance = this.getPartitionInstanceRuntime(key);
-        if (partitionInstance == null) {
+    public void cloneIfNotExist(Object key) {
+        if (!partitionInstanceRuntimeMap.containsKey(key)) {
             clonePartition(key);
         }
     }
 
-    private synchronized void clonePartition(String key) {
-        PartitionInstanceRuntime partitionInstance = this.getPartitionInstanceRuntime(key);
+    public boolean isPurgingEnabled() {
+        return purgeLock != null;
+    }
 
-        if (partitionInstance == null) {
-            List<QueryRuntime> queryRuntimeList = new ArrayList<QueryRuntime>();
-            List<QueryRuntime> partitionedQueryRuntimeList = new CopyOnWriteArrayList<QueryRuntime>();
+    /**
+     * Held while routing events to partition instances when purging is enabled, hence instances are not purged
+     * while they process events
+     *
+     * @return lock shared by the routing threads
+     */
+    public Lock getRoutingLock() {
+        return purgeLock.readLock();
+    }
 
-            for (QueryRuntime queryRuntime : metaQueryRuntimeMap.values()) {
+    /**
+     * clone the queries of the partition for the given key if they are not available, restoring their state if
+     * they have been purged, and mark the partition instance as used
+     *
+     * @param key partition key
+     */
+    public void access(Object key) {
+        PartitionInstanceRuntime partitionInstance = partitionInstanceRuntimeMap.get(key);
+        if (partitionInstance == null) {
+            clonePartition(key);
+            partitionInstance = partitionInstanceRuntimeMap.get(key);
+        }
+        partitionInstance.setLastAccessTime(executionPlanContext.getTimestampGenerator().currentTime());
+    }
 
-                QueryRuntime clonedQueryRuntime = queryRuntime.clone(key, localStreamJunctionMap);
-                queryRuntimeList.add(clonedQueryRuntime);
+    /**
+     * Partitions of different keys are created concurrently, only the creation of the same key is serialized.
+     * The partition instance is published last, hence once it's visible its stream junctions are in place.
+     *
+     * @param key partition key
+     */
+    private void clonePartition(Object key) {
+        Object lock = new Object();
+        Object existingLock = partitionCreationLocks.putIfAbsent(key, lock);
+        if (existingLock != null) {
+            lock = existingLock;
+        }
+        try {
+            synchronized (lock) {
+                if (!partitionInstanceRuntimeMap.containsKey(key)) {
+                    List<QueryRuntime> queryRuntimeList = new ArrayList<QueryRuntime>();
+                    List<QueryRuntime> partitionedQueryRuntimeList = new CopyOnWriteArrayList<QueryRuntime>();
+
+                    List<Snapshotable> snapshotables;
+                    List<EternalReferencedHolder> eternalReferencedHolders;
+                    executionPlanContext.getSnapshotService().startCollecting();
+                    executionPlanContext.startCollecting();
+                    try {
+                        for (QueryRuntime queryRuntime : metaQueryRuntimeMap.values()) {
+                            queryRuntimeList.add(queryRuntime.clone(key.toString(), localStreamJunctionMap));
+                        }
+                    } finally {
+                        snapshotables = executionPlanContext.getSnapshotService().stopCollecting();
+                        eternalReferencedHolders = executionPlanContext.stopCollecting();
+                    }
 
-                if (queryRuntime.isFromLocalStream()) {
-                    for (int i = 0; i < clonedQueryRuntime.getStreamRuntime().getSingleStreamRuntimes().size(); i++) {
-                        String streamId = queryRuntime.getStreamRuntime().getSingleStreamRuntimes().get(i).getProcessStreamReceiver().getStreamId();
-                        StreamDefinition streamDefinition;
-                        if (streamId.startsWith("#")) {
-                            streamDefinition = (StreamDefinition) localStreamDefinitionMap.get(streamId);
+                    int queryIndex = 0;
+                    for (QueryRuntime queryRuntime : metaQueryRuntimeMap.values()) {
+
+                        QueryRuntime clonedQueryRuntime = queryRuntimeList.get(queryIndex++);
+
+                        if (queryRuntime.isFromLocalStream()) {
+                            for (int i = 0; i < clonedQueryRuntime.getStreamRuntime().getSingleStreamRuntimes().size(); i++) {
+                                String streamId = queryRuntime.getStreamRuntime().getSingleStreamRuntimes().get(i).getProcessStreamReceiver().getStreamId();
+                                StreamDefinition streamDefinition;
+                                if (streamId.startsWith("#")) {
+                                    streamDefinition = (StreamDefinition) localStreamDefinitionMap.get(streamId);
+                                } else {
+                                    streamDefinition = (StreamDefinition) streamDefinitionMap.get(streamId);
+                                }
+                                StreamJunction streamJunction = localStreamJunctionMap.get(streamId + key);
+                                if (streamJunction == null) {
+                                    streamJunction = new StreamJunction(streamDefinition, executionPlanContext.getExecutorService(),
+                                            executionPlanContext.getSiddhiContext().getEventBufferSize(), executionPlanContext);
+                                    localStreamJunctionMap.put(streamId + key, streamJunction);
+                                }
+                                streamJunction.subscribe(clonedQueryRuntime.getStreamRuntime().getSingleStreamRuntimes().get(i).getProcessStreamReceiver());
+                            }
                         } else {
-                            streamDefinition = (StreamDefinition) streamDefinitionMap.get(streamId);
+                            partitionedQueryRuntimeList.add(clonedQueryRuntime);
                         }
-                        StreamJunction streamJunction = localStreamJunctionMap.get(streamId + key);
-                        if (streamJunction == null) {
-                            streamJunction = new StreamJunction(streamDefinition, executionPlanContext.getExecutorService(),
-                                    executionPlanContext.getSiddhiContext().getEventBufferSize(), executionPlanContext);
-                            localStreamJunctionMap.put(streamId + key, streamJunction);
+                    }
+                    updatePartitionStreamReceivers(key, partitionedQueryRuntimeList);
+                    if (spillStore != null) {
+                        byte[] spilledState = spillStore.load(key);
+                        if (spilledState != null) {
+                            restorePartitionState(key, snapshotables, spilledState);
                         }
-                        streamJunction.subscribe(clonedQueryRuntime.getStreamRuntime().getSingleStreamRuntimes().get(i).getProcessStreamReceiver());
                     }
+                    PartitionInstanceRuntime partitionInstance = new PartitionInstanceRuntime(key, queryRuntimeList,
+                            snapshotables, eternalReferencedHolders);
+                    partitionInstance.setLastAccessTime(executionPlanContext.getTimestampGenerator().currentTime());
+                    addPartitionInstance(partitionInstance);
+                }
+            }
+        } finally {
+            partitionCreationLocks.remove(key, lock);
+        }
+    }
+
+    private void restorePartitionState(Object key, List<Snapshotable> snapshotables, byte[] spilledState) {
+        List<Object[]> states;
+        try {
+            states = (List<Object[]>) executionPlanContext.getSiddhiContext().getStateCodec().decode(spilledState);
+        } catch (ExecutionPlanRuntimeException e) {
+            log.error(e.getMessage(), e);
+            states = null;
+        }
+        if (states == null || states.size() != snapshotables.size()) {
+            log.error("Cannot restore the purged state of partition '" + key + "' of " + partitionId +
+                    ", hence starting it afresh");
+            return;
+        }
+        for (int i = 0; i < states.size(); i++) {
+            snapshotables.get(i).restoreState(states.get(i));
+        }
+    }
+
+    /**
+     * Purges the partition instances idle for the idle period and the least recently used ones exceeding the
+     * maximum number of instances, spilling their state to be restored when an event arrives for their key.
+     * Spilled states are dropped once kept for the spill period, when one is given.
+     * The shared lock is taken before the routing lock, the order the routing threads take them.
+     */
+    public void purge() {
+        long currentTime = executionPlanContext.getTimestampGenerator().currentTime();
+        Lock sharedLock = executionPlanContext.getSharedLock();
+        if (sharedLock != null) {
+            sharedLock.lock();
+        }
+        purgeLock.writeLock().lock();
+        try {
+            if (spillPeriod > 0) {
+                int expired = spillStore.expire(currentTime - spillPeriod);
+                if (expired > 0 && log.isDebugEnabled()) {
+                    log.debug("Dropped the spilled states of " + expired + " partitions of " + partitionId);
+                }
+            }
+            List<PartitionInstanceRuntime> purgingInstances = new ArrayList<PartitionInstanceRuntime>();
+            List<PartitionInstanceRuntime> activeInstances = new ArrayList<PartitionInstanceRuntime>();
+            for (PartitionInstanceRuntime partitionInstance : partitionInstanceRuntimeMap.values()) {
+                if (idlePeriod > 0 && currentTime - partitionInstance.getLastAccessTime() >= idlePeriod) {
+                    purgingInstances.add(partitionInstance);
                 } else {
-                    partitionedQueryRuntimeList.add(clonedQueryRuntime);
+                    activeInstances.add(partitionInstance);
+                }
+            }
+            if (maxInstances > 0 && activeInstances.size() > maxInstances) {
+                Collections.sort(activeInstances, new Comparator<PartitionInstanceRuntime>() {
+                    @Override
+                    public int compare(PartitionInstanceRuntime instance1, PartitionInstanceRuntime instance2) {
+                        long time1 = instance1.getLastAccessTime();
+                        long time2 = instance2.getLastAccessTime();
+                        return time1 < time2 ? -1 : (time1 == time2 ? 0 : 1);
+                    }
+                });
+                purgingInstances.addAll(activeInstances.subList(0, (int) (activeInstances.size() - maxInstances)));
+            }
+            if (purgingInstances.isEmpty()) {
+                return;
+            }
+            List<Snapshotable> purgedSnapshotables = new ArrayList<Snapshotable>();
+            List<EternalReferencedHolder> purgedEternalReferencedHolders = new ArrayList<EternalReferencedHolder>();
+            for (PartitionInstanceRuntime partitionInstance : purgingInstances) {
+                try {
+                    purge(partitionInstance, currentTime);
+                    purgedSnapshotables.addAll(partitionInstance.getSnapshotables());
+                    purgedEternalReferencedHolders.addAll(partitionInstance.getEternalReferencedHolders());
+                } catch (RuntimeException e) {
+                    log.error("Cannot purge partition '" + partitionInstance.getKey() + "' of " + partitionId, e);
                 }
             }
-            addPartitionInstance(new PartitionInstanceRuntime(key, queryRuntimeList));
-            updatePartitionStreamReceivers(key, partitionedQueryRuntimeList);
+            executionPlanContext.getSnapshotService().removeSnapshotables(purgedSnapshotables);
+            executionPlanContext.removeEternalReferencedHolders(purgedEternalReferencedHolders);
+        } finally {
+            purgeLock.writeLock().unlock();
+            if (sharedLock != null) {
+                sharedLock.unlock();
+            }
+        }
+    }
 
+    private void purge(PartitionInstanceRuntime partitionInstance, long currentTime) {
+        Object key = partitionInstance.getKey();
+        List<Object[]> states = new ArrayList<Object[]>(partitionInstance.getSnapshotables().size());
+        for (Snapshotable snapshotable : partitionInstance.getSnapshotables()) {
+            states.add(snapshotable.currentState());
+        }
+        byte[] spilledState;
+        try {
+            spilledState = executionPlanContext.getSiddhiContext().getStateCodec().encode(states);
+        } catch (ExecutionPlanRuntimeException e) {
+            throw new ExecutionPlanRuntimeException("Cannot serialize the state of partition '" + key + "'", e);
         }
+        spillStore.save(key, spilledState, currentTime);
 
+        for (EternalReferencedHolder eternalReferencedHolder : partitionInstance.getEternalReferencedHolders()) {
+            eternalReferencedHolder.stop();
+        }
+        for (PartitionStreamReceiver partitionStreamReceiver : partitionStreamReceivers.values()) {
+            partitionStreamReceiver.removeStreamJunction(key);
+            localStreamJunctionMap.remove(partitionStreamReceiver.getStreamId() + key);
+        }
+        for (String streamId : localStreamDefinitionMap.keySet()) {
+            localStreamJunctionMap.remove(streamId + key);
+        }
+        for (QueryRuntime queryRuntime : metaQueryRuntimeMap.values()) {
+            if (queryRuntime.isFromLocalStream()) {
+                for (SingleStreamRuntime singleStreamRuntime : queryRuntime.getStreamRuntime().getSingleStreamRuntimes()) {
+                    localStreamJunctionMap.remove(singleStreamRuntime.getProcessStreamReceiver().getStreamId() + key);
+                }
+            }
+        }
+        for (QueryRuntime queryRuntime : partitionInstance.getQueryRuntimeList()) {
+            for (SingleStreamRuntime singleStreamRuntime : queryRuntime.getStreamRuntime().getSingleStreamRuntimes()) {
+                singleStreamRuntime.getProcessStreamReceiver().discard();
+            }
+        }
+        partitionInstanceRuntimeMap.remove(key);
     }
 
-    private void updatePartitionStreamReceivers(String key, List<QueryRuntime> partitionedQueryRuntimeList) {
+    /**
+     * @return number of partition instances in memory
+     */
+    public int getPartitionInstanceCount() {
+        return partitionInstanceRuntimeMap.size();
+    }
+
+    /**
+     * @return number of purged partition instances whose state is spilled
+     */
+    public int getPurgedPartitionCount() {
+        return spillStore == null ? 0 : spillStore.size();
+    }
+
+    /**
+     * @return lanes the partition keys are processed on, null when the events are processed on the threads
+     * delivering them
+     */
+    public PartitionLane[] getLanes() {
+        return lanes;
+    }
+
+    @Override
+    public void start() {
+        if (lanes != null) {
+            for (PartitionLane lane : lanes) {
+                lane.start();
+            }
+        }
+        if (spillStore != null) {
+            purgeFuture = executionPlanContext.getScheduledExecutorService().scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        purge();
+                    } catch (Throwable t) {
+                        log.error("Error when purging partitions of " + partitionId, t);
+                    }
+                }
+            }, purgeInterval, purgeInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (lanes != null) {
+            for (PartitionLane lane : lanes) {
+                lane.stop();
+            }
+        }
+        if (purgeFuture != null) {
+            purgeFuture.cancel(false);
+        }
+        if (spillStore != null) {
+            spillStore.clear();
+        }
+    }
+
+    private void updatePartitionStreamReceivers(Object key, List<QueryRuntime> partitionedQueryRuntimeList) {
         for (PartitionStreamReceiver partitionStreamReceiver : partitionStreamReceivers.values()) {
             partitionStreamReceiver.addStreamJunction(key, partitionedQueryRuntimeList);
         }
     }
 
     public void addPartitionInstance(PartitionInstanceRuntime partitionInstanceRuntime) {
-        partitionInstanceRuntimeList.add(partitionInstanceRuntime);
+        partitionInstanceRuntimeMap.put(partitionInstanceRuntime.getKey(), partitionInstanceRuntime);
     }
 
-    public PartitionInstanceRuntime getPartitionInstanceRuntime(String key) {
-        for (PartitionInstanceRuntime partitionInstanceRuntime : partitionInstanceRuntimeList) {
-            if (key.equals(partitionInstanceRuntime.getKey())) {
-                return partitionInstanceRuntime;
-            }
-        }
-        return null;
+    public PartitionInstanceRuntime getPartitionInstanceRuntime(Object key) {
+        return partitionInstanceRuntimeMap.get(key);
     }
 
     public void addStreamJunction(String key, StreamJunction streamJunction) {
@@ -258,18 +608,53 @@ public class PartitionRuntime implements Snapshotable {
 
     @Override
     public Object[] currentState() {
-        List<String> partitionKeys = new ArrayList<String>();
-        for (PartitionInstanceRuntime partitionInstanceRuntime : partitionInstanceRuntimeList) {
-            partitionKeys.add(partitionInstanceRuntime.getKey());
+        if (purgeLock == null) {
+            return new Object[]{new ArrayList<Object>(partitionInstanceRuntimeMap.keySet())};
+        }
+        purgeLock.writeLock().lock();
+        try {
+            return new Object[]{new ArrayList<Object>(partitionInstanceRuntimeMap.keySet()), spillStore.snapshot()};
+        } finally {
+            purgeLock.writeLock().unlock();
         }
-        return new Object[]{partitionKeys};
     }
 
     @Override
     public void restoreState(Object[] state) {
-        List<String> partitionKeys = (List<String>) state[0];
-        for (String key : partitionKeys) {
-            clonePartition(key);
+        if (state.length > 1 && spillStore != null) {
+            long currentTime = executionPlanContext.getTimestampGenerator().currentTime();
+            for (Map.Entry<Object, byte[]> entry : ((Map<Object, byte[]>) state[1]).entrySet()) {
+                spillStore.save(restoreKey(entry.getKey()), entry.getValue(), currentTime);
+            }
+        }
+        List<Object> partitionKeys = (List<Object>) state[0];
+        for (Object key : partitionKeys) {
+            clonePartition(restoreKey(key));
+        }
+    }
+
+    /**
+     * @param key partition key of a snapshot
+     * @return the key typed as the partition expressions, snapshots taken before keys were typed hold strings
+     */
+    private Object restoreKey(Object key) {
+        if (!(key instanceof String) || stringKeys || keyType == null) {
+            return key;
+        }
+        String value = (String) key;
+        switch (keyType) {
+            case INT:
+                return Integer.valueOf(value);
+            case LONG:
+                return Long.valueOf(value);
+            case FLOAT:
+                return Float.valueOf(value);
+            case DOUBLE:
+                return Double.valueOf(value);
+            case BOOL:
+                return Boolean.valueOf(value);
+            default:
+                return key;
         }
     }
 
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.partition;
+
+import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
+import org.wso2.siddhi.core.util.snapshot.DeferredState;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local store of the serialized states of purged partition instances, one file for each partition key, kept in
+ * the order they are spilled so that the ones spilled earliest can be expired first.
+ * The directory is created lazily under java.io.tmpdir and removed when the store is cleared.
+ * <p>
+ * Snapshots of the store refer to the files instead of loading them, a file is deleted once the state is loaded,
+ * replaced or expired and no snapshot still refers to it. A snapshot stops referring to its files once it is
+ * serialized or released with its checkpoint, whichever comes first.
+ */
+public class PartitionSpillStore {
+
+    private final String name;
+    private final LinkedHashMap<Object, SpillFile> spillFiles = new LinkedHashMap<Object, SpillFile>();
+    private File directory;
+
+    public PartitionSpillStore(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param key       partition key
+     * @param state     serialized state of the partition instance
+     * @param spillTime time the state is spilled
+     */
+    public void save(Object key, byte[] state, long spillTime) {
+        OutputStream outputStream = null;
+        File file = null;
+        try {
+            file = File.createTempFile("partition", ".state", getDirectory());
+            outputStream = new FileOutputStream(file);
+            outputStream.write(state);
+            outputStream.close();
+            outputStream = null;
+            synchronized (this) {
+                SpillFile replacedFile = spillFiles.remove(key);
+                if (replacedFile != null) {
+                    discard(replacedFile);
+                }
+                spillFiles.put(key, new SpillFile(file, spillTime));
+            }
+        } catch (IOException e) {
+            if (file != null) {
+                file.delete();
+            }
+            throw new ExecutionPlanRuntimeException("Cannot spill the state of partition '" + key + "' of " + name, e);
+        } finally {
+            close(outputStream);
+        }
+    }
+
+    /**
+     * Loads and removes the state of a partition key
+     *
+     * @param key partition key
+     * @return the spilled state, null if the partition is not spilled
+     */
+    public byte[] load(Object key) {
+        SpillFile spillFile;
+        synchronized (this) {
+            spillFile = spillFiles.remove(key);
+            if (spillFile == null) {
+                return null;
+            }
+            spillFile.references++;
+        }
+        try {
+            return read(key, spillFile.file);
+        } finally {
+            synchronized (this) {
+                spillFile.references--;
+                discard(spillFile);
+            }
+        }
+    }
+
+    public synchronized boolean contains(Object key) {
+        return spillFiles.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return spillFiles.size();
+    }
+
+    /**
+     * Removes the states spilled at or before the given time
+     *
+     * @param spillTime latest spill time of the removed states
+     * @return number of removed states
+     */
+    public synchronized int expire(long spillTime) {
+        int expired = 0;
+        for (Iterator<SpillFile> iterator = spillFiles.values().iterator(); iterator.hasNext(); ) {
+            SpillFile spillFile = iterator.next();
+            if (spillFile.spillTime > spillTime) {
+                break;
+            }
+            iterator.remove();
+            discard(spillFile);
+            expired++;
+        }
+        return expired;
+    }
+
+    /**
+     * @return spilled states by partition key, which are loaded from the files only when serialized, the store
+     * is left unchanged
+     */
+    public synchronized DeferredState snapshot() {
+        Map<Object, SpillFile> snapshotFiles = new HashMap<Object, SpillFile>(spillFiles.size() * 2);
+        for (Map.Entry<Object, SpillFile> entry : spillFiles.entrySet()) {
+            entry.getValue().references++;
+            snapshotFiles.put(entry.getKey(), entry.getValue());
+        }
+        return new SpilledStates(snapshotFiles);
+    }
+
+    public synchronized void clear() {
+        for (SpillFile spillFile : spillFiles.values()) {
+            discard(spillFile);
+        }
+        spillFiles.clear();
+        if (directory != null) {
+            //Left in place while snapshots still refer to its files, the last of which removes it
+            directory.delete();
+            directory = null;
+        }
+    }
+
+    /**
+     * Marks the file as no longer in the store, deleting it unless a snapshot refers to it
+     */
+    private void discard(SpillFile spillFile) {
+        spillFile.discarded = true;
+        if (spillFile.references == 0) {
+            spillFile.file.delete();
+            if (!spillFile.file.getParentFile().equals(directory)) {
+                spillFile.file.getParentFile().delete();
+            }
+        }
+    }
+
+    private synchronized void release(List<SpillFile> releasedFiles) {
+        for (SpillFile spillFile : releasedFiles) {
+            spillFile.references--;
+            if (spillFile.discarded) {
+                discard(spillFile);
+            }
+        }
+    }
+
+    private synchronized File getDirectory() throws IOException {
+        if (directory == null) {
+            File file = File.createTempFile("siddhi-" + name.replaceAll("[^\\w.-]", "_") + "-", "");
+            if (!file.delete() || !file.mkdir()) {
+                throw new IOException("Cannot create directory " + file.getAbsolutePath());
+            }
+            directory = file;
+        }
+        return directory;
+    }
+
+    private byte[] read(Object key, File file) {
+        InputStream inputStream = null;
+        try {
+            byte[] state = new byte[(int) file.length()];
+            inputStream = new FileInputStream(file);
+            int offset = 0;
+            while (offset < state.length) {
+                int read = inputStream.read(state, offset, state.length - offset);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of " + file.getAbsolutePath());
+                }
+                offset += read;
+            }
+            return state;
+        } catch (IOException e) {
+            throw new ExecutionPlanRuntimeException("Cannot load the spilled state of partition '" + key + "' of " + name, e);
+        } finally {
+            close(inputStream);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                //Ignored as the content is already written or read
+            }
+        }
+    }
+
+    private static class SpillFile {
+
+        private final File file;
+        private final long spillTime;
+        private int references;
+        private boolean discarded;
+
+        private SpillFile(File file, long spillTime) {
+            this.file = file;
+            this.spillTime = spillTime;
+        }
+    }
+
+    /**
+     * Spilled states of a snapshot, loaded once when the snapshot is serialized unless the snapshot is released first
+     */
+    private class SpilledStates extends DeferredState {
+
+        private transient Map<Object, SpillFile> snapshotFiles;
+        private transient HashMap<Object, byte[]> states;
+
+        private SpilledStates(Map<Object, SpillFile> snapshotFiles) {
+            this.snapshotFiles = snapshotFiles;
+        }
+
+        @Override
+        public synchronized Object getValue() {
+            if (states == null) {
+                if (snapshotFiles == null) {
+                    throw new ExecutionPlanRuntimeException("Spilled states of " + name + " are released or " +
+                            "failed to be loaded");
+                }
+                try {
+                    HashMap<Object, byte[]> loadedStates = new HashMap<Object, byte[]>(snapshotFiles.size() * 2);
+                    for (Map.Entry<Object, SpillFile> entry : snapshotFiles.entrySet()) {
+                        loadedStates.put(entry.getKey(), read(entry.getKey(), entry.getValue().file));
+                    }
+                    states = loadedStates;
+                } finally {
+                    release();
+                }
+            }
+            return states;
+        }
+
+        @Override
+        public synchronized void release() {
+            if (snapshotFiles != null) {
+                PartitionSpillStore.this.release(new ArrayList<SpillFile>(snapshotFiles.values()));
+                snapshotFiles = null;
+            }
+        }
+    }
+}
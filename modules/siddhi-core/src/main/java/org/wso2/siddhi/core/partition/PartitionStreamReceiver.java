@@ -33,6 +33,7 @@ import org.wso2.siddhi.query.api.definition.StreamDefinition;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 
 public class PartitionStreamReceiver implements StreamJunction.Receiver {
 
@@ -43,7 +44,7 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
     private ExecutionPlanContext executionPlanContext;
     private PartitionRuntime partitionRuntime;
     private List<PartitionExecutor> partitionExecutors;
-    private Map<String, StreamJunction> cachedStreamJunctionMap = new ConcurrentHashMap<String, StreamJunction>();
+    private Map<Object, StreamJunction> cachedStreamJunctionMap = new ConcurrentHashMap<Object, StreamJunction>(); //keyed by partition key
     private ComplexEventChunk<ComplexEvent> streamEventChunk;
 
 
@@ -74,17 +75,17 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
         } else {
             if (complexEvent.getNext() == null) {
                 for (PartitionExecutor partitionExecutor : partitionExecutors) {
-                    String key = partitionExecutor.execute(complexEvent);
+                    Object key = partitionExecutor.execute(complexEvent);
                     send(key, complexEvent);
                 }
             } else {
                 streamEventChunk.add(complexEvent);
-                String currentKey = null;
+                Object currentKey = null;
                 while (streamEventChunk.hasNext()) {
                     ComplexEvent aEvent = streamEventChunk.next();
                     boolean currentEventMatchedPrevPartitionExecutor = false;
                     for (PartitionExecutor partitionExecutor : partitionExecutors) {
-                        String key = partitionExecutor.execute(aEvent);
+                        Object key = partitionExecutor.execute(aEvent);
                         if (key != null) {
                             if (currentKey == null) {
                                 currentKey = key;
@@ -120,7 +121,7 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
         StreamEvent borrowedEvent = eventPool.borrowEvent();
         streamEventConverter.convertEvent(event, borrowedEvent);
         for (PartitionExecutor partitionExecutor : partitionExecutors) {
-            String key = partitionExecutor.execute(borrowedEvent);
+            Object key = partitionExecutor.execute(borrowedEvent);
             send(key, borrowedEvent);
         }
         if (partitionExecutors.size() == 0) {
@@ -146,7 +147,7 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
         StreamEvent borrowedEvent = eventPool.borrowEvent();
         streamEventConverter.convertData(timeStamp, data, borrowedEvent);
         for (PartitionExecutor partitionExecutor : partitionExecutors) {
-            String key = partitionExecutor.execute(borrowedEvent);
+            Object key = partitionExecutor.execute(borrowedEvent);
             send(key, borrowedEvent);
         }
         if (partitionExecutors.size() == 0) {
@@ -172,14 +173,14 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
             eventPool.returnEvents(firstEvent);
 
         } else {
-            String key = null;
+            Object key = null;
             StreamEvent firstEvent = null;
             StreamEvent currentEvent = null;
             for (Event event : events) {
                 StreamEvent nextEvent = eventPool.borrowEvent();
                 streamEventConverter.convertEvent(event, nextEvent);
                 for (PartitionExecutor partitionExecutor : partitionExecutors) {
-                    String currentKey = partitionExecutor.execute(nextEvent);
+                    Object currentKey = partitionExecutor.execute(nextEvent);
                     if (currentKey != null) {
                         if (key == null) {
                             key = currentKey;
@@ -202,16 +203,118 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
 
     }
 
-    private void send(String key, ComplexEvent event) {
+    private void send(Object key, ComplexEvent event) {
         if (key != null) {
-            partitionRuntime.cloneIfNotExist(key);
-            cachedStreamJunctionMap.get(streamId + key).sendEvent(event);
+            PartitionLane[] lanes = partitionRuntime.getLanes();
+            if (lanes != null) {
+                lanes[PartitionLane.indexOf(key, lanes.length)].publish(this, key, event);
+            } else {
+                route(key, event);
+            }
         }
     }
 
     private void send(ComplexEvent event) {
-        for (StreamJunction streamJunction : cachedStreamJunctionMap.values()) {
-            streamJunction.sendEvent(event);
+        PartitionLane[] lanes = partitionRuntime.getLanes();
+        if (lanes != null) {
+            for (PartitionLane lane : lanes) {
+                lane.publish(this, null, event);
+            }
+        } else {
+            broadcast(event, -1);
+        }
+    }
+
+    /**
+     * Process an event published to a lane of the partition
+     *
+     * @param key       partition key of the event, null when it is sent to all the keys of the lane
+     * @param timestamp timestamp of the event
+     * @param type      type of the event
+     * @param data      attributes of the event
+     * @param laneIndex index of the lane
+     */
+    void receive(Object key, long timestamp, ComplexEvent.Type type, Object[] data, int laneIndex) {
+        StreamEvent borrowedEvent = eventPool.borrowEvent();
+        streamEventConverter.convertData(timestamp, data, borrowedEvent);
+        borrowedEvent.setType(type);
+        if (key != null) {
+            route(key, borrowedEvent);
+        } else {
+            broadcast(borrowedEvent, laneIndex);
+        }
+        eventPool.returnEvents(borrowedEvent);
+    }
+
+    private void route(Object key, ComplexEvent event) {
+        if (partitionRuntime.isPurgingEnabled()) {
+            lockRouting();
+            try {
+                partitionRuntime.access(key);
+                cachedStreamJunctionMap.get(key).sendEvent(event);
+            } finally {
+                unlockRouting();
+            }
+            return;
+        }
+        StreamJunction streamJunction = cachedStreamJunctionMap.get(key);
+        if (streamJunction == null) {
+            partitionRuntime.cloneIfNotExist(key);
+            streamJunction = cachedStreamJunctionMap.get(key);
+        }
+        streamJunction.sendEvent(event);
+    }
+
+    /**
+     * @param event     event sent to all the partition instances
+     * @param laneIndex index of the lane whose keys receive the event, -1 when all the keys do
+     */
+    private void broadcast(ComplexEvent event, int laneIndex) {
+        if (partitionRuntime.isPurgingEnabled()) {
+            lockRouting();
+            try {
+                broadcastToJunctions(event, laneIndex);
+            } finally {
+                unlockRouting();
+            }
+            return;
+        }
+        broadcastToJunctions(event, laneIndex);
+    }
+
+    /**
+     * Purging and snapshotting take the shared lock before the routing lock, hence threads not entering through
+     * the shared lock, such as the consumers of async streams, take it here in the same order before the queries
+     * of the partition take it
+     */
+    private void lockRouting() {
+        Lock sharedLock = executionPlanContext.getSharedLock();
+        if (sharedLock != null) {
+            sharedLock.lock();
+        }
+        partitionRuntime.getRoutingLock().lock();
+    }
+
+    private void unlockRouting() {
+        partitionRuntime.getRoutingLock().unlock();
+        Lock sharedLock = executionPlanContext.getSharedLock();
+        if (sharedLock != null) {
+            sharedLock.unlock();
+        }
+    }
+
+    private void broadcastToJunctions(ComplexEvent event, int laneIndex) {
+        if (laneIndex < 0) {
+            for (StreamJunction streamJunction : cachedStreamJunctionMap.values()) {
+                streamJunction.sendEvent(event);
+            }
+        } else {
+            int laneCount = partitionRuntime.getLanes().length;
+            for (Map.Entry<Object, StreamJunction> entry : cachedStreamJunctionMap.entrySet()) {
+                if (PartitionLane.indexOf(entry.getKey(), laneCount) == laneIndex) {
+                    entry.getValue().sendEvent(event);
+                }
+            }
         }
     }
 
@@ -221,15 +324,14 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
      * @param key              partitioning key
      * @param queryRuntimeList queryRuntime list of the partition
      */
-    public void addStreamJunction(String key, List<QueryRuntime> queryRuntimeList) {
-        StreamJunction streamJunction = cachedStreamJunctionMap.get(streamId + key);
+    public void addStreamJunction(Object key, List<QueryRuntime> queryRuntimeList) {
+        StreamJunction streamJunction = cachedStreamJunctionMap.get(key);
         if (streamJunction == null) {
             streamJunction = partitionRuntime.getLocalStreamJunctionMap().get(streamId + key);
             if (streamJunction == null) {
                 streamJunction = createStreamJunction();
                 partitionRuntime.addStreamJunction(streamId + key, streamJunction);
             }
-            cachedStreamJunctionMap.put(streamId + key, streamJunction);
         }
         for (QueryRuntime queryRuntime : queryRuntimeList) {
             StreamRuntime streamRuntime = queryRuntime.getStreamRuntime();
@@ -239,6 +341,16 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
                 }
             }
         }
+        cachedStreamJunctionMap.put(key, streamJunction);
+    }
+
+    /**
+     * remove the local streamJunction of a purged partition instance
+     *
+     * @param key partitioning key
+     */
+    public void removeStreamJunction(Object key) {
+        cachedStreamJunctionMap.remove(key);
     }
 
     private StreamJunction createStreamJunction() {
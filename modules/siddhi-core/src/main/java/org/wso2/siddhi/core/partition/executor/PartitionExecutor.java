@@ -19,6 +19,10 @@ import org.wso2.siddhi.core.event.ComplexEvent;
 
 public interface PartitionExecutor {
 
-    public String execute(ComplexEvent event);
+    /**
+     * @param event event to be partitioned
+     * @return partition key of the event, null when the event does not belong to any partition
+     */
+    public Object execute(ComplexEvent event);
 
 }
@@ -17,18 +17,36 @@ package org.wso2.siddhi.core.partition.executor;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
 
+/**
+ * Uses the value of the partition expression as the key, so that partitioning by an attribute allocates nothing.
+ * When the streams of a partition have keys of different types their string forms are used instead, hence e.g.
+ * an int and a long key with the same value fall into the same partition.
+ */
 public class ValuePartitionExecutor implements PartitionExecutor {
 
     private ExpressionExecutor expressionExecutor;
+    private boolean stringKeys;
 
     public ValuePartitionExecutor(ExpressionExecutor expressionExecutor) {
         this.expressionExecutor = expressionExecutor;
     }
 
-    public String execute(ComplexEvent event) {
-        return expressionExecutor.execute(event).toString();
+    public Object execute(ComplexEvent event) {
+        Object key = expressionExecutor.execute(event);
+        if (stringKeys && key != null) {
+            return key.toString();
+        }
+        return key;
+    }
+
+    public Attribute.Type getKeyType() {
+        return expressionExecutor.getReturnType();
     }
 
+    public void setStringKeys(boolean stringKeys) {
+        this.stringKeys = stringKeys;
+    }
 
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.query;
+
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.WorkHandler;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.query.input.ProcessStreamReceiver;
+import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
+import org.wso2.siddhi.core.query.output.callback.OutputCallback;
+import org.wso2.siddhi.core.query.output.ratelimit.OutputRateLimiter;
+import org.wso2.siddhi.core.query.output.ratelimit.PassThroughOutputRateLimiter;
+import org.wso2.siddhi.core.query.processor.Processor;
+import org.wso2.siddhi.core.query.processor.filter.FilterProcessor;
+import org.wso2.siddhi.core.query.selector.QuerySelector;
+import org.wso2.siddhi.core.stream.StreamJunction;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Receiver of a stateless query that can be processed by the worker pool of a parallel StreamJunction.
+ * Each worker runs its own clone of the query and handles the events it claims from the ring, each event being
+ * claimed by exactly one worker. The results are passed to the query's OutputRateLimiter one worker at a time,
+ * when ordered they are released in sequence order through a reorder buffer indexed by the slot of the ring.
+ * When the junction does not run workers, events are delegated to the query's own ProcessStreamReceiver.
+ */
+public class QueryWorkerPool implements StreamJunction.Receiver {
+
+    private final QueryRuntime queryRuntime;
+    private final ProcessStreamReceiver processStreamReceiver;
+    private final OutputRateLimiter outputRateLimiter;
+    private final ComplexEventChunk<ComplexEvent> outputChunk = new ComplexEventChunk<ComplexEvent>();
+    private List<Worker> workers;
+    private IdentityHashMap<StreamEvent, Integer> slotIndexes;
+    private boolean ordered;
+    private ComplexEvent[] reorderBuffer;
+    private boolean[] completed;
+    private int indexMask;
+    private long nextSequence;
+
+    public QueryWorkerPool(QueryRuntime queryRuntime) {
+        this.queryRuntime = queryRuntime;
+        this.processStreamReceiver = queryRuntime.getStreamRuntime().getSingleStreamRuntimes().get(0)
+                .getProcessStreamReceiver();
+        this.outputRateLimiter = queryRuntime.getOutputRateManager();
+    }
+
+    /**
+     * @param queryRuntime query to be checked
+     * @return true when the query has a single input stream with only filters, no aggregation or group by and
+     * no output rate limiting, so that its events can be processed independently of each other
+     */
+    public static boolean isSupported(QueryRuntime queryRuntime) {
+        if (!(queryRuntime.getStreamRuntime() instanceof SingleStreamRuntime) || queryRuntime.isToLocalStream()) {
+            return false;
+        }
+        SingleStreamRuntime singleStreamRuntime = (SingleStreamRuntime) queryRuntime.getStreamRuntime();
+        if (singleStreamRuntime.getProcessStreamReceiver().toTable()) {
+            return false;
+        }
+        for (Processor processor = singleStreamRuntime.getProcessorChain(); processor != null;
+             processor = processor.getNextProcessor()) {
+            if (!(processor instanceof FilterProcessor || processor instanceof QuerySelector)) {
+                return false;
+            }
+        }
+        QuerySelector selector = queryRuntime.getSelector();
+        return !selector.containsAggregator() && !selector.isGroupBy() &&
+                queryRuntime.getOutputRateManager() instanceof PassThroughOutputRateLimiter;
+    }
+
+    /**
+     * Creates the query clones used by the workers, to be called before the ring is started
+     *
+     * @param workerCount number of workers
+     * @param ordered     whether the output is released in sequence order
+     * @param ringBuffer  ring of the junction, its slots hold the same events for its lifetime
+     */
+    public synchronized void start(int workerCount, boolean ordered, RingBuffer<StreamEvent> ringBuffer) {
+        this.ordered = ordered;
+        workers = new ArrayList<Worker>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            QueryRuntime clonedQueryRuntime = queryRuntime.clone("-worker-" + i, null);
+            Worker worker = new Worker(clonedQueryRuntime.getStreamRuntime().getSingleStreamRuntimes().get(0)
+                    .getProcessStreamReceiver());
+            clonedQueryRuntime.getOutputRateManager().setOutputCallback(worker);
+            workers.add(worker);
+        }
+        if (ordered) {
+            int bufferSize = ringBuffer.getBufferSize();
+            slotIndexes = new IdentityHashMap<StreamEvent, Integer>(bufferSize);
+            for (int i = 0; i < bufferSize; i++) {
+                slotIndexes.put(ringBuffer.get(i), i);
+            }
+            reorderBuffer = new ComplexEvent[bufferSize];
+            completed = new boolean[bufferSize];
+            indexMask = bufferSize - 1;
+            nextSequence = 0;
+        }
+    }
+
+    public Worker[] getWorkers() {
+        return workers.toArray(new Worker[workers.size()]);
+    }
+
+    public MetaStreamEvent getMetaStreamEvent() {
+        return processStreamReceiver.getMetaStreamEvent();
+    }
+
+    public QueryRuntime getQueryRuntime() {
+        return queryRuntime;
+    }
+
+    /**
+     * @param slotIndex index of the slot of the event in the ring, its sequence modulo the ring size
+     * @param output    output of the event, null when there is none
+     */
+    private synchronized void complete(int slotIndex, ComplexEvent output) {
+        reorderBuffer[slotIndex] = output;
+        completed[slotIndex] = true;
+
+        int index = (int) (nextSequence & indexMask);
+        while (completed[index]) {
+            if (reorderBuffer[index] != null) {
+                outputChunk.add(reorderBuffer[index]);
+                reorderBuffer[index] = null;
+            }
+            completed[index] = false;
+            nextSequence++;
+            index = (int) (nextSequence & indexMask);
+        }
+        send();
+    }
+
+    private synchronized void release(ComplexEvent output) {
+        outputChunk.add(output);
+        send();
+    }
+
+    private void send() {
+        if (outputChunk.getFirst() != null) {
+            outputRateLimiter.add(outputChunk.getFirst());
+            outputRateLimiter.process(outputChunk);
+            outputChunk.clear();
+        }
+    }
+
+    @Override
+    public String getStreamId() {
+        return processStreamReceiver.getStreamId();
+    }
+
+    @Override
+    public void receive(ComplexEvent complexEvent) {
+        processStreamReceiver.receive(complexEvent);
+    }
+
+    @Override
+    public void receive(Event event) {
+        processStreamReceiver.receive(event);
+    }
+
+    @Override
+    public void receive(Event event, boolean endOfBatch) {
+        processStreamReceiver.receive(event, endOfBatch);
+    }
+
+    @Override
+    public void receive(long timeStamp, Object[] data) {
+        processStreamReceiver.receive(timeStamp, data);
+    }
+
+    @Override
+    public void receive(Event[] events) {
+        processStreamReceiver.receive(events);
+    }
+
+    /**
+     * Handles the events it claims from the ring and collects the output of its query clone
+     */
+    public class Worker implements WorkHandler<StreamEvent>, OutputCallback {
+
+        private final ProcessStreamReceiver processStreamReceiver;
+        private final ComplexEventChunk<ComplexEvent> pendingChunk = new ComplexEventChunk<ComplexEvent>();
+
+        private Worker(ProcessStreamReceiver processStreamReceiver) {
+            this.processStreamReceiver = processStreamReceiver;
+        }
+
+        @Override
+        public void onEvent(StreamEvent streamEvent) {
+            //The slot is looked up before the receiver swaps the event's data out of it
+            int slotIndex = ordered ? slotIndexes.get(streamEvent) : 0;
+            processStreamReceiver.receive(streamEvent, true);
+            ComplexEvent output = detachPending();
+            if (ordered) {
+                complete(slotIndex, output);
+            } else if (output != null) {
+                release(output);
+            }
+        }
+
+        private ComplexEvent detachPending() {
+            ComplexEvent output = pendingChunk.getFirst();
+            pendingChunk.clear();
+            return output;
+        }
+
+        @Override
+        public void send(ComplexEventChunk complexEventChunk) {
+            pendingChunk.add(complexEventChunk.getFirst());
+        }
+    }
+}
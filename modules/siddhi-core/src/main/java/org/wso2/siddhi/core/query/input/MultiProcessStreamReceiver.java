@@ -176,6 +176,15 @@ public class MultiProcessStreamReceiver extends ProcessStreamReceiver {
         }
     }
 
+    @Override
+    public void discard() {
+        for (StreamEventPool streamEventPool : streamEventPools) {
+            if (streamEventPool != null) {
+                streamEventPool.discard();
+            }
+        }
+    }
+
     public void init() {
 
         for (int i = 0, nextLength = streamEventConverters.length; i < nextLength; i++) {
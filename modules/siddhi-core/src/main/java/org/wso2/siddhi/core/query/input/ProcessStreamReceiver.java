@@ -80,6 +80,29 @@ public class ProcessStreamReceiver implements StreamJunction.Receiver {
         }
     }
 
+    /**
+     * Receives an event that is already in this receiver's StreamEvent layout, such as a ring buffer slot
+     * of a parallel StreamJunction. The event's attribute arrays are taken over without conversion.
+     *
+     * @param streamEvent event in the layout of this receiver's MetaStreamEvent
+     * @param endOfBatch  whether this is the last event of the batch
+     */
+    public void receive(StreamEvent streamEvent, boolean endOfBatch) {
+        streamEventChunk.swapAndAdd(streamEvent);
+        if (endOfBatch) {
+            processAndClear(streamEventChunk);
+        }
+    }
+
+    /**
+     * Processes the events that were added with endOfBatch false and are still waiting for the end of the batch
+     */
+    public void flush() {
+        if (streamEventChunk.getFirst() != null) {
+            processAndClear(streamEventChunk);
+        }
+    }
+
     @Override
     public void receive(long timeStamp, Object[] data) {
         streamEventChunk.convertAndAssign(timeStamp, data);
@@ -98,6 +121,10 @@ public class ProcessStreamReceiver implements StreamJunction.Receiver {
         this.metaStreamEvent = metaStreamEvent;
     }
 
+    public MetaStreamEvent getMetaStreamEvent() {
+        return metaStreamEvent;
+    }
+
     public boolean toTable() {
         return metaStreamEvent.isTableEvent();
     }
@@ -114,6 +141,15 @@ public class ProcessStreamReceiver implements StreamJunction.Receiver {
         streamEventChunk = new ConversionStreamEventChunk(metaStreamEvent, streamEventPool);
     }
 
+    /**
+     * Drops the events pooled for the receiver, called once the receiver no longer receives events
+     */
+    public void discard() {
+        if (streamEventPool != null) {
+            streamEventPool.discard();
+        }
+    }
+
     public void addStatefulProcessor(PreStateProcessor stateProcessor) {
         stateProcessors.add(stateProcessor);
         stateProcessorsSize = stateProcessors.size();
@@ -17,11 +17,11 @@
 package org.wso2.siddhi.core.query.output.callback;
 
 import com.lmax.disruptor.EventHandler;
-import com.lmax.disruptor.PhasedBackoffWaitStrategy;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.DisruptorConfig;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
@@ -29,11 +29,9 @@ import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.query.api.execution.query.Query;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 public abstract class QueryCallback {
 
@@ -151,20 +149,12 @@ public abstract class QueryCallback {
 //        }
 
         if (asyncEnabled != null && asyncEnabled || asyncEnabled == null) {
-            for (Constructor constructor : Disruptor.class.getConstructors()) {
-                if (constructor.getParameterTypes().length == 5) {      //if new disruptor implementation available
-                    disruptor = new Disruptor<EventHolder>(new EventHolderFactory(),
-                            executionPlanContext.getSiddhiContext().getEventBufferSize(),
-                            executionPlanContext.getExecutorService(), ProducerType.SINGLE,
-                            PhasedBackoffWaitStrategy.withLiteLock(1, 4, TimeUnit.SECONDS));
-                    break;
-                }
-            }
-            if (disruptor == null) {
-                disruptor = new Disruptor<EventHolder>(new EventHolderFactory(),
-                        executionPlanContext.getSiddhiContext().getEventBufferSize(),
-                        executionPlanContext.getExecutorService());
+            DisruptorConfig disruptorConfig = executionPlanContext.getDisruptorConfig();
+            if (disruptorConfig == null) {
+                disruptorConfig = new DisruptorConfig(executionPlanContext.getSiddhiContext().getEventBufferSize());
             }
+            disruptor = disruptorConfig.withProducerType(ProducerType.SINGLE).createDisruptor(new EventHolderFactory(),
+                    executionPlanContext.getExecutorService());
             asyncEventHandler = new AsyncEventHandler(this);
             disruptor.handleEventsWith(asyncEventHandler);
             ringBuffer = disruptor.start();
@@ -20,6 +20,7 @@ import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.query.output.callback.OutputCallback;
 import org.wso2.siddhi.core.query.output.callback.QueryCallback;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
 import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 
@@ -85,6 +86,15 @@ public abstract class OutputRateLimiter implements EternalReferencedHolder, Snap
 
     public abstract OutputRateLimiter clone(String key);
 
+    /**
+     * Drop the events held for a group removed by the query selector
+     *
+     * @param groupByKey key of the removed group
+     */
+    public void removeGroup(GroupByKey groupByKey) {
+        //no events held per group by default
+    }
+
     public String getElementId() {
         return elementId;
     }
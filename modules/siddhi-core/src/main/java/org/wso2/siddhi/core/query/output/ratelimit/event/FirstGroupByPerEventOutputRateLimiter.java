@@ -19,6 +19,7 @@ package org.wso2.siddhi.core.query.output.ratelimit.event;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.query.output.ratelimit.OutputRateLimiter;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
 
 import java.util.ArrayList;
@@ -30,7 +31,7 @@ public class FirstGroupByPerEventOutputRateLimiter extends OutputRateLimiter {
     private String id;
     private List<ComplexEvent> complexEventList;
     private volatile int counter = 0;
-    List<String> groupByKeys = new ArrayList<String>();
+    List<GroupByKey> groupByKeys = new ArrayList<GroupByKey>();
 
     public FirstGroupByPerEventOutputRateLimiter(String id, Integer value) {
         this.id = id;
@@ -55,7 +56,7 @@ public class FirstGroupByPerEventOutputRateLimiter extends OutputRateLimiter {
 
     @Override
     public void add(ComplexEvent complexEvent) {
-        String groupByKey = QuerySelector.getThreadLocalGroupByKey();
+        GroupByKey groupByKey = QuerySelector.getThreadLocalGroupByKey();
         if (!groupByKeys.contains(groupByKey)) {
             groupByKeys.add(groupByKey);
             complexEventList.add(complexEvent);
@@ -85,7 +86,7 @@ public class FirstGroupByPerEventOutputRateLimiter extends OutputRateLimiter {
     @Override
     public void restoreState(Object[] state) {
         complexEventList = (List<ComplexEvent>) state[0];
-        groupByKeys = (List<String>) state[1];
+        groupByKeys = (List<GroupByKey>) state[1];
         counter = (Integer) state[2];
     }
 
@@ -20,6 +20,7 @@ package org.wso2.siddhi.core.query.output.ratelimit.event;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.query.output.ratelimit.OutputRateLimiter;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
 
 import java.util.LinkedHashMap;
@@ -49,8 +50,8 @@ public class LastGroupByPerEventOutputRateLimiter extends OutputRateLimiter {
 
     @Override
     public void add(ComplexEvent complexEvent) {
-        String groupByKey = QuerySelector.getThreadLocalGroupByKey();
-        allGroupByKeyEvents.put(groupByKey+complexEvent.getType(),complexEvent);
+        GroupByKey groupByKey = QuerySelector.getThreadLocalGroupByKey();
+        allGroupByKeyEvents.put(groupByKey.toString() + complexEvent.getType(),complexEvent);
         if (++counter == value) {
             sendEvents();
         }
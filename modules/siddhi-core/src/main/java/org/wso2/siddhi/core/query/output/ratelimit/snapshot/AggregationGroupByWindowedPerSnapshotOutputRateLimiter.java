@@ -18,21 +18,23 @@ package org.wso2.siddhi.core.query.output.ratelimit.snapshot;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
+import org.wso2.siddhi.core.util.Scheduler;
+import org.wso2.siddhi.core.util.TimerWheel;
 
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ScheduledExecutorService;
 
 public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends AggregationWindowedPerSnapshotOutputRateLimiter {
-    private Map<String, Map<Integer, Object>> groupByAggregateAttributeValueMap;
-    private String currentKey = null;
+    private Map<GroupByKey, Map<Integer, Object>> groupByAggregateAttributeValueMap;
+    private GroupByKey currentKey = null;
 
-    protected AggregationGroupByWindowedPerSnapshotOutputRateLimiter(String id, Long value, ScheduledExecutorService scheduledExecutorService, List<Integer> aggregateAttributePositionList, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
-        super(id, value, scheduledExecutorService, aggregateAttributePositionList, wrappedSnapshotOutputRateLimiter);
-        groupByAggregateAttributeValueMap = new HashMap<String, Map<Integer, Object>>();
+    protected AggregationGroupByWindowedPerSnapshotOutputRateLimiter(String id, Long value, TimerWheel timerWheel, List<Integer> aggregateAttributePositionList, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
+        super(id, value, timerWheel, aggregateAttributePositionList, wrappedSnapshotOutputRateLimiter);
+        groupByAggregateAttributeValueMap = new HashMap<GroupByKey, Map<Integer, Object>>();
         eventChunk = new ComplexEventChunk<ComplexEvent>();
     }
 
@@ -43,7 +45,7 @@ public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends Aggr
             if(firstEvent != null && firstEvent.getType() == ComplexEvent.Type.TIMER) {
                 if (firstEvent.getTimestamp() >= scheduledTime) {
                     sendEvents();
-                    scheduledTime = scheduledTime + value;
+                    scheduledTime = Scheduler.nextPeriodicTime(scheduledTime, value, firstEvent.getTimestamp());
                     scheduler.notifyAt(scheduledTime);
                 }
             } else {
@@ -67,7 +69,7 @@ public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends Aggr
     public void add(ComplexEvent complexEvent) {
         try {
             lock.lock();
-            String groupByKey = QuerySelector.getThreadLocalGroupByKey();
+            GroupByKey groupByKey = QuerySelector.getThreadLocalGroupByKey();
             if (currentKey == null) {
                 currentKey = groupByKey;
                 eventChunk.add(complexEvent);
@@ -87,6 +89,18 @@ public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends Aggr
         }
     }
 
+    @Override
+    public void removeGroup(GroupByKey groupByKey) {
+        try {
+            lock.lock();
+            if (!groupByKey.equals(currentKey)) {
+                groupByAggregateAttributeValueMap.remove(groupByKey);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     protected ComplexEvent constructSendEvent(Object originalEventObject) {
         ComplexEvent originalEvent = ((GroupedEvent) originalEventObject).event;
         Map<Integer, Object> aggregateAttributeValueMap = groupByAggregateAttributeValueMap.get(((GroupedEvent) originalEventObject).groupByKey);
@@ -97,7 +111,7 @@ public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends Aggr
         return ((GroupedEvent) eventObject).event;
     }
 
-    protected void addEventToList(ComplexEvent event, String groupByKey) {
+    protected void addEventToList(ComplexEvent event, GroupByKey groupByKey) {
         eventList.add(new GroupedEvent(event, groupByKey));
     }
 
@@ -109,21 +123,21 @@ public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends Aggr
     @Override
     public void restoreState(Object[] state) {
         eventList = (LinkedList<Object>) state[0];
-        groupByAggregateAttributeValueMap = (Map<String, Map<Integer, Object>>) state[1];
+        groupByAggregateAttributeValueMap = (Map<GroupByKey, Map<Integer, Object>>) state[1];
         eventChunk = (ComplexEventChunk<ComplexEvent>) state[2];
-        currentKey = (String) state[3];
+        currentKey = (GroupByKey) state[3];
     }
 
     @Override
     public SnapshotOutputRateLimiter clone(String key, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
-        return new AggregationGroupByWindowedPerSnapshotOutputRateLimiter(id + key, value, scheduledExecutorService, aggregateAttributePositionList, wrappedSnapshotOutputRateLimiter);
+        return new AggregationGroupByWindowedPerSnapshotOutputRateLimiter(id + key, value, timerWheel, aggregateAttributePositionList, wrappedSnapshotOutputRateLimiter);
     }
 
     private class GroupedEvent {
         ComplexEvent event;
-        String groupByKey;
+        GroupByKey groupByKey;
 
-        public GroupedEvent(ComplexEvent event, String groupByKey) {
+        public GroupedEvent(ComplexEvent event, GroupByKey groupByKey) {
             this.event = event;
             this.groupByKey = groupByKey;
         }
@@ -21,10 +21,11 @@ import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.state.StateEvent;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
 import org.wso2.siddhi.core.util.Scheduler;
+import org.wso2.siddhi.core.util.TimerWheel;
 
 import java.util.*;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -33,7 +34,7 @@ public class AggregationWindowedPerSnapshotOutputRateLimiter extends SnapshotOut
     protected final Long value;
     protected LinkedList<Object> eventList;
     protected Comparator<ComplexEvent> comparator;
-    protected final ScheduledExecutorService scheduledExecutorService;
+    protected final TimerWheel timerWheel;
     protected List<Integer> aggregateAttributePositionList;
     private Map<Integer, Object> aggregateAttributeValueMap;
     protected ComplexEventChunk<ComplexEvent> eventChunk;
@@ -41,11 +42,11 @@ public class AggregationWindowedPerSnapshotOutputRateLimiter extends SnapshotOut
     protected long scheduledTime;
     protected Lock lock;
 
-    protected AggregationWindowedPerSnapshotOutputRateLimiter(String id, Long value, ScheduledExecutorService scheduledExecutorService, final List<Integer> aggregateAttributePositionList, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
+    protected AggregationWindowedPerSnapshotOutputRateLimiter(String id, Long value, TimerWheel timerWheel, final List<Integer> aggregateAttributePositionList, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
         super(wrappedSnapshotOutputRateLimiter);
         this.id = id;
         this.value = value;
-        this.scheduledExecutorService = scheduledExecutorService;
+        this.timerWheel = timerWheel;
         this.eventList = new LinkedList<Object>();
         this.aggregateAttributePositionList = aggregateAttributePositionList;
         Collections.sort(aggregateAttributePositionList);
@@ -89,11 +90,11 @@ public class AggregationWindowedPerSnapshotOutputRateLimiter extends SnapshotOut
             if (firstEvent != null && firstEvent.getType() == ComplexEvent.Type.TIMER) {
                 if (firstEvent.getTimestamp() >= scheduledTime) {
                     sendEvents();
-                    scheduledTime = scheduledTime + value;
+                    scheduledTime = Scheduler.nextPeriodicTime(scheduledTime, value, firstEvent.getTimestamp());
                     scheduler.notifyAt(scheduledTime);
                 }
             } else {
-                processAndSend(eventChunk, aggregateAttributeValueMap, "");
+                processAndSend(eventChunk, aggregateAttributeValueMap, null);
                 eventChunk.clear();
             }
 
@@ -112,7 +113,7 @@ public class AggregationWindowedPerSnapshotOutputRateLimiter extends SnapshotOut
         }
     }
 
-    protected void processAndSend(ComplexEventChunk complexEventChunk, Map<Integer, Object> aggregateAttributeValueMap, String groupByKey) {
+    protected void processAndSend(ComplexEventChunk complexEventChunk, Map<Integer, Object> aggregateAttributeValueMap, GroupByKey groupByKey) {
         ComplexEvent complexEvent = complexEventChunk.getFirst();
 
         while (complexEvent != null) {
@@ -143,9 +144,9 @@ public class AggregationWindowedPerSnapshotOutputRateLimiter extends SnapshotOut
 
     @Override
     public void start() {
-        scheduler = new Scheduler(scheduledExecutorService, this);
+        scheduler = new Scheduler(timerWheel, this);
         scheduler.setStreamEventPool(new StreamEventPool(0, 0, 0, 5));
-        long currentTime = System.currentTimeMillis();
+        long currentTime = timerWheel.currentTime();
         scheduler.notifyAt(currentTime);
         scheduledTime = currentTime;
     }
@@ -209,14 +210,14 @@ public class AggregationWindowedPerSnapshotOutputRateLimiter extends SnapshotOut
 
     @Override
     public SnapshotOutputRateLimiter clone(String key, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
-        return new AggregationWindowedPerSnapshotOutputRateLimiter(id + key, value, scheduledExecutorService, aggregateAttributePositionList, wrappedSnapshotOutputRateLimiter);
+        return new AggregationWindowedPerSnapshotOutputRateLimiter(id + key, value, timerWheel, aggregateAttributePositionList, wrappedSnapshotOutputRateLimiter);
     }
 
     protected ComplexEvent getEventFromList(Object eventObject) {
         return (ComplexEvent) eventObject;
     }
 
-    protected void addEventToList(ComplexEvent event, String groupByKey) {
+    protected void addEventToList(ComplexEvent event, GroupByKey groupByKey) {
         eventList.add(event);
     }
 
@@ -20,35 +20,36 @@ package org.wso2.siddhi.core.query.output.ratelimit.snapshot;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
 import org.wso2.siddhi.core.util.Scheduler;
+import org.wso2.siddhi.core.util.TimerWheel;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter extends SnapshotOutputRateLimiter {
     private String id;
     private final Long value;
-    private final ScheduledExecutorService scheduledExecutorService;
-    Map<String, LastEventHolder> groupByKeyEvents = new LinkedHashMap<String, LastEventHolder>();
+    private final TimerWheel timerWheel;
+    Map<GroupByKey, LastEventHolder> groupByKeyEvents = new LinkedHashMap<GroupByKey, LastEventHolder>();
     private Scheduler scheduler;
     private long scheduledTime;
     private Lock lock;
 
-    public AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter(String id, Long value, ScheduledExecutorService scheduledExecutorService, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
+    public AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter(String id, Long value, TimerWheel timerWheel, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
         super(wrappedSnapshotOutputRateLimiter);
         this.id = id;
         this.value = value;
-        this.scheduledExecutorService = scheduledExecutorService;
+        this.timerWheel = timerWheel;
         lock = new ReentrantLock();
     }
 
     @Override
     public SnapshotOutputRateLimiter clone(String key, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
-        return new AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter(id + key, value, scheduledExecutorService, wrappedSnapshotOutputRateLimiter);
+        return new AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter(id + key, value, timerWheel, wrappedSnapshotOutputRateLimiter);
     }
 
     @Override
@@ -59,7 +60,7 @@ public class AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter extends S
             if(firstEvent != null && firstEvent.getType() == ComplexEvent.Type.TIMER) {
                 if (firstEvent.getTimestamp() >= scheduledTime) {
                     sendEvents();
-                    scheduledTime = scheduledTime + value;
+                    scheduledTime = Scheduler.nextPeriodicTime(scheduledTime, value, firstEvent.getTimestamp());
                     scheduler.notifyAt(scheduledTime);
                 }
             }
@@ -72,7 +73,7 @@ public class AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter extends S
     public void add(ComplexEvent complexEvent) {
         try {
             lock.lock();
-            String groupByKey = QuerySelector.getThreadLocalGroupByKey();
+            GroupByKey groupByKey = QuerySelector.getThreadLocalGroupByKey();
             LastEventHolder lastEventHolder = groupByKeyEvents.get(groupByKey);
             if (lastEventHolder == null) {
                 lastEventHolder = new LastEventHolder();
@@ -93,9 +94,9 @@ public class AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter extends S
 
     @Override
     public void start() {
-        scheduler = new Scheduler(scheduledExecutorService, this);
+        scheduler = new Scheduler(timerWheel, this);
         scheduler.setStreamEventPool(new StreamEventPool(0,0,0, 5));
-        long currentTime = System.currentTimeMillis();
+        long currentTime = timerWheel.currentTime();
         scheduler.notifyAt(currentTime);
         scheduledTime = currentTime;
     }
@@ -112,7 +113,17 @@ public class AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter extends S
 
     @Override
     public void restoreState(Object[] state) {
-        groupByKeyEvents = (Map<String, LastEventHolder>) state[0];
+        groupByKeyEvents = (Map<GroupByKey, LastEventHolder>) state[0];
+    }
+
+    @Override
+    public void removeGroup(GroupByKey groupByKey) {
+        try {
+            lock.lock();
+            groupByKeyEvents.remove(groupByKey);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public synchronized void sendEvents() {
@@ -19,32 +19,33 @@ package org.wso2.siddhi.core.query.output.ratelimit.snapshot;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
 import org.wso2.siddhi.core.util.Scheduler;
+import org.wso2.siddhi.core.util.TimerWheel;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class GroupByPerSnapshotOutputRateLimiter extends SnapshotOutputRateLimiter {
     private String id;
     private final Long value;
-    private ScheduledExecutorService scheduledExecutorService;
-    private Map<String, List<ComplexEvent>> tempGroupByKeyEvents = new LinkedHashMap<String, List<ComplexEvent>>();
-    private Map<String, List<ComplexEvent>> groupByKeyEvents = new LinkedHashMap<String, List<ComplexEvent>>();
+    private TimerWheel timerWheel;
+    private Map<GroupByKey, List<ComplexEvent>> tempGroupByKeyEvents = new LinkedHashMap<GroupByKey, List<ComplexEvent>>();
+    private Map<GroupByKey, List<ComplexEvent>> groupByKeyEvents = new LinkedHashMap<GroupByKey, List<ComplexEvent>>();
     private Scheduler scheduler;
     private long scheduledTime;
     private Lock lock;
 
-    public GroupByPerSnapshotOutputRateLimiter(String id, Long value, ScheduledExecutorService scheduledExecutorService, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
+    public GroupByPerSnapshotOutputRateLimiter(String id, Long value, TimerWheel timerWheel, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
         super(wrappedSnapshotOutputRateLimiter);
         this.id = id;
         this.value = value;
-        this.scheduledExecutorService = scheduledExecutorService;
+        this.timerWheel = timerWheel;
         lock = new ReentrantLock();
     }
 
@@ -56,11 +57,11 @@ public class GroupByPerSnapshotOutputRateLimiter extends SnapshotOutputRateLimit
             if(firstEvent != null && firstEvent.getType() == ComplexEvent.Type.TIMER) {
                 if (firstEvent.getTimestamp() >= scheduledTime) {
                     sendEvents();
-                    scheduledTime = scheduledTime + value;
+                    scheduledTime = Scheduler.nextPeriodicTime(scheduledTime, value, firstEvent.getTimestamp());
                     scheduler.notifyAt(scheduledTime);
                 }
             } else {
-                for (String key : tempGroupByKeyEvents.keySet()) {
+                for (GroupByKey key : tempGroupByKeyEvents.keySet()) {
                     groupByKeyEvents.put(key, tempGroupByKeyEvents.get(key));
                 }
                 tempGroupByKeyEvents.clear();
@@ -75,7 +76,7 @@ public class GroupByPerSnapshotOutputRateLimiter extends SnapshotOutputRateLimit
         try {
             lock.lock();
             if (complexEvent.getType() == ComplexEvent.Type.CURRENT) {
-                String groupByKey = QuerySelector.getThreadLocalGroupByKey();
+                GroupByKey groupByKey = QuerySelector.getThreadLocalGroupByKey();
                 if (tempGroupByKeyEvents.containsKey(groupByKey)) {
                     tempGroupByKeyEvents.get(groupByKey).add(complexEvent);
                 } else {
@@ -91,9 +92,9 @@ public class GroupByPerSnapshotOutputRateLimiter extends SnapshotOutputRateLimit
 
     @Override
     public void start() {
-        scheduler = new Scheduler(scheduledExecutorService, this);
+        scheduler = new Scheduler(timerWheel, this);
         scheduler.setStreamEventPool(new StreamEventPool(0,0,0, 5));
-        long currentTime = System.currentTimeMillis();
+        long currentTime = timerWheel.currentTime();
         scheduler.notifyAt(currentTime);
         scheduledTime = currentTime;
     }
@@ -110,8 +111,19 @@ public class GroupByPerSnapshotOutputRateLimiter extends SnapshotOutputRateLimit
 
     @Override
     public void restoreState(Object[] state) {
-        tempGroupByKeyEvents = (Map<String, List<ComplexEvent>>) state[0];
-        groupByKeyEvents = (Map<String, List<ComplexEvent>>) state[1];
+        tempGroupByKeyEvents = (Map<GroupByKey, List<ComplexEvent>>) state[0];
+        groupByKeyEvents = (Map<GroupByKey, List<ComplexEvent>>) state[1];
+    }
+
+    @Override
+    public void removeGroup(GroupByKey groupByKey) {
+        try {
+            lock.lock();
+            tempGroupByKeyEvents.remove(groupByKey);
+            groupByKeyEvents.remove(groupByKey);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public synchronized void sendEvents() {
@@ -138,7 +150,7 @@ public class GroupByPerSnapshotOutputRateLimiter extends SnapshotOutputRateLimit
 
     @Override
     public SnapshotOutputRateLimiter clone(String key, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter) {
-        return new GroupByPerSnapshotOutputRateLimiter(id + key, value, scheduledExecutorService, wrappedSnapshotOutputRateLimiter);
+        return new GroupByPerSnapshotOutputRateLimiter(id + key, value, timerWheel, wrappedSnapshotOutputRateLimiter);
     }
 
 }
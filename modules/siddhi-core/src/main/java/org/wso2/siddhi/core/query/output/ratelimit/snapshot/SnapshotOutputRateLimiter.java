@@ -21,6 +21,7 @@ import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.state.StateEventCloner;
 import org.wso2.siddhi.core.event.stream.StreamEventCloner;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
 import org.wso2.siddhi.core.util.Schedulable;
 
 public abstract class SnapshotOutputRateLimiter implements Schedulable {
@@ -39,6 +40,15 @@ public abstract class SnapshotOutputRateLimiter implements Schedulable {
 
     public abstract SnapshotOutputRateLimiter clone(String key, WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter);
 
+    /**
+     * Drop the events held for a group removed by the query selector
+     *
+     * @param groupByKey key of the removed group
+     */
+    public void removeGroup(GroupByKey groupByKey) {
+        //no events held per group by default
+    }
+
     public void setStreamEventCloner(StreamEventCloner streamEventCloner) {
         this.streamEventCloner = streamEventCloner;
     }
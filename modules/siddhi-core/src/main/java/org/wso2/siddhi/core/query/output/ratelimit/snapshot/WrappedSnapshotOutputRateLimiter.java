@@ -26,26 +26,27 @@ import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventCloner;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
 import org.wso2.siddhi.core.query.output.ratelimit.OutputRateLimiter;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
 import org.wso2.siddhi.core.query.selector.attribute.processor.AttributeProcessor;
 import org.wso2.siddhi.core.query.selector.attribute.processor.executor.AbstractAggregationAttributeExecutor;
+import org.wso2.siddhi.core.util.TimerWheel;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ScheduledExecutorService;
 
 public class WrappedSnapshotOutputRateLimiter extends OutputRateLimiter {
     SnapshotOutputRateLimiter outputRateLimiter;
     private String id;
     private final Long value;
-    private final ScheduledExecutorService scheduledExecutorService;
+    private final TimerWheel timerWheel;
     private final boolean groupBy;
     private final boolean windowed;
     private List<Integer> aggregateAttributePositionList = new ArrayList<Integer>();
 
-    public WrappedSnapshotOutputRateLimiter(String id, Long value, ScheduledExecutorService scheduledExecutorService, boolean isGroupBy, boolean isWindowed) {
+    public WrappedSnapshotOutputRateLimiter(String id, Long value, TimerWheel timerWheel, boolean isGroupBy, boolean isWindowed) {
         this.id = id;
         this.value = value;
-        this.scheduledExecutorService = scheduledExecutorService;
+        this.timerWheel = timerWheel;
         groupBy = isGroupBy;
         windowed = isWindowed;
 
@@ -53,7 +54,7 @@ public class WrappedSnapshotOutputRateLimiter extends OutputRateLimiter {
 
     @Override
     public OutputRateLimiter clone(String key) {
-        WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter = new WrappedSnapshotOutputRateLimiter(id + key, value, scheduledExecutorService, groupBy, windowed);
+        WrappedSnapshotOutputRateLimiter wrappedSnapshotOutputRateLimiter = new WrappedSnapshotOutputRateLimiter(id + key, value, timerWheel, groupBy, windowed);
         wrappedSnapshotOutputRateLimiter.outputRateLimiter = this.outputRateLimiter.clone(key, wrappedSnapshotOutputRateLimiter);
         return wrappedSnapshotOutputRateLimiter;
     }
@@ -68,28 +69,28 @@ public class WrappedSnapshotOutputRateLimiter extends OutputRateLimiter {
         if (windowed) {
             if (groupBy) {
                 if (outPutAttributeSize == aggregateAttributePositionList.size()) {   //All Aggregation
-                    outputRateLimiter = new AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter(id, value, scheduledExecutorService, this);
+                    outputRateLimiter = new AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter(id, value, timerWheel, this);
                 } else if (aggregateAttributePositionList.size() > 0) {   //Some Aggregation
-                    outputRateLimiter = new AggregationGroupByWindowedPerSnapshotOutputRateLimiter(id, value, scheduledExecutorService, aggregateAttributePositionList, this);
+                    outputRateLimiter = new AggregationGroupByWindowedPerSnapshotOutputRateLimiter(id, value, timerWheel, aggregateAttributePositionList, this);
                 } else { // No aggregation
                     //GroupBy is same as Non GroupBy
-                    outputRateLimiter = new WindowedPerSnapshotOutputRateLimiter(id, value, scheduledExecutorService, this);
+                    outputRateLimiter = new WindowedPerSnapshotOutputRateLimiter(id, value, timerWheel, this);
                 }
             } else {
                 if (outPutAttributeSize == aggregateAttributePositionList.size()) {   //All Aggregation
-                    outputRateLimiter = new AllAggregationPerSnapshotOutputRateLimiter(id, value, scheduledExecutorService, this);
+                    outputRateLimiter = new AllAggregationPerSnapshotOutputRateLimiter(id, value, timerWheel, this);
                 } else if (aggregateAttributePositionList.size() > 0) {   //Some Aggregation
-                    outputRateLimiter = new AggregationWindowedPerSnapshotOutputRateLimiter(id, value, scheduledExecutorService, aggregateAttributePositionList, this);
+                    outputRateLimiter = new AggregationWindowedPerSnapshotOutputRateLimiter(id, value, timerWheel, aggregateAttributePositionList, this);
                 } else { // No aggregation
-                    outputRateLimiter = new WindowedPerSnapshotOutputRateLimiter(id, value, scheduledExecutorService, this);
+                    outputRateLimiter = new WindowedPerSnapshotOutputRateLimiter(id, value, timerWheel, this);
                 }
             }
 
         } else {
             if (groupBy) {
-                outputRateLimiter = new GroupByPerSnapshotOutputRateLimiter(id, value, scheduledExecutorService, this);
+                outputRateLimiter = new GroupByPerSnapshotOutputRateLimiter(id, value, timerWheel, this);
             } else {
-                outputRateLimiter = new PerSnapshotOutputRateLimiter(id, value, scheduledExecutorService, this);
+                outputRateLimiter = new PerSnapshotOutputRateLimiter(id, value, timerWheel, this);
             }
         }
 
@@ -125,6 +126,11 @@ public class WrappedSnapshotOutputRateLimiter extends OutputRateLimiter {
         outputRateLimiter.add(complexEvent);
     }
 
+    @Override
+    public void removeGroup(GroupByKey groupByKey) {
+        outputRateLimiter.removeGroup(groupByKey);
+    }
+
     public void passToCallBacks(ComplexEventChunk complexEventChunk) {
         sendToCallBacks(complexEventChunk);
     }
@@ -21,13 +21,14 @@ import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
 import org.wso2.siddhi.core.query.output.ratelimit.OutputRateLimiter;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
 import org.wso2.siddhi.core.util.Schedulable;
 import org.wso2.siddhi.core.util.Scheduler;
+import org.wso2.siddhi.core.util.TimerWheel;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -36,23 +37,23 @@ public class FirstGroupByPerTimeOutputRateLimiter extends OutputRateLimiter impl
 
     private String id;
     private final Long value;
-    private List<String> groupByKeys = new ArrayList<String>();
+    private List<GroupByKey> groupByKeys = new ArrayList<GroupByKey>();
     private List<ComplexEvent> complexEventList = new ArrayList<ComplexEvent>();
-    private ScheduledExecutorService scheduledExecutorService;
+    private TimerWheel timerWheel;
     private Scheduler scheduler;
     private long scheduledTime;
     private Lock lock;
 
-    public FirstGroupByPerTimeOutputRateLimiter(String id, Long value, ScheduledExecutorService scheduledExecutorService) {
+    public FirstGroupByPerTimeOutputRateLimiter(String id, Long value, TimerWheel timerWheel) {
         this.id = id;
         this.value = value;
-        this.scheduledExecutorService = scheduledExecutorService;
+        this.timerWheel = timerWheel;
         lock = new ReentrantLock();
     }
 
     @Override
     public OutputRateLimiter clone(String key) {
-        return new FirstGroupByPerTimeOutputRateLimiter(id + key, value, scheduledExecutorService);
+        return new FirstGroupByPerTimeOutputRateLimiter(id + key, value, timerWheel);
     }
 
     @Override
@@ -63,7 +64,7 @@ public class FirstGroupByPerTimeOutputRateLimiter extends OutputRateLimiter impl
             if(firstEvent != null && firstEvent.getType() == ComplexEvent.Type.TIMER) {
                 if (firstEvent.getTimestamp() >= scheduledTime) {
                     resetEvents();
-                    scheduledTime = scheduledTime + value;
+                    scheduledTime = Scheduler.nextPeriodicTime(scheduledTime, value, firstEvent.getTimestamp());
                     scheduler.notifyAt(scheduledTime);
                 }
             } else {
@@ -83,7 +84,7 @@ public class FirstGroupByPerTimeOutputRateLimiter extends OutputRateLimiter impl
     public void add(ComplexEvent complexEvent) {
         try {
             lock.lock();
-            String groupByKey = QuerySelector.getThreadLocalGroupByKey();
+            GroupByKey groupByKey = QuerySelector.getThreadLocalGroupByKey();
             if (!groupByKeys.contains(groupByKey)) {
                 groupByKeys.add(groupByKey);
                 complexEventList.add(complexEvent);
@@ -95,9 +96,9 @@ public class FirstGroupByPerTimeOutputRateLimiter extends OutputRateLimiter impl
 
     @Override
     public void start() {
-        scheduler = new Scheduler(scheduledExecutorService, this);
+        scheduler = new Scheduler(timerWheel, this);
         scheduler.setStreamEventPool(new StreamEventPool(0,0,0, 5));
-        long currentTime = System.currentTimeMillis();
+        long currentTime = timerWheel.currentTime();
         scheduler.notifyAt(currentTime);
         scheduledTime = currentTime;
 
@@ -116,7 +117,7 @@ public class FirstGroupByPerTimeOutputRateLimiter extends OutputRateLimiter impl
     @Override
     public void restoreState(Object[] state) {
         complexEventList = (List<ComplexEvent>) state[0];
-        groupByKeys = (List<String>) state[1];
+        groupByKeys = (List<GroupByKey>) state[1];
     }
 
     private synchronized void resetEvents() {
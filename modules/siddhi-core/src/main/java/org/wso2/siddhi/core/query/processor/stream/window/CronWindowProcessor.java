@@ -44,6 +44,11 @@ public class CronWindowProcessor extends WindowProcessor implements Job{
         }
     }
 
+    @Override
+    public boolean expiresInArrivalOrder() {
+        return true;
+    }
+
     @Override
     protected void process(ComplexEventChunk<StreamEvent> streamEventChunk, Processor nextProcessor, StreamEventCloner streamEventCloner) {
         while (streamEventChunk.hasNext()) {
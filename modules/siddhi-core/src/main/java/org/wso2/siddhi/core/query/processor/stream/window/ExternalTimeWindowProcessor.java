@@ -64,6 +64,11 @@ public class ExternalTimeWindowProcessor extends WindowProcessor implements Find
         }
     }
 
+    @Override
+    public boolean expiresInArrivalOrder() {
+        return true;
+    }
+
     @Override
     protected synchronized void process(ComplexEventChunk<StreamEvent> streamEventChunk, Processor nextProcessor, StreamEventCloner streamEventCloner) {
         while (streamEventChunk.hasNext()) {
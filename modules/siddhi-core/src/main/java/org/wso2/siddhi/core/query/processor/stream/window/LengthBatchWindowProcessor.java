@@ -53,6 +53,11 @@ public class LengthBatchWindowProcessor extends WindowProcessor implements Finda
         }
     }
 
+    @Override
+    public boolean expiresInArrivalOrder() {
+        return true;
+    }
+
     @Override
     protected synchronized void process(ComplexEventChunk<StreamEvent> streamEventChunk, Processor nextProcessor, StreamEventCloner streamEventCloner) {
         while (streamEventChunk.hasNext()) {
@@ -28,17 +28,20 @@ import org.wso2.siddhi.core.query.processor.Processor;
 import org.wso2.siddhi.core.table.EventTable;
 import org.wso2.siddhi.core.util.collection.operator.Finder;
 import org.wso2.siddhi.core.util.parser.CollectionOperatorParser;
+import org.wso2.siddhi.core.util.snapshot.EventChunkChangeTracker;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshotable;
 import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
 import org.wso2.siddhi.query.api.expression.Expression;
 
 import java.util.List;
 import java.util.Map;
 
-public class LengthWindowProcessor extends WindowProcessor implements FindableProcessor {
+public class LengthWindowProcessor extends WindowProcessor implements FindableProcessor, IncrementalSnapshotable {
 
     private int length;
     private int count = 0;
     private ComplexEventChunk<StreamEvent> expiredEventChunk;
+    private EventChunkChangeTracker changeTracker = new EventChunkChangeTracker();
 
     public int getLength() {
         return length;
@@ -58,6 +61,11 @@ public class LengthWindowProcessor extends WindowProcessor implements FindablePr
         }
     }
 
+    @Override
+    public boolean expiresInArrivalOrder() {
+        return true;
+    }
+
     @Override
     protected synchronized void process(ComplexEventChunk<StreamEvent> streamEventChunk, Processor nextProcessor, StreamEventCloner streamEventCloner) {
         while (streamEventChunk.hasNext()) {
@@ -67,11 +75,14 @@ public class LengthWindowProcessor extends WindowProcessor implements FindablePr
             if (count < length) {
                 count++;
                 this.expiredEventChunk.add(clonedEvent);
+                changeTracker.added();
             } else {
                 StreamEvent firstEvent = this.expiredEventChunk.poll();
                 if (firstEvent != null) {
                     streamEventChunk.insertBeforeCurrent(firstEvent);
                     this.expiredEventChunk.add(clonedEvent);
+                    changeTracker.removed();
+                    changeTracker.added();
                 } else {
                     streamEventChunk.insertBeforeCurrent(clonedEvent);
                 }
@@ -109,5 +120,24 @@ public class LengthWindowProcessor extends WindowProcessor implements FindablePr
     public void restoreState(Object[] state) {
         expiredEventChunk = (ComplexEventChunk<StreamEvent>) state[0];
         count = (Integer) state[1];
+        changeTracker.restoreState(expiredEventChunk);
+    }
+
+    @Override
+    public Object[] baseState() {
+        changeTracker.base();
+        return currentState();
+    }
+
+    @Override
+    public Object[] incrementalState() {
+        Object[] changes = changeTracker.incrementalState(expiredEventChunk);
+        return new Object[]{changes[0], changes[1], count};
+    }
+
+    @Override
+    public void restoreIncrementalState(Object[] incrementalState) {
+        changeTracker.restoreIncrementalState(expiredEventChunk, incrementalState);
+        count = (Integer) incrementalState[2];
     }
 }
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.query.processor.stream.window;
+
+import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.stream.StreamJunction;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshotable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Partial aggregates of the events of a stream, kept once for all the time windows of the queries reading the
+ * stream. The aggregates receive each event of the stream once, keep its arrival time and add its values to the
+ * running sums of the aggregated attributes, before passing it on to the queries. A query reads the sum of a time
+ * window as the difference of two running sums, hence the per event cost of N windows is that of one.
+ * Events are dropped once every reader has expired them.
+ */
+public class SharedTimeWindowAggregates implements StreamJunction.Receiver, IncrementalSnapshotable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String elementId;
+    private final String streamId;
+    private final ExecutionPlanContext executionPlanContext;
+    private final List<StreamJunction.Receiver> receivers = new ArrayList<StreamJunction.Receiver>();
+    private final List<Reader> readers = new ArrayList<Reader>();
+    private int[] positions = new int[0];
+    private boolean[] doubleColumns = new boolean[0];
+    private long[] times = new long[INITIAL_CAPACITY];
+    private long[][] longSums = new long[0][];
+    private double[][] doubleSums = new double[0][];
+    private long[] headLongSums = new long[0];
+    private double[] headDoubleSums = new double[0];
+    private int head;
+    private int size;
+    private long headSequence;
+    private long baseEndSequence;
+
+    /**
+     * Reader of the aggregates, the events it has not expired are kept
+     */
+    public interface Reader {
+
+        /**
+         * @return sequence of the oldest event the reader has not expired
+         */
+        long getExpirySequence();
+    }
+
+    public SharedTimeWindowAggregates(String streamId, ExecutionPlanContext executionPlanContext) {
+        this.streamId = streamId;
+        this.executionPlanContext = executionPlanContext;
+        this.elementId = executionPlanContext.getElementIdGenerator().createNewId();
+        executionPlanContext.getSnapshotService().addSnapshotable(this);
+    }
+
+    /**
+     * Keep the running sums of an attribute, to be called before events are received
+     *
+     * @param position     position of the attribute in the stream definition
+     * @param doubleValues true to sum the values as doubles, false as longs
+     * @return column of the sums
+     */
+    public synchronized int addColumn(int position, boolean doubleValues) {
+        for (int column = 0; column < positions.length; column++) {
+            if (positions[column] == position && doubleColumns[column] == doubleValues) {
+                return column;
+            }
+        }
+        int column = positions.length;
+        int columns = column + 1;
+        positions = Arrays.copyOf(positions, columns);
+        positions[column] = position;
+        doubleColumns = Arrays.copyOf(doubleColumns, columns);
+        doubleColumns[column] = doubleValues;
+        longSums = Arrays.copyOf(longSums, columns);
+        doubleSums = Arrays.copyOf(doubleSums, columns);
+        if (doubleValues) {
+            doubleSums[column] = new double[times.length];
+        } else {
+            longSums[column] = new long[times.length];
+        }
+        headLongSums = Arrays.copyOf(headLongSums, columns);
+        headDoubleSums = Arrays.copyOf(headDoubleSums, columns);
+        return column;
+    }
+
+    /**
+     * Pass the events on to the receiver once they are aggregated
+     */
+    public synchronized void addReceiver(StreamJunction.Receiver receiver) {
+        receivers.add(receiver);
+    }
+
+    public synchronized void addReader(Reader reader) {
+        readers.add(reader);
+    }
+
+    /**
+     * @return arrival time of the event, read while the event or a later one is passed on
+     */
+    public long getArrivalTime(long sequence) {
+        return times[index(sequence)];
+    }
+
+    /**
+     * @return sum of the column over the events from the first sequence, to the event before the last sequence
+     */
+    public long getLongSum(int column, long fromSequence, long toSequence) {
+        return longSumBefore(column, toSequence) - longSumBefore(column, fromSequence);
+    }
+
+    /**
+     * @return sum of the column over the events from the first sequence, to the event before the last sequence
+     */
+    public double getDoubleSum(int column, long fromSequence, long toSequence) {
+        return doubleSumBefore(column, toSequence) - doubleSumBefore(column, fromSequence);
+    }
+
+    private long longSumBefore(int column, long sequence) {
+        return sequence == headSequence ? headLongSums[column] : longSums[column][index(sequence - 1)];
+    }
+
+    private double doubleSumBefore(int column, long sequence) {
+        return sequence == headSequence ? headDoubleSums[column] : doubleSums[column][index(sequence - 1)];
+    }
+
+    private int index(long sequence) {
+        return (head + (int) (sequence - headSequence)) & (times.length - 1);
+    }
+
+    @Override
+    public String getStreamId() {
+        return streamId;
+    }
+
+    @Override
+    public synchronized void receive(ComplexEvent complexEvent) {
+        for (ComplexEvent event = complexEvent; event != null; event = event.getNext()) {
+            aggregate(event.getOutputData());
+        }
+        for (StreamJunction.Receiver receiver : receivers) {
+            receiver.receive(complexEvent);
+        }
+    }
+
+    @Override
+    public synchronized void receive(Event event) {
+        aggregate(event.getData());
+        for (StreamJunction.Receiver receiver : receivers) {
+            receiver.receive(event);
+        }
+    }
+
+    @Override
+    public synchronized void receive(Event event, boolean endOfBatch) {
+        aggregate(event.getData());
+        for (StreamJunction.Receiver receiver : receivers) {
+            receiver.receive(event, endOfBatch);
+        }
+    }
+
+    @Override
+    public synchronized void receive(long timeStamp, Object[] data) {
+        aggregate(data);
+        for (StreamJunction.Receiver receiver : receivers) {
+            receiver.receive(timeStamp, data);
+        }
+    }
+
+    @Override
+    public synchronized void receive(Event[] events) {
+        for (Event event : events) {
+            aggregate(event.getData());
+        }
+        for (StreamJunction.Receiver receiver : receivers) {
+            receiver.receive(events);
+        }
+    }
+
+    private void aggregate(Object[] data) {
+        if (size == times.length) {
+            trim();
+            if (size > times.length >> 1) {
+                grow();
+            }
+        }
+        append(executionPlanContext.getTimestampGenerator().currentTime());
+        int index = index(headSequence + size - 1);
+        for (int column = 0; column < positions.length; column++) {
+            Object value = data[positions[column]];
+            if (doubleColumns[column]) {
+                doubleSums[column][index] += value == null ? 0 : ((Number) value).doubleValue();
+            } else {
+                longSums[column][index] += value == null ? 0 : ((Number) value).longValue();
+            }
+        }
+    }
+
+    /**
+     * Append an event whose sums are those before it, its values are added to them by the caller
+     */
+    private void append(long time) {
+        long sequence = headSequence + size;
+        int index = (head + size) & (times.length - 1);
+        times[index] = time;
+        for (int column = 0; column < positions.length; column++) {
+            if (doubleColumns[column]) {
+                doubleSums[column][index] = doubleSumBefore(column, sequence);
+            } else {
+                longSums[column][index] = longSumBefore(column, sequence);
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Drop the events all the readers expired, and restart the double sums from zero to keep their precision
+     */
+    private void trim() {
+        long toSequence = headSequence + size;
+        for (Reader reader : readers) {
+            toSequence = Math.min(toSequence, reader.getExpirySequence());
+        }
+        drop(toSequence);
+        for (int column = 0; column < positions.length; column++) {
+            if (doubleColumns[column]) {
+                double headSum = headDoubleSums[column];
+                for (int i = 0; i < size; i++) {
+                    doubleSums[column][(head + i) & (times.length - 1)] -= headSum;
+                }
+                headDoubleSums[column] = 0;
+            }
+        }
+    }
+
+    private void drop(long toSequence) {
+        int dropped = (int) Math.min(toSequence - headSequence, size);
+        if (dropped <= 0) {
+            return;
+        }
+        int last = (head + dropped - 1) & (times.length - 1);
+        for (int column = 0; column < positions.length; column++) {
+            if (doubleColumns[column]) {
+                headDoubleSums[column] = doubleSums[column][last];
+            } else {
+                headLongSums[column] = longSums[column][last];
+            }
+        }
+        head = (head + dropped) & (times.length - 1);
+        size -= dropped;
+        headSequence += dropped;
+    }
+
+    private void grow() {
+        resize(times.length << 1);
+    }
+
+    private void resize(int capacity) {
+        int mask = times.length - 1;
+        long[] newTimes = new long[capacity];
+        for (int i = 0; i < size; i++) {
+            newTimes[i] = times[(head + i) & mask];
+        }
+        for (int column = 0; column < positions.length; column++) {
+            if (doubleColumns[column]) {
+                double[] newSums = new double[capacity];
+                for (int i = 0; i < size; i++) {
+                    newSums[i] = doubleSums[column][(head + i) & mask];
+                }
+                doubleSums[column] = newSums;
+            } else {
+                long[] newSums = new long[capacity];
+                for (int i = 0; i < size; i++) {
+                    newSums[i] = longSums[column][(head + i) & mask];
+                }
+                longSums[column] = newSums;
+            }
+        }
+        times = newTimes;
+        head = 0;
+    }
+
+    /**
+     * @return head sequence, arrival times and for each column the sums after each event less the sums before
+     * the head
+     */
+    @Override
+    public synchronized Object[] currentState() {
+        return new Object[]{headSequence, copyTimes(headSequence), copySums(headSequence)};
+    }
+
+    @Override
+    public synchronized void restoreState(Object[] state) {
+        long[] storedTimes = (long[]) state[1];
+        head = 0;
+        size = 0;
+        headSequence = (Long) state[0];
+        for (int column = 0; column < positions.length; column++) {
+            headLongSums[column] = 0;
+            headDoubleSums[column] = 0;
+        }
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < storedTimes.length << 1) {
+            capacity <<= 1;
+        }
+        resize(capacity);
+        appendAll(storedTimes, (Object[]) state[2]);
+        baseEndSequence = headSequence + size;
+    }
+
+    @Override
+    public synchronized Object[] baseState() {
+        baseEndSequence = headSequence + size;
+        return currentState();
+    }
+
+    /**
+     * @return head sequence, sequence of the first event stored after the previous state was taken, and the
+     * arrival times and sums of the events stored since, the sums less the sums before the head
+     */
+    @Override
+    public synchronized Object[] incrementalState() {
+        long fromSequence = Math.max(baseEndSequence, headSequence);
+        baseEndSequence = headSequence + size;
+        return new Object[]{headSequence, fromSequence, copyTimes(fromSequence), copySums(fromSequence)};
+    }
+
+    @Override
+    public synchronized void restoreIncrementalState(Object[] incrementalState) {
+        drop((Long) incrementalState[0]);
+        if (size == 0) {
+            headSequence = (Long) incrementalState[1];
+        }
+        appendAll((long[]) incrementalState[2], (Object[]) incrementalState[3]);
+        baseEndSequence = headSequence + size;
+    }
+
+    private long[] copyTimes(long fromSequence) {
+        long[] copiedTimes = new long[(int) (headSequence + size - fromSequence)];
+        for (int i = 0; i < copiedTimes.length; i++) {
+            copiedTimes[i] = times[index(fromSequence + i)];
+        }
+        return copiedTimes;
+    }
+
+    private Object[] copySums(long fromSequence) {
+        int length = (int) (headSequence + size - fromSequence);
+        Object[] sums = new Object[positions.length];
+        for (int column = 0; column < positions.length; column++) {
+            if (doubleColumns[column]) {
+                double[] copiedSums = new double[length];
+                for (int i = 0; i < length; i++) {
+                    copiedSums[i] = doubleSums[column][index(fromSequence + i)] - headDoubleSums[column];
+                }
+                sums[column] = copiedSums;
+            } else {
+                long[] copiedSums = new long[length];
+                for (int i = 0; i < length; i++) {
+                    copiedSums[i] = longSums[column][index(fromSequence + i)] - headLongSums[column];
+                }
+                sums[column] = copiedSums;
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Append the events given by {@link #copyTimes(long)} and {@link #copySums(long)}, their sums being less the
+     * sums before the head
+     */
+    private void appendAll(long[] storedTimes, Object[] storedSums) {
+        for (int i = 0; i < storedTimes.length; i++) {
+            if (size == times.length) {
+                grow();
+            }
+            int index = (head + size) & (times.length - 1);
+            times[index] = storedTimes[i];
+            for (int column = 0; column < positions.length; column++) {
+                if (doubleColumns[column]) {
+                    doubleSums[column][index] = headDoubleSums[column] + ((double[]) storedSums[column])[i];
+                } else {
+                    longSums[column][index] = headLongSums[column] + ((long[]) storedSums[column])[i];
+                }
+            }
+            size++;
+        }
+    }
+
+    @Override
+    public String getElementId() {
+        return elementId;
+    }
+}
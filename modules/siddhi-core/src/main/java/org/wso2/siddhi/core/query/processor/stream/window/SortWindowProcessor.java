@@ -27,12 +27,23 @@ import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.query.processor.Processor;
 import org.wso2.siddhi.core.table.EventTable;
+import org.wso2.siddhi.core.util.collection.SortedEventHolder;
 import org.wso2.siddhi.core.util.collection.operator.Finder;
 import org.wso2.siddhi.core.util.parser.CollectionOperatorParser;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
 
-import java.util.*;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 
 /*
 * Sample Query:
@@ -47,27 +58,200 @@ import java.util.*;
 * */
 public class SortWindowProcessor extends WindowProcessor implements FindableProcessor {
     private int lengthToKeep;
-    private ArrayList<StreamEvent> sortedWindow = new ArrayList<StreamEvent>();
-    private ArrayList<Object[]> parameterInfo;
-    private EventComparator eventComparator;
+    private TreeSet<SortedEvent> sortedWindow;
+    private VariableExpressionExecutor[] sortExecutors;
+    private ValueComparator[] valueComparators;
+    private long sequence;
+    private SortedWindowEvents sortedWindowEvents = new SortedWindowEvents();
 
     private static final String ASC = "asc";
     private static final String DESC = "desc";
 
-    private class EventComparator implements Comparator<StreamEvent> {
+    /**
+     * Event of the window with its values of the sort attributes, events with equal values are ordered by arrival
+     */
+    private static class SortedEvent {
+        private final StreamEvent streamEvent;
+        private final Object[] sortValues;
+        private final long sequence;
+        //-1 or 1 for the bounds of range scans, placed before or after the events with the same first sort value
+        private final int bound;
+
+        private SortedEvent(StreamEvent streamEvent, Object[] sortValues, long sequence, int bound) {
+            this.streamEvent = streamEvent;
+            this.sortValues = sortValues;
+            this.sequence = sequence;
+            this.bound = bound;
+        }
+    }
+
+    private class EventComparator implements Comparator<SortedEvent> {
         @Override
-        public int compare(StreamEvent e1, StreamEvent e2) {
-            int comparisonResult;
-            for (Object[] listItem : parameterInfo) {
-                int[] variablePosition = ((VariableExpressionExecutor) listItem[0]).getPosition();
-                Comparable comparableVariable1 = (Comparable) e1.getAttribute(variablePosition);
-                Comparable comparableVariable2 = (Comparable) e2.getAttribute(variablePosition);
-                comparisonResult = comparableVariable1.compareTo(comparableVariable2);
+        public int compare(SortedEvent e1, SortedEvent e2) {
+            if (valueComparators.length == 0) {
+                return e1.sequence < e2.sequence ? -1 : (e1.sequence == e2.sequence ? 0 : 1);
+            }
+            int comparisonResult = valueComparators[0].compare(e1.sortValues[0], e2.sortValues[0]);
+            if (comparisonResult != 0) {
+                return comparisonResult;
+            }
+            if (e1.bound != 0 || e2.bound != 0) {
+                return e1.bound - e2.bound;
+            }
+            for (int i = 1; i < valueComparators.length; i++) {
+                comparisonResult = valueComparators[i].compare(e1.sortValues[i], e2.sortValues[i]);
                 if (comparisonResult != 0) {
-                    return ((Integer) listItem[1]) * comparisonResult;
+                    return comparisonResult;
                 }
             }
-            return 0;
+            return e1.sequence < e2.sequence ? -1 : (e1.sequence == e2.sequence ? 0 : 1);
+        }
+    }
+
+    /**
+     * Compares values of a sort attribute in its order, nulls first
+     */
+    private static abstract class ValueComparator {
+        private final int order;
+
+        private ValueComparator(int order) {
+            this.order = order;
+        }
+
+        private int compare(Object value1, Object value2) {
+            if (value1 == null || value2 == null) {
+                return value1 == value2 ? 0 : (value1 == null ? -order : order);
+            }
+            return order * compareValues(value1, value2);
+        }
+
+        protected abstract int compareValues(Object value1, Object value2);
+
+        private static ValueComparator create(Attribute.Type type, int order) {
+            switch (type) {
+                case INT:
+                    return new ValueComparator(order) {
+                        @Override
+                        protected int compareValues(Object value1, Object value2) {
+                            int int1 = (Integer) value1;
+                            int int2 = (Integer) value2;
+                            return int1 < int2 ? -1 : (int1 == int2 ? 0 : 1);
+                        }
+                    };
+                case LONG:
+                    return new ValueComparator(order) {
+                        @Override
+                        protected int compareValues(Object value1, Object value2) {
+                            long long1 = (Long) value1;
+                            long long2 = (Long) value2;
+                            return long1 < long2 ? -1 : (long1 == long2 ? 0 : 1);
+                        }
+                    };
+                case FLOAT:
+                    return new ValueComparator(order) {
+                        @Override
+                        protected int compareValues(Object value1, Object value2) {
+                            return Float.compare((Float) value1, (Float) value2);
+                        }
+                    };
+                case DOUBLE:
+                    return new ValueComparator(order) {
+                        @Override
+                        protected int compareValues(Object value1, Object value2) {
+                            return Double.compare((Double) value1, (Double) value2);
+                        }
+                    };
+                case STRING:
+                    return new ValueComparator(order) {
+                        @Override
+                        protected int compareValues(Object value1, Object value2) {
+                            return ((String) value1).compareTo((String) value2);
+                        }
+                    };
+                default:
+                    return new ValueComparator(order) {
+                        @Override
+                        protected int compareValues(Object value1, Object value2) {
+                            return ((Comparable) value1).compareTo(value2);
+                        }
+                    };
+            }
+        }
+    }
+
+    /**
+     * Events of the window in the sort order, narrowed down by the first sort attribute on range scans
+     */
+    private class SortedWindowEvents implements SortedEventHolder {
+
+        @Override
+        public Collection<StreamEvent> getAllEvents() {
+            return new StreamEvents(sortedWindow);
+        }
+
+        @Override
+        public Collection<StreamEvent> findEvents(Compare.Operator operator, Object value) {
+            if (value == null) {
+                return Collections.emptyList();
+            }
+            SortedEvent lowerBound = new SortedEvent(null, new Object[]{value}, 0, -1);
+            SortedEvent upperBound = new SortedEvent(null, new Object[]{value}, 0, 1);
+            boolean ascending = valueComparators[0].order > 0;
+            switch (operator) {
+                case EQUAL:
+                    return new StreamEvents(sortedWindow.subSet(lowerBound, false, upperBound, false));
+                case GREATER_THAN:
+                    return new StreamEvents(ascending ? sortedWindow.tailSet(upperBound, false) :
+                            sortedWindow.headSet(lowerBound, false));
+                case GREATER_THAN_EQUAL:
+                    return new StreamEvents(ascending ? sortedWindow.tailSet(lowerBound, false) :
+                            sortedWindow.headSet(upperBound, false));
+                case LESS_THAN:
+                    return new StreamEvents(ascending ? sortedWindow.headSet(lowerBound, false) :
+                            sortedWindow.tailSet(upperBound, false));
+                case LESS_THAN_EQUAL:
+                    return new StreamEvents(ascending ? sortedWindow.headSet(upperBound, false) :
+                            sortedWindow.tailSet(lowerBound, false));
+                default:
+                    return getAllEvents();
+            }
+        }
+    }
+
+    /**
+     * View of the events of a range of the window
+     */
+    private static class StreamEvents extends AbstractCollection<StreamEvent> {
+        private final NavigableSet<SortedEvent> sortedEvents;
+
+        private StreamEvents(NavigableSet<SortedEvent> sortedEvents) {
+            this.sortedEvents = sortedEvents;
+        }
+
+        @Override
+        public Iterator<StreamEvent> iterator() {
+            final Iterator<SortedEvent> iterator = sortedEvents.iterator();
+            return new Iterator<StreamEvent>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public StreamEvent next() {
+                    return iterator.next().streamEvent;
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return sortedEvents.size();
         }
     }
 
@@ -78,8 +262,8 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
         } else {
             throw new UnsupportedOperationException("The first parameter should be an integer");
         }
-        parameterInfo = new ArrayList<Object[]>();
-        eventComparator = new EventComparator();
+        List<VariableExpressionExecutor> sortExecutorList = new ArrayList<VariableExpressionExecutor>();
+        List<ValueComparator> valueComparatorList = new ArrayList<ValueComparator>();
         for (int i = 1, parametersLength = attributeExpressionExecutors.length; i < parametersLength; i++) {
             if (!(attributeExpressionExecutors[i] instanceof VariableExpressionExecutor)) {
                 throw new UnsupportedOperationException("Required a variable, but found a string parameter");
@@ -101,36 +285,36 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
                 } else {
                     order = 1; //assigning the default order: "asc"
                 }
-                parameterInfo.add(new Object[]{variableExpressionExecutor, order});
+                sortExecutorList.add((VariableExpressionExecutor) variableExpressionExecutor);
+                valueComparatorList.add(ValueComparator.create(variableExpressionExecutor.getReturnType(), order));
             }
         }
-
+        sortExecutors = sortExecutorList.toArray(new VariableExpressionExecutor[sortExecutorList.size()]);
+        valueComparators = valueComparatorList.toArray(new ValueComparator[valueComparatorList.size()]);
+        sortedWindow = new TreeSet<SortedEvent>(new EventComparator());
     }
 
     @Override
     protected synchronized void process(ComplexEventChunk<StreamEvent> streamEventChunk, Processor nextProcessor, StreamEventCloner streamEventCloner) {
-        ComplexEventChunk<StreamEvent> complexEventChunk = new ComplexEventChunk<StreamEvent>();
-
-        StreamEvent streamEvent = streamEventChunk.getFirst();
-        while (streamEvent != null) {
+        while (streamEventChunk.hasNext()) {
+            StreamEvent streamEvent = streamEventChunk.next();
             StreamEvent clonedEvent = streamEventCloner.copyStreamEvent(streamEvent);
             clonedEvent.setType(StreamEvent.Type.EXPIRED);
-
-            StreamEvent next = streamEvent.getNext();
-            streamEvent.setNext(null);
-            complexEventChunk.add(streamEvent);
-
-            sortedWindow.add(clonedEvent);
+            add(clonedEvent);
             if (sortedWindow.size() > lengthToKeep) {
-                Collections.sort(sortedWindow, eventComparator);
-                complexEventChunk.add(sortedWindow.remove(sortedWindow.size() - 1));
+                streamEventChunk.insertAfterCurrent(sortedWindow.pollLast().streamEvent);
+                streamEventChunk.next();
             }
-
-            streamEvent = next;
         }
-        nextProcessor.process(complexEventChunk);
-
+        nextProcessor.process(streamEventChunk);
+    }
 
+    private void add(StreamEvent streamEvent) {
+        Object[] sortValues = new Object[sortExecutors.length];
+        for (int i = 0; i < sortExecutors.length; i++) {
+            sortValues[i] = streamEvent.getAttribute(sortExecutors[i].getPosition());
+        }
+        sortedWindow.add(new SortedEvent(streamEvent, sortValues, sequence++, 0));
     }
 
     @Override
@@ -144,23 +328,30 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
     }
 
     @Override
-    public Object[] currentState() {
-        return new Object[]{sortedWindow};
+    public synchronized Object[] currentState() {
+        return new Object[]{new ArrayList<StreamEvent>(sortedWindowEvents.getAllEvents())};
     }
 
     @Override
-    public void restoreState(Object[] state) {
-        sortedWindow = (ArrayList<StreamEvent>) state[0];
+    public synchronized void restoreState(Object[] state) {
+        sortedWindow.clear();
+        for (StreamEvent streamEvent : (ArrayList<StreamEvent>) state[0]) {
+            add(streamEvent);
+        }
     }
 
     @Override
     public synchronized StreamEvent find(ComplexEvent matchingEvent, Finder finder) {
-        return finder.find(matchingEvent, sortedWindow, streamEventCloner);
+        return finder.find(matchingEvent, sortedWindowEvents, streamEventCloner);
     }
 
     @Override
     public Finder constructFinder(Expression expression, MetaComplexEvent metaComplexEvent, ExecutionPlanContext executionPlanContext, List<VariableExpressionExecutor> variableExpressionExecutors, Map<String, EventTable> eventTableMap, int matchingStreamIndex, long withinTime) {
-        return CollectionOperatorParser.parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, inputDefinition, withinTime);
+        if (sortExecutors.length == 0) {
+            return CollectionOperatorParser.parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, inputDefinition, withinTime);
+        }
+        return CollectionOperatorParser.parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, inputDefinition, withinTime,
+                sortExecutors[0].getAttribute().getName());
 
     }
 }
@@ -83,6 +83,11 @@ public class TimeBatchWindowProcessor extends WindowProcessor implements Schedul
         lastSentTime = executionPlanContext.getTimestampGenerator().currentTime();
     }
 
+    @Override
+    public boolean expiresInArrivalOrder() {
+        return true;
+    }
+
     @Override
     protected synchronized void process(ComplexEventChunk<StreamEvent> streamEventChunk, Processor nextProcessor, StreamEventCloner streamEventCloner) {
         long currentTime = executionPlanContext.getTimestampGenerator().currentTime();
@@ -30,6 +30,8 @@ import org.wso2.siddhi.core.table.EventTable;
 import org.wso2.siddhi.core.util.Scheduler;
 import org.wso2.siddhi.core.util.collection.operator.Finder;
 import org.wso2.siddhi.core.util.parser.CollectionOperatorParser;
+import org.wso2.siddhi.core.util.snapshot.EventChunkChangeTracker;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshotable;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
 import org.wso2.siddhi.query.api.expression.Expression;
@@ -37,17 +39,24 @@ import org.wso2.siddhi.query.api.expression.Expression;
 import java.util.List;
 import java.util.Map;
 
-public class TimeWindowProcessor extends WindowProcessor implements SchedulingProcessor, FindableProcessor {
+public class TimeWindowProcessor extends WindowProcessor implements SchedulingProcessor, FindableProcessor,
+        IncrementalSnapshotable {
 
     private long timeInMilliSeconds;
     private ComplexEventChunk<StreamEvent> expiredEventChunk;
+    private EventChunkChangeTracker changeTracker = new EventChunkChangeTracker();
     private Scheduler scheduler;
     private ExecutionPlanContext executionPlanContext;
+    private boolean shared;
 
     public void setTimeInMilliSeconds(long timeInMilliSeconds) {
         this.timeInMilliSeconds = timeInMilliSeconds;
     }
 
+    public long getTimeInMilliSeconds() {
+        return timeInMilliSeconds;
+    }
+
     @Override
     public void setScheduler(Scheduler scheduler) {
         this.scheduler = scheduler;
@@ -80,8 +89,25 @@ public class TimeWindowProcessor extends WindowProcessor implements SchedulingPr
         }
     }
 
+    /**
+     * Pass the events on without keeping them, the aggregates of the query are read from the partial aggregates
+     * of the events shared by the time windows on the stream, see {@link SharedTimeWindowAggregates}
+     */
+    public void share() {
+        shared = true;
+    }
+
+    @Override
+    public boolean expiresInArrivalOrder() {
+        return true;
+    }
+
     @Override
     protected synchronized void process(ComplexEventChunk<StreamEvent> streamEventChunk, Processor nextProcessor, StreamEventCloner streamEventCloner) {
+        if (shared) {
+            nextProcessor.process(streamEventChunk);
+            return;
+        }
         while (streamEventChunk.hasNext()) {
 
             StreamEvent streamEvent = streamEventChunk.next();
@@ -100,6 +126,7 @@ public class TimeWindowProcessor extends WindowProcessor implements SchedulingPr
                 long timeDiff = expiredEvent.getTimestamp() - currentTime;
                 if (timeDiff <= 0) {
                     expiredEventChunk.remove();
+                    changeTracker.removed();
                     streamEventChunk.insertBeforeCurrent(expiredEvent);
                 } else {
                     scheduler.notifyAt(expiredEvent.getTimestamp());
@@ -111,6 +138,7 @@ public class TimeWindowProcessor extends WindowProcessor implements SchedulingPr
 
             if (streamEvent.getType() == StreamEvent.Type.CURRENT) {
                 this.expiredEventChunk.add(clonedEvent);
+                changeTracker.added();
                 if (!eventScheduled) {
                     scheduler.notifyAt(clonedEvent.getTimestamp());
                 }
@@ -148,5 +176,22 @@ public class TimeWindowProcessor extends WindowProcessor implements SchedulingPr
     @Override
     public void restoreState(Object[] state) {
         expiredEventChunk = (ComplexEventChunk<StreamEvent>) state[0];
+        changeTracker.restoreState(expiredEventChunk);
+    }
+
+    @Override
+    public synchronized Object[] baseState() {
+        changeTracker.base();
+        return currentState();
+    }
+
+    @Override
+    public synchronized Object[] incrementalState() {
+        return changeTracker.incrementalState(expiredEventChunk);
+    }
+
+    @Override
+    public synchronized void restoreIncrementalState(Object[] incrementalState) {
+        changeTracker.restoreIncrementalState(expiredEventChunk, incrementalState);
     }
 }
@@ -60,4 +60,14 @@ public abstract class WindowProcessor extends AbstractStreamProcessor {
     protected abstract void process(ComplexEventChunk<StreamEvent> streamEventChunk, Processor nextProcessor,
                                     StreamEventCloner streamEventCloner);
 
+    /**
+     * Overridden by the windows expiring the events in the order they arrived, letting the aggregators of the query
+     * keep only what they need of the events still in the window
+     *
+     * @return true if the events expire in the order they arrived
+     */
+    public boolean expiresInArrivalOrder() {
+        return false;
+    }
+
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.query.selector;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Group of a group by query, identified by the values of its group by attributes. The keys of a query are interned
+ * by its {@link GroupByKeyIndex}, which numbers them densely so that their state can be kept in arrays. The id
+ * of a removed group is reused, hence the state kept for an id belongs to the key with the same serial number.
+ */
+public final class GroupByKey implements Serializable {
+
+    private final Object[] values;
+    private final int hash;
+    private final int id;
+    private final long serialNo;
+
+    GroupByKey(Object[] values, int hash, int id, long serialNo) {
+        this.values = values;
+        this.hash = hash;
+        this.id = id;
+        this.serialNo = serialNo;
+    }
+
+    /**
+     * @return id of the group, unique within the query it belongs to
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return number identifying the key among all the keys of the query, including the removed ones
+     */
+    public long getSerialNo() {
+        return serialNo;
+    }
+
+    public Object[] getValues() {
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GroupByKey)) {
+            return false;
+        }
+        GroupByKey that = (GroupByKey) o;
+        return hash == that.hash && Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * @return the values each followed by "::", as used in the element ids of the state of the group
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Object value : values) {
+            sb.append(value).append("::");
+        }
+        return sb.toString();
+    }
+}
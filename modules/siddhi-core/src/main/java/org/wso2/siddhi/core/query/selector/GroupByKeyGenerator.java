@@ -16,9 +16,7 @@
 package org.wso2.siddhi.core.query.selector;
 
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
-import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.MetaComplexEvent;
-import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.table.EventTable;
 import org.wso2.siddhi.core.util.SiddhiConstants;
@@ -47,20 +45,11 @@ public class GroupByKeyGenerator {
     }
 
     /**
-     * generate groupBy key of a streamEvent
-     *
-     * @param event complexEvent
-     * @return GroupByKey
+     * @param elementId            id of the state of the index
+     * @param executionPlanContext Execution plan runtime context
+     * @return index generating the group by keys of the events of a query selector
      */
-    protected String constructEventKey(ComplexEvent event) {
-        if (groupByExecutors != null) {
-            StringBuilder sb = new StringBuilder();
-            for (ExpressionExecutor executor : groupByExecutors) {
-                sb.append(executor.execute(event)).append("::");
-            }
-            return sb.toString();
-        } else {
-            return null;
-        }
+    public GroupByKeyIndex createKeyIndex(String elementId, ExecutionPlanContext executionPlanContext) {
+        return new GroupByKeyIndex(groupByExecutors, elementId, executionPlanContext);
     }
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.query.selector;
+
+import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
+import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open addressing index of the groups of a query selector. The group by values of an event are looked up in place,
+ * hence a {@link GroupByKey} is only created the first time a group is seen, and is numbered with a free id.
+ * <p/>
+ * Groups can be removed once all their events have expired, and once they are idle for the idle period,
+ * freeing their ids to be reused by new groups. Idle groups still holding events of the window are kept till
+ * those events expire.
+ */
+public class GroupByKeyIndex implements Snapshotable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final VariableExpressionExecutor[] groupByExecutors;
+    private final Object[] probeValues;
+    private final String elementId;
+    private GroupByKey[] table = new GroupByKey[INITIAL_CAPACITY * 2];
+    private GroupByKey[] keys = new GroupByKey[INITIAL_CAPACITY];
+    private int size = 0;
+    private int[] freeIds = new int[0];
+    private int freeIdCount = 0;
+    private long lastSerialNo = 0;
+
+    private long[] eventCounts;
+    private List<GroupByKey> emptyKeys;
+    private long idlePeriod;
+    private long purgeInterval;
+    private long nextPurgeTime;
+    private long[] lastAccessTimes;
+    private final List<GroupByKey> removedKeys = new ArrayList<GroupByKey>();
+    private long removedGroupCount = 0;
+
+    public GroupByKeyIndex(VariableExpressionExecutor[] groupByExecutors, String elementId,
+                           ExecutionPlanContext executionPlanContext) {
+        this.groupByExecutors = groupByExecutors;
+        this.probeValues = new Object[groupByExecutors.length];
+        this.elementId = elementId;
+        executionPlanContext.getSnapshotService().addSnapshotable(this);
+    }
+
+    /**
+     * Remove the groups whose events have all expired, to be used when each event added to a group is
+     * later expired from it, as with the windows of a single stream
+     */
+    public void enableEmptyGroupRemoval() {
+        eventCounts = new long[keys.length];
+        emptyKeys = new ArrayList<GroupByKey>();
+    }
+
+    /**
+     * Remove the groups not seen for the idle period
+     *
+     * @param idlePeriod    time after which an unseen group is removed
+     * @param purgeInterval minimum time between two scans for the idle groups
+     */
+    public void enableIdleGroupRemoval(long idlePeriod, long purgeInterval) {
+        this.idlePeriod = idlePeriod;
+        this.purgeInterval = purgeInterval;
+        lastAccessTimes = new long[keys.length];
+    }
+
+    public boolean isGroupRemovalEnabled() {
+        return eventCounts != null || lastAccessTimes != null;
+    }
+
+    /**
+     * @param event event to be grouped
+     * @return the key of the group of the event, created if the group is new
+     */
+    public GroupByKey getKey(ComplexEvent event) {
+        int hash = 1;
+        for (int i = 0; i < groupByExecutors.length; i++) {
+            Object value = groupByExecutors[i].execute(event);
+            probeValues[i] = value;
+            hash = 31 * hash + (value == null ? 0 : value.hashCode());
+        }
+        hash ^= (hash >>> 16);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            GroupByKey key = table[slot];
+            if (key == null) {
+                return addKey(hash, slot);
+            }
+            if (key.hashCode() == hash && matches(key.getValues())) {
+                return key;
+            }
+        }
+    }
+
+    /**
+     * Record an event processed for a group, when group removal is enabled
+     *
+     * @param key         key of the group
+     * @param type        type of the event
+     * @param currentTime time the event is processed
+     */
+    public void update(GroupByKey key, ComplexEvent.Type type, long currentTime) {
+        int id = key.getId();
+        if (lastAccessTimes != null) {
+            lastAccessTimes[id] = currentTime;
+        }
+        if (eventCounts != null) {
+            if (type == ComplexEvent.Type.CURRENT) {
+                eventCounts[id]++;
+            } else if (type == ComplexEvent.Type.EXPIRED && --eventCounts[id] == 0) {
+                emptyKeys.add(key);
+            }
+        }
+    }
+
+    /**
+     * Remove the groups left without events and, once every purge interval, the idle groups
+     *
+     * @param currentTime current time
+     * @return keys of the removed groups, valid till the next call
+     */
+    public List<GroupByKey> removeGroups(long currentTime) {
+        removedKeys.clear();
+        if (eventCounts != null && !emptyKeys.isEmpty()) {
+            for (GroupByKey key : emptyKeys) {
+                if (keys[key.getId()] == key && eventCounts[key.getId()] == 0) {
+                    removeKey(key);
+                }
+            }
+            emptyKeys.clear();
+        }
+        if (lastAccessTimes != null && currentTime >= nextPurgeTime) {
+            for (int id = 0; id < size; id++) {
+                GroupByKey key = keys[id];
+                if (key != null && currentTime - lastAccessTimes[id] >= idlePeriod
+                        && (eventCounts == null || eventCounts[id] == 0)) {
+                    removeKey(key);
+                }
+            }
+            nextPurgeTime = currentTime + purgeInterval;
+        }
+        return removedKeys;
+    }
+
+    /**
+     * @return number of live groups
+     */
+    public int getGroupCount() {
+        return size - freeIdCount;
+    }
+
+    /**
+     * @return number of groups removed so far
+     */
+    public long getRemovedGroupCount() {
+        return removedGroupCount;
+    }
+
+    public String getElementId() {
+        return elementId;
+    }
+
+    private boolean matches(Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null ? probeValues[i] != null : !value.equals(probeValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private GroupByKey addKey(int hash, int slot) {
+        int id;
+        if (freeIdCount > 0) {
+            id = freeIds[--freeIdCount];
+        } else {
+            if (size == keys.length) {
+                growKeys(size * 2);
+            }
+            id = size++;
+        }
+        GroupByKey key = new GroupByKey(probeValues.clone(), hash, id, ++lastSerialNo);
+        keys[id] = key;
+        table[slot] = key;
+        if (getGroupCount() * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return key;
+    }
+
+    private void removeKey(GroupByKey key) {
+        int id = key.getId();
+        int mask = table.length - 1;
+        int gap = key.hashCode() & mask;
+        while (table[gap] != key) {
+            gap = (gap + 1) & mask;
+        }
+        // shift back the keys probed past the removed one
+        for (int slot = (gap + 1) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+            int home = table[slot].hashCode() & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = table[slot];
+                gap = slot;
+            }
+        }
+        table[gap] = null;
+
+        keys[id] = null;
+        if (eventCounts != null) {
+            eventCounts[id] = 0;
+        }
+        if (freeIdCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, Math.max(INITIAL_CAPACITY, freeIdCount * 2));
+        }
+        freeIds[freeIdCount++] = id;
+        removedKeys.add(key);
+        removedGroupCount++;
+    }
+
+    private void growKeys(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        if (eventCounts != null) {
+            eventCounts = Arrays.copyOf(eventCounts, capacity);
+        }
+        if (lastAccessTimes != null) {
+            lastAccessTimes = Arrays.copyOf(lastAccessTimes, capacity);
+        }
+    }
+
+    private void rehash(int capacity) {
+        table = new GroupByKey[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != null) {
+                int slot = keys[i].hashCode() & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = keys[i];
+            }
+        }
+    }
+
+    @Override
+    public Object[] currentState() {
+        return new Object[]{Arrays.copyOf(keys, size), Arrays.copyOf(freeIds, freeIdCount), lastSerialNo,
+                eventCounts == null ? null : Arrays.copyOf(eventCounts, size),
+                lastAccessTimes == null ? null : Arrays.copyOf(lastAccessTimes, size), removedGroupCount};
+    }
+
+    @Override
+    public void restoreState(Object[] state) {
+        GroupByKey[] restoredKeys = (GroupByKey[]) state[0];
+        freeIds = (int[]) state[1];
+        freeIdCount = freeIds.length;
+        lastSerialNo = (Long) state[2];
+        size = restoredKeys.length;
+        int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(size) * 2);
+        keys = Arrays.copyOf(restoredKeys, capacity);
+        if (eventCounts != null) {
+            eventCounts = state[3] == null ? new long[capacity] : Arrays.copyOf((long[]) state[3], capacity);
+            emptyKeys.clear();
+        }
+        if (lastAccessTimes != null) {
+            lastAccessTimes = state[4] == null ? new long[capacity] : Arrays.copyOf((long[]) state[4], capacity);
+        }
+        removedGroupCount = (Long) state[5];
+        rehash(capacity * 2);
+    }
+}
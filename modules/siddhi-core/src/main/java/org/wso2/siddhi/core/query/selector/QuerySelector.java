@@ -34,7 +34,7 @@ public class QuerySelector implements Processor {
 
 
     private static final Logger log = Logger.getLogger(QuerySelector.class);
-    private static final ThreadLocal<String> keyThreadLocal = new ThreadLocal<String>();
+    private static final ThreadLocal<GroupByKey> keyThreadLocal = new ThreadLocal<GroupByKey>();
     private Selector selector;
     private ExecutionPlanContext executionPlanContext;
     private boolean currentOn = false;
@@ -45,8 +45,13 @@ public class QuerySelector implements Processor {
     private ConditionExpressionExecutor havingConditionExecutor = null;
     private boolean isGroupBy = false;
     private GroupByKeyGenerator groupByKeyGenerator;
+    private GroupByKeyIndex groupByKeyIndex;
+    private boolean emptyGroupRemoval = false;
+    private long groupIdlePeriod = 0;
+    private long groupPurgeInterval = 0;
     private String id;
     private StateEventPopulator eventPopulator;
+    private ComplexEvent[] columnEvents = new ComplexEvent[16];
 
     public QuerySelector(String id, Selector selector, boolean currentOn, boolean expiredOn, ExecutionPlanContext executionPlanContext) {
         this.id = id;
@@ -56,7 +61,7 @@ public class QuerySelector implements Processor {
         this.executionPlanContext = executionPlanContext;
     }
 
-    public static String getThreadLocalGroupByKey() {
+    public static GroupByKey getThreadLocalGroupByKey() {
         return keyThreadLocal.get();
     }
 
@@ -69,6 +74,8 @@ public class QuerySelector implements Processor {
 
         if(!containsAggregator) {
             boolean isEventSent = false;
+            boolean isGroupRemoval = isGroupBy && groupByKeyIndex.isGroupRemovalEnabled();
+            long currentTime = isGroupRemoval ? executionPlanContext.getTimestampGenerator().currentTime() : 0;
             complexEventChunk.reset();
 
             while (complexEventChunk.hasNext()) {
@@ -79,7 +86,11 @@ public class QuerySelector implements Processor {
                     eventPopulator.populateStateEvent(event);
 
                     if (isGroupBy) {
-                        keyThreadLocal.set(groupByKeyGenerator.constructEventKey(event));
+                        GroupByKey groupByKey = groupByKeyIndex.getKey(event);
+                        if (isGroupRemoval) {
+                            groupByKeyIndex.update(groupByKey, event.getType(), currentTime);
+                        }
+                        keyThreadLocal.set(groupByKey);
                     }
 
                     for (AttributeProcessor attributeProcessor : attributeProcessorList) {
@@ -104,14 +115,24 @@ public class QuerySelector implements Processor {
                 complexEventChunk.clear();
                 outputRateLimiter.process(complexEventChunk);
             }
+            if (isGroupRemoval) {
+                removeGroups(currentTime);
+            }
         } else {
             processInBatches(complexEventChunk);
         }
     }
 
     public void processInBatches(ComplexEventChunk complexEventChunk) {
-        Map<String, ComplexEvent> groupedEvents = new LinkedHashMap<String, ComplexEvent>();
+        ComplexEvent first = complexEventChunk.getFirst();
+        if (!isGroupBy && havingConditionExecutor == null && first != null && first.getNext() != null) {
+            processColumns(complexEventChunk);
+            return;
+        }
+        Map<GroupByKey, ComplexEvent> groupedEvents = isGroupBy ? new LinkedHashMap<GroupByKey, ComplexEvent>() : null;
         boolean isEventSent = false;
+        boolean isGroupRemoval = isGroupBy && groupByKeyIndex.isGroupRemovalEnabled();
+        long currentTime = isGroupRemoval ? executionPlanContext.getTimestampGenerator().currentTime() : 0;
         complexEventChunk.reset();
         ComplexEvent lastEvent = null;
 
@@ -121,9 +142,12 @@ public class QuerySelector implements Processor {
             if (event.getType() == StreamEvent.Type.CURRENT || event.getType() == StreamEvent.Type.EXPIRED) {
 
                 eventPopulator.populateStateEvent(event);
-                String groupByKey = "";
+                GroupByKey groupByKey = null;
                 if (isGroupBy) {
-                    groupByKey = groupByKeyGenerator.constructEventKey(event);
+                    groupByKey = groupByKeyIndex.getKey(event);
+                    if (isGroupRemoval) {
+                        groupByKeyIndex.update(groupByKey, event.getType(), currentTime);
+                    }
                     keyThreadLocal.set(groupByKey);
                 }
 
@@ -152,7 +176,7 @@ public class QuerySelector implements Processor {
 
         if (isEventSent) {
             if (isGroupBy) {
-                for (Map.Entry<String,ComplexEvent> groupedEventEntry : groupedEvents.entrySet()) {
+                for (Map.Entry<GroupByKey, ComplexEvent> groupedEventEntry : groupedEvents.entrySet()) {
                     keyThreadLocal.set(groupedEventEntry.getKey());
                     outputRateLimiter.add(groupedEventEntry.getValue());
                     keyThreadLocal.remove();
@@ -163,6 +187,63 @@ public class QuerySelector implements Processor {
             complexEventChunk.clear();
             outputRateLimiter.process(complexEventChunk);
         }
+        if (isGroupRemoval) {
+            removeGroups(currentTime);
+        }
+    }
+
+    /**
+     * Only the last output event of the chunk is sent when the query is neither grouped nor filtered by having,
+     * hence the aggregators are given the whole chunk at once and only the output of that event is computed.
+     * The events are gathered in a buffer kept by the selector, chunks of a single event are processed one by one.
+     */
+    private void processColumns(ComplexEventChunk complexEventChunk) {
+        ComplexEvent[] events = columnEvents;
+        int size = 0;
+        int lastIndex = -1;
+        complexEventChunk.reset();
+        while (complexEventChunk.hasNext()) {
+            ComplexEvent event = complexEventChunk.next();
+            if (event.getType() == StreamEvent.Type.CURRENT || event.getType() == StreamEvent.Type.EXPIRED) {
+                eventPopulator.populateStateEvent(event);
+                complexEventChunk.remove();
+                if (size == events.length) {
+                    events = Arrays.copyOf(events, size * 2);
+                    columnEvents = events;
+                }
+                events[size] = event;
+                if ((event.getType() == StreamEvent.Type.CURRENT && currentOn) || (event.getType() == StreamEvent.Type.EXPIRED && expiredOn)) {
+                    lastIndex = size;
+                }
+                size++;
+            }
+        }
+        if (size == 0) {
+            return;
+        }
+
+        for (AttributeProcessor attributeProcessor : attributeProcessorList) {
+            if (lastIndex >= 0) {
+                attributeProcessor.process(events, 0, lastIndex + 1);
+            }
+            if (lastIndex + 1 < size) {
+                attributeProcessor.process(events, lastIndex + 1, size);
+            }
+        }
+
+        ComplexEvent lastEvent = lastIndex >= 0 ? events[lastIndex] : null;
+        Arrays.fill(events, 0, size, null);
+        if (lastEvent != null) {
+            outputRateLimiter.add(lastEvent);
+            complexEventChunk.clear();
+            outputRateLimiter.process(complexEventChunk);
+        }
+    }
+
+    private void removeGroups(long currentTime) {
+        for (GroupByKey groupByKey : groupByKeyIndex.removeGroups(currentTime)) {
+            outputRateLimiter.removeGroup(groupByKey);
+        }
     }
 
     @Override
@@ -207,9 +288,53 @@ public class QuerySelector implements Processor {
         this.containsAggregator = containsAggregator;
     }
 
+    public boolean containsAggregator() {
+        return containsAggregator;
+    }
+
+    public boolean isGroupBy() {
+        return isGroupBy;
+    }
+
     public void setGroupByKeyGenerator(GroupByKeyGenerator groupByKeyGenerator) {
         isGroupBy = true;
         this.groupByKeyGenerator = groupByKeyGenerator;
+        this.groupByKeyIndex = groupByKeyGenerator.createKeyIndex(
+                executionPlanContext.getElementIdGenerator().createNewId(), executionPlanContext);
+    }
+
+    /**
+     * Remove the groups whose events have all expired from the window
+     */
+    public void setEmptyGroupRemoval() {
+        emptyGroupRemoval = true;
+        groupByKeyIndex.enableEmptyGroupRemoval();
+    }
+
+    /**
+     * Remove the groups not seen for the idle period
+     *
+     * @param idlePeriod    time after which an unseen group is removed
+     * @param purgeInterval minimum time between two scans for the idle groups
+     */
+    public void setGroupIdlePeriod(long idlePeriod, long purgeInterval) {
+        groupIdlePeriod = idlePeriod;
+        groupPurgeInterval = purgeInterval;
+        groupByKeyIndex.enableIdleGroupRemoval(idlePeriod, purgeInterval);
+    }
+
+    /**
+     * @return number of live groups, 0 when the query is not grouped
+     */
+    public int getGroupCount() {
+        return isGroupBy ? groupByKeyIndex.getGroupCount() : 0;
+    }
+
+    /**
+     * @return number of groups removed so far, 0 when the query is not grouped
+     */
+    public long getRemovedGroupCount() {
+        return isGroupBy ? groupByKeyIndex.getRemovedGroupCount() : 0;
     }
 
     public void setHavingConditionExecutor(ConditionExpressionExecutor havingConditionExecutor) {
@@ -226,6 +351,16 @@ public class QuerySelector implements Processor {
         clonedQuerySelector.isGroupBy = isGroupBy;
         clonedQuerySelector.containsAggregator = containsAggregator;
         clonedQuerySelector.groupByKeyGenerator = groupByKeyGenerator;
+        if (isGroupBy) {
+            clonedQuerySelector.groupByKeyIndex = groupByKeyGenerator.createKeyIndex(
+                    groupByKeyIndex.getElementId() + "-" + key, executionPlanContext);
+            if (emptyGroupRemoval) {
+                clonedQuerySelector.setEmptyGroupRemoval();
+            }
+            if (groupIdlePeriod > 0) {
+                clonedQuerySelector.setGroupIdlePeriod(groupIdlePeriod, groupPurgeInterval);
+            }
+        }
         clonedQuerySelector.havingConditionExecutor = havingConditionExecutor;
         clonedQuerySelector.eventPopulator = eventPopulator;
         return clonedQuerySelector;
@@ -19,35 +19,83 @@ import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.exception.ExecutionPlanCreationException;
 import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
+import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.PrimitiveExpressionExecutor;
 import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 public abstract class AttributeAggregator implements EternalReferencedHolder, Snapshotable {
 
+    /**
+     * Order in which the events aggregated by a query expire
+     */
+    public enum ExpiryOrder {
+        /**
+         * Events never expire, as in queries without windows
+         */
+        NONE,
+        /**
+         * Events expire in the order they arrived, as from length and time windows
+         */
+        ARRIVAL,
+        /**
+         * Events may expire in any order, as from sort windows and joins
+         */
+        ANY
+    }
+
     protected ExpressionExecutor[] attributeExpressionExecutors;
     protected ExecutionPlanContext executionPlanContext;
     protected String elementId;
+    protected ExpiryOrder expiryOrder = ExpiryOrder.ANY;
     private int attributeSize;
+    private long[] longColumn = new long[0];
+    private double[] doubleColumn = new double[0];
 
     public void initAggregator(ExpressionExecutor[] attributeExpressionExecutors, ExecutionPlanContext executionPlanContext) {
+        initAggregator(attributeExpressionExecutors, executionPlanContext, true);
+    }
+
+    private void initAggregator(ExpressionExecutor[] attributeExpressionExecutors,
+                                ExecutionPlanContext executionPlanContext, boolean registered) {
         try {
             this.executionPlanContext = executionPlanContext;
             this.attributeExpressionExecutors = attributeExpressionExecutors;
             this.attributeSize = attributeExpressionExecutors.length;
-            executionPlanContext.addEternalReferencedHolder(this);
             if (elementId == null) {
                 elementId = executionPlanContext.getElementIdGenerator().createNewId();
             }
-            executionPlanContext.getSnapshotService().addSnapshotable(this);
+            if (registered) {
+                executionPlanContext.addEternalReferencedHolder(this);
+                executionPlanContext.getSnapshotService().addSnapshotable(this);
+            }
             init(attributeExpressionExecutors, executionPlanContext);
         } catch (Throwable t) {
             throw new ExecutionPlanCreationException(t);
         }
     }
 
+    /**
+     * Set before the aggregator is initialized, letting it keep less state when its events expire in order
+     *
+     * @param expiryOrder order in which the aggregated events expire
+     */
+    public void setExpiryOrder(ExpiryOrder expiryOrder) {
+        this.expiryOrder = expiryOrder;
+    }
+
     public AttributeAggregator cloneAggregator(String key) {
+        return cloneAggregator(key, true);
+    }
+
+    /**
+     * @param key        key the clone is made for
+     * @param registered whether the clone is snapshotted and stopped by the execution plan, or by its owner
+     * @return started clone of the aggregator
+     */
+    AttributeAggregator cloneAggregator(String key, boolean registered) {
         try {
             AttributeAggregator attributeAggregator = this.getClass().newInstance();
             ExpressionExecutor[] innerExpressionExecutors = new ExpressionExecutor[attributeSize];
@@ -55,7 +103,8 @@ public abstract class AttributeAggregator implements EternalReferencedHolder, Sn
                 innerExpressionExecutors[i] = attributeExpressionExecutors[i].cloneExecutor(key);
             }
             attributeAggregator.elementId = elementId + "-" + key;
-            attributeAggregator.initAggregator(innerExpressionExecutors, executionPlanContext);
+            attributeAggregator.expiryOrder = expiryOrder;
+            attributeAggregator.initAggregator(innerExpressionExecutors, executionPlanContext, registered);
             attributeAggregator.start();
             return attributeAggregator;
         } catch (Exception e) {
@@ -63,6 +112,28 @@ public abstract class AttributeAggregator implements EternalReferencedHolder, Sn
         }
     }
 
+    /**
+     * @return aggregator keeping the state of all the groups of a group by query, falling back to a clone of this
+     * aggregator per group when its state cannot be kept in arrays
+     */
+    public GroupedAttributeAggregator createGroupedAggregator() {
+        GroupedAttributeAggregator groupedAttributeAggregator = newGroupedAggregator();
+        if (groupedAttributeAggregator == null) {
+            groupedAttributeAggregator = new ClonedGroupedAttributeAggregator(this);
+        }
+        groupedAttributeAggregator.initGroupedAggregator(elementId + "-groups", executionPlanContext);
+        return groupedAttributeAggregator;
+    }
+
+    /**
+     * Overridden by the aggregators able to keep the state of the groups in arrays
+     *
+     * @return new uninitialized GroupedAttributeAggregator, or null if not supported
+     */
+    protected GroupedAttributeAggregator newGroupedAggregator() {
+        return null;
+    }
+
     public Object process(ComplexEvent event) {
         if (attributeSize > 1) {
             Object[] data = new Object[attributeSize];
@@ -99,6 +170,141 @@ public abstract class AttributeAggregator implements EternalReferencedHolder, Sn
         return null;
     }
 
+    /**
+     * Aggregate a run of events, passing the values of consecutive current or expired events to the aggregator
+     * as a column when it supports columns. The column buffers are kept by the aggregator and grown on demand.
+     *
+     * @param events events to be aggregated
+     * @param from   index of the first event
+     * @param to     index after the last event
+     * @return aggregated value after the last event
+     */
+    public Object processBatch(ComplexEvent[] events, int from, int to) {
+        Object value = null;
+        Attribute.Type columnType = getColumnType();
+        if (columnType == null || attributeSize > 1 || to - from == 1) {
+            for (int i = from; i < to; i++) {
+                value = process(events[i]);
+            }
+            return value;
+        }
+        long[] longColumn = null;
+        double[] doubleColumn = null;
+        if (columnType == Attribute.Type.LONG) {
+            if (this.longColumn.length < to - from) {
+                this.longColumn = new long[Math.max(to - from, this.longColumn.length * 2)];
+            }
+            longColumn = this.longColumn;
+        } else {
+            if (this.doubleColumn.length < to - from) {
+                this.doubleColumn = new double[Math.max(to - from, this.doubleColumn.length * 2)];
+            }
+            doubleColumn = this.doubleColumn;
+        }
+        int i = from;
+        while (i < to) {
+            ComplexEvent.Type type = events[i].getType();
+            int length = 0;
+            if (type == ComplexEvent.Type.CURRENT || type == ComplexEvent.Type.EXPIRED) {
+                while (i < to && events[i].getType() == type &&
+                        readColumnValue(events[i], longColumn, doubleColumn, length)) {
+                    length++;
+                    i++;
+                }
+            }
+            if (length == 0) {
+                // null values and other events are aggregated one by one
+                value = process(events[i]);
+                i++;
+            } else if (type == ComplexEvent.Type.CURRENT) {
+                value = longColumn != null ? processAdd(longColumn, length) : processAdd(doubleColumn, length);
+            } else {
+                value = longColumn != null ? processRemove(longColumn, length) : processRemove(doubleColumn, length);
+            }
+        }
+        return value;
+    }
+
+    private boolean readColumnValue(ComplexEvent event, long[] longColumn, double[] doubleColumn, int index) {
+        if (attributeSize == 0) {
+            return true;
+        }
+        ExpressionExecutor expressionExecutor = attributeExpressionExecutors[0];
+        if (expressionExecutor instanceof PrimitiveExpressionExecutor &&
+                ((PrimitiveExpressionExecutor) expressionExecutor).isPrimitive()) {
+            PrimitiveExpressionExecutor primitiveExpressionExecutor = (PrimitiveExpressionExecutor) expressionExecutor;
+            if (primitiveExpressionExecutor.isNull(event)) {
+                return false;
+            }
+            if (longColumn != null) {
+                longColumn[index] = primitiveExpressionExecutor.executeLong(event);
+            } else {
+                doubleColumn[index] = primitiveExpressionExecutor.executeDouble(event);
+            }
+        } else {
+            Object data = expressionExecutor.execute(event);
+            if (data == null) {
+                return false;
+            }
+            if (!(data instanceof Number)) {
+                // only counted, as by count()
+                return true;
+            }
+            if (longColumn != null) {
+                longColumn[index] = ((Number) data).longValue();
+            } else {
+                doubleColumn[index] = ((Number) data).doubleValue();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Overridden by the aggregators able to aggregate columns of primitive values, see
+     * {@link #processAdd(long[], int)} and {@link #processAdd(double[], int)}
+     *
+     * @return LONG or DOUBLE as the type of the columns to be aggregated, or null if not supported
+     */
+    protected Attribute.Type getColumnType() {
+        return null;
+    }
+
+    /**
+     * @param values column of values to be added, used when the column type is LONG
+     * @param length number of values in the column
+     * @return aggregated value after adding the values in order
+     */
+    protected Object processAdd(long[] values, int length) {
+        throw new OperationNotSupportedException(getClass().getName() + " cannot aggregate long columns");
+    }
+
+    /**
+     * @param values column of values to be added, used when the column type is DOUBLE
+     * @param length number of values in the column
+     * @return aggregated value after adding the values in order
+     */
+    protected Object processAdd(double[] values, int length) {
+        throw new OperationNotSupportedException(getClass().getName() + " cannot aggregate double columns");
+    }
+
+    /**
+     * @param values column of values to be removed, used when the column type is LONG
+     * @param length number of values in the column
+     * @return aggregated value after removing the values in order
+     */
+    protected Object processRemove(long[] values, int length) {
+        throw new OperationNotSupportedException(getClass().getName() + " cannot aggregate long columns");
+    }
+
+    /**
+     * @param values column of values to be removed, used when the column type is DOUBLE
+     * @param length number of values in the column
+     * @return aggregated value after removing the values in order
+     */
+    protected Object processRemove(double[] values, int length) {
+        throw new OperationNotSupportedException(getClass().getName() + " cannot aggregate double columns");
+    }
+
     /**
      * The initialization method for FunctionExecutor
      *
@@ -16,8 +16,10 @@
 package org.wso2.siddhi.core.query.selector.attribute.aggregator;
 
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.PrimitiveExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.Arrays;
@@ -25,6 +27,7 @@ import java.util.Arrays;
 public class AvgAttributeAggregator extends AttributeAggregator {
 
     private AvgAttributeAggregator avgOutputAttributeAggregator;
+    private PrimitiveExpressionExecutor primitiveExpressionExecutor;
 
     /**
      * The initialization method for FunctionExecutor
@@ -55,6 +58,20 @@ public class AvgAttributeAggregator extends AttributeAggregator {
             default:
                 throw new OperationNotSupportedException("Avg not supported for " + type);
         }
+        if (attributeExpressionExecutors[0] instanceof PrimitiveExpressionExecutor &&
+                ((PrimitiveExpressionExecutor) attributeExpressionExecutors[0]).isPrimitive()) {
+            primitiveExpressionExecutor = (PrimitiveExpressionExecutor) attributeExpressionExecutors[0];
+        }
+    }
+
+    @Override
+    public Object process(ComplexEvent event) {
+        if (primitiveExpressionExecutor != null && (event.getType() == ComplexEvent.Type.CURRENT ||
+                event.getType() == ComplexEvent.Type.EXPIRED) && !primitiveExpressionExecutor.isNull(event)) {
+            double data = primitiveExpressionExecutor.executeDouble(event);
+            return event.getType() == ComplexEvent.Type.CURRENT ? processAdd(data) : processRemove(data);
+        }
+        return super.process(event);
     }
 
     public Attribute.Type getReturnType() {
@@ -66,6 +83,10 @@ public class AvgAttributeAggregator extends AttributeAggregator {
         return avgOutputAttributeAggregator.processAdd(data);
     }
 
+    protected Object processAdd(double data) {
+        return avgOutputAttributeAggregator.processAdd(data);
+    }
+
     @Override
     public Object processAdd(Object[] data) {
         // will not occur
@@ -77,17 +98,41 @@ public class AvgAttributeAggregator extends AttributeAggregator {
         return avgOutputAttributeAggregator.processRemove(data);
     }
 
+    protected Object processRemove(double data) {
+        return avgOutputAttributeAggregator.processRemove(data);
+    }
+
     @Override
     public Object processRemove(Object[] data) {
         // will not occur
         return new IllegalStateException("Avg cannot process data array, but found " + Arrays.deepToString(data));
     }
 
+    @Override
+    protected Attribute.Type getColumnType() {
+        return Attribute.Type.DOUBLE;
+    }
+
+    @Override
+    protected Object processAdd(double[] values, int length) {
+        return avgOutputAttributeAggregator.processAdd(values, length);
+    }
+
+    @Override
+    protected Object processRemove(double[] values, int length) {
+        return avgOutputAttributeAggregator.processRemove(values, length);
+    }
+
     @Override
     public Object reset() {
         return avgOutputAttributeAggregator.reset();
     }
 
+    @Override
+    protected GroupedAttributeAggregator newGroupedAggregator() {
+        return new AvgGroupedAttributeAggregator();
+    }
+
     @Override
     public void start() {
         //Nothing to start
@@ -138,6 +183,48 @@ public class AvgAttributeAggregator extends AttributeAggregator {
             return value / count;
         }
 
+        @Override
+        protected Object processAdd(double data) {
+            count++;
+            value += data;
+            return value / count;
+        }
+
+        @Override
+        protected Object processRemove(double data) {
+            count--;
+            value -= data;
+            if (count == 0) {
+                return 0.0;
+            }
+            return value / count;
+        }
+
+        @Override
+        protected Object processAdd(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum += values[i];
+            }
+            value = sum;
+            count += length;
+            return value / count;
+        }
+
+        @Override
+        protected Object processRemove(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum -= values[i];
+            }
+            value = sum;
+            count -= length;
+            if (count == 0) {
+                return 0.0;
+            }
+            return value / count;
+        }
+
         @Override
         public Object reset() {
             value = 0.0;
@@ -187,6 +274,48 @@ public class AvgAttributeAggregator extends AttributeAggregator {
             return value / count;
         }
 
+        @Override
+        protected Object processAdd(double data) {
+            count++;
+            value += data;
+            return value / count;
+        }
+
+        @Override
+        protected Object processRemove(double data) {
+            count--;
+            value -= data;
+            if (count == 0) {
+                return 0.0;
+            }
+            return value / count;
+        }
+
+        @Override
+        protected Object processAdd(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum += values[i];
+            }
+            value = sum;
+            count += length;
+            return value / count;
+        }
+
+        @Override
+        protected Object processRemove(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum -= values[i];
+            }
+            value = sum;
+            count -= length;
+            if (count == 0) {
+                return 0.0;
+            }
+            return value / count;
+        }
+
         @Override
         public Object reset() {
             value = 0.0;
@@ -236,6 +365,48 @@ public class AvgAttributeAggregator extends AttributeAggregator {
             return value / count;
         }
 
+        @Override
+        protected Object processAdd(double data) {
+            count++;
+            value += data;
+            return value / count;
+        }
+
+        @Override
+        protected Object processRemove(double data) {
+            count--;
+            value -= data;
+            if (count == 0) {
+                return 0.0;
+            }
+            return value / count;
+        }
+
+        @Override
+        protected Object processAdd(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum += values[i];
+            }
+            value = sum;
+            count += length;
+            return value / count;
+        }
+
+        @Override
+        protected Object processRemove(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum -= values[i];
+            }
+            value = sum;
+            count -= length;
+            if (count == 0) {
+                return 0.0;
+            }
+            return value / count;
+        }
+
         @Override
         public Object reset() {
             value = 0.0;
@@ -286,6 +457,48 @@ public class AvgAttributeAggregator extends AttributeAggregator {
             return value / count;
         }
 
+        @Override
+        protected Object processAdd(double data) {
+            count++;
+            value += data;
+            return value / count;
+        }
+
+        @Override
+        protected Object processRemove(double data) {
+            count--;
+            value -= data;
+            if (count == 0) {
+                return 0.0;
+            }
+            return value / count;
+        }
+
+        @Override
+        protected Object processAdd(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum += values[i];
+            }
+            value = sum;
+            count += length;
+            return value / count;
+        }
+
+        @Override
+        protected Object processRemove(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum -= values[i];
+            }
+            value = sum;
+            count -= length;
+            if (count == 0) {
+                return 0.0;
+            }
+            return value / count;
+        }
+
         @Override
         public Object reset() {
             value = 0.0;
@@ -306,5 +519,58 @@ public class AvgAttributeAggregator extends AttributeAggregator {
 
     }
 
+    class AvgGroupedAttributeAggregator extends GroupedAttributeAggregator {
+
+        private double[] values = new double[0];
+        private long[] counts = new long[0];
+
+        @Override
+        protected void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        protected Object processAdd(int group, ComplexEvent event) {
+            values[group] += getData(event);
+            if (++counts[group] == 0) {
+                return 0.0;
+            }
+            return values[group] / counts[group];
+        }
+
+        @Override
+        protected Object processRemove(int group, ComplexEvent event) {
+            values[group] -= getData(event);
+            if (--counts[group] == 0) {
+                return 0.0;
+            }
+            return values[group] / counts[group];
+        }
+
+        private double getData(ComplexEvent event) {
+            if (primitiveExpressionExecutor != null && !primitiveExpressionExecutor.isNull(event)) {
+                return primitiveExpressionExecutor.executeDouble(event);
+            }
+            return ((Number) attributeExpressionExecutors[0].execute(event)).doubleValue();
+        }
 
+        @Override
+        protected Object reset(int group) {
+            values[group] = 0.0;
+            counts[group] = 0;
+            return 0.0;
+        }
+
+        @Override
+        protected Object[] currentGroupState() {
+            return new Object[]{values.clone(), counts.clone()};
+        }
+
+        @Override
+        protected void restoreGroupState(Object[] state) {
+            values = (double[]) state[0];
+            counts = (long[]) state[1];
+        }
+    }
 }
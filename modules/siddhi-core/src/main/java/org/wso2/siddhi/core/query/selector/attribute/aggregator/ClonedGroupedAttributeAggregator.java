@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.query.selector.attribute.aggregator;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
+import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a clone of the aggregator per group, for the aggregators that do not keep their groups in arrays.
+ * The clones are not registered with the execution plan, their states are snapshotted as the state of this
+ * aggregator and they are stopped with it. Restored states are applied to the clones as the groups are next
+ * seen, and the clone of a removed group is stopped when its id is reused.
+ */
+class ClonedGroupedAttributeAggregator extends GroupedAttributeAggregator implements EternalReferencedHolder {
+
+    private final AttributeAggregator attributeAggregator;
+    private AttributeAggregator[] aggregators = new AttributeAggregator[0];
+    private Object[] restoredStates = new Object[0];
+
+    ClonedGroupedAttributeAggregator(AttributeAggregator attributeAggregator) {
+        this.attributeAggregator = attributeAggregator;
+        attributeAggregator.executionPlanContext.addEternalReferencedHolder(this);
+    }
+
+    @Override
+    public Object process(GroupByKey key, ComplexEvent event) {
+        int group = assign(key);
+        AttributeAggregator currentAttributeAggregator = aggregators[group];
+        if (currentAttributeAggregator == null) {
+            currentAttributeAggregator = attributeAggregator.cloneAggregator(key.toString(), false);
+            if (group < restoredStates.length && restoredStates[group] != null) {
+                currentAttributeAggregator.restoreState((Object[]) restoredStates[group]);
+                restoredStates[group] = null;
+            }
+            aggregators[group] = currentAttributeAggregator;
+        }
+        return currentAttributeAggregator.process(event);
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        aggregators = Arrays.copyOf(aggregators, capacity);
+    }
+
+    @Override
+    protected Object processAdd(int group, ComplexEvent event) {
+        return aggregators[group].process(event);
+    }
+
+    @Override
+    protected Object processRemove(int group, ComplexEvent event) {
+        return aggregators[group].process(event);
+    }
+
+    @Override
+    protected Object reset(int group) {
+        return aggregators[group].reset();
+    }
+
+    @Override
+    protected void clear(int group) {
+        if (aggregators[group] != null) {
+            aggregators[group].stop();
+            aggregators[group] = null;
+        }
+        if (group < restoredStates.length) {
+            restoredStates[group] = null;
+        }
+    }
+
+    @Override
+    protected Object[] currentGroupState() {
+        Object[] states = new Object[Math.max(aggregators.length, restoredStates.length)];
+        for (int i = 0; i < states.length; i++) {
+            if (i < aggregators.length && aggregators[i] != null) {
+                states[i] = aggregators[i].currentState();
+            } else if (i < restoredStates.length) {
+                states[i] = restoredStates[i];
+            }
+        }
+        return new Object[]{states};
+    }
+
+    @Override
+    protected void restoreGroupState(Object[] state) {
+        stop();
+        restoredStates = (Object[]) state[0];
+        aggregators = new AttributeAggregator[restoredStates.length];
+    }
+
+    @Override
+    public void start() {
+        //Clones are started as they are created
+    }
+
+    @Override
+    public void stop() {
+        for (AttributeAggregator aggregator : aggregators) {
+            if (aggregator != null) {
+                aggregator.stop();
+            }
+        }
+    }
+}
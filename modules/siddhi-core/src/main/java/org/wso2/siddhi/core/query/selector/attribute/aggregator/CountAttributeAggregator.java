@@ -16,9 +16,12 @@
 package org.wso2.siddhi.core.query.selector.attribute.aggregator;
 
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
+import java.util.Arrays;
+
 public class CountAttributeAggregator extends AttributeAggregator {
 
     private static Attribute.Type type = Attribute.Type.LONG;
@@ -69,6 +72,28 @@ public class CountAttributeAggregator extends AttributeAggregator {
         return value;
     }
 
+    @Override
+    protected Attribute.Type getColumnType() {
+        return Attribute.Type.LONG;
+    }
+
+    @Override
+    protected Object processAdd(long[] values, int length) {
+        value += length;
+        return value;
+    }
+
+    @Override
+    protected Object processRemove(long[] values, int length) {
+        value -= length;
+        return value;
+    }
+
+    @Override
+    protected GroupedAttributeAggregator newGroupedAggregator() {
+        return new CountGroupedAttributeAggregator();
+    }
+
     @Override
     public void start() {
         //Nothing to start
@@ -88,4 +113,40 @@ public class CountAttributeAggregator extends AttributeAggregator {
     public void restoreState(Object[] state) {
         value = (Long) state[0];
     }
+
+    static class CountGroupedAttributeAggregator extends GroupedAttributeAggregator {
+
+        private long[] values = new long[0];
+
+        @Override
+        protected void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        protected Object processAdd(int group, ComplexEvent event) {
+            return ++values[group];
+        }
+
+        @Override
+        protected Object processRemove(int group, ComplexEvent event) {
+            return --values[group];
+        }
+
+        @Override
+        protected Object reset(int group) {
+            values[group] = 0l;
+            return values[group];
+        }
+
+        @Override
+        protected Object[] currentGroupState() {
+            return new Object[]{values.clone()};
+        }
+
+        @Override
+        protected void restoreGroupState(Object[] state) {
+            values = (long[]) state[0];
+        }
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.query.selector.attribute.aggregator;
+
+import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
+import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+
+import java.util.Arrays;
+
+/**
+ * Aggregator of a group by query keeping the state of all its groups in arrays indexed by the group id, used in
+ * place of a clone of the {@link AttributeAggregator} per group. The state kept for an id is cleared when the id
+ * is reused by the key of a new group.
+ */
+public abstract class GroupedAttributeAggregator implements Snapshotable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String elementId;
+    private int capacity = 0;
+    private long[] serialNos = new long[0];
+
+    void initGroupedAggregator(String elementId, ExecutionPlanContext executionPlanContext) {
+        this.elementId = elementId;
+        ensureCapacity(INITIAL_CAPACITY);
+        executionPlanContext.getSnapshotService().addSnapshotable(this);
+    }
+
+    /**
+     * @param key   key of the group of the event
+     * @param event event to be aggregated
+     * @return aggregated value of the group
+     */
+    public Object process(GroupByKey key, ComplexEvent event) {
+        int group = assign(key);
+        switch (event.getType()) {
+            case CURRENT:
+                return processAdd(group, event);
+            case EXPIRED:
+                return processRemove(group, event);
+            case RESET:
+                return reset(group);
+        }
+        return null;
+    }
+
+    /**
+     * Grow the state arrays to hold the given number of groups
+     *
+     * @param capacity new size of the state arrays
+     */
+    protected abstract void grow(int capacity);
+
+    protected abstract Object processAdd(int group, ComplexEvent event);
+
+    protected abstract Object processRemove(int group, ComplexEvent event);
+
+    protected abstract Object reset(int group);
+
+    protected abstract Object[] currentGroupState();
+
+    protected abstract void restoreGroupState(Object[] state);
+
+    /**
+     * Clear the state left by a removed group whose id is reused
+     *
+     * @param group id of the group
+     */
+    protected void clear(int group) {
+        reset(group);
+    }
+
+    /**
+     * @param key key of a group
+     * @return id of the group, whose state belongs to the key
+     */
+    protected int assign(GroupByKey key) {
+        int group = key.getId();
+        if (group >= capacity) {
+            ensureCapacity(Math.max(capacity * 2, group + 1));
+        }
+        if (serialNos[group] != key.getSerialNo()) {
+            clear(group);
+            serialNos[group] = key.getSerialNo();
+        }
+        return group;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.capacity) {
+            grow(capacity);
+            serialNos = Arrays.copyOf(serialNos, capacity);
+            this.capacity = capacity;
+        }
+    }
+
+    @Override
+    public Object[] currentState() {
+        return new Object[]{serialNos.clone(), currentGroupState()};
+    }
+
+    @Override
+    public void restoreState(Object[] state) {
+        serialNos = (long[]) state[0];
+        capacity = serialNos.length;
+        restoreGroupState((Object[]) state[1]);
+    }
+
+    @Override
+    public String getElementId() {
+        return elementId;
+    }
+}
@@ -21,13 +21,12 @@ import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.Arrays;
-import java.util.Deque;
-import java.util.Iterator;
-import java.util.LinkedList;
 
 public class MaxAttributeAggregator extends AttributeAggregator {
 
-    private MaxAttributeAggregator maxOutputAttributeAggregator;
+    private Attribute.Type type;
+    private MonotonicDeque deque;
+    private boolean doubleValues;
 
     /**
      * The initialization method for FunctionExecutor
@@ -41,32 +40,33 @@ public class MaxAttributeAggregator extends AttributeAggregator {
             throw new OperationNotSupportedException("Max aggregator has to have exactly 1 parameter, currently " +
                     attributeExpressionExecutors.length + " parameters provided");
         }
-        Attribute.Type type = attributeExpressionExecutors[0].getReturnType();
+        type = attributeExpressionExecutors[0].getReturnType();
         switch (type) {
-            case FLOAT:
-                maxOutputAttributeAggregator = new MaxAttributeAggregatorFloat();
-                break;
             case INT:
-                maxOutputAttributeAggregator = new MaxAttributeAggregatorInt();
-                break;
             case LONG:
-                maxOutputAttributeAggregator = new MaxAttributeAggregatorLong();
                 break;
+            case FLOAT:
             case DOUBLE:
-                maxOutputAttributeAggregator = new MaxAttributeAggregatorDouble();
+                doubleValues = true;
                 break;
             default:
                 throw new OperationNotSupportedException("Max not supported for " + type);
         }
+        deque = new MonotonicDeque(true, expiryOrder);
     }
 
     public Attribute.Type getReturnType() {
-        return maxOutputAttributeAggregator.getReturnType();
+        return type;
     }
 
     @Override
     public Object processAdd(Object data) {
-        return maxOutputAttributeAggregator.processAdd(data);
+        if (doubleValues) {
+            deque.add(MonotonicDeque.toLong(((Number) data).doubleValue()));
+        } else {
+            deque.add(((Number) data).longValue());
+        }
+        return getMaxValue();
     }
 
     @Override
@@ -77,7 +77,12 @@ public class MaxAttributeAggregator extends AttributeAggregator {
 
     @Override
     public Object processRemove(Object data) {
-        return maxOutputAttributeAggregator.processRemove(data);
+        if (doubleValues) {
+            deque.remove(MonotonicDeque.toLong(((Number) data).doubleValue()));
+        } else {
+            deque.remove(((Number) data).longValue());
+        }
+        return getMaxValue();
     }
 
     @Override
@@ -87,253 +92,83 @@ public class MaxAttributeAggregator extends AttributeAggregator {
     }
 
     @Override
-    public Object reset() {
-        return maxOutputAttributeAggregator.reset();
+    protected Attribute.Type getColumnType() {
+        return doubleValues ? Attribute.Type.DOUBLE : Attribute.Type.LONG;
     }
 
     @Override
-    public void start() {
-        //Nothing to start
+    protected Object processAdd(long[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            deque.add(values[i]);
+        }
+        return getMaxValue();
     }
 
     @Override
-    public void stop() {
-        //nothing to stop
+    protected Object processAdd(double[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            deque.add(MonotonicDeque.toLong(values[i]));
+        }
+        return getMaxValue();
     }
 
     @Override
-    public Object[] currentState() {
-        return maxOutputAttributeAggregator.currentState();
+    protected Object processRemove(long[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            deque.remove(values[i]);
+        }
+        return getMaxValue();
     }
 
     @Override
-    public void restoreState(Object[] state) {
-        maxOutputAttributeAggregator.restoreState(state);
-    }
-
-    class MaxAttributeAggregatorDouble extends MaxAttributeAggregator {
-
-        private final Attribute.Type type = Attribute.Type.DOUBLE;
-        private Deque<Double> maxDeque = new LinkedList<Double>();
-        private volatile Double maxValue = null;
-
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public synchronized Object processAdd(Object data) {
-            Double value = (Double) data;
-            for (Iterator<Double> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-            maxDeque.addLast(value);
-            if (maxValue == null) {
-                maxValue = value;
-            } else if (maxValue < value) {
-                maxValue = value;
-            }
-            return maxValue;
-        }
-
-        @Override
-        public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
-            return maxValue;
-        }
-
-        @Override
-        public Object reset() {
-            maxDeque.clear();
-            maxValue = null;
-            return null;
-        }
-
-        @Override
-        public Object[] currentState() {
-            return new Object[]{maxDeque, maxValue};
+    protected Object processRemove(double[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            deque.remove(MonotonicDeque.toLong(values[i]));
         }
-
-        @Override
-        public void restoreState(Object[] state) {
-            maxDeque = (Deque<Double>) state[0];
-            maxValue = (Double) state[1];
-        }
-
+        return getMaxValue();
     }
 
-    class MaxAttributeAggregatorFloat extends MaxAttributeAggregator {
-
-        private final Attribute.Type type = Attribute.Type.FLOAT;
-        private Deque<Float> maxDeque = new LinkedList<Float>();
-        private volatile Float maxValue = null;
-
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public synchronized Object processAdd(Object data) {
-            Float value = (Float) data;
-            for (Iterator<Float> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-            maxDeque.addLast(value);
-            if (maxValue == null) {
-                maxValue = value;
-            } else if (maxValue < value) {
-                maxValue = value;
-            }
-            return maxValue;
-        }
-
-        @Override
-        public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
-            return maxValue;
-        }
-
-        @Override
-        public Object reset() {
-            maxDeque.clear();
-            maxValue = null;
+    private Object getMaxValue() {
+        if (deque.isEmpty()) {
             return null;
         }
-
-        @Override
-        public Object[] currentState() {
-            return new Object[]{maxDeque, maxValue};
-        }
-
-        @Override
-        public void restoreState(Object[] state) {
-            maxDeque = (Deque<Float>) state[0];
-            maxValue = (Float) state[1];
+        long maxValue = deque.getFirst();
+        switch (type) {
+            case INT:
+                return (int) maxValue;
+            case FLOAT:
+                return (float) MonotonicDeque.toDouble(maxValue);
+            case DOUBLE:
+                return MonotonicDeque.toDouble(maxValue);
+            default:
+                return maxValue;
         }
-
     }
 
-    class MaxAttributeAggregatorInt extends MaxAttributeAggregator {
-
-        private final Attribute.Type type = Attribute.Type.INT;
-        private Deque<Integer> maxDeque = new LinkedList<Integer>();
-        private volatile Integer maxValue = null;
-
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public synchronized Object processAdd(Object data) {
-            Integer value = (Integer) data;
-            for (Iterator<Integer> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-            maxDeque.addLast(value);
-            if (maxValue == null) {
-                maxValue = value;
-            } else if (maxValue < value) {
-                maxValue = value;
-            }
-            return maxValue;
-        }
-
-        @Override
-        public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
-            return maxValue;
-        }
-
-        @Override
-        public Object reset() {
-            maxDeque.clear();
-            maxValue = null;
-            return null;
-        }
-
-        @Override
-        public Object[] currentState() {
-            return new Object[]{maxDeque, maxValue};
-        }
-
-        @Override
-        public void restoreState(Object[] state) {
-            maxDeque = (Deque<Integer>) state[0];
-            maxValue = (Integer) state[1];
-        }
-
+    @Override
+    public Object reset() {
+        deque.clear();
+        return null;
     }
 
-    class MaxAttributeAggregatorLong extends MaxAttributeAggregator {
-
-        private final Attribute.Type type = Attribute.Type.LONG;
-        private Deque<Long> maxDeque = new LinkedList<Long>();
-        private volatile Long maxValue = null;
-
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public synchronized Object processAdd(Object data) {
-            Long value = (Long) data;
-            for (Iterator<Long> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-            maxDeque.addLast(value);
-            if (maxValue == null) {
-                maxValue = value;
-            } else if (maxValue < value) {
-                maxValue = value;
-            }
-            return maxValue;
-        }
-
-        @Override
-        public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
-            return maxValue;
-        }
-
-        @Override
-        public Object reset() {
-            maxDeque.clear();
-            maxValue = null;
-            return null;
-        }
+    @Override
+    public void start() {
+        //Nothing to start
+    }
 
-        @Override
-        public Object[] currentState() {
-            return new Object[]{maxDeque, maxValue};
-        }
+    @Override
+    public void stop() {
+        //nothing to stop
+    }
 
-        @Override
-        public void restoreState(Object[] state) {
-            maxDeque = (Deque<Long>) state[0];
-            maxValue = (Long) state[1];
-        }
+    @Override
+    public Object[] currentState() {
+        return deque.currentState();
+    }
 
+    @Override
+    public void restoreState(Object[] state) {
+        deque.restoreState(state);
     }
 
 }
@@ -21,13 +21,12 @@ import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.Arrays;
-import java.util.Deque;
-import java.util.Iterator;
-import java.util.LinkedList;
 
 public class MinAttributeAggregator extends AttributeAggregator {
 
-    private MinAttributeAggregator minOutputAttributeAggregator;
+    private Attribute.Type type;
+    private MonotonicDeque deque;
+    private boolean doubleValues;
 
     public void init(Attribute.Type type) {
 
@@ -46,32 +45,33 @@ public class MinAttributeAggregator extends AttributeAggregator {
             throw new OperationNotSupportedException("Min aggregator has to have exactly 1 parameter, currently " +
                     attributeExpressionExecutors.length + " parameters provided");
         }
-        Attribute.Type type = attributeExpressionExecutors[0].getReturnType();
+        type = attributeExpressionExecutors[0].getReturnType();
         switch (type) {
-            case FLOAT:
-                minOutputAttributeAggregator = new MinAttributeAggregatorFloat();
-                break;
             case INT:
-                minOutputAttributeAggregator = new MinAttributeAggregatorInt();
-                break;
             case LONG:
-                minOutputAttributeAggregator = new MinAttributeAggregatorLong();
                 break;
+            case FLOAT:
             case DOUBLE:
-                minOutputAttributeAggregator = new MinAttributeAggregatorDouble();
+                doubleValues = true;
                 break;
             default:
                 throw new OperationNotSupportedException("Min not supported for " + type);
         }
+        deque = new MonotonicDeque(false, expiryOrder);
     }
 
     public Attribute.Type getReturnType() {
-        return minOutputAttributeAggregator.getReturnType();
+        return type;
     }
 
     @Override
     public Object processAdd(Object data) {
-        return minOutputAttributeAggregator.processAdd(data);
+        if (doubleValues) {
+            deque.add(MonotonicDeque.toLong(((Number) data).doubleValue()));
+        } else {
+            deque.add(((Number) data).longValue());
+        }
+        return getMinValue();
     }
 
     @Override
@@ -82,7 +82,12 @@ public class MinAttributeAggregator extends AttributeAggregator {
 
     @Override
     public Object processRemove(Object data) {
-        return minOutputAttributeAggregator.processRemove(data);
+        if (doubleValues) {
+            deque.remove(MonotonicDeque.toLong(((Number) data).doubleValue()));
+        } else {
+            deque.remove(((Number) data).longValue());
+        }
+        return getMinValue();
     }
 
     @Override
@@ -92,248 +97,83 @@ public class MinAttributeAggregator extends AttributeAggregator {
     }
 
     @Override
-    public Object reset() {
-        return minOutputAttributeAggregator.reset();
+    protected Attribute.Type getColumnType() {
+        return doubleValues ? Attribute.Type.DOUBLE : Attribute.Type.LONG;
     }
 
     @Override
-    public void start() {
-        //Nothing to start
+    protected Object processAdd(long[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            deque.add(values[i]);
+        }
+        return getMinValue();
     }
 
     @Override
-    public void stop() {
-        //nothing to stop
+    protected Object processAdd(double[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            deque.add(MonotonicDeque.toLong(values[i]));
+        }
+        return getMinValue();
     }
 
     @Override
-    public Object[] currentState() {
-        return minOutputAttributeAggregator.currentState();
+    protected Object processRemove(long[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            deque.remove(values[i]);
+        }
+        return getMinValue();
     }
 
     @Override
-    public void restoreState(Object[] state) {
-        minOutputAttributeAggregator.restoreState(state);
-    }
-
-    class MinAttributeAggregatorDouble extends MinAttributeAggregator  {
-
-        private final Attribute.Type type = Attribute.Type.DOUBLE;
-        private Deque<Double> minDeque = new LinkedList<Double>();
-        private volatile Double minValue = null;
-
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public synchronized Object processAdd(Object data) {
-            Double value = (Double) data;
-            for (Iterator<Double> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-
-                if (iterator.next() > value) {
-                    iterator.remove();
-                }
-            }
-            minDeque.addLast(value);
-            if (minValue == null) {
-                minValue = value;
-            } else if (minValue > value) {
-                minValue = value;
-            }
-            return minValue;
-        }
-
-        @Override
-        public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
-            return minValue;
-        }
-
-        @Override
-        public Object reset() {
-            minDeque.clear();
-            minValue = null;
-            return null;
-        }
-
-        @Override
-        public Object[] currentState() {
-            return new Object[]{minDeque, minValue};
+    protected Object processRemove(double[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            deque.remove(MonotonicDeque.toLong(values[i]));
         }
-
-        @Override
-        public void restoreState(Object[] state) {
-            minDeque = (Deque<Double>) state[0];
-            minValue = (Double) state[1];
-        }
-
+        return getMinValue();
     }
 
-    class MinAttributeAggregatorFloat extends MinAttributeAggregator  {
-
-        private final Attribute.Type type = Attribute.Type.FLOAT;
-        private Deque<Float> minDeque = new LinkedList<Float>();
-        private volatile Float minValue = null;
-
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public synchronized Object processAdd(Object data) {
-            Float value = (Float) data;
-            for (Iterator<Float> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-
-                if (iterator.next() > value) {
-                    iterator.remove();
-                }
-            }
-            minDeque.addLast(value);
-            if (minValue == null) {
-                minValue = value;
-            } else if (minValue > value) {
-                minValue = value;
-            }
-            return minValue;
-        }
-
-        @Override
-        public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
-            return minValue;
-        }
-
-        @Override
-        public Object reset() {
-            minDeque.clear();
-            minValue = null;
+    private Object getMinValue() {
+        if (deque.isEmpty()) {
             return null;
         }
-
-        @Override
-        public Object[] currentState() {
-            return new Object[]{minDeque, minValue};
-        }
-
-        @Override
-        public void restoreState(Object[] state) {
-            minDeque = (Deque<Float>) state[0];
-            minValue = (Float) state[1];
+        long minValue = deque.getFirst();
+        switch (type) {
+            case INT:
+                return (int) minValue;
+            case FLOAT:
+                return (float) MonotonicDeque.toDouble(minValue);
+            case DOUBLE:
+                return MonotonicDeque.toDouble(minValue);
+            default:
+                return minValue;
         }
-
     }
 
-    class MinAttributeAggregatorInt extends MinAttributeAggregator  {
-
-        private final Attribute.Type type = Attribute.Type.INT;
-        private Deque<Integer> minDeque = new LinkedList<Integer>();
-        private volatile Integer minValue = null;
-
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public synchronized Object processAdd(Object data) {
-            Integer value = (Integer) data;
-            for (Iterator<Integer> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-
-                if (iterator.next() > value) {
-                    iterator.remove();
-                }
-            }
-            minDeque.addLast(value);
-            if (minValue == null) {
-                minValue = value;
-            } else if (minValue > value) {
-                minValue = value;
-            }
-            return minValue;
-        }
-
-        @Override
-        public Object reset() {
-            minDeque.clear();
-            minValue = null;
-            return null;
-        }
-
-        @Override
-        public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
-            return minValue;
-        }
-
-        @Override
-        public Object[] currentState() {
-            return new Object[]{minDeque, minValue};
-        }
-
-        @Override
-        public void restoreState(Object[] state) {
-            minDeque = (Deque<Integer>) state[0];
-            minValue = (Integer) state[1];
-        }
-
+    @Override
+    public Object reset() {
+        deque.clear();
+        return null;
     }
 
-    class MinAttributeAggregatorLong extends MinAttributeAggregator  {
-
-        private final Attribute.Type type = Attribute.Type.LONG;
-        private Deque<Long> minDeque = new LinkedList<Long>();
-        private volatile Long minValue = null;
-
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public synchronized Object processAdd(Object data) {
-            Long value = (Long) data;
-            for (Iterator<Long> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-
-                if (iterator.next() > value) {
-                    iterator.remove();
-                }
-            }
-            minDeque.addLast(value);
-            if (minValue == null) {
-                minValue = value;
-            } else if (minValue > value) {
-                minValue = value;
-            }
-            return minValue;
-        }
-
-        @Override
-        public Object reset() {
-            minDeque.clear();
-            minValue = null;
-            return null;
-        }
-
-        @Override
-        public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
-            return minValue;
-        }
+    @Override
+    public void start() {
+        //Nothing to start
+    }
 
-        @Override
-        public Object[] currentState() {
-            return new Object[]{minDeque, minValue};
-        }
+    @Override
+    public void stop() {
+        //nothing to stop
+    }
 
-        @Override
-        public void restoreState(Object[] state) {
-            minDeque = (Deque<Long>) state[0];
-            minValue = (Long) state[1];
-        }
+    @Override
+    public Object[] currentState() {
+        return deque.currentState();
+    }
 
+    @Override
+    public void restoreState(Object[] state) {
+        deque.restoreState(state);
     }
 
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.query.selector.attribute.aggregator;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Max (or min) of the values aggregated by a query, kept as suits the order in which the values expire.
+ * When they expire in the order they arrived, only the values that can still become the max (or min) are kept in
+ * a ring buffer, each being greater (or smaller) than or equal to the ones after it. A value is dropped once a later
+ * one beats it, and an expired value still kept is always the first one, hence add and remove are amortized O(1).
+ * When they never expire only the max (or min) is kept. When they may expire in any order, as from sort windows,
+ * the values are counted in a sorted map, giving O(log n) add and remove.
+ * Values are longs; doubles are kept as longs of the same order through {@link #toLong(double)}.
+ */
+class MonotonicDeque {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final boolean max;
+    private final AttributeAggregator.ExpiryOrder expiryOrder;
+    private long[] candidates;
+    private int head = 0;
+    private int size = 0;
+    private TreeMap<Long, Integer> counts;
+
+    /**
+     * @param max         true to keep the max first, false to keep the min
+     * @param expiryOrder order in which the values expire
+     */
+    MonotonicDeque(boolean max, AttributeAggregator.ExpiryOrder expiryOrder) {
+        this.max = max;
+        this.expiryOrder = expiryOrder;
+        if (expiryOrder == AttributeAggregator.ExpiryOrder.ANY) {
+            counts = new TreeMap<Long, Integer>();
+        } else {
+            candidates = new long[expiryOrder == AttributeAggregator.ExpiryOrder.NONE ? 1 : INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * @param value double value
+     * @return long ordered among the others as the value is by {@link Double#compare(double, double)}
+     */
+    static long toLong(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * @param value long given by {@link #toLong(double)}
+     * @return the double value
+     */
+    static double toDouble(long value) {
+        return Double.longBitsToDouble(value ^ ((value >> 63) & Long.MAX_VALUE));
+    }
+
+    void add(long value) {
+        if (counts != null) {
+            Integer count = counts.get(value);
+            counts.put(value, count == null ? 1 : count + 1);
+            return;
+        }
+        int mask = candidates.length - 1;
+        while (size > 0) {
+            long last = candidates[(head + size - 1) & mask];
+            if (max ? last < value : last > value) {
+                size--;
+            } else {
+                break;
+            }
+        }
+        if (expiryOrder == AttributeAggregator.ExpiryOrder.NONE) {
+            if (size == 0) {
+                candidates[0] = value;
+                size = 1;
+            }
+            return;
+        }
+        if (size == candidates.length) {
+            grow();
+            mask = candidates.length - 1;
+        }
+        candidates[(head + size) & mask] = value;
+        size++;
+    }
+
+    /**
+     * @param value expired value, to be the oldest value not yet expired unless the values may expire in any order
+     */
+    void remove(long value) {
+        if (counts == null) {
+            if (size > 0 && candidates[head] == value && expiryOrder == AttributeAggregator.ExpiryOrder.ARRIVAL) {
+                head = (head + 1) & (candidates.length - 1);
+                size--;
+            }
+            return;
+        }
+        Integer count = counts.get(value);
+        if (count != null) {
+            if (count == 1) {
+                counts.remove(value);
+            } else {
+                counts.put(value, count - 1);
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return counts != null ? counts.isEmpty() : size == 0;
+    }
+
+    /**
+     * @return max (or min) of the values, to be called only when not empty
+     */
+    long getFirst() {
+        if (counts != null) {
+            return max ? counts.lastKey() : counts.firstKey();
+        }
+        return candidates[head];
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+        if (counts != null) {
+            counts.clear();
+        }
+    }
+
+    /**
+     * @return the kept values in order and null, or when counted the distinct values in order and their counts
+     */
+    Object[] currentState() {
+        if (counts != null) {
+            long[] countedValues = new long[counts.size()];
+            int[] valueCounts = new int[counts.size()];
+            int i = 0;
+            for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+                countedValues[i] = entry.getKey();
+                valueCounts[i] = entry.getValue();
+                i++;
+            }
+            return new Object[]{countedValues, valueCounts};
+        }
+        long[] keptValues = new long[size];
+        int mask = candidates.length - 1;
+        for (int i = 0; i < size; i++) {
+            keptValues[i] = candidates[(head + i) & mask];
+        }
+        return new Object[]{keptValues, null};
+    }
+
+    /**
+     * @param state state given by {@link #currentState()}
+     */
+    void restoreState(Object[] state) {
+        long[] stateValues = (long[]) state[0];
+        int[] valueCounts = (int[]) state[1];
+        clear();
+        if (counts != null && valueCounts != null) {
+            for (int i = 0; i < stateValues.length; i++) {
+                counts.put(stateValues[i], valueCounts[i]);
+            }
+        } else {
+            for (long value : stateValues) {
+                add(value);
+            }
+        }
+    }
+
+    private void grow() {
+        int mask = candidates.length - 1;
+        long[] grownCandidates = new long[candidates.length * 2];
+        for (int i = 0; i < size; i++) {
+            grownCandidates[i] = candidates[(head + i) & mask];
+        }
+        candidates = grownCandidates;
+        head = 0;
+    }
+}
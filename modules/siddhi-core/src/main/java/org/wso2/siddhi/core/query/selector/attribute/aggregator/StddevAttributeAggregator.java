@@ -23,8 +23,14 @@ import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.Arrays;
 
+/**
+ * Population standard deviation, kept with Welford's online algorithm, which is also reversed to remove the
+ * expired values in O(1)
+ */
 public class StddevAttributeAggregator extends AttributeAggregator {
-    private StddevAttributeAggregator stddevOutputAttributeAggregator;
+    private final Attribute.Type type = Attribute.Type.DOUBLE;
+    private double mean, squaredDeviations;
+    private long count = 0;
 
     /**
      * The initialization method for FunctionExecutor
@@ -43,16 +49,9 @@ public class StddevAttributeAggregator extends AttributeAggregator {
 
         switch (type) {
             case INT:
-                stddevOutputAttributeAggregator = new StddevAttributeAggregatorInt();
-                break;
             case LONG:
-                stddevOutputAttributeAggregator = new StddevAttributeAggregatorLong();
-                break;
             case FLOAT:
-                stddevOutputAttributeAggregator = new StddevAttributeAggregatorFloat();
-                break;
             case DOUBLE:
-                stddevOutputAttributeAggregator = new StddevAttributeAggregatorDouble();
                 break;
             default:
                 throw new OperationNotSupportedException("Stddev not supported for " + type);
@@ -61,12 +60,13 @@ public class StddevAttributeAggregator extends AttributeAggregator {
 
     @Override
     public Attribute.Type getReturnType() {
-        return stddevOutputAttributeAggregator.getReturnType();
+        return type;
     }
 
     @Override
     public Object processAdd(Object data) {
-        return stddevOutputAttributeAggregator.processAdd(data);
+        add(((Number) data).doubleValue());
+        return getStddev();
     }
 
     @Override
@@ -76,7 +76,8 @@ public class StddevAttributeAggregator extends AttributeAggregator {
 
     @Override
     public Object processRemove(Object data) {
-        return stddevOutputAttributeAggregator.processRemove(data);
+        remove(((Number) data).doubleValue());
+        return getStddev();
     }
 
     @Override
@@ -85,329 +86,80 @@ public class StddevAttributeAggregator extends AttributeAggregator {
     }
 
     @Override
-    public Object reset() {
-        return stddevOutputAttributeAggregator.reset();
-    }
-
-    @Override
-    public Object[] currentState() {
-        return stddevOutputAttributeAggregator.currentState();
+    protected Attribute.Type getColumnType() {
+        return Attribute.Type.DOUBLE;
     }
 
     @Override
-    public void start() {
+    protected Object processAdd(double[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            add(values[i]);
+        }
+        return getStddev();
     }
 
     @Override
-    public void stop() {
+    protected Object processRemove(double[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            remove(values[i]);
+        }
+        return getStddev();
     }
 
-    @Override
-    public void restoreState(Object[] state) {
-        stddevOutputAttributeAggregator.restoreState(state);
+    private void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
     }
 
-    private class StddevAttributeAggregatorDouble extends StddevAttributeAggregator {
-        private final Attribute.Type type = Attribute.Type.DOUBLE;
-        private double mean, oldMean, stdDeviation, sum;
-        private int count = 0;
-
-        @Override
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public Object processAdd(Object data) {
-            // See here for the algorithm: http://www.johndcook.com/blog/standard_deviation/
-            count++;
-            double value = (Double) data;
-
-            if (count == 1) {
-                sum = mean = oldMean = value;
-                stdDeviation = 0.0;
-            } else {
-                oldMean = mean;
-                sum += value;
-                mean = sum / count;
-                stdDeviation += (value - oldMean) * (value - mean);
-            }
-
-            if (count < 2) {
-                return 0.0;
-            }
-            return Math.sqrt(stdDeviation / count);
-        }
-
-        @Override
-        public Object processRemove(Object data) {
-            count--;
-            double value = (Double) data;
-
-            if (count == 0) {
-                sum = mean = 0.0;
-                stdDeviation = 0.0;
-            } else {
-                oldMean = mean;
-                sum -= value;
-                mean = sum / count;
-                stdDeviation -= (value - oldMean) * (value - mean);
-            }
-
-            if (count < 2) {
-                return 0.0;
-            }
-            return Math.sqrt(stdDeviation / count);
-        }
-
-        @Override
-        public Object reset() {
-            sum = mean = oldMean = 0.0;
-            stdDeviation = 0.0;
+    private void remove(double value) {
+        if (count <= 1) {
             count = 0;
-            return 0.0;
-        }
-
-        @Override
-        public Object[] currentState() {
-            return new Object[]{sum, mean, oldMean, stdDeviation, count};
+            mean = squaredDeviations = 0.0;
+            return;
         }
-
-        @Override
-        public void restoreState(Object[] state) {
-            sum = (Double) state[0];
-            mean = (Double) state[1];
-            oldMean = (Double) state[2];
-            stdDeviation = (Double) state[3];
-            count = (Integer) state[4];
+        count--;
+        double delta = value - mean;
+        mean -= delta / count;
+        squaredDeviations -= delta * (value - mean);
+        if (squaredDeviations < 0.0) {
+            // rounding errors
+            squaredDeviations = 0.0;
         }
     }
 
-    private class StddevAttributeAggregatorFloat extends StddevAttributeAggregator {
-        private final Attribute.Type type = Attribute.Type.DOUBLE;
-        private double mean, oldMean, stdDeviation, sum;
-        private int count = 0;
-
-        @Override
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public Object processAdd(Object data) {
-            // See here for the algorithm: http://www.johndcook.com/blog/standard_deviation/
-            count++;
-            double value = (Float) data;
-
-            if (count == 1) {
-                sum = mean = oldMean = value;
-                stdDeviation = 0.0;
-            } else {
-                oldMean = mean;
-                sum += value;
-                mean = sum / count;
-                stdDeviation += (value - oldMean) * (value - mean);
-            }
-
-            if (count < 2) {
-                return 0.0;
-            }
-            return Math.sqrt(stdDeviation / count);
-        }
-
-        @Override
-        public Object processRemove(Object data) {
-            count--;
-            double value = (Float) data;
-
-            if (count == 0) {
-                sum = mean = 0.0;
-                stdDeviation = 0.0;
-            } else {
-                oldMean = mean;
-                sum -= value;
-                mean = sum / count;
-                stdDeviation -= (value - oldMean) * (value - mean);
-            }
-
-            if (count < 2) {
-                return 0.0;
-            }
-            return Math.sqrt(stdDeviation / count);
-        }
-
-        @Override
-        public Object reset() {
-            sum = mean = oldMean = 0.0;
-            stdDeviation = 0.0;
-            count = 0;
+    private double getStddev() {
+        if (count < 2) {
             return 0.0;
         }
-
-        @Override
-        public Object[] currentState() {
-            return new Object[]{sum, mean, oldMean, stdDeviation, count};
-        }
-
-        @Override
-        public void restoreState(Object[] state) {
-            sum = (Double) state[0];
-            mean = (Double) state[1];
-            oldMean = (Double) state[2];
-            stdDeviation = (Double) state[3];
-            count = (Integer) state[4];
-        }
+        return Math.sqrt(squaredDeviations / count);
     }
 
-    private class StddevAttributeAggregatorInt extends StddevAttributeAggregator {
-        private final Attribute.Type type = Attribute.Type.DOUBLE;
-        private double mean, oldMean, stdDeviation, sum;
-        private int count = 0;
-
-        @Override
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public Object processAdd(Object data) {
-            // See here for the algorithm: http://www.johndcook.com/blog/standard_deviation/
-            count++;
-            double value = (Integer) data;
-
-            if (count == 1) {
-                sum = mean = oldMean = value;
-                stdDeviation = 0.0;
-            } else {
-                oldMean = mean;
-                sum += value;
-                mean = sum / count;
-                stdDeviation += (value - oldMean) * (value - mean);
-            }
-
-            if (count < 2) {
-                return 0.0;
-            }
-            return Math.sqrt(stdDeviation / count);
-        }
-
-        @Override
-        public Object processRemove(Object data) {
-            count--;
-            double value = (Integer) data;
-
-            if (count == 0) {
-                sum = mean = 0.0;
-                stdDeviation = 0.0;
-            } else {
-                oldMean = mean;
-                sum -= value;
-                mean = sum / count;
-                stdDeviation -= (value - oldMean) * (value - mean);
-            }
-
-            if (count < 2) {
-                return 0.0;
-            }
-            return Math.sqrt(stdDeviation / count);
-        }
-
-        @Override
-        public Object reset() {
-            sum = mean = oldMean = 0.0;
-            stdDeviation = 0.0;
-            count = 0;
-            return 0.0;
-        }
-
-        @Override
-        public Object[] currentState() {
-            return new Object[]{sum, mean, oldMean, stdDeviation, count};
-        }
-
-        @Override
-        public void restoreState(Object[] state) {
-            sum = (Double) state[0];
-            mean = (Double) state[1];
-            oldMean = (Double) state[2];
-            stdDeviation = (Double) state[3];
-            count = (Integer) state[4];
-        }
+    @Override
+    public Object reset() {
+        mean = squaredDeviations = 0.0;
+        count = 0;
+        return 0.0;
     }
 
-    private class StddevAttributeAggregatorLong extends StddevAttributeAggregator {
-        private final Attribute.Type type = Attribute.Type.DOUBLE;
-        private double mean, oldMean, stdDeviation, sum;
-        private int count = 0;
-
-        @Override
-        public Attribute.Type getReturnType() {
-            return type;
-        }
-
-        @Override
-        public Object processAdd(Object data) {
-            // See here for the algorithm: http://www.johndcook.com/blog/standard_deviation/
-            count++;
-            double value = (Long) data;
-
-            if (count == 1) {
-                sum = mean = oldMean = value;
-                stdDeviation = 0.0;
-            } else {
-                oldMean = mean;
-                sum += value;
-                mean = sum / count;
-                stdDeviation += (value - oldMean) * (value - mean);
-            }
-
-            if (count < 2) {
-                return 0.0;
-            }
-            return Math.sqrt(stdDeviation / count);
-        }
-
-        @Override
-        public Object processRemove(Object data) {
-            count--;
-            double value = (Long) data;
-
-            if (count == 0) {
-                sum = mean = 0.0;
-                stdDeviation = 0.0;
-            } else {
-                oldMean = mean;
-                sum -= value;
-                mean = sum / count;
-                stdDeviation -= (value - oldMean) * (value - mean);
-            }
-
-            if (count < 2) {
-                return 0.0;
-            }
-            return Math.sqrt(stdDeviation / count);
-        }
+    @Override
+    public Object[] currentState() {
+        return new Object[]{mean, squaredDeviations, count};
+    }
 
-        @Override
-        public Object reset() {
-            sum = mean = oldMean = 0.0;
-            stdDeviation = 0.0;
-            count = 0;
-            return 0.0;
-        }
+    @Override
+    public void start() {
+    }
 
-        @Override
-        public Object[] currentState() {
-            return new Object[]{sum, mean, oldMean, stdDeviation, count};
-        }
+    @Override
+    public void stop() {
+    }
 
-        @Override
-        public void restoreState(Object[] state) {
-            sum = (Double) state[0];
-            mean = (Double) state[1];
-            oldMean = (Double) state[2];
-            stdDeviation = (Double) state[3];
-            count = (Integer) state[4];
-        }
+    @Override
+    public void restoreState(Object[] state) {
+        mean = (Double) state[0];
+        squaredDeviations = (Double) state[1];
+        count = (Long) state[2];
     }
 }
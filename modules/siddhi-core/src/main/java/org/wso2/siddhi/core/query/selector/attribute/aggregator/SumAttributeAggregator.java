@@ -16,8 +16,10 @@
 package org.wso2.siddhi.core.query.selector.attribute.aggregator;
 
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.PrimitiveExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.Arrays;
@@ -25,6 +27,7 @@ import java.util.Arrays;
 public class SumAttributeAggregator extends AttributeAggregator {
 
     private SumAttributeAggregator sumOutputAttributeAggregator;
+    private PrimitiveExpressionExecutor primitiveExpressionExecutor;
 
     /**
      * The initialization method for FunctionExecutor
@@ -55,7 +58,26 @@ public class SumAttributeAggregator extends AttributeAggregator {
             default:
                 throw new OperationNotSupportedException("Sum not supported for " + type);
         }
+        if (attributeExpressionExecutors[0] instanceof PrimitiveExpressionExecutor &&
+                ((PrimitiveExpressionExecutor) attributeExpressionExecutors[0]).isPrimitive()) {
+            primitiveExpressionExecutor = (PrimitiveExpressionExecutor) attributeExpressionExecutors[0];
+        }
+    }
 
+    @Override
+    public Object process(ComplexEvent event) {
+        if (primitiveExpressionExecutor != null && (event.getType() == ComplexEvent.Type.CURRENT ||
+                event.getType() == ComplexEvent.Type.EXPIRED) && !primitiveExpressionExecutor.isNull(event)) {
+            boolean current = event.getType() == ComplexEvent.Type.CURRENT;
+            if (sumOutputAttributeAggregator.getReturnType() == Attribute.Type.LONG) {
+                long data = primitiveExpressionExecutor.executeLong(event);
+                return current ? processAdd(data) : processRemove(data);
+            } else {
+                double data = primitiveExpressionExecutor.executeDouble(event);
+                return current ? processAdd(data) : processRemove(data);
+            }
+        }
+        return super.process(event);
     }
 
     public Attribute.Type getReturnType() {
@@ -67,6 +89,14 @@ public class SumAttributeAggregator extends AttributeAggregator {
         return sumOutputAttributeAggregator.processAdd(data);
     }
 
+    protected Object processAdd(long data) {
+        return sumOutputAttributeAggregator.processAdd(data);
+    }
+
+    protected Object processAdd(double data) {
+        return sumOutputAttributeAggregator.processAdd(data);
+    }
+
     @Override
     public Object processAdd(Object[] data) {
         // will not occur
@@ -78,17 +108,59 @@ public class SumAttributeAggregator extends AttributeAggregator {
         return sumOutputAttributeAggregator.processRemove(data);
     }
 
+    protected Object processRemove(long data) {
+        return sumOutputAttributeAggregator.processRemove(data);
+    }
+
+    protected Object processRemove(double data) {
+        return sumOutputAttributeAggregator.processRemove(data);
+    }
+
     @Override
     public Object processRemove(Object[] data) {
         // will not occur
         return new IllegalStateException("Sin cannot process data array, but found " + Arrays.deepToString(data));
     }
 
+    @Override
+    protected Attribute.Type getColumnType() {
+        return sumOutputAttributeAggregator.getReturnType();
+    }
+
+    @Override
+    protected Object processAdd(long[] values, int length) {
+        return sumOutputAttributeAggregator.processAdd(values, length);
+    }
+
+    @Override
+    protected Object processAdd(double[] values, int length) {
+        return sumOutputAttributeAggregator.processAdd(values, length);
+    }
+
+    @Override
+    protected Object processRemove(long[] values, int length) {
+        return sumOutputAttributeAggregator.processRemove(values, length);
+    }
+
+    @Override
+    protected Object processRemove(double[] values, int length) {
+        return sumOutputAttributeAggregator.processRemove(values, length);
+    }
+
     @Override
     public Object reset() {
         return sumOutputAttributeAggregator.reset();
     }
 
+    @Override
+    protected GroupedAttributeAggregator newGroupedAggregator() {
+        if (sumOutputAttributeAggregator.getReturnType() == Attribute.Type.LONG) {
+            return new SumGroupedAttributeAggregatorLong();
+        } else {
+            return new SumGroupedAttributeAggregatorDouble();
+        }
+    }
+
     @Override
     public void start() {
         //Nothing to start
@@ -130,6 +202,39 @@ public class SumAttributeAggregator extends AttributeAggregator {
             return value;
         }
 
+        @Override
+        protected Object processAdd(double data) {
+            value += data;
+            return value;
+        }
+
+        @Override
+        protected Object processRemove(double data) {
+            value -= data;
+            return value;
+        }
+
+        @Override
+        protected Object processAdd(double[] values, int length) {
+            // added in order, as the per event path does
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum += values[i];
+            }
+            value = sum;
+            return value;
+        }
+
+        @Override
+        protected Object processRemove(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum -= values[i];
+            }
+            value = sum;
+            return value;
+        }
+
         @Override
         public Object reset() {
             value = 0.0;
@@ -169,6 +274,38 @@ public class SumAttributeAggregator extends AttributeAggregator {
             return value;
         }
 
+        @Override
+        protected Object processAdd(double data) {
+            value += data;
+            return value;
+        }
+
+        @Override
+        protected Object processRemove(double data) {
+            value -= data;
+            return value;
+        }
+
+        @Override
+        protected Object processAdd(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum += values[i];
+            }
+            value = sum;
+            return value;
+        }
+
+        @Override
+        protected Object processRemove(double[] values, int length) {
+            double sum = value;
+            for (int i = 0; i < length; i++) {
+                sum -= values[i];
+            }
+            value = sum;
+            return value;
+        }
+
         public Object reset() {
             value = 0.0;
             return value;
@@ -207,6 +344,38 @@ public class SumAttributeAggregator extends AttributeAggregator {
             return value;
         }
 
+        @Override
+        protected Object processAdd(long data) {
+            value += data;
+            return value;
+        }
+
+        @Override
+        protected Object processRemove(long data) {
+            value -= data;
+            return value;
+        }
+
+        @Override
+        protected Object processAdd(long[] values, int length) {
+            long sum = 0L;
+            for (int i = 0; i < length; i++) {
+                sum += values[i];
+            }
+            value += sum;
+            return value;
+        }
+
+        @Override
+        protected Object processRemove(long[] values, int length) {
+            long sum = 0L;
+            for (int i = 0; i < length; i++) {
+                sum += values[i];
+            }
+            value -= sum;
+            return value;
+        }
+
         public Object reset() {
             value = 0L;
             return value;
@@ -245,6 +414,38 @@ public class SumAttributeAggregator extends AttributeAggregator {
             return value;
         }
 
+        @Override
+        protected Object processAdd(long data) {
+            value += data;
+            return value;
+        }
+
+        @Override
+        protected Object processRemove(long data) {
+            value -= data;
+            return value;
+        }
+
+        @Override
+        protected Object processAdd(long[] values, int length) {
+            long sum = 0L;
+            for (int i = 0; i < length; i++) {
+                sum += values[i];
+            }
+            value += sum;
+            return value;
+        }
+
+        @Override
+        protected Object processRemove(long[] values, int length) {
+            long sum = 0L;
+            for (int i = 0; i < length; i++) {
+                sum += values[i];
+            }
+            value -= sum;
+            return value;
+        }
+
         public Object reset() {
             value = 0L;
             return value;
@@ -262,4 +463,94 @@ public class SumAttributeAggregator extends AttributeAggregator {
 
     }
 
+    class SumGroupedAttributeAggregatorLong extends GroupedAttributeAggregator {
+
+        private long[] values = new long[0];
+
+        @Override
+        protected void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        protected Object processAdd(int group, ComplexEvent event) {
+            values[group] += getData(event);
+            return values[group];
+        }
+
+        @Override
+        protected Object processRemove(int group, ComplexEvent event) {
+            values[group] -= getData(event);
+            return values[group];
+        }
+
+        private long getData(ComplexEvent event) {
+            if (primitiveExpressionExecutor != null && !primitiveExpressionExecutor.isNull(event)) {
+                return primitiveExpressionExecutor.executeLong(event);
+            }
+            return ((Number) attributeExpressionExecutors[0].execute(event)).longValue();
+        }
+
+        @Override
+        protected Object reset(int group) {
+            values[group] = 0L;
+            return values[group];
+        }
+
+        @Override
+        protected Object[] currentGroupState() {
+            return new Object[]{values.clone()};
+        }
+
+        @Override
+        protected void restoreGroupState(Object[] state) {
+            values = (long[]) state[0];
+        }
+    }
+
+    class SumGroupedAttributeAggregatorDouble extends GroupedAttributeAggregator {
+
+        private double[] values = new double[0];
+
+        @Override
+        protected void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        protected Object processAdd(int group, ComplexEvent event) {
+            values[group] += getData(event);
+            return values[group];
+        }
+
+        @Override
+        protected Object processRemove(int group, ComplexEvent event) {
+            values[group] -= getData(event);
+            return values[group];
+        }
+
+        private double getData(ComplexEvent event) {
+            if (primitiveExpressionExecutor != null && !primitiveExpressionExecutor.isNull(event)) {
+                return primitiveExpressionExecutor.executeDouble(event);
+            }
+            return ((Number) attributeExpressionExecutors[0].execute(event)).doubleValue();
+        }
+
+        @Override
+        protected Object reset(int group) {
+            values[group] = 0.0;
+            return values[group];
+        }
+
+        @Override
+        protected Object[] currentGroupState() {
+            return new Object[]{values.clone()};
+        }
+
+        @Override
+        protected void restoreGroupState(Object[] state) {
+            values = (double[]) state[0];
+        }
+    }
+
 }
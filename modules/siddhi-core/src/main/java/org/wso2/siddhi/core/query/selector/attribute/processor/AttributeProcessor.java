@@ -17,6 +17,7 @@ package org.wso2.siddhi.core.query.selector.attribute.processor;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.query.selector.attribute.processor.executor.AggregationAttributeExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 public class AttributeProcessor {
@@ -36,6 +37,24 @@ public class AttributeProcessor {
         event.setOutputData(expressionExecutor.execute(event), outputPosition);
     }
 
+    /**
+     * Process a run of events, where only the output of the last event is used
+     *
+     * @param events events to be processed
+     * @param from   index of the first event
+     * @param to     index after the last event
+     */
+    public void process(ComplexEvent[] events, int from, int to) {
+        if (expressionExecutor instanceof AggregationAttributeExecutor) {
+            events[to - 1].setOutputData(((AggregationAttributeExecutor) expressionExecutor).execute(events, from, to),
+                    outputPosition);
+        } else {
+            for (int i = from; i < to; i++) {
+                process(events[i]);
+            }
+        }
+    }
+
     public AttributeProcessor cloneProcessor(String key) {
         AttributeProcessor attributeProcessor = new AttributeProcessor(expressionExecutor.cloneExecutor(key));
         attributeProcessor.setOutputPosition(this.outputPosition);
@@ -54,4 +73,8 @@ public class AttributeProcessor {
     public ExpressionExecutor getExpressionExecutor() {
         return expressionExecutor;
     }
+
+    public void setExpressionExecutor(ExpressionExecutor expressionExecutor) {
+        this.expressionExecutor = expressionExecutor;
+    }
 }
@@ -34,6 +34,16 @@ public class AggregationAttributeExecutor extends AbstractAggregationAttributeEx
         return attributeAggregator.process(event);
     }
 
+    /**
+     * @param events events to be aggregated
+     * @param from   index of the first event
+     * @param to     index after the last event
+     * @return aggregated value after the last event
+     */
+    public Object execute(ComplexEvent[] events, int from, int to) {
+        return attributeAggregator.processBatch(events, from, to);
+    }
+
     public ExpressionExecutor cloneExecutor(String key) {
         return new AggregationAttributeExecutor(attributeAggregator.cloneAggregator(key), attributeExpressionExecutors, executionPlanContext);
     }
@@ -20,31 +20,22 @@ import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
 import org.wso2.siddhi.core.query.selector.attribute.aggregator.AttributeAggregator;
-
-import java.util.HashMap;
-import java.util.Map;
+import org.wso2.siddhi.core.query.selector.attribute.aggregator.GroupedAttributeAggregator;
 
 public class GroupByAggregationAttributeExecutor extends AbstractAggregationAttributeExecutor {
 
-    protected Map<String, AttributeAggregator> aggregatorMap = new HashMap<String, AttributeAggregator>();
+    protected GroupedAttributeAggregator groupedAttributeAggregator;
 
     public GroupByAggregationAttributeExecutor(AttributeAggregator attributeAggregator,
                                                ExpressionExecutor[] attributeExpressionExecutors,
                                                ExecutionPlanContext executionPlanContext) {
         super(attributeAggregator, attributeExpressionExecutors, executionPlanContext);
+        groupedAttributeAggregator = attributeAggregator.createGroupedAggregator();
     }
 
     @Override
     public Object execute(ComplexEvent event) {
-        String key = QuerySelector.getThreadLocalGroupByKey();
-        AttributeAggregator currentAttributeAggregator = aggregatorMap.get(key);
-        if (currentAttributeAggregator == null) {
-            currentAttributeAggregator = attributeAggregator.cloneAggregator(key);
-            currentAttributeAggregator.initAggregator(attributeExpressionExecutors, executionPlanContext);
-            currentAttributeAggregator.start();
-            aggregatorMap.put(key, currentAttributeAggregator);
-        }
-        return currentAttributeAggregator.process(event);
+        return groupedAttributeAggregator.process(QuerySelector.getThreadLocalGroupByKey(), event);
     }
 
     public ExpressionExecutor cloneExecutor(String key) {
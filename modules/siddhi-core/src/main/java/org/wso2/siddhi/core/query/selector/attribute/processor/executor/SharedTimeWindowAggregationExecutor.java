@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.query.selector.attribute.processor.executor;
+
+import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.exception.OperationNotSupportedException;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.query.processor.stream.window.SharedTimeWindowAggregates;
+import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+/**
+ * Count, sum or avg of a time window, read from the aggregates the window shares with the other time windows on
+ * its stream. Each current event passed to the query is the next event of the aggregates; the events that left
+ * the window since the previous one are skipped and the result is the difference of the sums at both ends.
+ */
+public class SharedTimeWindowAggregationExecutor implements ExpressionExecutor, Snapshotable,
+        SharedTimeWindowAggregates.Reader {
+
+    public enum Function {
+        COUNT, SUM, AVG
+    }
+
+    private final SharedTimeWindowAggregates aggregates;
+    private final Function function;
+    private final int column;
+    private final boolean doubleValues;
+    private final long timeInMilliSeconds;
+    private final String elementId;
+    private long sequence;
+    private long expirySequence;
+    private Object value;
+
+    /**
+     * @param column       column of the summed attribute in the aggregates, unused by count
+     * @param doubleValues true when the attribute is summed as doubles
+     */
+    public SharedTimeWindowAggregationExecutor(SharedTimeWindowAggregates aggregates, Function function, int column,
+                                               boolean doubleValues, long timeInMilliSeconds,
+                                               ExecutionPlanContext executionPlanContext) {
+        this.aggregates = aggregates;
+        this.function = function;
+        this.column = column;
+        this.doubleValues = doubleValues;
+        this.timeInMilliSeconds = timeInMilliSeconds;
+        this.elementId = executionPlanContext.getElementIdGenerator().createNewId();
+        aggregates.addReader(this);
+        executionPlanContext.getSnapshotService().addSnapshotable(this);
+    }
+
+    @Override
+    public Object execute(ComplexEvent event) {
+        if (event.getType() != ComplexEvent.Type.CURRENT) {
+            return value;
+        }
+        long arrivalTime = aggregates.getArrivalTime(sequence);
+        while (expirySequence < sequence && aggregates.getArrivalTime(expirySequence) + timeInMilliSeconds
+                <= arrivalTime) {
+            expirySequence++;
+        }
+        sequence++;
+        switch (function) {
+            case COUNT:
+                value = sequence - expirySequence;
+                break;
+            case SUM:
+                value = doubleValues ? (Object) aggregates.getDoubleSum(column, expirySequence, sequence) :
+                        (Object) aggregates.getLongSum(column, expirySequence, sequence);
+                break;
+            case AVG:
+                double sum = doubleValues ? aggregates.getDoubleSum(column, expirySequence, sequence) :
+                        aggregates.getLongSum(column, expirySequence, sequence);
+                value = sum / (sequence - expirySequence);
+                break;
+        }
+        return value;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        if (function == Function.COUNT || (function == Function.SUM && !doubleValues)) {
+            return Attribute.Type.LONG;
+        }
+        return Attribute.Type.DOUBLE;
+    }
+
+    @Override
+    public ExpressionExecutor cloneExecutor(String key) {
+        throw new OperationNotSupportedException("Time windows sharing their aggregates cannot be partitioned");
+    }
+
+    @Override
+    public long getExpirySequence() {
+        return expirySequence;
+    }
+
+    @Override
+    public Object[] currentState() {
+        return new Object[]{sequence, expirySequence, value};
+    }
+
+    @Override
+    public void restoreState(Object[] state) {
+        sequence = (Long) state[0];
+        expirySequence = (Long) state[1];
+        value = state[2];
+    }
+
+    @Override
+    public String getElementId() {
+        return elementId;
+    }
+}
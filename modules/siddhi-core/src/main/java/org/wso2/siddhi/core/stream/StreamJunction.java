@@ -16,28 +16,35 @@
 package org.wso2.siddhi.core.stream;
 
 import com.lmax.disruptor.EventHandler;
-import com.lmax.disruptor.PhasedBackoffWaitStrategy;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.DisruptorConfig;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.core.event.EventFactory;
+import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEventFactory;
+import org.wso2.siddhi.core.event.stream.converter.StreamEventConverter;
+import org.wso2.siddhi.core.event.stream.converter.StreamEventConverterFactory;
+import org.wso2.siddhi.core.query.QueryWorkerPool;
+import org.wso2.siddhi.core.query.input.MultiProcessStreamReceiver;
+import org.wso2.siddhi.core.query.input.ProcessStreamReceiver;
 import org.wso2.siddhi.core.stream.input.InputProcessor;
 import org.wso2.siddhi.core.stream.output.StreamCallback;
 import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.parser.DisruptorConfigParser;
 import org.wso2.siddhi.query.api.annotation.Annotation;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
 import org.wso2.siddhi.query.api.exception.DuplicateAnnotationException;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
 
-import java.lang.reflect.Constructor;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
 
 public class StreamJunction {
 
@@ -48,45 +55,91 @@ public class StreamJunction {
     private final ExecutionPlanContext executionPlanContext;
     private final StreamDefinition streamDefinition;
     private final int bufferSize;
+    private final DisruptorConfig disruptorConfig;
+    private DisruptorConfig effectiveDisruptorConfig;
     private Boolean parallel = null;
+    private boolean concurrentlyPublished;
     private Disruptor<Event> disruptor;
     private RingBuffer<Event> ringBuffer;
+    private Disruptor<StreamEvent> streamEventDisruptor;
+    private RingBuffer<StreamEvent> streamEventRingBuffer;
+    private StreamEventConverter streamEventConverter;
 
     public StreamJunction(StreamDefinition streamDefinition, ExecutorService executorService, int defaultBufferSize,
                           ExecutionPlanContext executionPlanContext) {
         this.streamDefinition = streamDefinition;
-        this.bufferSize = defaultBufferSize;
         this.executorService = executorService;
         this.executionPlanContext = executionPlanContext;
 
+        DisruptorConfig defaultDisruptorConfig = executionPlanContext.getDisruptorConfig();
+        if (defaultDisruptorConfig == null) {
+            defaultDisruptorConfig = new DisruptorConfig(defaultBufferSize);
+        }
         try {
             Annotation annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PARALLEL,
                     streamDefinition.getAnnotations());
             if (annotation != null) {
                 parallel = true;
             }
+            disruptorConfig = DisruptorConfigParser.parse(annotation, defaultDisruptorConfig);
 
         } catch (DuplicateAnnotationException e) {
             throw new DuplicateAnnotationException(e.getMessage() + " for the same Stream " +
                     streamDefinition.getId());
         }
+        this.bufferSize = disruptorConfig.getBufferSize();
 
     }
 
+    /**
+     * send the event chain, when the disruptor is enabled the chain is published in batches of
+     * at most the ring size by claiming a range of sequences at once
+     *
+     * @param complexEvent head of the event chain
+     */
     public void sendEvent(ComplexEvent complexEvent) {
 
         ComplexEvent complexEventList = complexEvent;
         if (disruptor != null) {
 
             while (complexEventList != null) {
-                long sequenceNo = ringBuffer.next();
+                int batchSize = 1;
+                for (ComplexEvent nextEvent = complexEventList.getNext(); nextEvent != null && batchSize < bufferSize;
+                     nextEvent = nextEvent.getNext()) {
+                    batchSize++;
+                }
+                long hi = ringBuffer.next(batchSize);
+                long lo = hi - (batchSize - 1);
                 try {
-                    Event existingEvent = ringBuffer.get(sequenceNo);
-                    existingEvent.copyFrom(complexEventList);
+                    for (long sequenceNo = lo; sequenceNo <= hi; sequenceNo++) {
+                        Event existingEvent = ringBuffer.get(sequenceNo);
+                        existingEvent.copyFrom(complexEventList);
+                        complexEventList = complexEventList.getNext();
+                    }
                 } finally {
-                    ringBuffer.publish(sequenceNo);
+                    ringBuffer.publish(lo, hi);
+                }
+            }
+
+        } else if (streamEventDisruptor != null) {
+
+            while (complexEventList != null) {
+                int batchSize = 1;
+                for (ComplexEvent nextEvent = complexEventList.getNext(); nextEvent != null && batchSize < bufferSize;
+                     nextEvent = nextEvent.getNext()) {
+                    batchSize++;
+                }
+                long hi = streamEventRingBuffer.next(batchSize);
+                long lo = hi - (batchSize - 1);
+                try {
+                    for (long sequenceNo = lo; sequenceNo <= hi; sequenceNo++) {
+                        StreamEvent existingEvent = streamEventRingBuffer.get(sequenceNo);
+                        streamEventConverter.convertStreamEvent(complexEventList, existingEvent);
+                        complexEventList = complexEventList.getNext();
+                    }
+                } finally {
+                    streamEventRingBuffer.publish(lo, hi);
                 }
-                complexEventList = complexEventList.getNext();
             }
 
         } else {
@@ -109,6 +162,14 @@ public class StreamJunction {
             } finally {
                 ringBuffer.publish(sequenceNo);
             }
+        } else if (streamEventDisruptor != null) {
+            long sequenceNo = streamEventRingBuffer.next();
+            try {
+                StreamEvent existingEvent = streamEventRingBuffer.get(sequenceNo);
+                streamEventConverter.convertEvent(event, existingEvent);
+            } finally {
+                streamEventRingBuffer.publish(sequenceNo);
+            }
         } else {
             for (Receiver receiver : receivers) {
                 receiver.receive(event);
@@ -122,13 +183,33 @@ public class StreamJunction {
             log.trace("event is received by streamJunction " + this);
         }
         if (disruptor != null) {
-            for (Event event : events) {   //todo optimize for arrays
-                long sequenceNo = ringBuffer.next();
+            int index = 0;
+            while (index < events.length) {
+                int batchSize = Math.min(events.length - index, bufferSize);
+                long hi = ringBuffer.next(batchSize);
+                long lo = hi - (batchSize - 1);
+                try {
+                    for (long sequenceNo = lo; sequenceNo <= hi; sequenceNo++) {
+                        Event existingEvent = ringBuffer.get(sequenceNo);
+                        existingEvent.copyFrom(events[index++]);
+                    }
+                } finally {
+                    ringBuffer.publish(lo, hi);
+                }
+            }
+        } else if (streamEventDisruptor != null) {
+            int index = 0;
+            while (index < events.length) {
+                int batchSize = Math.min(events.length - index, bufferSize);
+                long hi = streamEventRingBuffer.next(batchSize);
+                long lo = hi - (batchSize - 1);
                 try {
-                    Event existingEvent = ringBuffer.get(sequenceNo);
-                    existingEvent.copyFrom(event);
+                    for (long sequenceNo = lo; sequenceNo <= hi; sequenceNo++) {
+                        StreamEvent existingEvent = streamEventRingBuffer.get(sequenceNo);
+                        streamEventConverter.convertEvent(events[index++], existingEvent);
+                    }
                 } finally {
-                    ringBuffer.publish(sequenceNo);
+                    streamEventRingBuffer.publish(lo, hi);
                 }
             }
         } else {
@@ -149,6 +230,14 @@ public class StreamJunction {
             } finally {
                 ringBuffer.publish(sequenceNo);
             }
+        } else if (streamEventDisruptor != null) {
+            long sequenceNo = streamEventRingBuffer.next();
+            try {
+                StreamEvent existingEvent = streamEventRingBuffer.get(sequenceNo);
+                streamEventConverter.convertData(timeStamp, data, existingEvent);
+            } finally {
+                streamEventRingBuffer.publish(sequenceNo);
+            }
         } else {
             for (Receiver receiver : receivers) {
                 receiver.receive(timeStamp, data);
@@ -157,7 +246,8 @@ public class StreamJunction {
     }
 
     /**
-     * create and start disruptor based on annotations given in the streamDefinition
+     * create and start disruptor based on annotations given in the streamDefinition,
+     * when the only receiver is a query the ring buffer slots are StreamEvents in the query's layout
      */
     public synchronized void startProcessing() {
         if (!receivers.isEmpty()) {
@@ -166,28 +256,49 @@ public class StreamJunction {
                 parallel = executionPlanContext.isParallel();
             }
             if (parallel) {
-                for (Constructor constructor : Disruptor.class.getConstructors()) {
-                    if (constructor.getParameterTypes().length == 5) {      //if new disruptor classes available
-                        ProducerType producerType = ProducerType.SINGLE;
-
-                        if (publishers.size() > 1) {
-                            producerType = ProducerType.MULTI;
-                        }
-
-                        disruptor = new Disruptor<Event>(new EventFactory(streamDefinition.getAttributeList().size()),
-                                bufferSize, executorService, producerType, PhasedBackoffWaitStrategy.withLiteLock(1, 4, TimeUnit.SECONDS));
-                        break;
+                if (publishers.size() > 1 || concurrentlyPublished) {
+                    if (disruptorConfig.getProducerType() == ProducerType.SINGLE) {
+                        log.warn("Stream " + streamDefinition.getId() + " is configured with a single producer " +
+                                "but has " + publishers.size() + " publishers or is published by partition lanes, " +
+                                "hence using multiple producers");
                     }
+                    //A single producer ring buffer loses events published concurrently
+                    effectiveDisruptorConfig = disruptorConfig.withProducerType(ProducerType.MULTI)
+                            .resolve(ProducerType.MULTI);
+                } else {
+                    effectiveDisruptorConfig = disruptorConfig.resolve(ProducerType.SINGLE);
                 }
-                if (disruptor == null) {
-                    disruptor = new Disruptor<Event>(new EventFactory(streamDefinition.getAttributeList().size()),
-                            bufferSize, executorService);
-                }
-                for (Receiver receiver : receivers) {
-                    disruptor.handleEventsWith(new StreamHandler(receiver));
+
+                Receiver firstReceiver = receivers.get(0);
+                int workers = effectiveDisruptorConfig.getWorkers();
+                if (workers > 1 && !(receivers.size() == 1 && firstReceiver instanceof QueryWorkerPool)) {
+                    log.warn("Stream " + streamDefinition.getId() + " is configured with " + workers + " workers " +
+                            "but it is not consumed by a single stateless query, hence using a single worker");
                 }
+                if (receivers.size() == 1 && firstReceiver instanceof QueryWorkerPool && workers > 1) {
+                    QueryWorkerPool queryWorkerPool = (QueryWorkerPool) firstReceiver;
+                    createStreamEventDisruptor(queryWorkerPool.getMetaStreamEvent());
+                    queryWorkerPool.start(workers, effectiveDisruptorConfig.isOrdered(),
+                            streamEventDisruptor.getRingBuffer());
+                    streamEventDisruptor.handleEventsWithWorkerPool(queryWorkerPool.getWorkers());
+
+                    streamEventRingBuffer = streamEventDisruptor.start();
+                } else if (receivers.size() == 1 && firstReceiver instanceof ProcessStreamReceiver &&
+                        !(firstReceiver instanceof MultiProcessStreamReceiver)) {
+                    ProcessStreamReceiver processStreamReceiver = (ProcessStreamReceiver) firstReceiver;
+                    createStreamEventDisruptor(processStreamReceiver.getMetaStreamEvent());
+                    streamEventDisruptor.handleEventsWith(new StreamEventHandler(processStreamReceiver));
+
+                    streamEventRingBuffer = streamEventDisruptor.start();
+                } else {
+                    disruptor = effectiveDisruptorConfig.createDisruptor(
+                            new EventFactory(streamDefinition.getAttributeList().size()), executorService);
+                    for (Receiver receiver : receivers) {
+                        disruptor.handleEventsWith(new StreamHandler(receiver));
+                    }
 
-                ringBuffer = disruptor.start();
+                    ringBuffer = disruptor.start();
+                }
 
             } else {
                 for (Receiver receiver : receivers) {
@@ -200,9 +311,20 @@ public class StreamJunction {
         }
     }
 
+    private void createStreamEventDisruptor(MetaStreamEvent metaStreamEvent) {
+        StreamEventFactory streamEventFactory = new StreamEventFactory(
+                metaStreamEvent.getBeforeWindowData().size(),
+                metaStreamEvent.getOnAfterWindowData().size(),
+                metaStreamEvent.getOutputData().size());
+        streamEventConverter = StreamEventConverterFactory.constructEventConverter(metaStreamEvent);
+        streamEventDisruptor = effectiveDisruptorConfig.createDisruptor(streamEventFactory, executorService);
+    }
+
     public synchronized void stopProcessing() {
         if (disruptor != null) {
             disruptor.shutdown();
+        } else if (streamEventDisruptor != null) {
+            streamEventDisruptor.shutdown();
         } else {
             for (Receiver receiver : receivers) {
                 if (receiver instanceof StreamCallback) {
@@ -219,6 +341,14 @@ public class StreamJunction {
         return publisher;
     }
 
+    /**
+     * Mark the junction as published from several threads through the same publisher, e.g. by the lanes of a
+     * partition, so that its disruptor is created for multiple producers
+     */
+    public synchronized void setConcurrentlyPublished() {
+        concurrentlyPublished = true;
+    }
+
     public synchronized void subscribe(Receiver receiver) {
         //to have reverse order at the sequence/pattern processors
         if (!receivers.contains(receiver)) {
@@ -226,6 +356,10 @@ public class StreamJunction {
         }
     }
 
+    public synchronized void unsubscribe(Receiver receiver) {
+        receivers.remove(receiver);
+    }
+
     public String getStreamId() {
         return streamDefinition.getId();
     }
@@ -234,6 +368,21 @@ public class StreamJunction {
         return streamDefinition;
     }
 
+    /**
+     * @return whether more than one worker is configured to process the events of a stateless query
+     */
+    public boolean isWorkerPoolEnabled() {
+        return disruptorConfig.getWorkers() > 1;
+    }
+
+    /**
+     * @return settings the disruptor of this junction is running with, null when the junction is not parallel
+     * or processing has not been started
+     */
+    public DisruptorConfig getDisruptorConfig() {
+        return effectiveDisruptorConfig;
+    }
+
     public interface Receiver {
 
         public String getStreamId();
@@ -263,6 +412,20 @@ public class StreamJunction {
 
     }
 
+    public class StreamEventHandler implements EventHandler<StreamEvent> {
+
+        private ProcessStreamReceiver processStreamReceiver;
+
+        public StreamEventHandler(ProcessStreamReceiver processStreamReceiver) {
+            this.processStreamReceiver = processStreamReceiver;
+        }
+
+        public void onEvent(StreamEvent streamEvent, long sequence, boolean endOfBatch) {
+            processStreamReceiver.receive(streamEvent, endOfBatch);
+        }
+
+    }
+
     public class Publisher implements InputProcessor {
 
         private StreamJunction streamJunction;
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.siddhi.core.stream.input;
+
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.util.timestamp.EventTimeBasedMillisTimestampGenerator;
+
+/**
+ * Entry of a playback execution plan, advances the event time clock to the timestamp of each event before
+ * passing it on, so that the timers due by then are fired ahead of it in the same thread.
+ */
+public class EventTimeEntryValve implements InputProcessor {
+
+    private EventTimeBasedMillisTimestampGenerator timestampGenerator;
+    private InputProcessor inputProcessor;
+
+    public EventTimeEntryValve(EventTimeBasedMillisTimestampGenerator timestampGenerator,
+                               InputProcessor inputProcessor) {
+        this.timestampGenerator = timestampGenerator;
+        this.inputProcessor = inputProcessor;
+    }
+
+    @Override
+    public void send(Event event, int streamIndex) {
+        timestampGenerator.setCurrentTimestamp(event.getTimestamp());
+        inputProcessor.send(event, streamIndex);
+    }
+
+    @Override
+    public void send(Event[] events, int streamIndex) {
+        for (Event event : events) {
+            timestampGenerator.setCurrentTimestamp(event.getTimestamp());
+            inputProcessor.send(event, streamIndex);
+        }
+    }
+
+    @Override
+    public void send(long timeStamp, Object[] data, int streamIndex) {
+        timestampGenerator.setCurrentTimestamp(timeStamp);
+        inputProcessor.send(timeStamp, data, streamIndex);
+    }
+}
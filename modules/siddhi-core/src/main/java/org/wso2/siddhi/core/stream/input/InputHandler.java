@@ -16,6 +16,7 @@
 package org.wso2.siddhi.core.stream.input;
 
 import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.event.Event;
 
 public class InputHandler {
@@ -26,11 +27,14 @@ public class InputHandler {
     protected int streamIndex;
     protected InputProcessor inputProcessor;
     protected InputProcessor pausedInputPublisher;
+    protected ExecutionPlanContext executionPlanContext;
 
-    public InputHandler(String streamId, int streamIndex, InputProcessor inputProcessor) {
+    public InputHandler(String streamId, int streamIndex, InputProcessor inputProcessor,
+                        ExecutionPlanContext executionPlanContext) {
         this.streamId = streamId;
         this.streamIndex = streamIndex;
         this.inputProcessor = inputProcessor;
+        this.executionPlanContext = executionPlanContext;
         this.pausedInputPublisher = this.inputProcessor;
     }
 
@@ -38,9 +42,17 @@ public class InputHandler {
         return streamId;
     }
 
+    /**
+     * Sends the data timestamped with the current time of the execution plan, which is the largest event
+     * timestamp seen so far on playback. The wall-clock time is used until that clock has seen an event.
+     */
     public void send(Object[] data) throws InterruptedException {
         if (inputProcessor != null) {
-            inputProcessor.send(System.currentTimeMillis(), data, streamIndex);
+            long timestamp = executionPlanContext.getTimestampGenerator().currentTime();
+            if (timestamp < 0) {
+                timestamp = System.currentTimeMillis();
+            }
+            inputProcessor.send(timestamp, data, streamIndex);
         }
     }
 
@@ -19,6 +19,7 @@ package org.wso2.siddhi.core.stream.input;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.exception.DefinitionNotExistException;
 import org.wso2.siddhi.core.stream.StreamJunction;
+import org.wso2.siddhi.core.util.timestamp.EventTimeBasedMillisTimestampGenerator;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 
 import java.util.LinkedHashMap;
@@ -34,6 +35,7 @@ public class InputManager {
     private InputDistributor inputDistributor;
     private SingleStreamEntryValve singleStreamEntryValve;
     private SingleThreadEntryValve singleThreadEntryValve;
+    private SingleThreadEntryValve playbackEntryValve;
 
     public InputManager(ExecutionPlanContext executionPlanContext,
                         ConcurrentMap<String, AbstractDefinition> streamDefinitionMap,
@@ -41,14 +43,17 @@ public class InputManager {
         this.executionPlanContext = executionPlanContext;
         this.streamDefinitionMap = streamDefinitionMap;
         this.streamJunctionMap = streamJunctionMap;
-        if (!executionPlanContext.isPlayback() &&
-                !executionPlanContext.isEnforceOrder() &&
+        if (executionPlanContext.isPlayback()) {
+            inputDistributor = new InputDistributor();
+            playbackEntryValve = new SingleThreadEntryValve(executionPlanContext, new EventTimeEntryValve(
+                    (EventTimeBasedMillisTimestampGenerator) executionPlanContext.getTimestampGenerator(),
+                    inputDistributor));
+        } else if (!executionPlanContext.isEnforceOrder() &&
                 !executionPlanContext.isParallel()) {
             inputDistributor = new InputDistributor();
             singleThreadEntryValve = new SingleThreadEntryValve(executionPlanContext, inputDistributor);
             singleStreamEntryValve = new SingleStreamEntryValve(executionPlanContext, singleThreadEntryValve);
-        } else if (!executionPlanContext.isPlayback() &&
-                !executionPlanContext.isEnforceOrder() &&
+        } else if (!executionPlanContext.isEnforceOrder() &&
                 executionPlanContext.isParallel()) {
             inputDistributor = new InputDistributor();
         }
@@ -87,14 +92,16 @@ public class InputManager {
 
         InputHandler inputHandler = null;
         if (singleStreamEntryValve != null) {
-            inputHandler = new InputHandler(streamId, inputHandlerMap.size(), singleStreamEntryValve);
+            inputHandler = new InputHandler(streamId, inputHandlerMap.size(), singleStreamEntryValve,
+                    executionPlanContext);
             StreamJunction streamJunction = streamJunctionMap.get(streamId);
             if (streamJunction == null) {
                 throw new DefinitionNotExistException("Stream with stream ID " + streamId + " has not been defined");
             }
             inputDistributor.addInputProcessor(streamJunctionMap.get(streamId).constructPublisher());
         } else {
-            inputHandler = new InputHandler(streamId, inputHandlerMap.size(), inputDistributor);
+            inputHandler = new InputHandler(streamId, inputHandlerMap.size(),
+                    playbackEntryValve != null ? playbackEntryValve : inputDistributor, executionPlanContext);
             StreamJunction streamJunction = streamJunctionMap.get(streamId);
             if (streamJunction == null) {
                 throw new DefinitionNotExistException("Stream with stream ID " + streamId + " has not been defined");
@@ -17,19 +17,17 @@
 package org.wso2.siddhi.core.stream.input;
 
 import com.lmax.disruptor.EventHandler;
-import com.lmax.disruptor.PhasedBackoffWaitStrategy;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.DisruptorConfig;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -50,21 +48,12 @@ public class SingleStreamEntryValve implements InputProcessor {
         this.executionPlanContext = executionPlanContext;
         this.inputProcessor = inputProcessor;
         SingleEntryValveHandler singleEntryValveHandler = new SingleEntryValveHandler();
-        for (Constructor constructor : Disruptor.class.getConstructors()) {
-            if (constructor.getParameterTypes().length == 5) {      //if new disruptor classes available
-                singleEntryDisruptor = new Disruptor<IndexedEventFactory.IndexedEvent>(new IndexedEventFactory(),
-                        executionPlanContext.getSiddhiContext().getEventBufferSize(),
-                        executionPlanContext.getExecutorService(),
-                        ProducerType.MULTI,
-                        PhasedBackoffWaitStrategy.withLiteLock(1, 4, TimeUnit.SECONDS));
-                break;
-            }
-        }
-        if (singleEntryDisruptor == null) {
-            singleEntryDisruptor = new Disruptor<IndexedEventFactory.IndexedEvent>(new IndexedEventFactory(),
-                    executionPlanContext.getSiddhiContext().getEventBufferSize(),
-                    executionPlanContext.getExecutorService());
+        DisruptorConfig disruptorConfig = executionPlanContext.getDisruptorConfig();
+        if (disruptorConfig == null) {
+            disruptorConfig = new DisruptorConfig(executionPlanContext.getSiddhiContext().getEventBufferSize());
         }
+        singleEntryDisruptor = disruptorConfig.withProducerType(ProducerType.MULTI).createDisruptor(
+                new IndexedEventFactory(), executionPlanContext.getExecutorService());
         singleEntryDisruptor.handleEventsWith(singleEntryValveHandler);
     }
 
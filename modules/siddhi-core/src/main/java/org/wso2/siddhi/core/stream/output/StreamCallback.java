@@ -17,22 +17,20 @@ package org.wso2.siddhi.core.stream.output;
 
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
-import com.lmax.disruptor.PhasedBackoffWaitStrategy;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.DisruptorConfig;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.core.stream.StreamJunction;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 public abstract class StreamCallback implements StreamJunction.Receiver {
 
@@ -129,30 +127,17 @@ public abstract class StreamCallback implements StreamJunction.Receiver {
     public synchronized void startProcessing() {
         Boolean asyncEnabled = null;
         if (asyncEnabled != null && asyncEnabled || asyncEnabled == null) {
-            for (Constructor constructor : Disruptor.class.getConstructors()) {
-                if (constructor.getParameterTypes().length == 5) {      //if new disruptor classes available
-                    disruptor = new Disruptor<EventHolder>(new EventFactory<EventHolder>() {
+            DisruptorConfig disruptorConfig = executionPlanContext.getDisruptorConfig();
+            if (disruptorConfig == null) {
+                disruptorConfig = new DisruptorConfig(executionPlanContext.getSiddhiContext().getEventBufferSize());
+            }
+            disruptor = disruptorConfig.withProducerType(ProducerType.SINGLE).createDisruptor(
+                    new EventFactory<EventHolder>() {
                         @Override
                         public EventHolder newInstance() {
                             return new EventHolder();
                         }
-                    },
-                            executionPlanContext.getSiddhiContext().getEventBufferSize(),
-                            executionPlanContext.getExecutorService(), ProducerType.SINGLE,
-                            PhasedBackoffWaitStrategy.withLiteLock(1, 4, TimeUnit.SECONDS));
-                    break;
-                }
-            }
-            if (disruptor == null) {
-                disruptor = new Disruptor<EventHolder>(new EventFactory<EventHolder>() {
-                    @Override
-                    public EventHolder newInstance() {
-                        return new EventHolder();
-                    }
-                },
-                        executionPlanContext.getSiddhiContext().getEventBufferSize(),
-                        executionPlanContext.getExecutorService());
-            }
+                    }, executionPlanContext.getExecutorService());
             asyncEventHandler = new AsyncEventHandler(this);
             disruptor.handleEventsWith(asyncEventHandler);
             ringBuffer = disruptor.start();
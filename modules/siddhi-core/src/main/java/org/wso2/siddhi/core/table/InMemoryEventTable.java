@@ -25,36 +25,36 @@ import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventCloner;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
 import org.wso2.siddhi.core.event.stream.converter.ZeroStreamEventConverter;
-import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.collection.IndexedEventHolder;
 import org.wso2.siddhi.core.util.collection.operator.Finder;
 import org.wso2.siddhi.core.util.collection.operator.Operator;
 import org.wso2.siddhi.core.util.parser.CollectionOperatorParser;
-import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshotable;
 import org.wso2.siddhi.query.api.annotation.Annotation;
+import org.wso2.siddhi.query.api.annotation.Element;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.definition.TableDefinition;
 import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
 import org.wso2.siddhi.query.api.expression.Expression;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class InMemoryEventTable implements EventTable, Snapshotable {
+public class InMemoryEventTable implements EventTable, IncrementalSnapshotable {
 
     private final TableDefinition tableDefinition;
     private final ExecutionPlanContext executionPlanContext;
-    private LinkedList<StreamEvent> list = new LinkedList<StreamEvent>();
-    private TreeMap<Object, StreamEvent> treeMap = new TreeMap<Object, StreamEvent>();
-    private String indexAttribute = null;
-    private int indexPosition;
+    private final IndexedEventHolder indexedEventHolder;
     private final StreamEventCloner streamEventCloner;
     private final StreamEventPool streamEventPool;
     private final ZeroStreamEventConverter eventConverter = new ZeroStreamEventConverter();
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
     private String elementId;
 
 
@@ -68,22 +68,31 @@ public class InMemoryEventTable implements EventTable, Snapshotable {
             metaStreamEvent.addOutputData(attribute);
         }
 
-        //Adding indexes
-        Annotation annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_INDEX_BY,
-                tableDefinition.getAnnotations());
+        //Adding indexes, @IndexBy attributes uniquely identify an event while @Index attributes are indexed separately
+        List<String> primaryKeyAttributes = getAnnotationAttributes(SiddhiConstants.ANNOTATION_INDEX_BY, tableDefinition);
+        List<String> indexAttributes = getAnnotationAttributes(SiddhiConstants.ANNOTATION_INDEX, tableDefinition);
+        indexedEventHolder = new IndexedEventHolder(tableDefinition, primaryKeyAttributes, indexAttributes);
+
+        streamEventPool = new StreamEventPool(metaStreamEvent, 10);
+        streamEventCloner = new StreamEventCloner(metaStreamEvent, streamEventPool);
+    }
+
+    private static List<String> getAnnotationAttributes(String annotationName, TableDefinition tableDefinition) {
+        List<String> attributes = new ArrayList<String>();
+        Annotation annotation = AnnotationHelper.getAnnotation(annotationName, tableDefinition.getAnnotations());
         if (annotation != null) {
-            if (annotation.getElements().size() > 1) {
-                throw new OperationNotSupportedException(SiddhiConstants.ANNOTATION_INDEX_BY + " annotation contains " + annotation.getElements().size() + " elements, Siddhi in-memory table only supports indexing based on a single attribute");
-            }
             if (annotation.getElements().size() == 0) {
-                throw new ExecutionPlanValidationException(SiddhiConstants.ANNOTATION_INDEX_BY + " annotation contains " + annotation.getElements().size() + " element");
+                throw new ExecutionPlanValidationException(annotationName + " annotation contains " + annotation.getElements().size() + " element");
+            }
+            for (Element element : annotation.getElements()) {
+                String attribute = element.getValue();
+                if (attributes.contains(attribute)) {
+                    throw new ExecutionPlanValidationException(annotationName + " annotation contains attribute '" + attribute + "' more than once");
+                }
+                attributes.add(attribute);
             }
-            indexAttribute = annotation.getElements().get(0).getValue();
-            indexPosition = tableDefinition.getAttributePosition(indexAttribute);
         }
-
-        streamEventPool = new StreamEventPool(metaStreamEvent, 10);
-        streamEventCloner = new StreamEventCloner(metaStreamEvent, streamEventPool);
+        return attributes;
     }
 
     @Override
@@ -99,73 +108,122 @@ public class InMemoryEventTable implements EventTable, Snapshotable {
         return tableDefinition;
     }
 
-    public synchronized void add(ComplexEventChunk addingEventChunk) {
-        addingEventChunk.reset();
-        while (addingEventChunk.hasNext()) {
-            ComplexEvent complexEvent = addingEventChunk.next();
-            StreamEvent streamEvent = streamEventPool.borrowEvent();
-            eventConverter.convertStreamEvent(complexEvent, streamEvent);
-            if (indexAttribute != null) {
-                treeMap.put(streamEvent.getOutputData()[indexPosition], streamEvent);
-            } else {
-                list.add(streamEvent);
+    public void add(ComplexEventChunk addingEventChunk) {
+        readWriteLock.writeLock().lock();
+        try {
+            addingEventChunk.reset();
+            while (addingEventChunk.hasNext()) {
+                ComplexEvent complexEvent = addingEventChunk.next();
+                StreamEvent streamEvent = streamEventPool.borrowEvent();
+                eventConverter.convertStreamEvent(complexEvent, streamEvent);
+                indexedEventHolder.add(streamEvent);
             }
+        } finally {
+            readWriteLock.writeLock().unlock();
         }
     }
 
-    public synchronized void delete(ComplexEventChunk deletingEventChunk, Operator operator) {
-        if (indexAttribute != null) {
-            operator.delete(deletingEventChunk, treeMap);
-        } else {
-            operator.delete(deletingEventChunk, list);
+    public void delete(ComplexEventChunk deletingEventChunk, Operator operator) {
+        readWriteLock.writeLock().lock();
+        try {
+            operator.delete(deletingEventChunk, indexedEventHolder);
+        } finally {
+            readWriteLock.writeLock().unlock();
         }
-
     }
 
-    public synchronized void update(ComplexEventChunk updatingEventChunk, Operator operator, int[] mappingPosition) {
-        if (indexAttribute != null) {
-            operator.update(updatingEventChunk, treeMap, mappingPosition);
-        } else {
-            operator.update(updatingEventChunk, list, mappingPosition);
+    public void update(ComplexEventChunk updatingEventChunk, Operator operator, int[] mappingPosition) {
+        readWriteLock.writeLock().lock();
+        try {
+            operator.update(updatingEventChunk, indexedEventHolder, mappingPosition);
+        } finally {
+            readWriteLock.writeLock().unlock();
         }
     }
 
-
-    public synchronized boolean contains(ComplexEvent matchingEvent, Finder finder) {
-        if (indexAttribute != null) {
-            return finder.contains(matchingEvent, treeMap);
-        } else {
-            return finder.contains(matchingEvent, list);
+    /**
+     * Queries holding different finders read the table concurrently, while the ones sharing a finder take turns
+     * as the finder keeps the matching event while evaluating its condition.
+     */
+    public boolean contains(ComplexEvent matchingEvent, Finder finder) {
+        readWriteLock.readLock().lock();
+        try {
+            synchronized (finder) {
+                return finder.contains(matchingEvent, indexedEventHolder);
+            }
+        } finally {
+            readWriteLock.readLock().unlock();
         }
     }
 
-    public synchronized StreamEvent find(ComplexEvent matchingEvent, Finder finder) {
-        if (indexAttribute != null) {
-            return finder.find(matchingEvent, treeMap, streamEventCloner);
-        } else {
-            return finder.find(matchingEvent, list, streamEventCloner);
+    public StreamEvent find(ComplexEvent matchingEvent, Finder finder) {
+        readWriteLock.readLock().lock();
+        try {
+            synchronized (finder) {
+                return finder.find(matchingEvent, indexedEventHolder, streamEventCloner);
+            }
+        } finally {
+            readWriteLock.readLock().unlock();
         }
-
     }
 
     public Finder constructFinder(Expression expression, MetaComplexEvent metaComplexEvent, ExecutionPlanContext executionPlanContext, List<VariableExpressionExecutor> variableExpressionExecutors, Map<String, EventTable> eventTableMap, int matchingStreamIndex, long withinTime) {
-        return CollectionOperatorParser.parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, tableDefinition, withinTime, indexAttribute);
+        return CollectionOperatorParser.parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, tableDefinition, withinTime, indexedEventHolder);
     }
 
     @Override
     public Operator constructOperator(Expression expression, MetaComplexEvent metaComplexEvent, ExecutionPlanContext executionPlanContext, List<VariableExpressionExecutor> variableExpressionExecutors, Map<String, EventTable> eventTableMap, int matchingStreamIndex, long withinTime) {
-        return CollectionOperatorParser.parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, tableDefinition, withinTime, indexAttribute);
+        return CollectionOperatorParser.parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, tableDefinition, withinTime, indexedEventHolder);
     }
 
     @Override
     public Object[] currentState() {
-        return new Object[]{list, treeMap};
+        readWriteLock.readLock().lock();
+        try {
+            return indexedEventHolder.currentState();
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
     }
 
     @Override
     public void restoreState(Object[] state) {
-        list = (LinkedList<StreamEvent>) state[0];
-        treeMap = (TreeMap<Object, StreamEvent>) state[1];
+        readWriteLock.writeLock().lock();
+        try {
+            indexedEventHolder.restoreState(state);
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object[] baseState() {
+        readWriteLock.writeLock().lock();
+        try {
+            return indexedEventHolder.baseState();
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object[] incrementalState() {
+        readWriteLock.writeLock().lock();
+        try {
+            return indexedEventHolder.incrementalState();
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void restoreIncrementalState(Object[] incrementalState) {
+        readWriteLock.writeLock().lock();
+        try {
+            indexedEventHolder.restoreIncrementalState(incrementalState);
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
     }
 
     @Override
@@ -20,6 +20,7 @@ import org.wso2.siddhi.core.ExecutionPlanRuntime;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.partition.PartitionRuntime;
 import org.wso2.siddhi.core.query.QueryRuntime;
+import org.wso2.siddhi.core.query.QueryWorkerPool;
 import org.wso2.siddhi.core.query.input.ProcessStreamReceiver;
 import org.wso2.siddhi.core.query.input.stream.StreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
@@ -89,7 +90,12 @@ public class ExecutionPlanRuntimeBuilder {
         for (SingleStreamRuntime singleStreamRuntime : streamRuntime.getSingleStreamRuntimes()) {
             ProcessStreamReceiver processStreamReceiver = singleStreamRuntime.getProcessStreamReceiver();
             if (!processStreamReceiver.toTable()) {
-                streamJunctionMap.get(processStreamReceiver.getStreamId()).subscribe(processStreamReceiver);
+                StreamJunction streamJunction = streamJunctionMap.get(processStreamReceiver.getStreamId());
+                if (streamJunction.isWorkerPoolEnabled() && QueryWorkerPool.isSupported(queryRuntime)) {
+                    streamJunction.subscribe(new QueryWorkerPool(queryRuntime));
+                } else {
+                    streamJunction.subscribe(processStreamReceiver);
+                }
             }
         }
 
@@ -16,7 +16,6 @@
 
 package org.wso2.siddhi.core.util;
 
-import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
@@ -24,57 +23,48 @@ import org.wso2.siddhi.core.event.stream.StreamEventPool;
 import org.wso2.siddhi.core.event.stream.converter.ConversionStreamEventChunk;
 import org.wso2.siddhi.core.event.stream.converter.StreamEventConverter;
 import org.wso2.siddhi.core.query.input.stream.single.SingleThreadEntryValveProcessor;
+import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.Collection;
+import java.util.HashSet;
 
 /**
- * Created on 12/3/14.
+ * Sends TIMER events to a Schedulable at the times it has been notified of, the deadlines are kept in the
+ * execution plan's TimerWheel. Consecutive notifications for the same time are coalesced.
  */
-public class Scheduler implements Snapshotable {
+public class Scheduler implements Snapshotable, EternalReferencedHolder {
 
-    private static final Logger log = Logger.getLogger(Scheduler.class);
-    private final BlockingQueue<Long> toNotifyQueue = new LinkedBlockingQueue<Long>();
-    private ScheduledExecutorService scheduledExecutorService;
-    private EventCaller eventCaller;
-    private volatile boolean running = false;
+    private final TimerWheel timerWheel;
+    private final Schedulable singleThreadEntryValve;
     private StreamEventPool streamEventPool;
     private ComplexEventChunk<StreamEvent> streamEventChunk;
     private ExecutionPlanContext executionPlanContext;
     private String elementId;
+    private long expiryRound = -1;
+    private final HashSet<Long> pendingTimes = new HashSet<Long>();
 
 
-    public Scheduler(ScheduledExecutorService scheduledExecutorService, Schedulable singleThreadEntryValve) {
-        this.scheduledExecutorService = scheduledExecutorService;
-        eventCaller = new EventCaller(singleThreadEntryValve);
+    public Scheduler(TimerWheel timerWheel, Schedulable singleThreadEntryValve) {
+        this.timerWheel = timerWheel;
+        this.singleThreadEntryValve = singleThreadEntryValve;
     }
 
     public void notifyAt(long time) {
-        try {
-            toNotifyQueue.put(time);
-
-            if (!running && toNotifyQueue.size() == 1) {
-                synchronized (toNotifyQueue) {
-                    if (!running) {
-                        running = true;
-                        long timeDiff = time - System.currentTimeMillis(); //todo fix
-                        if (timeDiff > 0) {
-                            scheduledExecutorService.schedule(eventCaller, timeDiff, TimeUnit.MILLISECONDS);
-                        } else {
-                            scheduledExecutorService.schedule(eventCaller, 0, TimeUnit.MILLISECONDS);
-                        }
-                    }
-                }
-            }
+        timerWheel.schedule(this, time);
+    }
 
-        } catch (InterruptedException e) {
-            log.error("Error when adding time:" + time + " to toNotifyQueue at Scheduler", e);
+    /**
+     * @param scheduledTime time a periodic notification was due
+     * @param period        period of the notifications in milliseconds
+     * @param currentTime   time the timer event was sent at
+     * @return the first time of the period after currentTime, periods the clock jumped over are skipped
+     */
+    public static long nextPeriodicTime(long scheduledTime, long period, long currentTime) {
+        if (currentTime < scheduledTime) {
+            return scheduledTime;
         }
-
-
+        return scheduledTime + ((currentTime - scheduledTime) / period + 1) * period;
     }
 
     public void setStreamEventPool(StreamEventPool streamEventPool) {
@@ -88,83 +78,98 @@ public class Scheduler implements Snapshotable {
             elementId = executionPlanContext.getElementIdGenerator().createNewId();
         }
         executionPlanContext.getSnapshotService().addSnapshotable(this);
+        //The timer wheel is stopped with the execution plan, only purged partition instances stop their schedulers
+        executionPlanContext.addCollectedEternalReferencedHolder(this);
     }
 
     @Override
-    public Object[] currentState() {
-        return new Object[]{toNotifyQueue};
+    public void start() {
+        //Nothing to start
     }
 
+    /**
+     * Drops the pending notifications, called when the partition instance of the scheduler is purged
+     */
     @Override
-    public void restoreState(Object[] state) {
-        BlockingQueue<Long> restoreToNotifyQueue = (BlockingQueue<Long>) state[0];
-        for (Long time : restoreToNotifyQueue) {
-            notifyAt(time);
-        }
+    public void stop() {
+        timerWheel.cancel(this);
     }
 
-    @Override
-    public String getElementId() {
-        return elementId;
+    /**
+     * Called by the TimerWheel when one or more of the notified times are reached
+     *
+     * @param currentTime time the timer event is sent at
+     */
+    void sendTimerEvent(long currentTime) {
+        StreamEvent timerEvent = streamEventPool.borrowEvent();
+        timerEvent.setType(StreamEvent.Type.TIMER);
+        timerEvent.setTimestamp(currentTime);
+        streamEventChunk.add(timerEvent);
+        singleThreadEntryValve.process(streamEventChunk);
+        streamEventChunk.clear();
     }
 
-    public Scheduler clone(String key, SingleThreadEntryValveProcessor singleThreadEntryValveProcessor) {
-        Scheduler scheduler = new Scheduler(scheduledExecutorService, singleThreadEntryValveProcessor);
-        scheduler.elementId = elementId + "-" + key;
-        scheduler.init(executionPlanContext);
-        return scheduler;
+    long getExpiryRound() {
+        return expiryRound;
+    }
+
+    void setExpiryRound(long expiryRound) {
+        this.expiryRound = expiryRound;
+    }
+
+    /**
+     * Pending deadlines are only accessed by the TimerWheel while it holds its lock
+     *
+     * @return false when the time is already pending
+     */
+    boolean addPendingTime(long time) {
+        return pendingTimes.add(time);
     }
 
-    private class EventCaller implements Runnable {
-        private Schedulable singleThreadEntryValve;
+    void removePendingTime(long time) {
+        pendingTimes.remove(time);
+    }
 
-        public EventCaller(Schedulable singleThreadEntryValve) {
+    void clearPendingTimes() {
+        pendingTimes.clear();
+    }
 
-            this.singleThreadEntryValve = singleThreadEntryValve;
+    long[] getPendingTimes() {
+        long[] times = new long[pendingTimes.size()];
+        int i = 0;
+        for (long time : pendingTimes) {
+            times[i++] = time;
         }
+        return times;
+    }
 
-        /**
-         * When an object implementing interface <code>Runnable</code> is used
-         * to create a thread, starting the thread causes the object's
-         * <code>run</code> method to be called in that separately executing
-         * thread.
-         * <p/>
-         * The general contract of the method <code>run</code> is that it may
-         * take any action whatsoever.
-         *
-         * @see Thread#run()
-         */
-        @Override
-        public void run() {
-            Long toNotifyTime = toNotifyQueue.peek();
-            long currentTime = System.currentTimeMillis();
-            while (toNotifyTime != null && toNotifyTime - currentTime <= 0) {
-
-                toNotifyQueue.poll();
-
-                StreamEvent timerEvent = streamEventPool.borrowEvent();
-                timerEvent.setType(StreamEvent.Type.TIMER);
-                timerEvent.setTimestamp(currentTime);
-                streamEventChunk.add(timerEvent);
-                singleThreadEntryValve.process(streamEventChunk);
-                streamEventChunk.clear();
-
-                toNotifyTime = toNotifyQueue.peek();
-                currentTime = System.currentTimeMillis();
+    @Override
+    public Object[] currentState() {
+        return new Object[]{timerWheel.getPendingTimes(this)};
+    }
 
+    @Override
+    public void restoreState(Object[] state) {
+        if (state[0] instanceof long[]) {
+            for (long time : (long[]) state[0]) {
+                notifyAt(time);
             }
-            if (toNotifyTime != null) {
-                scheduledExecutorService.schedule(eventCaller, toNotifyTime - currentTime, TimeUnit.MILLISECONDS);
-            } else {
-                synchronized (toNotifyQueue) {
-                    running = false;
-                    if (toNotifyQueue.peek() != null) {
-                        running = true;
-                        scheduledExecutorService.schedule(eventCaller, 0, TimeUnit.MILLISECONDS);
-                    }
-                }
+        } else {
+            for (Long time : (Collection<Long>) state[0]) {     //snapshots taken before the timer wheel
+                notifyAt(time);
             }
         }
+    }
 
+    @Override
+    public String getElementId() {
+        return elementId;
+    }
+
+    public Scheduler clone(String key, SingleThreadEntryValveProcessor singleThreadEntryValveProcessor) {
+        Scheduler scheduler = new Scheduler(timerWheel, singleThreadEntryValveProcessor);
+        scheduler.elementId = elementId + "-" + key;
+        scheduler.init(executionPlanContext);
+        return scheduler;
     }
 }
@@ -30,21 +30,48 @@ public final class SiddhiConstants {
     public static final String TRIGGER_START = "start";
 
     public static final String ANNOTATION_ELEMENT_CALLBACK_ASYNC = "callback.async";
+    public static final String ANNOTATION_ELEMENT_WAIT_STRATEGY = "wait.strategy";
+    public static final String ANNOTATION_ELEMENT_BUFFER_SIZE = "buffer.size";
+    public static final String ANNOTATION_ELEMENT_PRODUCER_TYPE = "producer.type";
+    public static final String ANNOTATION_ELEMENT_WORKERS = "workers";
+    public static final String ANNOTATION_ELEMENT_ORDERED = "ordered";
+    public static final String ANNOTATION_ELEMENT_IDLE_TIME = "idle.time";
+    public static final String ANNOTATION_ELEMENT_INCREMENT = "increment";
+    public static final String ANNOTATION_ELEMENT_IDLE_PERIOD = "idle.period";
+    public static final String ANNOTATION_ELEMENT_MAX_INSTANCES = "max.instances";
+    public static final String ANNOTATION_ELEMENT_INTERVAL = "interval";
+    public static final String ANNOTATION_ELEMENT_SPILL_PERIOD = "spill.period";
+    public static final String ANNOTATION_ELEMENT_INCREMENTAL = "incremental";
+    public static final String ANNOTATION_ELEMENT_BASE_INTERVAL = "base.interval";
+    public static final String ANNOTATION_ELEMENT_ASYNC = "async";
+
+    public static final String WAIT_STRATEGY_PHASED_BACKOFF = "phased.backoff";
+    public static final String WAIT_STRATEGY_BUSY_SPIN = "busy.spin";
+    public static final String WAIT_STRATEGY_YIELDING = "yielding";
+    public static final String WAIT_STRATEGY_SLEEPING = "sleeping";
+    public static final String WAIT_STRATEGY_BLOCKING = "blocking";
+    public static final String PRODUCER_TYPE_SINGLE = "single";
+    public static final String PRODUCER_TYPE_MULTI = "multi";
 
     public static final String ANNOTATION_NAME = "Name";
     public static final String ANNOTATION_PLAYBACK = "Playback";
     public static final String ANNOTATION_ENFORCE_ORDER = "EnforceOrder";
     public static final String ANNOTATION_PARALLEL = "Parallel";
+    public static final String ANNOTATION_PERSISTENCE = "Persistence";
 
     public static final String ANNOTATION_INDEX_BY = "IndexBy";
+    public static final String ANNOTATION_INDEX = "Index";
+    public static final String ANNOTATION_PURGE = "Purge";
 
     //    public static final String ANNOTATION_CONFIG = "config";
 //    public static final String ANNOTATION_INFO = "info";
 //    public static final String ASYNC = "async";
     public static final String TRUE = "true";
+    public static final String FALSE = "false";
 
 
     public static final int DEFAULT_EVENT_BUFFER_SIZE = 1024;
+    public static final int DEFAULT_BASE_SNAPSHOT_INTERVAL = 10;
 
     public static final int HAVING_STATE = -2;
     public static final int UNKNOWN_STATE = -1;
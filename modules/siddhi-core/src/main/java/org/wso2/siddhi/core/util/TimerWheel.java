@@ -0,0 +1,492 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.util.timestamp.EventTimeBasedMillisTimestampGenerator;
+import org.wso2.siddhi.core.util.timestamp.SystemCurrentTimeMillisTimestampGenerator;
+import org.wso2.siddhi.core.util.timestamp.TimeChangeListener;
+import org.wso2.siddhi.core.util.timestamp.TimestampGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hashed timing wheel shared by all the Schedulers of an execution plan.
+ * Deadlines of the next rotation are kept in primitive long slots in the bucket of their tick, later ones are kept
+ * in an overflow heap and moved to their bucket once the wheel comes within a rotation of them, so that a bucket
+ * never holds deadlines of later rotations. A single task running on the execution plan's ScheduledExecutorService
+ * advances the wheel and notifies the Schedulers that are due.
+ * A deadline already pending for a Scheduler is not added again, and a Scheduler having several deadlines due at
+ * the same time is notified once.
+ * On playback the wheel is advanced by the event time clock instead, and the due Schedulers are notified in the
+ * thread that advanced the clock.
+ */
+public class TimerWheel implements Runnable, TimeChangeListener {
+
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+    public static final long DEFAULT_TICK_DURATION = 1;
+
+    private static final Logger log = Logger.getLogger(TimerWheel.class);
+
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final TimestampGenerator timestampGenerator;
+    private final boolean eventTimeDriven;
+    private final long tickDuration;
+    private final Bucket[] buckets;
+    private final Overflow overflow = new Overflow();
+    private final int mask;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    private final List<Scheduler> dueSchedulers = new ArrayList<Scheduler>();
+    private int pendingTimers;
+    private long lastTick = Long.MIN_VALUE;
+    private long wakeUpTime = Long.MAX_VALUE;
+    private long expiryRound;
+    private boolean started;
+
+    public TimerWheel(ScheduledExecutorService scheduledExecutorService) {
+        this(scheduledExecutorService, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param scheduledExecutorService executor running the wheel
+     * @param tickDuration             duration of a tick in milliseconds
+     * @param wheelSize                number of buckets, a power of 2
+     */
+    public TimerWheel(ScheduledExecutorService scheduledExecutorService, long tickDuration, int wheelSize) {
+        this(scheduledExecutorService, tickDuration, wheelSize, new SystemCurrentTimeMillisTimestampGenerator(), false);
+    }
+
+    /**
+     * Creates a wheel advanced by the given event time clock
+     *
+     * @param scheduledExecutorService executor of the execution plan
+     * @param timestampGenerator       event time clock of the execution plan
+     */
+    public TimerWheel(ScheduledExecutorService scheduledExecutorService,
+                      EventTimeBasedMillisTimestampGenerator timestampGenerator) {
+        this(scheduledExecutorService, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE, timestampGenerator, true);
+        timestampGenerator.addTimeChangeListener(this);
+    }
+
+    private TimerWheel(ScheduledExecutorService scheduledExecutorService, long tickDuration, int wheelSize,
+                       TimestampGenerator timestampGenerator, boolean eventTimeDriven) {
+        if (wheelSize < 1 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize should be a power of 2, but found " + wheelSize);
+        }
+        if (tickDuration < 1) {
+            throw new IllegalArgumentException("tickDuration should be positive, but found " + tickDuration);
+        }
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.timestampGenerator = timestampGenerator;
+        this.eventTimeDriven = eventTimeDriven;
+        this.tickDuration = tickDuration;
+        this.buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = wheelSize - 1;
+    }
+
+    /**
+     * Notify the scheduler once the given time is reached
+     *
+     * @param scheduler scheduler to be notified
+     * @param time      time in milliseconds
+     */
+    public void schedule(Scheduler scheduler, long time) {
+        lock.lock();
+        try {
+            long tick = time / tickDuration;
+            if (lastTick == Long.MIN_VALUE) {
+                lastTick = currentTime() / tickDuration - 1;
+            }
+            if (tick <= lastTick) {
+                tick = lastTick + 1;
+            }
+            if (!scheduler.addPendingTime(time)) {
+                return;
+            }
+            if (tick > lastTick + buckets.length) {
+                overflow.add(time, scheduler);
+            } else {
+                buckets[(int) (tick & mask)].add(time, scheduler);
+            }
+            pendingTimers++;
+            if (eventTimeDriven) {
+                return;
+            }
+            if (time < wakeUpTime) {
+                wakeUp.signal();
+            }
+            if (!started) {
+                started = true;
+                try {
+                    scheduledExecutorService.execute(this);
+                } catch (RejectedExecutionException e) {
+                    log.error("Cannot start the timer wheel, as the ScheduledExecutorService is shutdown", e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param scheduler scheduler
+     * @return deadlines of the scheduler that are yet to be reached
+     */
+    public long[] getPendingTimes(Scheduler scheduler) {
+        lock.lock();
+        try {
+            return scheduler.getPendingTimes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the deadlines of a scheduler that is no longer used
+     *
+     * @param scheduler scheduler
+     */
+    public void cancel(Scheduler scheduler) {
+        lock.lock();
+        try {
+            for (Bucket bucket : buckets) {
+                pendingTimers -= bucket.remove(scheduler);
+            }
+            pendingTimers -= overflow.remove(scheduler);
+            scheduler.clearPendingTimes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingTimerCount() {
+        lock.lock();
+        try {
+            return pendingTimers;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return current time of the clock the wheel runs on
+     */
+    public long currentTime() {
+        return timestampGenerator.currentTime();
+    }
+
+    /**
+     * Notifies the Schedulers due by the new event time, including the ones they reschedule at or before it
+     *
+     * @param currentTime new event time
+     */
+    @Override
+    public void onTimeChange(long currentTime) {
+        long currentTick = currentTime / tickDuration;
+        while (true) {
+            Scheduler[] schedulers;
+            lock.lock();
+            try {
+                expire(currentTime, currentTick);
+                if (dueSchedulers.isEmpty()) {
+                    return;
+                }
+                schedulers = dueSchedulers.toArray(new Scheduler[dueSchedulers.size()]);
+                dueSchedulers.clear();
+            } finally {
+                lock.unlock();
+            }
+            for (Scheduler scheduler : schedulers) {
+                try {
+                    scheduler.sendTimerEvent(currentTime);
+                } catch (Throwable t) {
+                    log.error("Error when notifying a scheduler at " + currentTime, t);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long currentTime;
+                lock.lock();
+                try {
+                    currentTime = currentTime();
+                    long currentTick = currentTime / tickDuration;
+                    expire(currentTime, currentTick);
+                    if (dueSchedulers.isEmpty()) {
+                        wakeUpTime = nextWakeUpTime(currentTick);
+                        if (wakeUpTime == Long.MAX_VALUE) {
+                            wakeUp.await();
+                        } else {
+                            wakeUp.await(wakeUpTime - currentTime, TimeUnit.MILLISECONDS);
+                        }
+                        wakeUpTime = Long.MAX_VALUE;
+                        continue;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                for (int i = 0, size = dueSchedulers.size(); i < size; i++) {
+                    try {
+                        dueSchedulers.get(i).sendTimerEvent(currentTime);
+                    } catch (Throwable t) {
+                        log.error("Error when notifying a scheduler at " + currentTime, t);
+                    }
+                }
+                dueSchedulers.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void expire(long currentTime, long currentTick) {
+        if (pendingTimers == 0) {
+            lastTick = Math.max(lastTick, currentTick);
+            return;
+        }
+        expiryRound++;
+        if (currentTick <= lastTick) {
+            // deadlines scheduled at or before an already expired tick are kept in the bucket after it
+            buckets[(int) ((lastTick + 1) & mask)].expire(currentTime, lastTick);
+            return;
+        }
+        long fromTick = Math.max(lastTick + 1, currentTick - mask);
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            buckets[(int) (tick & mask)].expire(currentTime, currentTick);
+        }
+        lastTick = currentTick;
+        // deadlines the clock jumped to are expired, the ones coming within a rotation are moved to their bucket
+        while (overflow.size > 0) {
+            long time = overflow.times[0];
+            long tick = time / tickDuration;
+            if (tick > lastTick + buckets.length) {
+                break;
+            }
+            Scheduler scheduler = overflow.schedulers[0];
+            overflow.removeFirst();
+            if (time <= currentTime) {
+                pendingTimers--;
+                notifyDue(scheduler, time);
+            } else {
+                buckets[(int) (Math.max(tick, lastTick + 1) & mask)].add(time, scheduler);
+            }
+        }
+    }
+
+    private void notifyDue(Scheduler scheduler, long time) {
+        scheduler.removePendingTime(time);
+        if (scheduler.getExpiryRound() != expiryRound) {
+            scheduler.setExpiryRound(expiryRound);
+            dueSchedulers.add(scheduler);
+        }
+    }
+
+    private long nextWakeUpTime(long currentTick) {
+        if (pendingTimers == 0) {
+            return Long.MAX_VALUE;
+        }
+        for (long tick = currentTick + 1; tick <= currentTick + buckets.length; tick++) {
+            if (buckets[(int) (tick & mask)].size > 0) {
+                return tick * tickDuration;
+            }
+        }
+        if (overflow.size == 0) {
+            return (currentTick + 1) * tickDuration;
+        }
+        return Math.max(overflow.times[0], (currentTick + 1) * tickDuration);
+    }
+
+    /**
+     * Deadlines and their schedulers hashed to the same tick of the next rotation
+     */
+    private class Bucket {
+        private long[] times = new long[4];
+        private Scheduler[] schedulers = new Scheduler[4];
+        private int size;
+
+        private void add(long time, Scheduler scheduler) {
+            if (size == times.length) {
+                long[] newTimes = new long[size << 1];
+                Scheduler[] newSchedulers = new Scheduler[size << 1];
+                System.arraycopy(times, 0, newTimes, 0, size);
+                System.arraycopy(schedulers, 0, newSchedulers, 0, size);
+                times = newTimes;
+                schedulers = newSchedulers;
+            }
+            times[size] = time;
+            schedulers[size] = scheduler;
+            size++;
+        }
+
+        private int remove(Scheduler scheduler) {
+            int remaining = 0;
+            for (int i = 0; i < size; i++) {
+                if (schedulers[i] != scheduler) {
+                    times[remaining] = times[i];
+                    schedulers[remaining++] = schedulers[i];
+                }
+            }
+            for (int i = remaining; i < size; i++) {
+                schedulers[i] = null;
+            }
+            int removed = size - remaining;
+            size = remaining;
+            return removed;
+        }
+
+        private void expire(long currentTime, long currentTick) {
+            int remaining = 0;
+            boolean notReachedInCurrentTick = false;
+            for (int i = 0; i < size; i++) {
+                long time = times[i];
+                Scheduler scheduler = schedulers[i];
+                if (time <= currentTime) {
+                    pendingTimers--;
+                    notifyDue(scheduler, time);
+                } else {
+                    if (time / tickDuration <= currentTick) {
+                        notReachedInCurrentTick = true;
+                    }
+                    times[remaining] = time;
+                    schedulers[remaining++] = scheduler;
+                }
+            }
+            for (int i = remaining; i < size; i++) {
+                schedulers[i] = null;
+            }
+            size = remaining;
+            if (notReachedInCurrentTick) {
+                moveToNextTick(currentTick);
+            }
+        }
+
+        /**
+         * Deadlines of the current tick that are not yet reached are checked again at the next tick
+         */
+        private void moveToNextTick(long currentTick) {
+            Bucket nextBucket = buckets[(int) ((currentTick + 1) & mask)];
+            if (nextBucket == this) {
+                return;
+            }
+            int remaining = 0;
+            for (int i = 0; i < size; i++) {
+                if (times[i] / tickDuration <= currentTick) {
+                    nextBucket.add(times[i], schedulers[i]);
+                } else {
+                    times[remaining] = times[i];
+                    schedulers[remaining++] = schedulers[i];
+                }
+            }
+            for (int i = remaining; i < size; i++) {
+                schedulers[i] = null;
+            }
+            size = remaining;
+        }
+    }
+
+    /**
+     * Deadlines beyond the next rotation and their schedulers, in a binary heap ordered by time
+     */
+    private class Overflow {
+        private long[] times = new long[4];
+        private Scheduler[] schedulers = new Scheduler[4];
+        private int size;
+
+        private void add(long time, Scheduler scheduler) {
+            if (size == times.length) {
+                long[] newTimes = new long[size << 1];
+                Scheduler[] newSchedulers = new Scheduler[size << 1];
+                System.arraycopy(times, 0, newTimes, 0, size);
+                System.arraycopy(schedulers, 0, newSchedulers, 0, size);
+                times = newTimes;
+                schedulers = newSchedulers;
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (times[parent] <= time) {
+                    break;
+                }
+                times[i] = times[parent];
+                schedulers[i] = schedulers[parent];
+                i = parent;
+            }
+            times[i] = time;
+            schedulers[i] = scheduler;
+        }
+
+        private void removeFirst() {
+            size--;
+            long time = times[size];
+            Scheduler scheduler = schedulers[size];
+            schedulers[size] = null;
+            if (size > 0) {
+                siftDown(0, time, scheduler);
+            }
+        }
+
+        private void siftDown(int i, long time, Scheduler scheduler) {
+            int half = size >>> 1;
+            while (i < half) {
+                int child = (i << 1) + 1;
+                if (child + 1 < size && times[child + 1] < times[child]) {
+                    child++;
+                }
+                if (time <= times[child]) {
+                    break;
+                }
+                times[i] = times[child];
+                schedulers[i] = schedulers[child];
+                i = child;
+            }
+            times[i] = time;
+            schedulers[i] = scheduler;
+        }
+
+        private int remove(Scheduler scheduler) {
+            int remaining = 0;
+            for (int i = 0; i < size; i++) {
+                if (schedulers[i] != scheduler) {
+                    times[remaining] = times[i];
+                    schedulers[remaining++] = schedulers[i];
+                }
+            }
+            for (int i = remaining; i < size; i++) {
+                schedulers[i] = null;
+            }
+            int removed = size - remaining;
+            size = remaining;
+            for (int i = (size >>> 1) - 1; i >= 0; i--) {
+                siftDown(i, times[i], schedulers[i]);
+            }
+            return removed;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.collection;
+
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.query.api.definition.AbstractDefinition;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Holds the events of an in-memory table together with their indexes. Events are kept in a hash map by their
+ * primary key when the table has one, where a new event replaces the one with the same key, else in a list in
+ * arrival order. Each indexed attribute has a sorted map from its values to the events having them, serving
+ * both equality and range lookups.
+ * <p>
+ * Once a base state is taken the changes are tracked, so that only the events added, updated or removed since the
+ * last base or incremental state are given in an incremental state. Keyed events are tracked by their keys, while
+ * the events of the list are tracked by their positions in the base: added events are always at its tail, and the
+ * events of the base keep their order.
+ */
+public class IndexedEventHolder {
+
+    private final String[] primaryKeyAttributes;
+    private final int[] primaryKeyPositions;
+    private final Map<String, Integer> indexPositions = new HashMap<String, Integer>();
+    private Map<Object, StreamEvent> primaryKeyData;
+    private LinkedList<StreamEvent> eventList;
+    private Map<String, TreeMap<Object, List<StreamEvent>>> indexData =
+            new HashMap<String, TreeMap<Object, List<StreamEvent>>>();
+
+    private boolean trackingChanges;
+    private boolean changed;
+    private Set<Object> changedKeys;
+    private int remainingBaseCount;
+    private BitSet removedBasePositions;
+    private Set<StreamEvent> updatedEvents;
+
+    /**
+     * @param definition           definition of the held events
+     * @param primaryKeyAttributes attributes uniquely identifying an event, empty when there is no primary key
+     * @param indexAttributes      attributes to be indexed
+     */
+    public IndexedEventHolder(AbstractDefinition definition, List<String> primaryKeyAttributes,
+                              List<String> indexAttributes) {
+        this.primaryKeyAttributes = primaryKeyAttributes.toArray(new String[primaryKeyAttributes.size()]);
+        this.primaryKeyPositions = new int[primaryKeyAttributes.size()];
+        for (int i = 0; i < primaryKeyPositions.length; i++) {
+            primaryKeyPositions[i] = definition.getAttributePosition(primaryKeyAttributes.get(i));
+        }
+        if (primaryKeyPositions.length > 0) {
+            primaryKeyData = new HashMap<Object, StreamEvent>();
+        } else {
+            eventList = new LinkedList<StreamEvent>();
+        }
+        for (String indexAttribute : indexAttributes) {
+            indexPositions.put(indexAttribute, definition.getAttributePosition(indexAttribute));
+            indexData.put(indexAttribute, new TreeMap<Object, List<StreamEvent>>());
+        }
+    }
+
+    public String[] getPrimaryKeyAttributes() {
+        return primaryKeyAttributes;
+    }
+
+    public boolean isIndexed(String attribute) {
+        return indexPositions.containsKey(attribute);
+    }
+
+    /**
+     * @param keyValues values of the primary key attributes, in the order of {@link #getPrimaryKeyAttributes()}
+     * @return key of the events in the primary key map
+     */
+    public Object createPrimaryKey(Object[] keyValues) {
+        if (keyValues.length == 1) {
+            return keyValues[0];
+        }
+        return Arrays.asList(keyValues);
+    }
+
+    public void add(StreamEvent streamEvent) {
+        if (primaryKeyData != null) {
+            Object primaryKey = getPrimaryKey(streamEvent);
+            StreamEvent replacedEvent = primaryKeyData.put(primaryKey, streamEvent);
+            if (replacedEvent != null) {
+                removeFromIndexes(replacedEvent);
+            }
+            if (trackingChanges) {
+                changedKeys.add(primaryKey);
+            }
+        } else {
+            eventList.add(streamEvent);
+        }
+        addToIndexes(streamEvent);
+        changed = true;
+    }
+
+    public Collection<StreamEvent> getAllEvents() {
+        if (primaryKeyData != null) {
+            return primaryKeyData.values();
+        }
+        return eventList;
+    }
+
+    public Collection<StreamEvent> findEvents(Object primaryKey) {
+        StreamEvent streamEvent = primaryKeyData.get(primaryKey);
+        if (streamEvent == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(streamEvent);
+    }
+
+    /**
+     * @param attribute indexed attribute
+     * @param operator  operator comparing the attribute with the value, with the attribute on the left
+     * @param value     value the attribute is compared with
+     * @return events which may satisfy the comparison, all events when the index can't narrow them down
+     */
+    public Collection<StreamEvent> findEvents(String attribute, Compare.Operator operator, Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        TreeMap<Object, List<StreamEvent>> index = indexData.get(attribute);
+        switch (operator) {
+            case EQUAL:
+                List<StreamEvent> events = index.get(value);
+                if (events == null) {
+                    return Collections.emptyList();
+                }
+                return events;
+            case GREATER_THAN:
+                return flatten(index.tailMap(value, false).values());
+            case GREATER_THAN_EQUAL:
+                return flatten(index.tailMap(value, true).values());
+            case LESS_THAN:
+                return flatten(index.headMap(value, false).values());
+            case LESS_THAN_EQUAL:
+                return flatten(index.headMap(value, true).values());
+            default:
+                return getAllEvents();
+        }
+    }
+
+    public void delete(Collection<StreamEvent> streamEvents) {
+        if (streamEvents.isEmpty()) {
+            return;
+        }
+        if (primaryKeyData != null) {
+            for (StreamEvent streamEvent : streamEvents) {
+                Object primaryKey = getPrimaryKey(streamEvent);
+                primaryKeyData.remove(primaryKey);
+                if (trackingChanges) {
+                    changedKeys.add(primaryKey);
+                }
+            }
+        } else {
+            Set<StreamEvent> deletedEvents = Collections.newSetFromMap(new IdentityHashMap<StreamEvent, Boolean>());
+            deletedEvents.addAll(streamEvents);
+            int basePosition = 0;
+            int baseEvents = trackingChanges ? remainingBaseCount : 0;
+            for (Iterator<StreamEvent> iterator = eventList.iterator(); iterator.hasNext(); ) {
+                StreamEvent streamEvent = iterator.next();
+                boolean deleted = deletedEvents.contains(streamEvent);
+                if (baseEvents > 0) {
+                    basePosition = removedBasePositions.nextClearBit(basePosition);
+                    if (deleted) {
+                        removedBasePositions.set(basePosition);
+                        remainingBaseCount--;
+                    }
+                    basePosition++;
+                    baseEvents--;
+                }
+                if (deleted) {
+                    iterator.remove();
+                }
+            }
+            if (trackingChanges) {
+                updatedEvents.removeAll(deletedEvents);
+            }
+        }
+        for (StreamEvent streamEvent : streamEvents) {
+            removeFromIndexes(streamEvent);
+        }
+        changed = true;
+    }
+
+    /**
+     * Updates the given held event, moving it in the primary key map and the indexes when their attributes change.
+     *
+     * @param streamEvent     held event
+     * @param data            new attribute values
+     * @param mappingPosition positions of the attributes the values are set to
+     */
+    public void update(StreamEvent streamEvent, Object[] data, int[] mappingPosition) {
+        Object primaryKey = null;
+        if (primaryKeyData != null) {
+            primaryKey = getPrimaryKey(streamEvent);
+        }
+        removeFromIndexes(streamEvent);
+        for (int i = 0, size = mappingPosition.length; i < size; i++) {
+            streamEvent.setOutputData(data[i], mappingPosition[i]);
+        }
+        if (primaryKeyData != null) {
+            Object newPrimaryKey = getPrimaryKey(streamEvent);
+            if (primaryKey == null ? newPrimaryKey != null : !primaryKey.equals(newPrimaryKey)) {
+                primaryKeyData.remove(primaryKey);
+                StreamEvent replacedEvent = primaryKeyData.put(newPrimaryKey, streamEvent);
+                if (replacedEvent != null) {
+                    removeFromIndexes(replacedEvent);
+                }
+            }
+            if (trackingChanges) {
+                changedKeys.add(primaryKey);
+                changedKeys.add(newPrimaryKey);
+            }
+        } else if (trackingChanges) {
+            updatedEvents.add(streamEvent);
+        }
+        addToIndexes(streamEvent);
+        changed = true;
+    }
+
+    public Object[] currentState() {
+        return new Object[]{eventList, primaryKeyData};
+    }
+
+    public void restoreState(Object[] state) {
+        eventList = (LinkedList<StreamEvent>) state[0];
+        primaryKeyData = (Map<Object, StreamEvent>) state[1];
+        rebuildIndexes();
+        base();
+    }
+
+    /**
+     * @return the whole state as in {@link #currentState()}, from which on the changes are tracked
+     */
+    public Object[] baseState() {
+        trackingChanges = true;
+        base();
+        return currentState();
+    }
+
+    /**
+     * @return the events added, updated or removed since the last base or incremental state, null when the events
+     * have not changed
+     */
+    public Object[] incrementalState() {
+        if (!changed) {
+            return null;
+        }
+        Object[] incrementalState;
+        if (primaryKeyData != null) {
+            List<Object[]> removedKeys = new ArrayList<Object[]>();
+            List<StreamEvent> changedEvents = new ArrayList<StreamEvent>();
+            for (Object primaryKey : changedKeys) {
+                StreamEvent streamEvent = primaryKeyData.get(primaryKey);
+                if (streamEvent != null) {
+                    changedEvents.add(streamEvent);
+                } else {
+                    removedKeys.add(primaryKeyPositions.length == 1 ? new Object[]{primaryKey} :
+                            ((List<?>) primaryKey).toArray());
+                }
+            }
+            incrementalState = new Object[]{removedKeys, changedEvents};
+        } else {
+            int[] removedPositions = new int[removedBasePositions.cardinality()];
+            for (int i = 0, position = removedBasePositions.nextSetBit(0); position >= 0;
+                 i++, position = removedBasePositions.nextSetBit(position + 1)) {
+                removedPositions[i] = position;
+            }
+            List<Integer> updatedPositions = new ArrayList<Integer>();
+            List<StreamEvent> updatedBaseEvents = new ArrayList<StreamEvent>();
+            ListIterator<StreamEvent> iterator = eventList.listIterator();
+            if (!updatedEvents.isEmpty()) {
+                for (int i = 0, position = 0; i < remainingBaseCount; i++, position++) {
+                    position = removedBasePositions.nextClearBit(position);
+                    StreamEvent streamEvent = iterator.next();
+                    if (updatedEvents.contains(streamEvent)) {
+                        updatedPositions.add(position);
+                        updatedBaseEvents.add(streamEvent);
+                    }
+                }
+            } else {
+                iterator = eventList.listIterator(remainingBaseCount);
+            }
+            List<StreamEvent> addedEvents = new ArrayList<StreamEvent>();
+            while (iterator.hasNext()) {
+                addedEvents.add(iterator.next());
+            }
+            incrementalState = new Object[]{removedPositions, updatedPositions, updatedBaseEvents, addedEvents};
+        }
+        base();
+        return incrementalState;
+    }
+
+    /**
+     * Apply the changes given by {@link #incrementalState()} on the restored events
+     */
+    public void restoreIncrementalState(Object[] incrementalState) {
+        if (primaryKeyData != null) {
+            for (Object[] keyValues : (List<Object[]>) incrementalState[0]) {
+                primaryKeyData.remove(createPrimaryKey(keyValues));
+            }
+            for (StreamEvent streamEvent : (List<StreamEvent>) incrementalState[1]) {
+                primaryKeyData.put(getPrimaryKey(streamEvent), streamEvent);
+            }
+        } else {
+            int[] removedPositions = (int[]) incrementalState[0];
+            List<Integer> updatedPositions = (List<Integer>) incrementalState[1];
+            List<StreamEvent> updatedBaseEvents = (List<StreamEvent>) incrementalState[2];
+            LinkedList<StreamEvent> events = new LinkedList<StreamEvent>();
+            int position = 0;
+            int removedIndex = 0;
+            int updatedIndex = 0;
+            for (StreamEvent streamEvent : eventList) {
+                if (removedIndex < removedPositions.length && removedPositions[removedIndex] == position) {
+                    removedIndex++;
+                } else if (updatedIndex < updatedPositions.size() && updatedPositions.get(updatedIndex) == position) {
+                    events.add(updatedBaseEvents.get(updatedIndex++));
+                } else {
+                    events.add(streamEvent);
+                }
+                position++;
+            }
+            events.addAll((List<StreamEvent>) incrementalState[3]);
+            eventList = events;
+        }
+        rebuildIndexes();
+        base();
+    }
+
+    /**
+     * Take the current events as the base of the changes tracked
+     */
+    private void base() {
+        changed = false;
+        if (!trackingChanges) {
+            return;
+        }
+        if (primaryKeyData != null) {
+            changedKeys = new HashSet<Object>();
+        } else {
+            remainingBaseCount = eventList.size();
+            removedBasePositions = new BitSet(remainingBaseCount);
+            updatedEvents = Collections.newSetFromMap(new IdentityHashMap<StreamEvent, Boolean>());
+        }
+    }
+
+    private void rebuildIndexes() {
+        for (TreeMap<Object, List<StreamEvent>> index : indexData.values()) {
+            index.clear();
+        }
+        for (StreamEvent streamEvent : getAllEvents()) {
+            addToIndexes(streamEvent);
+        }
+    }
+
+    private Object getPrimaryKey(StreamEvent streamEvent) {
+        Object[] outputData = streamEvent.getOutputData();
+        if (primaryKeyPositions.length == 1) {
+            return outputData[primaryKeyPositions[0]];
+        }
+        Object[] keyValues = new Object[primaryKeyPositions.length];
+        for (int i = 0; i < primaryKeyPositions.length; i++) {
+            keyValues[i] = outputData[primaryKeyPositions[i]];
+        }
+        return Arrays.asList(keyValues);
+    }
+
+    private void addToIndexes(StreamEvent streamEvent) {
+        for (Map.Entry<String, Integer> entry : indexPositions.entrySet()) {
+            Object value = streamEvent.getOutputData()[entry.getValue()];
+            if (value == null) {
+                continue;
+            }
+            TreeMap<Object, List<StreamEvent>> index = indexData.get(entry.getKey());
+            List<StreamEvent> events = index.get(value);
+            if (events == null) {
+                events = new ArrayList<StreamEvent>(1);
+                index.put(value, events);
+            }
+            events.add(streamEvent);
+        }
+    }
+
+    private void removeFromIndexes(StreamEvent streamEvent) {
+        for (Map.Entry<String, Integer> entry : indexPositions.entrySet()) {
+            Object value = streamEvent.getOutputData()[entry.getValue()];
+            if (value == null) {
+                continue;
+            }
+            TreeMap<Object, List<StreamEvent>> index = indexData.get(entry.getKey());
+            List<StreamEvent> events = index.get(value);
+            if (events != null) {
+                for (Iterator<StreamEvent> iterator = events.iterator(); iterator.hasNext(); ) {
+                    if (iterator.next() == streamEvent) {
+                        iterator.remove();
+                        break;
+                    }
+                }
+                if (events.isEmpty()) {
+                    index.remove(value);
+                }
+            }
+        }
+    }
+
+    private static Collection<StreamEvent> flatten(Collection<List<StreamEvent>> eventLists) {
+        List<StreamEvent> streamEvents = new ArrayList<StreamEvent>();
+        for (List<StreamEvent> events : eventLists) {
+            streamEvents.addAll(events);
+        }
+        return streamEvents;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.collection;
+
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+
+import java.util.Collection;
+
+/**
+ * Holds events in the order of an attribute, so that comparisons of the attribute can be served by range scans.
+ */
+public interface SortedEventHolder {
+
+    Collection<StreamEvent> getAllEvents();
+
+    /**
+     * @param operator operator comparing the sorted attribute with the value, with the attribute on the left
+     * @param value    value the attribute is compared with, of the attribute's type
+     * @return events which satisfy the comparison
+     */
+    Collection<StreamEvent> findEvents(Compare.Operator operator, Object value);
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.collection.operator;
+
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.util.collection.IndexedEventHolder;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Operator on the events of an in-memory table, which narrows them down through the primary key or an index of
+ * the table before checking its condition on each of the candidates.
+ */
+public class IndexOperator extends SimpleOperator {
+    private final String indexAttribute;
+    private final Compare.Operator indexOperator;
+    private final ExpressionExecutor[] keyExpressionExecutors;
+
+    /**
+     * @param indexAttribute         indexed attribute, or null to look the events up by the primary key
+     * @param indexOperator          operator comparing the indexed attribute with the key
+     * @param keyExpressionExecutors executors of the primary key values, or of the value the indexed attribute is
+     *                               compared with, evaluated on the matching event
+     */
+    public IndexOperator(ExpressionExecutor expressionExecutor, int candidateEventPosition, int matchingEventPosition,
+                         int streamEventSize, long withinTime, int matchingEventOutputSize, String indexAttribute,
+                         Compare.Operator indexOperator, ExpressionExecutor[] keyExpressionExecutors) {
+        super(expressionExecutor, candidateEventPosition, matchingEventPosition, streamEventSize, withinTime,
+                matchingEventOutputSize);
+        this.indexAttribute = indexAttribute;
+        this.indexOperator = indexOperator;
+        this.keyExpressionExecutors = keyExpressionExecutors;
+    }
+
+    @Override
+    public Finder cloneFinder() {
+        return new IndexOperator(expressionExecutor, candidateEventPosition, matchingEventPosition, streamEventSize,
+                withinTime, matchingEventOutputSize, indexAttribute, indexOperator, keyExpressionExecutors);
+    }
+
+    @Override
+    protected Collection<StreamEvent> getCandidateEvents(IndexedEventHolder indexedEventHolder) {
+        if (indexAttribute != null) {
+            return indexedEventHolder.findEvents(indexAttribute, indexOperator, keyExpressionExecutors[0].execute(event));
+        }
+        Object[] keyValues = new Object[keyExpressionExecutors.length];
+        for (int i = 0; i < keyExpressionExecutors.length; i++) {
+            keyValues[i] = keyExpressionExecutors[i].execute(event);
+            if (keyValues[i] == null) {
+                return Collections.emptyList();
+            }
+        }
+        return indexedEventHolder.findEvents(indexedEventHolder.createPrimaryKey(keyValues));
+    }
+}
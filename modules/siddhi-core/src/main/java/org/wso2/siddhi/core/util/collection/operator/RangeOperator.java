@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.collection.operator;
+
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.util.collection.SortedEventHolder;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+
+import java.util.Collection;
+
+/**
+ * Operator on events held in the order of an attribute, which scans the range of the events satisfying a
+ * comparison of the attribute before checking its condition on each of them.
+ */
+public class RangeOperator extends SimpleOperator {
+    private final Compare.Operator rangeOperator;
+    private final ExpressionExecutor keyExpressionExecutor;
+
+    /**
+     * @param rangeOperator         operator comparing the sorted attribute with the key
+     * @param keyExpressionExecutor executor of the value the sorted attribute is compared with, evaluated on the
+     *                              matching event
+     */
+    public RangeOperator(ExpressionExecutor expressionExecutor, int candidateEventPosition, int matchingEventPosition,
+                         int streamEventSize, long withinTime, int matchingEventOutputSize,
+                         Compare.Operator rangeOperator, ExpressionExecutor keyExpressionExecutor) {
+        super(expressionExecutor, candidateEventPosition, matchingEventPosition, streamEventSize, withinTime,
+                matchingEventOutputSize);
+        this.rangeOperator = rangeOperator;
+        this.keyExpressionExecutor = keyExpressionExecutor;
+    }
+
+    @Override
+    public Finder cloneFinder() {
+        return new RangeOperator(expressionExecutor, candidateEventPosition, matchingEventPosition, streamEventSize,
+                withinTime, matchingEventOutputSize, rangeOperator, keyExpressionExecutor);
+    }
+
+    @Override
+    protected Collection<StreamEvent> getCandidateEvents(SortedEventHolder sortedEventHolder) {
+        return sortedEventHolder.findEvents(rangeOperator, keyExpressionExecutor.execute(event));
+    }
+}
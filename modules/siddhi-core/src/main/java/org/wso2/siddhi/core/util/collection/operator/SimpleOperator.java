@@ -24,9 +24,13 @@ import org.wso2.siddhi.core.event.stream.StreamEventCloner;
 import org.wso2.siddhi.core.event.stream.converter.ZeroStreamEventConverter;
 import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.util.collection.IndexedEventHolder;
+import org.wso2.siddhi.core.util.collection.SortedEventHolder;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.wso2.siddhi.core.util.SiddhiConstants.ANY;
@@ -37,13 +41,13 @@ import static org.wso2.siddhi.core.util.SiddhiConstants.ANY;
 public class SimpleOperator implements Operator {
     private final ZeroStreamEventConverter streamEventConverter;
     private final StreamEvent matchingEvent;
-    private FinderStateEvent event;
+    protected FinderStateEvent event;
     protected ExpressionExecutor expressionExecutor;
     protected int candidateEventPosition;
     protected int matchingEventPosition;
     protected int streamEventSize;
     protected long withinTime;
-    private int matchingEventOutputSize;
+    protected int matchingEventOutputSize;
 
     public SimpleOperator(ExpressionExecutor expressionExecutor, int candidateEventPosition, int matchingEventPosition, int streamEventSize, long withinTime, int matchingEventOutputSize) {
         this.expressionExecutor = expressionExecutor;
@@ -82,6 +86,10 @@ public class SimpleOperator implements Operator {
             }
             if (candidateEvents instanceof ComplexEventChunk) {
                 return find((ComplexEventChunk) candidateEvents, streamEventCloner);
+            } else if (candidateEvents instanceof IndexedEventHolder) {
+                return find(getCandidateEvents((IndexedEventHolder) candidateEvents), streamEventCloner);
+            } else if (candidateEvents instanceof SortedEventHolder) {
+                return find(getCandidateEvents((SortedEventHolder) candidateEvents), streamEventCloner);
             } else if (candidateEvents instanceof Map) {
                 return find(((Map) candidateEvents).values(), streamEventCloner);
             } else if (candidateEvents instanceof Collection) {
@@ -109,6 +117,8 @@ public class SimpleOperator implements Operator {
 
                 if (candidateEvents instanceof ComplexEventChunk) {
                     delete((ComplexEventChunk) candidateEvents);
+                } else if (candidateEvents instanceof IndexedEventHolder) {
+                    delete((IndexedEventHolder) candidateEvents);
                 } else if (candidateEvents instanceof Map) {
                     delete(((Map) candidateEvents).values());
                 } else if (candidateEvents instanceof Collection) {
@@ -138,6 +148,10 @@ public class SimpleOperator implements Operator {
         }
     }
 
+    private void delete(IndexedEventHolder indexedEventHolder) {
+        indexedEventHolder.delete(match(getCandidateEvents(indexedEventHolder)));
+    }
+
     private void delete(Collection<StreamEvent> candidateEvents) {
         for (Iterator<StreamEvent> iterator = candidateEvents.iterator(); iterator.hasNext(); ) {
             StreamEvent streamEvent = iterator.next();
@@ -163,6 +177,8 @@ public class SimpleOperator implements Operator {
                 this.event.setEvent(matchingEventPosition, matchingEvent);
                 if (candidateEvents instanceof ComplexEventChunk) {
                     update((ComplexEventChunk) candidateEvents, mappingPosition);
+                } else if (candidateEvents instanceof IndexedEventHolder) {
+                    update((IndexedEventHolder) candidateEvents, mappingPosition);
                 } else if (candidateEvents instanceof Map) {
                     update(((Map) candidateEvents).values(), mappingPosition);
                 } else if (candidateEvents instanceof Collection) {
@@ -194,6 +210,13 @@ public class SimpleOperator implements Operator {
         }
     }
 
+    private void update(IndexedEventHolder indexedEventHolder, int[] mappingPosition) {
+        Object[] data = event.getStreamEvent(matchingEventPosition).getOutputData();
+        for (StreamEvent streamEvent : match(getCandidateEvents(indexedEventHolder))) {
+            indexedEventHolder.update(streamEvent, data, mappingPosition);
+        }
+    }
+
     private void update(Collection<StreamEvent> candidateEvents, int[] mappingPosition) {
         for (StreamEvent streamEvent : candidateEvents) {
             if (withinTime != ANY) {
@@ -220,6 +243,10 @@ public class SimpleOperator implements Operator {
             }
             if (candidateEvents instanceof ComplexEventChunk) {
                 return contains((ComplexEventChunk) candidateEvents);
+            } else if (candidateEvents instanceof IndexedEventHolder) {
+                return contains(getCandidateEvents((IndexedEventHolder) candidateEvents));
+            } else if (candidateEvents instanceof SortedEventHolder) {
+                return contains(getCandidateEvents((SortedEventHolder) candidateEvents));
             } else if (candidateEvents instanceof Map) {
                 return contains(((Map) candidateEvents).values());
             } else if (candidateEvents instanceof Collection) {
@@ -305,6 +332,38 @@ public class SimpleOperator implements Operator {
     }
 
 
+    /**
+     * @param indexedEventHolder events of a table
+     * @return events of the table which may match the condition, once the matching event is set
+     */
+    protected Collection<StreamEvent> getCandidateEvents(IndexedEventHolder indexedEventHolder) {
+        return indexedEventHolder.getAllEvents();
+    }
+
+    /**
+     * @param sortedEventHolder events held in the order of an attribute
+     * @return events which may match the condition, once the matching event is set
+     */
+    protected Collection<StreamEvent> getCandidateEvents(SortedEventHolder sortedEventHolder) {
+        return sortedEventHolder.getAllEvents();
+    }
+
+    private List<StreamEvent> match(Collection<StreamEvent> candidateEvents) {
+        List<StreamEvent> matchedEvents = new ArrayList<StreamEvent>();
+        for (StreamEvent streamEvent : candidateEvents) {
+            if (withinTime != ANY) {
+                long timeDifference = Math.abs(event.getStreamEvent(matchingEventPosition).getTimestamp() - streamEvent.getTimestamp());
+                if (timeDifference > withinTime) {
+                    break;
+                }
+            }
+            if (execute(streamEvent)) {
+                matchedEvents.add(streamEvent);
+            }
+        }
+        return matchedEvents;
+    }
+
     protected class FinderStateEvent extends StateEvent {
 
         public FinderStateEvent(int size, int outputSize) {
@@ -22,20 +22,25 @@ import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.table.EventTable;
+import org.wso2.siddhi.core.util.collection.IndexedEventHolder;
+import org.wso2.siddhi.core.util.collection.operator.IndexOperator;
 import org.wso2.siddhi.core.util.collection.operator.Operator;
-import org.wso2.siddhi.core.util.collection.operator.SimpleIndexedOperator;
+import org.wso2.siddhi.core.util.collection.operator.RangeOperator;
 import org.wso2.siddhi.core.util.collection.operator.SimpleOperator;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.expression.Expression;
 import org.wso2.siddhi.query.api.expression.Variable;
+import org.wso2.siddhi.query.api.expression.condition.And;
 import org.wso2.siddhi.query.api.expression.condition.Compare;
-import org.wso2.siddhi.query.api.expression.constant.Constant;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import static org.wso2.siddhi.core.util.SiddhiConstants.STREAM_EVENT_CHAIN_INDEX;
+
 /**
  * Created on 1/19/15.
  */
@@ -43,7 +48,36 @@ public class CollectionOperatorParser {
 
     public static Operator parse(Expression expression, MetaComplexEvent metaComplexEvent, ExecutionPlanContext executionPlanContext, List<VariableExpressionExecutor> variableExpressionExecutors,
                                  Map<String, EventTable> eventTableMap, int matchingStreamIndex, AbstractDefinition candidateDefinition, long withinTime) {
+        return parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, candidateDefinition, withinTime, null, null);
+    }
+
+    /**
+     * Parse the condition on a collection of events, using the primary key or an index of the events when the
+     * condition compares them with values of the matching event.
+     *
+     * @param indexedEventHolder holder of the candidate events and their indexes, or null when they are not indexed
+     * @return Operator on the candidate events
+     */
+    public static Operator parse(Expression expression, MetaComplexEvent metaComplexEvent, ExecutionPlanContext executionPlanContext, List<VariableExpressionExecutor> variableExpressionExecutors,
+                                 Map<String, EventTable> eventTableMap, int matchingStreamIndex, AbstractDefinition candidateDefinition, long withinTime, IndexedEventHolder indexedEventHolder) {
+        return parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, candidateDefinition, withinTime, indexedEventHolder, null);
+    }
+
+    /**
+     * Parse the condition on a collection of events held in the order of an attribute, scanning a range of the
+     * events when the condition compares the attribute with a value of the matching event.
+     *
+     * @param sortedAttribute attribute the candidate events are held in the order of
+     * @return Operator on the candidate events
+     */
+    public static Operator parse(Expression expression, MetaComplexEvent metaComplexEvent, ExecutionPlanContext executionPlanContext, List<VariableExpressionExecutor> variableExpressionExecutors,
+                                 Map<String, EventTable> eventTableMap, int matchingStreamIndex, AbstractDefinition candidateDefinition, long withinTime, String sortedAttribute) {
+        return parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, candidateDefinition, withinTime, null, sortedAttribute);
+    }
 
+    private static Operator parse(Expression expression, MetaComplexEvent metaComplexEvent, ExecutionPlanContext executionPlanContext, List<VariableExpressionExecutor> variableExpressionExecutors,
+                                  Map<String, EventTable> eventTableMap, int matchingStreamIndex, AbstractDefinition candidateDefinition, long withinTime,
+                                  IndexedEventHolder indexedEventHolder, String sortedAttribute) {
         int candidateEventPosition = 0;
         int streamEventSize = 0;
 
@@ -89,85 +123,173 @@ public class CollectionOperatorParser {
 
         ExpressionExecutor expressionExecutor = ExpressionParser.parseExpression(expression,
                 metaStateEvent, matchingStreamIndex, eventTableMap, variableExpressionExecutors, executionPlanContext, false, 0);
-        return new SimpleOperator(expressionExecutor, candidateEventPosition, matchingStreamIndex, streamEventSize, withinTime, metaStateEvent.getMetaStreamEvent(matchingStreamIndex).getLastInputDefinition().getAttributeList().size());
-    }
-
-    public static Operator parse(Expression expression, MetaComplexEvent metaComplexEvent, ExecutionPlanContext executionPlanContext, List<VariableExpressionExecutor> variableExpressionExecutors,
-                                 Map<String, EventTable> eventTableMap, int matchingStreamIndex, AbstractDefinition candidateDefinition, long withinTime, String indexedAttribute) {
-
-        if (indexedAttribute == null) {
-            return CollectionOperatorParser.parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, candidateDefinition, withinTime);
-        }
-
-        if (expression instanceof Compare && ((Compare) expression).getOperator() == Compare.Operator.EQUAL) {
-            Compare compare = (Compare) expression;
-            if ((compare.getLeftExpression() instanceof Variable || compare.getLeftExpression() instanceof Constant)
-                    && (compare.getRightExpression() instanceof Variable || compare.getRightExpression() instanceof Constant)) {
-
-                boolean leftSideIndexed = false;
-                boolean rightSideIndexed = false;
+        int matchingEventOutputSize = metaStateEvent.getMetaStreamEvent(matchingStreamIndex).getLastInputDefinition().getAttributeList().size();
 
-                if (isTableIndexVariable(metaComplexEvent, matchingStreamIndex, compare.getLeftExpression(), candidateDefinition, indexedAttribute)) {
-                    leftSideIndexed = true;
+        if (indexedEventHolder != null) {
+            List<KeyCondition> keyConditions = new ArrayList<KeyCondition>();
+            for (Compare compare : getConjunctiveCompares(expression, new ArrayList<Compare>())) {
+                KeyCondition keyCondition = parseKeyCondition(compare, metaStateEvent, candidateEventPosition, matchingStreamIndex,
+                        candidateDefinition, indexedEventHolder, null, eventTableMap, variableExpressionExecutors, executionPlanContext);
+                if (keyCondition != null) {
+                    keyConditions.add(keyCondition);
                 }
+            }
 
-                if (isTableIndexVariable(metaComplexEvent, matchingStreamIndex, compare.getRightExpression(), candidateDefinition, indexedAttribute)) {
-                    rightSideIndexed = true;
+            //primary key lookup, when all its attributes are checked for equality
+            String[] primaryKeyAttributes = indexedEventHolder.getPrimaryKeyAttributes();
+            if (primaryKeyAttributes.length > 0) {
+                ExpressionExecutor[] keyExpressionExecutors = new ExpressionExecutor[primaryKeyAttributes.length];
+                for (int i = 0; i < primaryKeyAttributes.length; i++) {
+                    for (KeyCondition keyCondition : keyConditions) {
+                        if (keyCondition.operator == Compare.Operator.EQUAL && keyCondition.attribute.equals(primaryKeyAttributes[i])) {
+                            keyExpressionExecutors[i] = keyCondition.keyExpressionExecutor;
+                            break;
+                        }
+                    }
+                    if (keyExpressionExecutors[i] == null) {
+                        keyExpressionExecutors = null;
+                        break;
+                    }
                 }
-
-                if (leftSideIndexed && !rightSideIndexed) {
-                    ExpressionExecutor expressionExecutor = ExpressionParser.parseExpression(compare.getRightExpression(),
-                            metaComplexEvent, matchingStreamIndex, eventTableMap, variableExpressionExecutors, executionPlanContext, false, 0);
-                    return new SimpleIndexedOperator(expressionExecutor, matchingStreamIndex, withinTime);
-
-                } else if (!leftSideIndexed && rightSideIndexed) {
-                    ExpressionExecutor expressionExecutor = ExpressionParser.parseExpression(compare.getLeftExpression(),
-                            metaComplexEvent, matchingStreamIndex, eventTableMap, variableExpressionExecutors, executionPlanContext, false, 0);
-                    return new SimpleIndexedOperator(expressionExecutor, matchingStreamIndex, withinTime);
-
+                if (keyExpressionExecutors != null) {
+                    return new IndexOperator(expressionExecutor, candidateEventPosition, matchingStreamIndex, streamEventSize, withinTime,
+                            matchingEventOutputSize, null, Compare.Operator.EQUAL, keyExpressionExecutors);
                 }
+            }
 
+            //index lookup, preferring equality over range conditions
+            KeyCondition indexCondition = null;
+            for (KeyCondition keyCondition : keyConditions) {
+                if (indexedEventHolder.isIndexed(keyCondition.attribute) && (indexCondition == null ||
+                        (keyCondition.operator == Compare.Operator.EQUAL && indexCondition.operator != Compare.Operator.EQUAL))) {
+                    indexCondition = keyCondition;
+                }
+            }
+            if (indexCondition != null) {
+                return new IndexOperator(expressionExecutor, candidateEventPosition, matchingStreamIndex, streamEventSize, withinTime,
+                        matchingEventOutputSize, indexCondition.attribute, indexCondition.operator,
+                        new ExpressionExecutor[]{indexCondition.keyExpressionExecutor});
             }
         }
-        return CollectionOperatorParser.parse(expression, metaComplexEvent, executionPlanContext, variableExpressionExecutors, eventTableMap, matchingStreamIndex, candidateDefinition, withinTime);
+        if (sortedAttribute != null) {
+            //range scan, preferring equality over range conditions
+            KeyCondition rangeCondition = null;
+            for (Compare compare : getConjunctiveCompares(expression, new ArrayList<Compare>())) {
+                KeyCondition keyCondition = parseKeyCondition(compare, metaStateEvent, candidateEventPosition, matchingStreamIndex,
+                        candidateDefinition, null, sortedAttribute, eventTableMap, variableExpressionExecutors, executionPlanContext);
+                if (keyCondition != null && (rangeCondition == null || keyCondition.operator == Compare.Operator.EQUAL)) {
+                    rangeCondition = keyCondition;
+                }
+            }
+            if (rangeCondition != null) {
+                return new RangeOperator(expressionExecutor, candidateEventPosition, matchingStreamIndex, streamEventSize, withinTime,
+                        matchingEventOutputSize, rangeCondition.operator, rangeCondition.keyExpressionExecutor);
+            }
+        }
+        return new SimpleOperator(expressionExecutor, candidateEventPosition, matchingStreamIndex, streamEventSize, withinTime, matchingEventOutputSize);
     }
 
-    private static boolean isTableIndexVariable(MetaComplexEvent metaComplexEvent, int matchingStreamIndex, Expression expression, AbstractDefinition candidateDefinition, String indexedAttribute) {
-        if (expression instanceof Variable) {
-            Variable variable = (Variable) expression;
-            if (variable.getStreamId() != null) {
-                MetaStreamEvent tableStreamEvent = getTableMetaStreamEvent(metaComplexEvent, matchingStreamIndex, candidateDefinition);
-                if (tableStreamEvent != null) {
-                    if ((tableStreamEvent.getInputReferenceId() != null && variable.getStreamId().equals(tableStreamEvent.getInputReferenceId())) ||
-                            (tableStreamEvent.getLastInputDefinition().getId().equals(variable.getStreamId()))) {
-                        if (Arrays.asList(tableStreamEvent.getLastInputDefinition().getAttributeNameArray()).contains(indexedAttribute)) {
-                            return true;
-                        }
-                    }
-                } else {
-                    if (candidateDefinition.getId().equals(variable.getStreamId())) {
-                        return true;
-                    }
-                }
+    private static List<Compare> getConjunctiveCompares(Expression expression, List<Compare> compares) {
+        if (expression instanceof And) {
+            getConjunctiveCompares(((And) expression).getLeftExpression(), compares);
+            getConjunctiveCompares(((And) expression).getRightExpression(), compares);
+        } else if (expression instanceof Compare) {
+            compares.add((Compare) expression);
+        }
+        return compares;
+    }
+
+    /**
+     * Parse a comparison of a primary key, an indexed attribute or the sorted attribute of the candidate events with
+     * an expression on the matching event
+     *
+     * @return the key condition, or null when the comparison can't be used to look up the candidate events
+     */
+    private static KeyCondition parseKeyCondition(Compare compare, MetaStateEvent metaStateEvent, int candidateEventPosition, int matchingStreamIndex,
+                                                  AbstractDefinition candidateDefinition, IndexedEventHolder indexedEventHolder, String sortedAttribute, Map<String, EventTable> eventTableMap,
+                                                  List<VariableExpressionExecutor> variableExpressionExecutors, ExecutionPlanContext executionPlanContext) {
+        Compare.Operator operator = compare.getOperator();
+        if (operator != Compare.Operator.EQUAL && operator != Compare.Operator.GREATER_THAN && operator != Compare.Operator.GREATER_THAN_EQUAL &&
+                operator != Compare.Operator.LESS_THAN && operator != Compare.Operator.LESS_THAN_EQUAL) {
+            return null;
+        }
+        String leftAttribute = getCandidateAttribute(compare.getLeftExpression(), metaStateEvent, candidateEventPosition, matchingStreamIndex, eventTableMap, executionPlanContext);
+        String rightAttribute = getCandidateAttribute(compare.getRightExpression(), metaStateEvent, candidateEventPosition, matchingStreamIndex, eventTableMap, executionPlanContext);
+        String attribute;
+        Expression keyExpression;
+        if (leftAttribute != null && rightAttribute == null) {
+            attribute = leftAttribute;
+            keyExpression = compare.getRightExpression();
+        } else if (leftAttribute == null && rightAttribute != null) {
+            attribute = rightAttribute;
+            keyExpression = compare.getLeftExpression();
+            switch (operator) {
+                case GREATER_THAN:
+                    operator = Compare.Operator.LESS_THAN;
+                    break;
+                case GREATER_THAN_EQUAL:
+                    operator = Compare.Operator.LESS_THAN_EQUAL;
+                    break;
+                case LESS_THAN:
+                    operator = Compare.Operator.GREATER_THAN;
+                    break;
+                case LESS_THAN_EQUAL:
+                    operator = Compare.Operator.GREATER_THAN_EQUAL;
+                    break;
+            }
+        } else {
+            return null;
+        }
+        if (indexedEventHolder == null) {
+            if (!attribute.equals(sortedAttribute)) {
+                return null;
             }
+        } else if (!indexedEventHolder.isIndexed(attribute) && !(operator == Compare.Operator.EQUAL &&
+                Arrays.asList(indexedEventHolder.getPrimaryKeyAttributes()).contains(attribute))) {
+            return null;
         }
-        return false;
+
+        List<VariableExpressionExecutor> keyVariableExpressionExecutors = new ArrayList<VariableExpressionExecutor>();
+        ExpressionExecutor keyExpressionExecutor = ExpressionParser.parseExpression(keyExpression,
+                metaStateEvent, matchingStreamIndex, eventTableMap, keyVariableExpressionExecutors, executionPlanContext, false, 0);
+        for (VariableExpressionExecutor variableExpressionExecutor : keyVariableExpressionExecutors) {
+            if (variableExpressionExecutor.getPosition()[STREAM_EVENT_CHAIN_INDEX] == candidateEventPosition) {
+                return null;
+            }
+        }
+        //keys of other types would not be equal to the attribute values held by the index
+        if (keyExpressionExecutor.getReturnType() != candidateDefinition.getAttributeType(attribute)) {
+            return null;
+        }
+        if (variableExpressionExecutors != null) {
+            variableExpressionExecutors.addAll(keyVariableExpressionExecutors);
+        }
+        return new KeyCondition(attribute, operator, keyExpressionExecutor);
     }
 
-    private static MetaStreamEvent getTableMetaStreamEvent(MetaComplexEvent metaComplexEvent, int matchingStreamIndex, AbstractDefinition candidateDefinition) {
-        if (metaComplexEvent instanceof MetaStateEvent) {
-            MetaStreamEvent[] metaStreamEvents = ((MetaStateEvent) metaComplexEvent).getMetaStreamEvents();
-            int candidateEventPosition = 0;
-            //for join
-            for (; candidateEventPosition < metaStreamEvents.length; candidateEventPosition++) {
-                MetaStreamEvent metaStreamEvent = metaStreamEvents[candidateEventPosition];
-                if (candidateEventPosition != matchingStreamIndex && metaStreamEvent.getLastInputDefinition().equalsIgnoreAnnotations(candidateDefinition)) {
-                    return metaStreamEvent;
-                }
+    private static String getCandidateAttribute(Expression expression, MetaStateEvent metaStateEvent, int candidateEventPosition, int matchingStreamIndex,
+                                                Map<String, EventTable> eventTableMap, ExecutionPlanContext executionPlanContext) {
+        if (expression instanceof Variable) {
+            ExpressionExecutor expressionExecutor = ExpressionParser.parseExpression(expression,
+                    metaStateEvent, matchingStreamIndex, eventTableMap, null, executionPlanContext, false, 0);
+            VariableExpressionExecutor variableExpressionExecutor = (VariableExpressionExecutor) expressionExecutor;
+            if (variableExpressionExecutor.getPosition()[STREAM_EVENT_CHAIN_INDEX] == candidateEventPosition) {
+                return variableExpressionExecutor.getAttribute().getName();
             }
         }
         return null;
     }
 
+    private static class KeyCondition {
+        private final String attribute;
+        private final Compare.Operator operator;
+        private final ExpressionExecutor keyExpressionExecutor;
+
+        private KeyCondition(String attribute, Compare.Operator operator, ExpressionExecutor keyExpressionExecutor) {
+            this.attribute = attribute;
+            this.operator = operator;
+            this.keyExpressionExecutor = keyExpressionExecutor;
+        }
+    }
 
 }
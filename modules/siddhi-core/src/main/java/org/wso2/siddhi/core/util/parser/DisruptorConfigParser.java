@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.siddhi.core.util.parser;
+
+import com.lmax.disruptor.dsl.ProducerType;
+import org.wso2.siddhi.core.config.DisruptorConfig;
+import org.wso2.siddhi.core.exception.ExecutionPlanCreationException;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.query.api.annotation.Annotation;
+import org.wso2.siddhi.query.api.annotation.Element;
+
+public class DisruptorConfigParser {
+
+    /**
+     * Parse the elements of a @Parallel annotation, e.g.
+     * {@code @Parallel(wait.strategy='busy.spin', buffer.size='4096', producer.type='single', workers='4',
+     * ordered='true')}
+     *
+     * @param annotation    @Parallel annotation, can be null
+     * @param defaultConfig settings used for the elements that are not given
+     * @return DisruptorConfig
+     */
+    public static DisruptorConfig parse(Annotation annotation, DisruptorConfig defaultConfig) {
+        if (annotation == null) {
+            return defaultConfig;
+        }
+        DisruptorConfig.WaitStrategyType waitStrategyType = defaultConfig.getWaitStrategyType();
+        int bufferSize = defaultConfig.getBufferSize();
+        ProducerType producerType = defaultConfig.getProducerType();
+        int workers = defaultConfig.getWorkers();
+        boolean ordered = defaultConfig.isOrdered();
+
+        for (Element element : annotation.getElements()) {
+            String key = element.getKey();
+            String value = element.getValue().trim();
+            if (SiddhiConstants.ANNOTATION_ELEMENT_WAIT_STRATEGY.equalsIgnoreCase(key)) {
+                waitStrategyType = parseWaitStrategy(value);
+            } else if (SiddhiConstants.ANNOTATION_ELEMENT_BUFFER_SIZE.equalsIgnoreCase(key)) {
+                bufferSize = parseBufferSize(value);
+            } else if (SiddhiConstants.ANNOTATION_ELEMENT_PRODUCER_TYPE.equalsIgnoreCase(key)) {
+                producerType = parseProducerType(value);
+            } else if (SiddhiConstants.ANNOTATION_ELEMENT_WORKERS.equalsIgnoreCase(key)) {
+                workers = parseWorkers(value);
+            } else if (SiddhiConstants.ANNOTATION_ELEMENT_ORDERED.equalsIgnoreCase(key)) {
+                ordered = parseOrdered(value);
+            } else {
+                throw new ExecutionPlanCreationException("Unknown element '" + key + "' in @" +
+                        annotation.getName() + ", supported elements are " +
+                        SiddhiConstants.ANNOTATION_ELEMENT_WAIT_STRATEGY + ", " +
+                        SiddhiConstants.ANNOTATION_ELEMENT_BUFFER_SIZE + ", " +
+                        SiddhiConstants.ANNOTATION_ELEMENT_PRODUCER_TYPE + ", " +
+                        SiddhiConstants.ANNOTATION_ELEMENT_WORKERS + " and " +
+                        SiddhiConstants.ANNOTATION_ELEMENT_ORDERED);
+            }
+        }
+        return new DisruptorConfig(waitStrategyType, bufferSize, producerType, workers, ordered);
+    }
+
+    private static DisruptorConfig.WaitStrategyType parseWaitStrategy(String value) {
+        if (SiddhiConstants.WAIT_STRATEGY_PHASED_BACKOFF.equalsIgnoreCase(value)) {
+            return DisruptorConfig.WaitStrategyType.PHASED_BACKOFF;
+        } else if (SiddhiConstants.WAIT_STRATEGY_BUSY_SPIN.equalsIgnoreCase(value)) {
+            return DisruptorConfig.WaitStrategyType.BUSY_SPIN;
+        } else if (SiddhiConstants.WAIT_STRATEGY_YIELDING.equalsIgnoreCase(value)) {
+            return DisruptorConfig.WaitStrategyType.YIELDING;
+        } else if (SiddhiConstants.WAIT_STRATEGY_SLEEPING.equalsIgnoreCase(value)) {
+            return DisruptorConfig.WaitStrategyType.SLEEPING;
+        } else if (SiddhiConstants.WAIT_STRATEGY_BLOCKING.equalsIgnoreCase(value)) {
+            return DisruptorConfig.WaitStrategyType.BLOCKING;
+        }
+        throw new ExecutionPlanCreationException("Unknown " + SiddhiConstants.ANNOTATION_ELEMENT_WAIT_STRATEGY +
+                " '" + value + "', expected one of " + SiddhiConstants.WAIT_STRATEGY_PHASED_BACKOFF + ", " +
+                SiddhiConstants.WAIT_STRATEGY_BUSY_SPIN + ", " + SiddhiConstants.WAIT_STRATEGY_YIELDING + ", " +
+                SiddhiConstants.WAIT_STRATEGY_SLEEPING + " or " + SiddhiConstants.WAIT_STRATEGY_BLOCKING);
+    }
+
+    private static int parseBufferSize(String value) {
+        int bufferSize;
+        try {
+            bufferSize = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ExecutionPlanCreationException(SiddhiConstants.ANNOTATION_ELEMENT_BUFFER_SIZE + " '" + value +
+                    "' is not an integer", e);
+        }
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new ExecutionPlanCreationException(SiddhiConstants.ANNOTATION_ELEMENT_BUFFER_SIZE + " '" + value +
+                    "' should be a power of 2");
+        }
+        return bufferSize;
+    }
+
+    private static int parseWorkers(String value) {
+        int workers;
+        try {
+            workers = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ExecutionPlanCreationException(SiddhiConstants.ANNOTATION_ELEMENT_WORKERS + " '" + value +
+                    "' is not an integer", e);
+        }
+        if (workers < 1) {
+            throw new ExecutionPlanCreationException(SiddhiConstants.ANNOTATION_ELEMENT_WORKERS + " '" + value +
+                    "' should be at least 1");
+        }
+        return workers;
+    }
+
+    private static boolean parseOrdered(String value) {
+        if (SiddhiConstants.TRUE.equalsIgnoreCase(value)) {
+            return true;
+        } else if (SiddhiConstants.FALSE.equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new ExecutionPlanCreationException(SiddhiConstants.ANNOTATION_ELEMENT_ORDERED + " '" + value +
+                "' should be " + SiddhiConstants.TRUE + " or " + SiddhiConstants.FALSE);
+    }
+
+    private static ProducerType parseProducerType(String value) {
+        if (SiddhiConstants.PRODUCER_TYPE_SINGLE.equalsIgnoreCase(value)) {
+            return ProducerType.SINGLE;
+        } else if (SiddhiConstants.PRODUCER_TYPE_MULTI.equalsIgnoreCase(value)) {
+            return ProducerType.MULTI;
+        }
+        throw new ExecutionPlanCreationException("Unknown " + SiddhiConstants.ANNOTATION_ELEMENT_PRODUCER_TYPE +
+                " '" + value + "', expected " + SiddhiConstants.PRODUCER_TYPE_SINGLE + " or " +
+                SiddhiConstants.PRODUCER_TYPE_MULTI);
+    }
+}
@@ -17,20 +17,34 @@ package org.wso2.siddhi.core.util.parser;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.DisruptorConfig;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
 import org.wso2.siddhi.core.config.SiddhiContext;
 import org.wso2.siddhi.core.exception.ExecutionPlanCreationException;
 import org.wso2.siddhi.core.partition.PartitionRuntime;
 import org.wso2.siddhi.core.query.QueryRuntime;
+import org.wso2.siddhi.core.query.input.ProcessStreamReceiver;
+import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
+import org.wso2.siddhi.core.query.processor.Processor;
+import org.wso2.siddhi.core.query.processor.stream.AbstractStreamProcessor;
+import org.wso2.siddhi.core.query.processor.stream.window.SharedTimeWindowAggregates;
+import org.wso2.siddhi.core.query.processor.stream.window.TimeWindowProcessor;
+import org.wso2.siddhi.core.query.selector.attribute.processor.AttributeProcessor;
+import org.wso2.siddhi.core.query.selector.attribute.processor.executor.SharedTimeWindowAggregationExecutor;
+import org.wso2.siddhi.core.stream.StreamJunction;
 import org.wso2.siddhi.core.util.ElementIdGenerator;
 import org.wso2.siddhi.core.util.ExecutionPlanRuntimeBuilder;
 import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.TimerWheel;
+import org.wso2.siddhi.core.util.parser.helper.AnnotationParserHelper;
 import org.wso2.siddhi.core.util.persistence.PersistenceService;
 import org.wso2.siddhi.core.util.snapshot.SnapshotService;
+import org.wso2.siddhi.core.util.timestamp.EventTimeBasedMillisTimestampGenerator;
 import org.wso2.siddhi.core.util.timestamp.SystemCurrentTimeMillisTimestampGenerator;
 import org.wso2.siddhi.query.api.ExecutionPlan;
 import org.wso2.siddhi.query.api.annotation.Annotation;
 import org.wso2.siddhi.query.api.annotation.Element;
+import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.definition.FunctionDefinition;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
 import org.wso2.siddhi.query.api.definition.TableDefinition;
@@ -41,8 +55,19 @@ import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
 import org.wso2.siddhi.query.api.execution.ExecutionElement;
 import org.wso2.siddhi.query.api.execution.partition.Partition;
 import org.wso2.siddhi.query.api.execution.query.Query;
+import org.wso2.siddhi.query.api.execution.query.input.handler.Window;
+import org.wso2.siddhi.query.api.execution.query.input.stream.SingleInputStream;
+import org.wso2.siddhi.query.api.execution.query.output.ratelimit.SnapshotOutputRate;
+import org.wso2.siddhi.query.api.execution.query.output.stream.OutputStream;
+import org.wso2.siddhi.query.api.execution.query.selection.OutputAttribute;
+import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.Variable;
+import org.wso2.siddhi.query.api.expression.function.AttributeFunction;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.*;
@@ -71,13 +96,13 @@ public class ExecutionPlanParser {
                 executionPlanContext.setName(UUID.randomUUID().toString());
             }
 
-            Annotation annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PLAYBACK,
+            Annotation playbackAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PLAYBACK,
                     executionPlan.getAnnotations());
-            if (annotation != null) {
+            if (playbackAnnotation != null) {
                 executionPlanContext.setPlayback(true);
             }
 
-            annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_ENFORCE_ORDER,
+            Annotation annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_ENFORCE_ORDER,
                     executionPlan.getAnnotations());
             if (annotation != null) {
                 executionPlanContext.setEnforceOrder(true);
@@ -88,17 +113,45 @@ public class ExecutionPlanParser {
             if (annotation != null) {
                 executionPlanContext.setParallel(true);
             }
+            executionPlanContext.setDisruptorConfig(DisruptorConfigParser.parse(annotation,
+                    new DisruptorConfig(siddhiContext.getEventBufferSize())));
 
-            if (!executionPlanContext.isPlayback() && !executionPlanContext.isEnforceOrder() && !executionPlanContext.isParallel()) {
+            if (executionPlanContext.isPlayback() || (!executionPlanContext.isEnforceOrder() && !executionPlanContext.isParallel())) {
                 executionPlanContext.setSharedLock(new ReentrantLock());
             }
 
             executionPlanContext.setExecutorService(Executors.newCachedThreadPool( new ThreadFactoryBuilder().setNameFormat("Siddhi-" + executionPlanContext.getName() + "-executor-thread-%d").build()));
 
             executionPlanContext.setScheduledExecutorService(Executors.newScheduledThreadPool(5, new ThreadFactoryBuilder().setNameFormat("Siddhi-" + executionPlanContext.getName() + "-scheduler-thread-%d").build()));
-            executionPlanContext.setTimestampGenerator(new SystemCurrentTimeMillisTimestampGenerator());
+            if (playbackAnnotation != null) {
+                long idleTime = AnnotationParserHelper.parseNonNegativeLong(playbackAnnotation,
+                        SiddhiConstants.ANNOTATION_ELEMENT_IDLE_TIME);
+                long increment = AnnotationParserHelper.parseNonNegativeLong(playbackAnnotation,
+                        SiddhiConstants.ANNOTATION_ELEMENT_INCREMENT);
+                EventTimeBasedMillisTimestampGenerator timestampGenerator = new EventTimeBasedMillisTimestampGenerator(
+                        executionPlanContext.getSharedLock(), executionPlanContext.getScheduledExecutorService(),
+                        idleTime, increment > 0 ? increment : idleTime);
+                executionPlanContext.setTimestampGenerator(timestampGenerator);
+                executionPlanContext.setTimerWheel(new TimerWheel(executionPlanContext.getScheduledExecutorService(),
+                        timestampGenerator));
+                executionPlanContext.addEternalReferencedHolder(timestampGenerator);
+            } else {
+                executionPlanContext.setTimerWheel(new TimerWheel(executionPlanContext.getScheduledExecutorService()));
+                executionPlanContext.setTimestampGenerator(new SystemCurrentTimeMillisTimestampGenerator());
+            }
             executionPlanContext.setSnapshotService(new SnapshotService(executionPlanContext));
-            executionPlanContext.setPersistenceService(new PersistenceService(executionPlanContext));
+            PersistenceService persistenceService = new PersistenceService(executionPlanContext);
+            annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PERSISTENCE,
+                    executionPlan.getAnnotations());
+            if (annotation != null) {
+                persistenceService.setIncremental(SiddhiConstants.TRUE.equalsIgnoreCase(
+                        annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_INCREMENTAL)));
+                persistenceService.setBaseInterval(AnnotationParserHelper.parsePositiveInt(annotation,
+                        SiddhiConstants.ANNOTATION_ELEMENT_BASE_INTERVAL, SiddhiConstants.DEFAULT_BASE_SNAPSHOT_INTERVAL));
+                persistenceService.setAsync(SiddhiConstants.TRUE.equalsIgnoreCase(
+                        annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_ASYNC)));
+            }
+            executionPlanContext.setPersistenceService(persistenceService);
             executionPlanContext.setElementIdGenerator(new ElementIdGenerator(executionPlanContext.getName()));
 
         } catch (DuplicateAnnotationException e) {
@@ -111,12 +164,14 @@ public class ExecutionPlanParser {
         defineStreamDefinitions(executionPlanRuntimeBuilder, executionPlan.getStreamDefinitionMap());
         defineTableDefinitions(executionPlanRuntimeBuilder, executionPlan.getTableDefinitionMap());
         defineFunctionDefinitions(executionPlanRuntimeBuilder, executionPlan.getFunctionDefinitionMap());
+        Map<String, List<QueryRuntime>> sharedTimeWindowQueryMap = new LinkedHashMap<String, List<QueryRuntime>>();
         try {
             for (ExecutionElement executionElement : executionPlan.getExecutionElementList()) {
                 if (executionElement instanceof Query) {
                     QueryRuntime queryRuntime = QueryParser.parse((Query) executionElement, executionPlanContext,
                             executionPlanRuntimeBuilder.getStreamDefinitionMap(), executionPlanRuntimeBuilder.getTableDefinitionMap(), executionPlanRuntimeBuilder.getEventTableMap());
                     executionPlanRuntimeBuilder.addQuery(queryRuntime);
+                    collectSharedTimeWindowQuery(queryRuntime, executionPlanRuntimeBuilder, sharedTimeWindowQueryMap);
                 } else {
                     PartitionRuntime partitionRuntime = PartitionParser.parse(executionPlanRuntimeBuilder,
                             (Partition) executionElement, executionPlanContext, executionPlanRuntimeBuilder.getStreamDefinitionMap());
@@ -131,6 +186,13 @@ public class ExecutionPlanParser {
                     executionPlanContext.getName() + "\"", e);
         }
 
+        for (Map.Entry<String, List<QueryRuntime>> entry : sharedTimeWindowQueryMap.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                shareTimeWindows(executionPlanRuntimeBuilder.getStreamJunctions().get(entry.getKey()),
+                        entry.getValue(), executionPlanContext);
+            }
+        }
+
         //Done last as they have to be started last
         defineTriggerDefinitions(executionPlanRuntimeBuilder, executionPlan.getTriggerDefinitionMap());
         return executionPlanRuntimeBuilder;
@@ -160,4 +222,131 @@ public class ExecutionPlanParser {
         }
     }
 
+    /**
+     * Group by stream the queries whose only handler is a time window and which select only the current events
+     * with stream attributes and the count, sum or avg of stream attributes, so that their windows can share the
+     * partial aggregates of the stream
+     */
+    private static void collectSharedTimeWindowQuery(QueryRuntime queryRuntime,
+                                                     ExecutionPlanRuntimeBuilder executionPlanRuntimeBuilder,
+                                                     Map<String, List<QueryRuntime>> sharedTimeWindowQueryMap) {
+        Query query = queryRuntime.getQuery();
+        if (!(query.getInputStream() instanceof SingleInputStream)) {
+            return;
+        }
+        SingleInputStream inputStream = (SingleInputStream) query.getInputStream();
+        if (inputStream.isInnerStream() || inputStream.getStreamHandlers().size() != 1 ||
+                !(inputStream.getStreamHandlers().get(0) instanceof Window) ||
+                getTimeWindowProcessor(queryRuntime) == null) {
+            return;
+        }
+        if (query.getOutputStream().getOutputEventType() != OutputStream.OutputEventType.CURRENT_EVENTS ||
+                query.getOutputRate() instanceof SnapshotOutputRate ||
+                !query.getSelector().getGroupByList().isEmpty() || query.getSelector().getHavingExpression() != null) {
+            return;
+        }
+        StreamJunction streamJunction = executionPlanRuntimeBuilder.getStreamJunctions().get(inputStream.getStreamId());
+        if (streamJunction == null || streamJunction.isWorkerPoolEnabled()) {
+            return;
+        }
+        StreamDefinition streamDefinition = streamJunction.getStreamDefinition();
+        boolean aggregated = false;
+        for (OutputAttribute outputAttribute : query.getSelector().getSelectionList()) {
+            Expression expression = outputAttribute.getExpression();
+            if (expression instanceof Variable) {
+                continue;
+            }
+            if (expression.getClass() != AttributeFunction.class) {
+                return;
+            }
+            AttributeFunction attributeFunction = (AttributeFunction) expression;
+            Expression[] parameters = attributeFunction.getParameters();
+            if ("count".equals(attributeFunction.getFunction())) {
+                if (parameters != null && parameters.length != 0) {
+                    return;
+                }
+            } else if ("sum".equals(attributeFunction.getFunction()) ||
+                    "avg".equals(attributeFunction.getFunction())) {
+                if (parameters == null || parameters.length != 1 || !(parameters[0] instanceof Variable)) {
+                    return;
+                }
+                Attribute.Type type = streamDefinition.getAttributeType(
+                        ((Variable) parameters[0]).getAttributeName());
+                if (type != Attribute.Type.INT && type != Attribute.Type.LONG && type != Attribute.Type.FLOAT &&
+                        type != Attribute.Type.DOUBLE) {
+                    return;
+                }
+            } else {
+                return;
+            }
+            aggregated = true;
+        }
+        if (!aggregated) {
+            return;
+        }
+        List<QueryRuntime> queryRuntimes = sharedTimeWindowQueryMap.get(inputStream.getStreamId());
+        if (queryRuntimes == null) {
+            queryRuntimes = new ArrayList<QueryRuntime>();
+            sharedTimeWindowQueryMap.put(inputStream.getStreamId(), queryRuntimes);
+        }
+        queryRuntimes.add(queryRuntime);
+    }
+
+    private static TimeWindowProcessor getTimeWindowProcessor(QueryRuntime queryRuntime) {
+        Processor processor = ((SingleStreamRuntime) queryRuntime.getStreamRuntime()).getProcessorChain();
+        while (processor != null && !(processor instanceof AbstractStreamProcessor)) {
+            processor = processor.getNextProcessor();
+        }
+        if (processor == null || processor.getClass() != TimeWindowProcessor.class) {
+            return null;
+        }
+        return (TimeWindowProcessor) processor;
+    }
+
+    /**
+     * Route the events of the stream to the queries through aggregates shared by their time windows, and let the
+     * queries read their aggregations from them
+     */
+    private static void shareTimeWindows(StreamJunction streamJunction, List<QueryRuntime> queryRuntimes,
+                                         ExecutionPlanContext executionPlanContext) {
+        StreamDefinition streamDefinition = streamJunction.getStreamDefinition();
+        SharedTimeWindowAggregates aggregates = new SharedTimeWindowAggregates(streamDefinition.getId(),
+                executionPlanContext);
+        for (QueryRuntime queryRuntime : queryRuntimes) {
+            TimeWindowProcessor timeWindowProcessor = getTimeWindowProcessor(queryRuntime);
+            timeWindowProcessor.share();
+            ProcessStreamReceiver processStreamReceiver =
+                    ((SingleStreamRuntime) queryRuntime.getStreamRuntime()).getProcessStreamReceiver();
+            streamJunction.unsubscribe(processStreamReceiver);
+            aggregates.addReceiver(processStreamReceiver);
+
+            List<AttributeProcessor> attributeProcessors = queryRuntime.getSelector().getAttributeProcessorList();
+            int index = 0;
+            for (OutputAttribute outputAttribute : queryRuntime.getQuery().getSelector().getSelectionList()) {
+                if (outputAttribute.getExpression() instanceof Variable) {
+                    continue;
+                }
+                AttributeFunction attributeFunction = (AttributeFunction) outputAttribute.getExpression();
+                SharedTimeWindowAggregationExecutor.Function function;
+                int column = -1;
+                boolean doubleValues = false;
+                if ("count".equals(attributeFunction.getFunction())) {
+                    function = SharedTimeWindowAggregationExecutor.Function.COUNT;
+                } else {
+                    function = "sum".equals(attributeFunction.getFunction()) ?
+                            SharedTimeWindowAggregationExecutor.Function.SUM :
+                            SharedTimeWindowAggregationExecutor.Function.AVG;
+                    String attributeName = ((Variable) attributeFunction.getParameters()[0]).getAttributeName();
+                    Attribute.Type type = streamDefinition.getAttributeType(attributeName);
+                    doubleValues = type == Attribute.Type.FLOAT || type == Attribute.Type.DOUBLE;
+                    column = aggregates.addColumn(streamDefinition.getAttributePosition(attributeName), doubleValues);
+                }
+                attributeProcessors.get(index++).setExpressionExecutor(new SharedTimeWindowAggregationExecutor(
+                        aggregates, function, column, doubleValues, timeWindowProcessor.getTimeInMilliSeconds(),
+                        executionPlanContext));
+            }
+        }
+        streamJunction.subscribe(aggregates);
+    }
+
 }
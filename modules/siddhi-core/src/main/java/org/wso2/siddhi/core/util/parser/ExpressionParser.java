@@ -263,6 +263,7 @@ public class ExpressionParser {
                 for (int i = 0, innerExpressionsLength = innerExpressions.length; i < innerExpressionsLength; i++) {
                     innerExpressionExecutors[i] = parseExpression(innerExpressions[i], metaEvent, currentState, eventTableMap, executorList, executionPlanContext, groupBy, defaultStreamEventIndex);
                 }
+                setExpiryOrder(attributeAggregator);
                 attributeAggregator.initAggregator(innerExpressionExecutors, executionPlanContext);
                 AbstractAggregationAttributeExecutor aggregationAttributeProcessor;
                 if (groupBy) {
@@ -302,6 +303,7 @@ public class ExpressionParser {
                 for (int i = 0, innerExpressionsLength = innerExpressions.length; i < innerExpressionsLength; i++) {
                     innerExpressionExecutors[i] = parseExpression(innerExpressions[i], metaEvent, currentState, eventTableMap, executorList, executionPlanContext, groupBy, defaultStreamEventIndex);
                 }
+                setExpiryOrder((AttributeAggregator) executor);
                 ((AttributeAggregator) executor).initAggregator(innerExpressionExecutors, executionPlanContext);
                 AbstractAggregationAttributeExecutor aggregationAttributeProcessor;
                 if (groupBy) {
@@ -396,6 +398,13 @@ public class ExpressionParser {
 
     }
 
+    private static void setExpiryOrder(AttributeAggregator attributeAggregator) {
+        AttributeAggregator.ExpiryOrder expiryOrder = SelectorParser.getExpiryOrderThreadLocal().get();
+        if (expiryOrder != null) {
+            attributeAggregator.setExpiryOrder(expiryOrder);
+        }
+    }
+
     /**
      * Create greater than Compare Condition Expression Executor which evaluates whether value of leftExpressionExecutor
      * is greater than value of rightExpressionExecutor.
@@ -26,7 +26,10 @@ import org.wso2.siddhi.core.query.output.ratelimit.OutputRateLimiter;
 import org.wso2.siddhi.core.query.output.ratelimit.snapshot.WrappedSnapshotOutputRateLimiter;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
 import org.wso2.siddhi.core.table.EventTable;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.parser.helper.AnnotationParserHelper;
 import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
+import org.wso2.siddhi.query.api.annotation.Annotation;
 import org.wso2.siddhi.query.api.annotation.Element;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.exception.DuplicateDefinitionException;
@@ -43,6 +46,8 @@ import java.util.Map;
 
 public class QueryParser {
 
+    private static final long DEFAULT_GROUP_PURGE_INTERVAL = 1000;
+
     /**
      * Parse a query and return corresponding QueryRuntime
      *
@@ -65,7 +70,8 @@ public class QueryParser {
                     executionPlanContext, streamDefinitionMap, tableDefinitionMap, eventTableMap, executors);
 
             QuerySelector selector = SelectorParser.parse(query.getSelector(), query.getOutputStream(),
-                    executionPlanContext, streamRuntime.getMetaComplexEvent(), eventTableMap, executors);
+                    executionPlanContext, streamRuntime.getMetaComplexEvent(), eventTableMap, executors,
+                    QueryParserHelper.getExpiryOrder(streamRuntime));
 
             boolean isWindow = query.getInputStream() instanceof JoinInputStream;
 
@@ -78,8 +84,30 @@ public class QueryParser {
                 }
             }
 
+            if (selector.isGroupBy()) {
+                if (isWindow && query.getInputStream() instanceof SingleInputStream) {
+                    selector.setEmptyGroupRemoval();
+                }
+                Annotation purgeAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PURGE,
+                        query.getAnnotations());
+                if (purgeAnnotation != null) {
+                    long idlePeriod = AnnotationParserHelper.parseNonNegativeLong(purgeAnnotation,
+                            SiddhiConstants.ANNOTATION_ELEMENT_IDLE_PERIOD);
+                    long purgeInterval = AnnotationParserHelper.parseNonNegativeLong(purgeAnnotation,
+                            SiddhiConstants.ANNOTATION_ELEMENT_INTERVAL);
+                    if (idlePeriod == 0) {
+                        throw new ExecutionPlanCreationException("@" + purgeAnnotation.getName() + " of a query " +
+                                "should define " + SiddhiConstants.ANNOTATION_ELEMENT_IDLE_PERIOD);
+                    }
+                    selector.setGroupIdlePeriod(idlePeriod, purgeInterval > 0 ? purgeInterval : DEFAULT_GROUP_PURGE_INTERVAL);
+                }
+            } else if (AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PURGE, query.getAnnotations()) != null) {
+                throw new ExecutionPlanCreationException("@" + SiddhiConstants.ANNOTATION_PURGE + " can only be " +
+                        "defined on a query with group by");
+            }
+
             OutputRateLimiter outputRateLimiter = OutputParser.constructOutputRateLimiter(query.getOutputStream().getId(),
-                    query.getOutputRate(), query.getSelector().getGroupByList().size() != 0, isWindow, executionPlanContext.getScheduledExecutorService());
+                    query.getOutputRate(), query.getSelector().getGroupByList().size() != 0, isWindow, executionPlanContext.getTimerWheel());
             outputRateLimiter.init(executionPlanContext);
             executionPlanContext.addEternalReferencedHolder(outputRateLimiter);
 
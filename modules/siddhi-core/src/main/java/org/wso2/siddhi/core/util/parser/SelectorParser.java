@@ -25,6 +25,7 @@ import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.executor.condition.ConditionExpressionExecutor;
 import org.wso2.siddhi.core.query.selector.GroupByKeyGenerator;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
+import org.wso2.siddhi.core.query.selector.attribute.aggregator.AttributeAggregator;
 import org.wso2.siddhi.core.query.selector.attribute.processor.AttributeProcessor;
 import org.wso2.siddhi.core.table.EventTable;
 import org.wso2.siddhi.core.util.SiddhiConstants;
@@ -44,6 +45,8 @@ import java.util.Map;
 
 public class SelectorParser {
     private static final ThreadLocal<String> containsAggregatorThreadLocal = new ThreadLocal<String>();
+    private static final ThreadLocal<AttributeAggregator.ExpiryOrder> expiryOrderThreadLocal =
+            new ThreadLocal<AttributeAggregator.ExpiryOrder>();
     /**
      * Parse Selector portion of a query and return corresponding QuerySelector
      *
@@ -52,9 +55,11 @@ public class SelectorParser {
      *@param executionPlanContext query to be parsed
      * @param metaComplexEvent     Meta event used to collect execution info of stream associated with query
      * @param eventTableMap   @return
+     * @param expiryOrder          order in which the selected events expire, given to the aggregators
      */
     public static QuerySelector parse(Selector selector, OutputStream outputStream, ExecutionPlanContext executionPlanContext,
-                                      MetaComplexEvent metaComplexEvent, Map<String, EventTable> eventTableMap, List<VariableExpressionExecutor> variableExpressionExecutors) {
+                                      MetaComplexEvent metaComplexEvent, Map<String, EventTable> eventTableMap, List<VariableExpressionExecutor> variableExpressionExecutors,
+                                      AttributeAggregator.ExpiryOrder expiryOrder) {
         boolean currentOn = false;
         boolean expiredOn = false;
         String id = null;
@@ -68,12 +73,14 @@ public class SelectorParser {
 
         id = outputStream.getId();
         QuerySelector querySelector = new QuerySelector(id, selector, currentOn, expiredOn, executionPlanContext);
+        expiryOrderThreadLocal.set(expiryOrder);
         List<AttributeProcessor> attributeProcessors = getAttributeProcessors(selector, id, executionPlanContext, metaComplexEvent, null, variableExpressionExecutors);
         querySelector.setAttributeProcessorList(attributeProcessors,"true".equals(containsAggregatorThreadLocal.get()));
         containsAggregatorThreadLocal.remove();
         ConditionExpressionExecutor havingCondition = generateHavingExecutor(selector.getHavingExpression(),
                 metaComplexEvent, executionPlanContext, eventTableMap, variableExpressionExecutors);
         querySelector.setHavingConditionExecutor(havingCondition);
+        expiryOrderThreadLocal.remove();
         if (!selector.getGroupByList().isEmpty()) {
             querySelector.setGroupByKeyGenerator(new GroupByKeyGenerator(selector.getGroupByList(), metaComplexEvent, null, variableExpressionExecutors, executionPlanContext));
         }
@@ -176,4 +183,8 @@ public class SelectorParser {
     public static ThreadLocal<String> getContainsAggregatorThreadLocal() {
         return containsAggregatorThreadLocal;
     }
+
+    public static ThreadLocal<AttributeAggregator.ExpiryOrder> getExpiryOrderThreadLocal() {
+        return expiryOrderThreadLocal;
+    }
 }
@@ -95,7 +95,7 @@ public class SingleInputStreamParser {
                             processor.setToLast(singleThreadValve);
                         }
                     }
-                    Scheduler scheduler = new Scheduler(executionPlanContext.getScheduledExecutorService(), singleThreadValve);
+                    Scheduler scheduler = new Scheduler(executionPlanContext.getTimerWheel(), singleThreadValve);
                     scheduler.init(executionPlanContext);
                     ((SchedulingProcessor) currentProcessor).setScheduler(scheduler);
                 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.parser.helper;
+
+import org.wso2.siddhi.core.exception.ExecutionPlanCreationException;
+import org.wso2.siddhi.query.api.annotation.Annotation;
+
+/**
+ * Parses the values of annotation elements
+ */
+public class AnnotationParserHelper {
+
+    private AnnotationParserHelper() {
+    }
+
+    /**
+     * @param annotation annotation, e.g. {@code @plan:playback(idle.time='100', increment='1000')}
+     * @param key        element key
+     * @return element value as a non negative number, such as a time in milliseconds, 0 when not given
+     */
+    public static long parseNonNegativeLong(Annotation annotation, String key) {
+        String value = annotation.getElement(key);
+        if (value == null) {
+            return 0;
+        }
+        long number;
+        try {
+            number = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ExecutionPlanCreationException(key + " '" + value + "' of @" + annotation.getName() +
+                    " is not a number", e);
+        }
+        if (number < 0) {
+            throw new ExecutionPlanCreationException(key + " '" + value + "' of @" + annotation.getName() +
+                    " should not be negative");
+        }
+        return number;
+    }
+
+    /**
+     * @param annotation   annotation, e.g. {@code @plan:persistence(incremental='true', base.interval='10')}
+     * @param key          element key
+     * @param defaultValue value when the element is not given
+     * @return element value as a positive int, such as a count
+     */
+    public static int parsePositiveInt(Annotation annotation, String key, int defaultValue) {
+        String value = annotation.getElement(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        int number;
+        try {
+            number = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ExecutionPlanCreationException(key + " '" + value + "' of @" + annotation.getName() +
+                    " is not a number", e);
+        }
+        if (number < 1) {
+            throw new ExecutionPlanCreationException(key + " '" + value + "' of @" + annotation.getName() +
+                    " should be positive");
+        }
+        return number;
+    }
+}
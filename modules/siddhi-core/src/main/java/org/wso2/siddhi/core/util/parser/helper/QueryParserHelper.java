@@ -28,11 +28,14 @@ import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.query.input.ProcessStreamReceiver;
 import org.wso2.siddhi.core.query.input.stream.StreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.join.JoinProcessor;
+import org.wso2.siddhi.core.query.input.stream.join.JoinStreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.StreamPreStateProcessor;
 import org.wso2.siddhi.core.query.processor.Processor;
 import org.wso2.siddhi.core.query.processor.SchedulingProcessor;
 import org.wso2.siddhi.core.query.processor.stream.AbstractStreamProcessor;
+import org.wso2.siddhi.core.query.processor.stream.window.WindowProcessor;
+import org.wso2.siddhi.core.query.selector.attribute.aggregator.AttributeAggregator;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.List;
@@ -129,6 +132,32 @@ public class QueryParserHelper {
         }
     }
 
+    /**
+     * @param runtime stream runtime of a query
+     * @return order in which the events reaching the selector of the query expire, as told by its window
+     */
+    public static AttributeAggregator.ExpiryOrder getExpiryOrder(StreamRuntime runtime) {
+        if (runtime instanceof JoinStreamRuntime) {
+            return AttributeAggregator.ExpiryOrder.ANY;
+        } else if (!(runtime instanceof SingleStreamRuntime)) {
+            return AttributeAggregator.ExpiryOrder.NONE;
+        }
+        AttributeAggregator.ExpiryOrder expiryOrder = AttributeAggregator.ExpiryOrder.NONE;
+        Processor processor = ((SingleStreamRuntime) runtime).getProcessorChain();
+        while (processor != null) {
+            if (processor instanceof WindowProcessor) {
+                if (expiryOrder == AttributeAggregator.ExpiryOrder.NONE &&
+                        ((WindowProcessor) processor).expiresInArrivalOrder()) {
+                    expiryOrder = AttributeAggregator.ExpiryOrder.ARRIVAL;
+                } else {
+                    return AttributeAggregator.ExpiryOrder.ANY;
+                }
+            }
+            processor = processor.getNextProcessor();
+        }
+        return expiryOrder;
+    }
+
     public static void initStreamRuntime(StreamRuntime runtime, MetaComplexEvent metaComplexEvent) {
 
         if (runtime instanceof SingleStreamRuntime) {
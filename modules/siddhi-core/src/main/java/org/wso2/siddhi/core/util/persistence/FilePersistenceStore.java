@@ -0,0 +1,543 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.persistence;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Persists the revisions as files, one directory for each execution plan. A revision is streamed to a temporary
+ * file, optionally synced to the disk, and renamed to its final name, hence a partially written revision is never
+ * loaded. The revisions of each execution plan are listed in an index file in the order they are saved, which is
+ * read once instead of scanning the directory, along with the revision each one is taken against.
+ * <p/>
+ * The revisions can be retained by count and by age; the last revision is always kept, and so are the revisions
+ * the retained ones are taken against, as a revision cannot be restored without them. A revision saved as a whole
+ * is taken as restored on its own.
+ * <p/>
+ * Properties: {@link #LOCATION} directory of the revisions, {@link #SYNC} whether to sync the revisions to the
+ * disk before they are listed (default true), {@link #RETAIN_REVISIONS} number of revisions to keep and
+ * {@link #RETAIN_PERIOD} time in milliseconds to keep the revisions (by default all revisions are kept).
+ */
+public class FilePersistenceStore implements StreamingPersistenceStore {
+
+    public static final String LOCATION = "location";
+    public static final String SYNC = "sync";
+    public static final String RETAIN_REVISIONS = "retain.revisions";
+    public static final String RETAIN_PERIOD = "retain.period";
+
+    private static final Logger log = Logger.getLogger(FilePersistenceStore.class);
+    private static final String REVISION_SUFFIX = ".revision";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String INDEX_FILE = "revisions.index";
+    private static final String ENCODING = "UTF-8";
+
+    private final ConcurrentMap<String, RevisionIndex> revisionIndexes = new ConcurrentHashMap<String, RevisionIndex>();
+    private File location;
+    private boolean sync = true;
+    private int retainRevisions = -1;
+    private long retainPeriod = -1;
+
+    public FilePersistenceStore() {
+    }
+
+    /**
+     * @param location directory of the revisions
+     */
+    public FilePersistenceStore(String location) {
+        this.location = new File(location);
+    }
+
+    /**
+     * @param sync whether to sync each revision to the disk before it is listed
+     */
+    public void setSync(boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * @param retainRevisions number of revisions to keep for each execution plan, -1 to keep all
+     */
+    public void setRetainRevisions(int retainRevisions) {
+        this.retainRevisions = retainRevisions;
+    }
+
+    /**
+     * @param retainPeriod time in milliseconds to keep the revisions, -1 to keep them regardless of their age
+     */
+    public void setRetainPeriod(long retainPeriod) {
+        this.retainPeriod = retainPeriod;
+    }
+
+    @Override
+    public void setProperties(Map properties) {
+        if (properties.get(LOCATION) != null) {
+            location = new File(String.valueOf(properties.get(LOCATION)));
+        }
+        if (properties.get(SYNC) != null) {
+            sync = Boolean.parseBoolean(String.valueOf(properties.get(SYNC)));
+        }
+        if (properties.get(RETAIN_REVISIONS) != null) {
+            retainRevisions = Integer.parseInt(String.valueOf(properties.get(RETAIN_REVISIONS)));
+        }
+        if (properties.get(RETAIN_PERIOD) != null) {
+            retainPeriod = Long.parseLong(String.valueOf(properties.get(RETAIN_PERIOD)));
+        }
+    }
+
+    @Override
+    public void save(String executionPlanId, String revision, byte[] snapshot) {
+        RevisionChannel channel = openForSave(executionPlanId, revision, null);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.commit();
+        } catch (IOException e) {
+            throw new ExecutionPlanRuntimeException("Cannot save revision " + revision + " of execution plan " +
+                    executionPlanId, e);
+        } finally {
+            close(channel);
+        }
+    }
+
+    @Override
+    public RevisionChannel openForSave(String executionPlanId, String revision, String previousRevision) {
+        RevisionIndex revisionIndex = getRevisionIndex(executionPlanId);
+        File file = revisionIndex.newFile(revision);
+        File tempFile = new File(file.getPath() + TEMP_SUFFIX);
+        try {
+            return new FileRevisionChannel(revisionIndex, revision, previousRevision, file, tempFile);
+        } catch (IOException e) {
+            throw new ExecutionPlanRuntimeException("Cannot save revision " + revision + " of execution plan " +
+                    executionPlanId, e);
+        }
+    }
+
+    @Override
+    public byte[] load(String executionPlanId, String revision) {
+        File file = getRevisionIndex(executionPlanId).getFile(revision);
+        if (!file.exists()) {
+            log.warn("Revision " + revision + " not found for the execution plan " + executionPlanId);
+            return null;
+        }
+        FileInputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            FileChannel channel = inputStream.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Revision of " + size + " bytes is too large to load");
+            }
+            //Read straight into the array, without intermediate buffers
+            byte[] snapshot = new byte[(int) size];
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Revision ended after " + buffer.position() + " of " + size + " bytes");
+                }
+            }
+            return snapshot;
+        } catch (IOException e) {
+            throw new ExecutionPlanRuntimeException("Cannot load revision " + revision + " of execution plan " +
+                    executionPlanId, e);
+        } finally {
+            close(inputStream);
+        }
+    }
+
+    @Override
+    public ReadableByteChannel openForLoad(String executionPlanId, String revision) {
+        File file = getRevisionIndex(executionPlanId).getFile(revision);
+        try {
+            return new FileInputStream(file).getChannel();
+        } catch (FileNotFoundException e) {
+            log.warn("Revision " + revision + " not found for the execution plan " + executionPlanId);
+            return null;
+        }
+    }
+
+    @Override
+    public String getLastRevision(String executionPlanId) {
+        return getRevisionIndex(executionPlanId).getLastRevision();
+    }
+
+    /**
+     * @param executionPlanId execution plan identifier
+     * @return retained revisions of the execution plan, in the order they are saved
+     */
+    public List<String> getRevisions(String executionPlanId) {
+        return getRevisionIndex(executionPlanId).getRevisions();
+    }
+
+    private RevisionIndex getRevisionIndex(String executionPlanId) {
+        RevisionIndex revisionIndex = revisionIndexes.get(executionPlanId);
+        if (revisionIndex == null) {
+            if (location == null) {
+                throw new ExecutionPlanRuntimeException("No location set for the file persistence store");
+            }
+            revisionIndex = new RevisionIndex(new File(location, encode(executionPlanId)));
+            RevisionIndex existingIndex = revisionIndexes.putIfAbsent(executionPlanId, revisionIndex);
+            if (existingIndex != null) {
+                revisionIndex = existingIndex;
+            }
+        }
+        return revisionIndex;
+    }
+
+    private static String encode(String name) {
+        try {
+            return URLEncoder.encode(name, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new ExecutionPlanRuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private static String decode(String name) {
+        try {
+            return URLDecoder.decode(name, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new ExecutionPlanRuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                //Ignored as the content is already written or read
+            }
+        }
+    }
+
+    /**
+     * Writes a revision to a temporary file, renamed to the revision file and listed in the index when committed
+     */
+    private class FileRevisionChannel implements RevisionChannel {
+
+        private final RevisionIndex revisionIndex;
+        private final String revision;
+        private final String previousRevision;
+        private final File file;
+        private final File tempFile;
+        private final FileOutputStream outputStream;
+        private final FileChannel channel;
+        private boolean committed;
+
+        private FileRevisionChannel(RevisionIndex revisionIndex, String revision, String previousRevision,
+                                    File file, File tempFile) throws IOException {
+            this.revisionIndex = revisionIndex;
+            this.revision = revision;
+            this.previousRevision = previousRevision;
+            this.file = file;
+            this.tempFile = tempFile;
+            this.outputStream = new FileOutputStream(tempFile);
+            this.channel = outputStream.getChannel();
+        }
+
+        @Override
+        public int write(ByteBuffer buffer) throws IOException {
+            return channel.write(buffer);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void commit() throws IOException {
+            try {
+                if (sync) {
+                    channel.force(true);
+                }
+                outputStream.close();
+                if (!tempFile.renameTo(file)) {
+                    //Rename does not replace an existing file on all platforms
+                    if (!file.delete() || !tempFile.renameTo(file)) {
+                        throw new IOException("Cannot rename " + tempFile.getAbsolutePath() + " to " +
+                                file.getName());
+                    }
+                }
+                committed = true;
+            } finally {
+                if (!committed) {
+                    close();
+                }
+            }
+            revisionIndex.add(revision, previousRevision, System.currentTimeMillis());
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                outputStream.close();
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Revisions of an execution plan with the time they are saved and the revision they are taken against, loaded
+     * lazily from the index file. The index is appended on each save and rewritten when revisions are removed.
+     */
+    private class RevisionIndex {
+
+        private final File directory;
+        private final File indexFile;
+        private LinkedList<Revision> revisions;
+
+        private RevisionIndex(File directory) {
+            this.directory = directory;
+            this.indexFile = new File(directory, INDEX_FILE);
+        }
+
+        private File getFile(String revision) {
+            return new File(directory, encode(revision) + REVISION_SUFFIX);
+        }
+
+        /**
+         * @return file to save the revision to, the directory is created if it does not exist
+         */
+        private synchronized File newFile(String revision) {
+            load();
+            return getFile(revision);
+        }
+
+        private synchronized String getLastRevision() {
+            load();
+            return revisions.isEmpty() ? null : revisions.getLast().name;
+        }
+
+        private synchronized List<String> getRevisions() {
+            load();
+            List<String> names = new ArrayList<String>(revisions.size());
+            for (Revision revision : revisions) {
+                names.add(revision.name);
+            }
+            return names;
+        }
+
+        private synchronized void add(String name, String previousName, long time) {
+            load();
+            Revision revision = new Revision(name, previousName, time);
+            revisions.add(revision);
+            try {
+                write(Collections.singletonList(revision), true);
+            } catch (IOException e) {
+                revisions.removeLast();
+                throw new ExecutionPlanRuntimeException("Cannot list revision " + name + " in " +
+                        indexFile.getAbsolutePath(), e);
+            }
+            retain(time);
+        }
+
+        /**
+         * Removes the revisions beyond the retained count and age, except the ones the retained revisions are
+         * taken against
+         */
+        private void retain(long now) {
+            int expiredCount = 0;
+            for (Revision revision : revisions) {
+                if (expiredCount == revisions.size() - 1 || !((retainRevisions >= 0 &&
+                        revisions.size() - expiredCount > retainRevisions) ||
+                        (retainPeriod >= 0 && revision.time < now - retainPeriod))) {
+                    break;
+                }
+                expiredCount++;
+            }
+            if (expiredCount == 0) {
+                return;
+            }
+            //Revisions are taken against earlier ones, hence the needed ones are found walking back from the last
+            Set<String> neededNames = new HashSet<String>();
+            List<Revision> removedRevisions = new ArrayList<Revision>();
+            LinkedList<Revision> retainedRevisions = new LinkedList<Revision>();
+            int index = revisions.size();
+            for (Iterator<Revision> iterator = revisions.descendingIterator(); iterator.hasNext(); ) {
+                Revision revision = iterator.next();
+                index--;
+                if (index < expiredCount && !neededNames.contains(revision.name)) {
+                    removedRevisions.add(revision);
+                    continue;
+                }
+                retainedRevisions.addFirst(revision);
+                if (revision.previousName != null) {
+                    neededNames.add(revision.previousName);
+                }
+            }
+            if (removedRevisions.isEmpty()) {
+                return;
+            }
+            try {
+                write(retainedRevisions, false);
+            } catch (IOException e) {
+                //Removed revisions are still listed, hence kept till the index is rewritten
+                log.error("Cannot rewrite " + indexFile.getAbsolutePath() + ", " + e.getMessage(), e);
+                return;
+            }
+            revisions = retainedRevisions;
+            for (Revision revision : removedRevisions) {
+                if (!getFile(revision.name).delete()) {
+                    log.warn("Cannot delete revision " + revision.name + " in " + directory.getAbsolutePath());
+                }
+            }
+        }
+
+        private void load() {
+            if (revisions != null) {
+                return;
+            }
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new ExecutionPlanRuntimeException("Cannot create directory " + directory.getAbsolutePath());
+            }
+            LinkedList<Revision> loadedRevisions = new LinkedList<Revision>();
+            if (indexFile.exists()) {
+                BufferedReader reader = null;
+                try {
+                    reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), ENCODING));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] fields = line.split(" ");
+                        if (fields.length >= 2) {
+                            Revision revision = new Revision(decode(fields[1]),
+                                    fields.length > 2 ? decode(fields[2]) : null, Long.parseLong(fields[0]));
+                            if (getFile(revision.name).exists()) {
+                                loadedRevisions.add(revision);
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new ExecutionPlanRuntimeException("Cannot read " + indexFile.getAbsolutePath(), e);
+                } catch (NumberFormatException e) {
+                    throw new ExecutionPlanRuntimeException("Cannot read " + indexFile.getAbsolutePath(), e);
+                } finally {
+                    close(reader);
+                }
+            } else {
+                //Index is rebuilt from the revision files in the directory
+                File[] files = directory.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        String fileName = file.getName();
+                        if (fileName.endsWith(REVISION_SUFFIX)) {
+                            loadedRevisions.add(new Revision(decode(fileName.substring(0,
+                                    fileName.length() - REVISION_SUFFIX.length())), null, file.lastModified()));
+                        }
+                    }
+                }
+                Collections.sort(loadedRevisions, new Comparator<Revision>() {
+                    @Override
+                    public int compare(Revision revision1, Revision revision2) {
+                        if (revision1.time != revision2.time) {
+                            return revision1.time < revision2.time ? -1 : 1;
+                        }
+                        return revision1.name.compareTo(revision2.name);
+                    }
+                });
+                //The revisions each one is taken against are not known, hence each is kept with the ones before it
+                Revision previousRevision = null;
+                for (Revision revision : loadedRevisions) {
+                    if (previousRevision != null) {
+                        revision.previousName = previousRevision.name;
+                    }
+                    previousRevision = revision;
+                }
+                try {
+                    write(loadedRevisions, false);
+                } catch (IOException e) {
+                    throw new ExecutionPlanRuntimeException("Cannot write " + indexFile.getAbsolutePath(), e);
+                }
+            }
+            revisions = loadedRevisions;
+        }
+
+        /**
+         * Appends the revisions to the index, or replaces the index with them
+         */
+        private void write(List<Revision> writtenRevisions, boolean append) throws IOException {
+            File file = append ? indexFile : new File(indexFile.getPath() + TEMP_SUFFIX);
+            FileOutputStream outputStream = null;
+            try {
+                outputStream = new FileOutputStream(file, append);
+                Writer writer = new OutputStreamWriter(outputStream, ENCODING);
+                for (Revision revision : writtenRevisions) {
+                    writer.write(revision.time + " " + encode(revision.name));
+                    if (revision.previousName != null) {
+                        writer.write(" " + encode(revision.previousName));
+                    }
+                    writer.write("\n");
+                }
+                writer.flush();
+                if (sync) {
+                    outputStream.getChannel().force(true);
+                }
+                outputStream.close();
+                outputStream = null;
+            } finally {
+                close(outputStream);
+            }
+            if (!append && !file.renameTo(indexFile)) {
+                if (!indexFile.delete() || !file.renameTo(indexFile)) {
+                    throw new IOException("Cannot rename " + file.getAbsolutePath() + " to " + INDEX_FILE);
+                }
+            }
+        }
+    }
+
+    private static class Revision {
+
+        private final String name;
+        private String previousName;
+        private final long time;
+
+        private Revision(String name, String previousName, long time) {
+            this.name = name;
+            this.previousName = previousName;
+            this.time = time;
+        }
+    }
+}
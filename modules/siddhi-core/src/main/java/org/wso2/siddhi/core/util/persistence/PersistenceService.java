@@ -17,9 +17,24 @@ package org.wso2.siddhi.core.util.persistence;
 
 import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 import org.wso2.siddhi.core.exception.NoPersistenceStoreException;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.snapshot.Checkpoint;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshot;
 import org.wso2.siddhi.core.util.snapshot.SnapshotService;
+import org.wso2.siddhi.core.util.snapshot.StateCodec;
 
+import java.io.IOException;
+import java.nio.channels.Channel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 
 public class PersistenceService {
@@ -28,25 +43,103 @@ public class PersistenceService {
     private String executionPlanName;
     private PersistenceStore persistenceStore;
     private SnapshotService snapshotService;
+    private StateCodec stateCodec;
     private Lock sharedLock;
+    private boolean incremental;
+    private int baseInterval = SiddhiConstants.DEFAULT_BASE_SNAPSHOT_INTERVAL;
+    private String lastRevision;
+    private final AtomicBoolean baseRequired = new AtomicBoolean(false);
+    private volatile boolean chainBroken;
+    private int incrementalCount;
+    private long lastRevisionTime;
+    private boolean async;
+    private ExecutorService executorService;
+    private volatile Future<?> pendingSave;
+    private volatile long lastPauseTime;
 
     public PersistenceService(ExecutionPlanContext executionPlanContext) {
+        this.executorService = executionPlanContext.getExecutorService();
         this.snapshotService = executionPlanContext.getSnapshotService();
         this.persistenceStore = executionPlanContext.getSiddhiContext().getPersistenceStore();
+        this.stateCodec = executionPlanContext.getSiddhiContext().getStateCodec();
         this.executionPlanName = executionPlanContext.getName();
         this.sharedLock = executionPlanContext.getSharedLock();
     }
 
 
-    public String persist() {
+    /**
+     * @param incremental whether to persist only the changes since the previous revision
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @param baseInterval number of revisions persisted between two base revisions when persisting incrementally
+     */
+    public void setBaseInterval(int baseInterval) {
+        this.baseInterval = baseInterval;
+    }
+
+    /**
+     * @param async whether to serialize and save the revisions in the background, processing is then only held
+     *              while the states are captured
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    /**
+     * @return time processing was held to capture the states of the last persisted revision, in nanoseconds
+     */
+    public long getLastPauseTime() {
+        return lastPauseTime;
+    }
+
+    public synchronized String persist() {
 
         if (persistenceStore != null) {
             if (log.isDebugEnabled()) {
                 log.debug("Persisting...");
             }
-            byte[] snapshot = snapshotService.snapshot();
-            String revision = System.currentTimeMillis() + "_" + executionPlanName;
-            persistenceStore.save(executionPlanName, revision, snapshot);
+            //Revisions of incremental snapshots are ordered by their time
+            long revisionTime = Math.max(System.currentTimeMillis(), lastRevisionTime + 1);
+            final String revision = revisionTime + "_" + executionPlanName;
+            if (baseRequired.getAndSet(false) || (incremental && incrementalCount >= baseInterval)) {
+                lastRevision = null;
+            }
+            final Checkpoint checkpoint = snapshotService.checkpoint(incremental, lastRevision);
+            lastPauseTime = checkpoint.getPauseTime();
+            log.info("Checkpoint " + revision + " held processing for " +
+                    TimeUnit.NANOSECONDS.toMicros(checkpoint.getPauseTime()) + " us");
+            if (incremental) {
+                incrementalCount = lastRevision == null ? 1 : incrementalCount + 1;
+                lastRevision = revision;
+            }
+            lastRevisionTime = revisionTime;
+            if (async) {
+                //Revisions are saved in the order they are captured
+                final Future<?> previousSave = pendingSave;
+                try {
+                    pendingSave = executorService.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            awaitSave(previousSave);
+                            try {
+                                save(revision, checkpoint);
+                            } catch (RuntimeException e) {
+                                log.error("Error in persisting revision " + revision + " of execution plan " +
+                                        executionPlanName + ", " + e.getMessage(), e);
+                            }
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    checkpoint.release();
+                    throw e;
+                }
+            } else {
+                save(revision, checkpoint);
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Persisted.");
             }
@@ -57,14 +150,122 @@ public class PersistenceService {
 
     }
 
+    /**
+     * Save a captured checkpoint, checkpoints are saved in the order they are captured. When an incremental revision
+     * fails to be saved the next revision is captured as a base, and the incremental revisions captured against
+     * the failed one before that are not saved as they cannot be restored. The checkpoint is released whether or
+     * not it is saved.
+     */
+    private void save(String revision, Checkpoint checkpoint) {
+        try {
+            saveCheckpoint(revision, checkpoint);
+        } finally {
+            checkpoint.release();
+        }
+    }
+
+    private void saveCheckpoint(String revision, Checkpoint checkpoint) {
+        if (checkpoint.isIncremental()) {
+            if (checkpoint.getPreviousRevision() == null) {
+                chainBroken = false;
+            } else if (chainBroken) {
+                throw new ExecutionPlanRuntimeException("Cannot save revision " + revision + " of execution plan " +
+                        executionPlanName + ", a revision it is taken against failed to be saved");
+            }
+        }
+        try {
+            if (persistenceStore instanceof StreamingPersistenceStore) {
+                RevisionChannel channel = ((StreamingPersistenceStore) persistenceStore).openForSave(
+                        executionPlanName, revision, checkpoint.getPreviousRevision());
+                try {
+                    snapshotService.serialize(checkpoint, channel);
+                    channel.commit();
+                } catch (IOException e) {
+                    throw new ExecutionPlanRuntimeException("Cannot save revision " + revision + " of execution plan "
+                            + executionPlanName + ", " + e.getMessage(), e);
+                } finally {
+                    close(channel);
+                }
+            } else {
+                persistenceStore.save(executionPlanName, revision, snapshotService.serialize(checkpoint));
+            }
+        } catch (RuntimeException e) {
+            if (checkpoint.isIncremental()) {
+                //The changes captured by this revision are lost, hence the next revision is taken as a base
+                chainBroken = true;
+                baseRequired.set(true);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the snapshot of the revision, null if the revision is not available
+     */
+    private Object load(String revision) {
+        if (persistenceStore instanceof StreamingPersistenceStore) {
+            ReadableByteChannel channel = ((StreamingPersistenceStore) persistenceStore).openForLoad(
+                    executionPlanName, revision);
+            if (channel == null) {
+                return null;
+            }
+            try {
+                return snapshotService.deserialize(channel);
+            } finally {
+                close(channel);
+            }
+        }
+        return stateCodec.decode(persistenceStore.load(executionPlanName, revision));
+    }
+
+    private static void close(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Cannot close the channel of the persistence store, " + e.getMessage(), e);
+        }
+    }
+
+    private static void awaitSave(Future<?> save) {
+        if (save != null) {
+            try {
+                save.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                //Already logged by the failed save
+            }
+        }
+    }
+
     public void restoreRevision(String revision) {
 
         if (persistenceStore != null) {
+            awaitSave(pendingSave);
             if (log.isDebugEnabled()) {
                 log.debug("Restoring revision: " + revision + " ...");
             }
-            byte[] snapshot = persistenceStore.load(executionPlanName, revision);
-            snapshotService.restore(snapshot);
+            Object snapshots = load(revision);
+            if (snapshots instanceof IncrementalSnapshot) {
+                LinkedList<IncrementalSnapshot> incrementalSnapshots = new LinkedList<IncrementalSnapshot>();
+                IncrementalSnapshot incrementalSnapshot = (IncrementalSnapshot) snapshots;
+                incrementalSnapshots.addFirst(incrementalSnapshot);
+                while (!incrementalSnapshot.isBase()) {
+                    String previousRevision = incrementalSnapshot.getPreviousRevision();
+                    incrementalSnapshot = (IncrementalSnapshot) load(previousRevision);
+                    if (incrementalSnapshot == null) {
+                        throw new ExecutionPlanRuntimeException("Cannot restore revision " + revision +
+                                " of execution plan " + executionPlanName + ", its previous revision " +
+                                previousRevision + " is not available");
+                    }
+                    incrementalSnapshots.addFirst(incrementalSnapshot);
+                }
+                snapshotService.restore(incrementalSnapshots);
+            } else {
+                snapshotService.restore((Map<String, Object>) snapshots);
+            }
+            //Changes are tracked against the restored state from the next base revision
+            baseRequired.set(true);
             if (log.isDebugEnabled()) {
                 log.debug("Restored revision: " + revision);
             }
@@ -78,6 +279,7 @@ public class PersistenceService {
         try {
             this.sharedLock.lock();
             if (persistenceStore != null) {
+                awaitSave(pendingSave);
                 String revision = persistenceStore.getLastRevision(executionPlanName);
                 if (revision != null) {
                     restoreRevision(revision);
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.persistence;
+
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * PersistenceStore the revisions are streamed to and from, so that a revision is never held as a whole in memory.
+ * The revisions are written segment by segment, one for the state of each element of the execution plan.
+ */
+public interface StreamingPersistenceStore extends PersistenceStore {
+
+    /**
+     * @param executionPlanId  execution plan identifier
+     * @param revision         revision to save
+     * @param previousRevision revision the saved revision is taken against, which is needed to restore it,
+     *                         null when the revision is restored on its own
+     * @return channel to write the revision to, which is saved when the channel is committed
+     */
+    public RevisionChannel openForSave(String executionPlanId, String revision, String previousRevision);
+
+    /**
+     * @param executionPlanId execution plan identifier
+     * @param revision        revision to load
+     * @return channel to read the revision from, null if the revision is not available
+     */
+    public ReadableByteChannel openForLoad(String executionPlanId, String revision);
+}
@@ -0,0 +1,837 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes the states in a compact binary form. Values are written with a one byte tag, integers and timestamps as
+ * variable length numbers and repeated strings as references to their first occurrence. Event chains are written
+ * with the layout of their data arrays once and the timestamps as differences to the previous event. Objects
+ * referred more than once are written once.
+ * <p/>
+ * The state of each element is encoded on its own; a state holding objects this codec does not know of is written
+ * with Java serialization as a whole. States encoded with Java serialization are decoded as well, hence revisions
+ * persisted before this codec was used can still be restored.
+ */
+public class BinaryStateCodec implements StateCodec {
+
+    private static final byte MAGIC_0 = 'S';
+    private static final byte MAGIC_1 = 'B';
+    private static final byte VERSION = 1;
+    private static final byte FLAG_COMPRESSED = 1;
+    private static final int HEADER_LENGTH = 4;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int STRING_REFERENCE = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int DOUBLE = 5;
+    private static final int FLOAT = 6;
+    private static final int TRUE = 7;
+    private static final int FALSE = 8;
+    private static final int SHORT = 9;
+    private static final int BYTE = 10;
+    private static final int CHARACTER = 11;
+    private static final int ENUM = 12;
+    private static final int REFERENCE = 13;
+    private static final int OBJECT_ARRAY = 14;
+    private static final int TYPED_ARRAY = 15;
+    private static final int BYTE_ARRAY = 16;
+    private static final int INT_ARRAY = 17;
+    private static final int LONG_ARRAY = 18;
+    private static final int DOUBLE_ARRAY = 19;
+    private static final int BOOLEAN_ARRAY = 20;
+    private static final int STREAM_EVENT = 21;
+    private static final int EVENT_CHUNK = 22;
+    private static final int ARRAY_LIST = 23;
+    private static final int LINKED_LIST = 24;
+    private static final int HASH_SET = 25;
+    private static final int LINKED_HASH_SET = 26;
+    private static final int HASH_MAP = 27;
+    private static final int LINKED_HASH_MAP = 28;
+    private static final int CONCURRENT_HASH_MAP = 29;
+    private static final int INCREMENTAL_SNAPSHOT = 30;
+    private static final int ELEMENT_MAP = 31;
+    private static final int ENCODED = 32;
+    private static final int SERIALIZED = 33;
+
+    private static final int CHAIN_END = 0;
+    private static final int CHAIN_NEXT = 1;
+    private static final int CHAIN_REFERENCE = 2;
+    private static final int LAYOUT_CHANGED = 4;
+
+    private final boolean compressed;
+
+    public BinaryStateCodec() {
+        this(false);
+    }
+
+    /**
+     * @param compressed whether to deflate the encoded states
+     */
+    public BinaryStateCodec(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    @Override
+    public byte[] encode(Object state) {
+        Output body = new Output();
+        if (state != null && state.getClass() == HashMap.class) {
+            //States of the elements of a snapshot are encoded one by one
+            Map<?, ?> elementStates = (Map<?, ?>) state;
+            body.writeByte(ELEMENT_MAP);
+            body.writeVarLong(elementStates.size());
+            for (Map.Entry<?, ?> entry : elementStates.entrySet()) {
+                writeElement(body, entry.getKey());
+                writeElement(body, entry.getValue());
+            }
+        } else {
+            writeElement(body, state);
+        }
+
+        Output output = new Output();
+        output.writeByte(MAGIC_0);
+        output.writeByte(MAGIC_1);
+        output.writeByte(VERSION);
+        if (compressed) {
+            output.writeByte(FLAG_COMPRESSED);
+            output.writeVarLong(body.size);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(body.bytes, 0, body.size);
+                deflater.finish();
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    int length = deflater.deflate(buffer);
+                    output.writeBytes(buffer, 0, length);
+                }
+            } finally {
+                deflater.end();
+            }
+        } else {
+            output.writeByte(0);
+            output.writeBytes(body.bytes, 0, body.size);
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] encodedState) {
+        if (encodedState == null) {
+            return null;
+        }
+        if (encodedState.length < HEADER_LENGTH || encodedState[0] != MAGIC_0 || encodedState[1] != MAGIC_1) {
+            //Encoded with Java serialization
+            return new JavaStateCodec().decode(encodedState);
+        }
+        if (encodedState[2] != VERSION) {
+            throw new ExecutionPlanRuntimeException("Cannot decode state of version " + encodedState[2]);
+        }
+        Input body;
+        if ((encodedState[3] & FLAG_COMPRESSED) != 0) {
+            Input header = new Input(encodedState, HEADER_LENGTH);
+            byte[] bytes = new byte[(int) header.readVarLong()];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(encodedState, header.position, encodedState.length - header.position);
+                int length = 0;
+                while (length < bytes.length && !inflater.finished()) {
+                    int inflated = inflater.inflate(bytes, length, bytes.length - length);
+                    if (inflated == 0 && inflater.needsInput()) {
+                        throw new ExecutionPlanRuntimeException("Encoded state is truncated");
+                    }
+                    length += inflated;
+                }
+            } catch (DataFormatException e) {
+                throw new ExecutionPlanRuntimeException("Cannot decompress state", e);
+            } finally {
+                inflater.end();
+            }
+            body = new Input(bytes, 0);
+        } else {
+            body = new Input(encodedState, HEADER_LENGTH);
+        }
+
+        if (body.bytes[body.position] == ELEMENT_MAP) {
+            body.position++;
+            int size = (int) body.readVarLong();
+            HashMap<Object, Object> elementStates = new HashMap<Object, Object>(size * 2);
+            for (int i = 0; i < size; i++) {
+                Object key = readElement(body);
+                elementStates.put(key, readElement(body));
+            }
+            return elementStates;
+        }
+        return readElement(body);
+    }
+
+    private static void writeElement(Output output, Object state) {
+        Encoder encoder = new Encoder();
+        try {
+            encoder.write(state);
+            output.writeByte(ENCODED);
+            output.writeVarLong(encoder.output.size);
+            output.writeBytes(encoder.output.bytes, 0, encoder.output.size);
+        } catch (NotEncodableException e) {
+            byte[] serializedState = new JavaStateCodec().encode(state);
+            output.writeByte(SERIALIZED);
+            output.writeVarLong(serializedState.length);
+            output.writeBytes(serializedState, 0, serializedState.length);
+        }
+    }
+
+    private static Object readElement(Input input) {
+        int tag = input.readByte();
+        int length = (int) input.readVarLong();
+        int end = input.position + length;
+        Object state;
+        if (tag == ENCODED) {
+            state = new Decoder(new Input(input.bytes, input.position)).read();
+        } else if (tag == SERIALIZED) {
+            byte[] serializedState = new byte[length];
+            System.arraycopy(input.bytes, input.position, serializedState, 0, length);
+            state = new JavaStateCodec().decode(serializedState);
+        } else {
+            throw new ExecutionPlanRuntimeException("Unknown element tag " + tag);
+        }
+        input.position = end;
+        return state;
+    }
+
+    private static class Encoder {
+
+        private final Output output = new Output();
+        private final IdentityHashMap<Object, Integer> references = new IdentityHashMap<Object, Integer>();
+        private final HashMap<String, Integer> strings = new HashMap<String, Integer>();
+
+        private void write(Object value) throws NotEncodableException {
+            if (value == null) {
+                output.writeByte(NULL);
+                return;
+            }
+            Class<?> type = value.getClass();
+            if (type == String.class) {
+                writeString((String) value);
+            } else if (type == Integer.class) {
+                output.writeByte(INT);
+                output.writeVarLong(zigZag((Integer) value));
+            } else if (type == Long.class) {
+                output.writeByte(LONG);
+                output.writeVarLong(zigZag((Long) value));
+            } else if (type == Double.class) {
+                output.writeByte(DOUBLE);
+                output.writeFixedLong(Double.doubleToLongBits((Double) value));
+            } else if (type == Float.class) {
+                output.writeByte(FLOAT);
+                output.writeFixedInt(Float.floatToIntBits((Float) value));
+            } else if (type == Boolean.class) {
+                output.writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (type == Short.class) {
+                output.writeByte(SHORT);
+                output.writeVarLong(zigZag((Short) value));
+            } else if (type == Byte.class) {
+                output.writeByte(BYTE);
+                output.writeByte((Byte) value);
+            } else if (type == Character.class) {
+                output.writeByte(CHARACTER);
+                output.writeVarLong((Character) value);
+            } else if (value instanceof Enum) {
+                output.writeByte(ENUM);
+                writeString(((Enum) value).getDeclaringClass().getName());
+                writeString(((Enum) value).name());
+            } else if (value instanceof DeferredState) {
+                write(((DeferredState) value).getValue());
+            } else {
+                Integer reference = references.get(value);
+                if (reference != null) {
+                    output.writeByte(REFERENCE);
+                    output.writeVarLong(reference);
+                    return;
+                }
+                writeObject(type, value);
+            }
+        }
+
+        private void writeObject(Class<?> type, Object value) throws NotEncodableException {
+            if (type == StreamEvent.class) {
+                output.writeByte(STREAM_EVENT);
+                writeStreamEvents((StreamEvent) value);
+            } else if (type == ComplexEventChunk.class) {
+                output.writeByte(EVENT_CHUNK);
+                reference(value);
+                write(((ComplexEventChunk) value).getFirst());
+            } else if (type.isArray()) {
+                writeArray(type, value);
+            } else if (type == ArrayList.class) {
+                writeCollection(ARRAY_LIST, (Collection<?>) value);
+            } else if (type == LinkedList.class) {
+                writeCollection(LINKED_LIST, (Collection<?>) value);
+            } else if (type == HashSet.class) {
+                writeCollection(HASH_SET, (Collection<?>) value);
+            } else if (type == LinkedHashSet.class) {
+                writeCollection(LINKED_HASH_SET, (Collection<?>) value);
+            } else if (type == HashMap.class) {
+                writeMap(HASH_MAP, (Map<?, ?>) value);
+            } else if (type == LinkedHashMap.class) {
+                writeMap(LINKED_HASH_MAP, (Map<?, ?>) value);
+            } else if (type == ConcurrentHashMap.class) {
+                writeMap(CONCURRENT_HASH_MAP, (Map<?, ?>) value);
+            } else if (type == IncrementalSnapshot.class) {
+                IncrementalSnapshot snapshot = (IncrementalSnapshot) value;
+                output.writeByte(INCREMENTAL_SNAPSHOT);
+                reference(value);
+                write(snapshot.getPreviousRevision());
+                write(snapshot.getStates());
+                write(snapshot.getIncrementalStates());
+            } else {
+                throw new NotEncodableException();
+            }
+        }
+
+        private void writeString(String value) {
+            Integer index = strings.get(value);
+            if (index != null) {
+                output.writeByte(STRING_REFERENCE);
+                output.writeVarLong(index);
+            } else {
+                strings.put(value, strings.size());
+                byte[] bytes = value.getBytes(UTF_8);
+                output.writeByte(STRING);
+                output.writeVarLong(bytes.length);
+                output.writeBytes(bytes, 0, bytes.length);
+            }
+        }
+
+        private void reference(Object value) {
+            references.put(value, references.size());
+        }
+
+        /**
+         * Write the event and the events chained after it till an event already written
+         */
+        private void writeStreamEvents(StreamEvent streamEvent) throws NotEncodableException {
+            int beforeWindowLength = -1;
+            int onAfterWindowLength = -1;
+            int outputLength = -1;
+            long previousTimestamp = 0;
+            while (true) {
+                reference(streamEvent);
+                Object[] beforeWindowData = streamEvent.getBeforeWindowData();
+                Object[] onAfterWindowData = streamEvent.getOnAfterWindowData();
+                Object[] outputData = streamEvent.getOutputData();
+                int header = streamEvent.getType().ordinal();
+                if (lengthOf(beforeWindowData) != beforeWindowLength ||
+                        lengthOf(onAfterWindowData) != onAfterWindowLength ||
+                        lengthOf(outputData) != outputLength) {
+                    beforeWindowLength = lengthOf(beforeWindowData);
+                    onAfterWindowLength = lengthOf(onAfterWindowData);
+                    outputLength = lengthOf(outputData);
+                    output.writeByte(header | LAYOUT_CHANGED);
+                    output.writeVarLong(beforeWindowLength + 1);
+                    output.writeVarLong(onAfterWindowLength + 1);
+                    output.writeVarLong(outputLength + 1);
+                } else {
+                    output.writeByte(header);
+                }
+                output.writeVarLong(zigZag(streamEvent.getTimestamp() - previousTimestamp));
+                previousTimestamp = streamEvent.getTimestamp();
+                writeValues(beforeWindowData);
+                writeValues(onAfterWindowData);
+                writeValues(outputData);
+
+                StreamEvent nextEvent = streamEvent.getNext();
+                if (nextEvent == null) {
+                    output.writeByte(CHAIN_END);
+                    return;
+                }
+                Integer reference = references.get(nextEvent);
+                if (reference != null) {
+                    output.writeByte(CHAIN_REFERENCE);
+                    output.writeVarLong(reference);
+                    return;
+                }
+                if (nextEvent.getClass() != StreamEvent.class) {
+                    throw new NotEncodableException();
+                }
+                output.writeByte(CHAIN_NEXT);
+                streamEvent = nextEvent;
+            }
+        }
+
+        private static int lengthOf(Object[] data) {
+            return data == null ? -1 : data.length;
+        }
+
+        private void writeValues(Object[] data) throws NotEncodableException {
+            if (data != null) {
+                for (Object value : data) {
+                    write(value);
+                }
+            }
+        }
+
+        private void writeArray(Class<?> type, Object array) throws NotEncodableException {
+            Class<?> componentType = type.getComponentType();
+            if (componentType == byte.class) {
+                byte[] values = (byte[]) array;
+                output.writeByte(BYTE_ARRAY);
+                reference(array);
+                output.writeVarLong(values.length);
+                output.writeBytes(values, 0, values.length);
+            } else if (componentType == int.class) {
+                int[] values = (int[]) array;
+                output.writeByte(INT_ARRAY);
+                reference(array);
+                output.writeVarLong(values.length);
+                for (int value : values) {
+                    output.writeVarLong(zigZag(value));
+                }
+            } else if (componentType == long.class) {
+                long[] values = (long[]) array;
+                output.writeByte(LONG_ARRAY);
+                reference(array);
+                output.writeVarLong(values.length);
+                for (long value : values) {
+                    output.writeVarLong(zigZag(value));
+                }
+            } else if (componentType == double.class) {
+                double[] values = (double[]) array;
+                output.writeByte(DOUBLE_ARRAY);
+                reference(array);
+                output.writeVarLong(values.length);
+                for (double value : values) {
+                    output.writeFixedLong(Double.doubleToLongBits(value));
+                }
+            } else if (componentType == boolean.class) {
+                boolean[] values = (boolean[]) array;
+                output.writeByte(BOOLEAN_ARRAY);
+                reference(array);
+                output.writeVarLong(values.length);
+                for (boolean value : values) {
+                    output.writeByte(value ? 1 : 0);
+                }
+            } else if (componentType.isPrimitive()) {
+                throw new NotEncodableException();
+            } else {
+                Object[] values = (Object[]) array;
+                if (componentType == Object.class) {
+                    output.writeByte(OBJECT_ARRAY);
+                } else {
+                    output.writeByte(TYPED_ARRAY);
+                    writeString(componentType.getName());
+                }
+                reference(array);
+                output.writeVarLong(values.length);
+                for (Object value : values) {
+                    write(value);
+                }
+            }
+        }
+
+        private void writeCollection(int tag, Collection<?> collection) throws NotEncodableException {
+            output.writeByte(tag);
+            reference(collection);
+            output.writeVarLong(collection.size());
+            for (Object element : collection) {
+                write(element);
+            }
+        }
+
+        private void writeMap(int tag, Map<?, ?> map) throws NotEncodableException {
+            output.writeByte(tag);
+            reference(map);
+            output.writeVarLong(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(entry.getKey());
+                write(entry.getValue());
+            }
+        }
+    }
+
+    private static class Decoder {
+
+        private final Input input;
+        private final List<Object> references = new ArrayList<Object>();
+        private final List<String> strings = new ArrayList<String>();
+
+        private Decoder(Input input) {
+            this.input = input;
+        }
+
+        private Object read() {
+            int tag = input.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                case STRING_REFERENCE:
+                    return readString(tag);
+                case INT:
+                    return (int) unZigZag(input.readVarLong());
+                case LONG:
+                    return unZigZag(input.readVarLong());
+                case DOUBLE:
+                    return Double.longBitsToDouble(input.readFixedLong());
+                case FLOAT:
+                    return Float.intBitsToFloat(input.readFixedInt());
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case SHORT:
+                    return (short) unZigZag(input.readVarLong());
+                case BYTE:
+                    return (byte) input.readByte();
+                case CHARACTER:
+                    return (char) input.readVarLong();
+                case ENUM:
+                    return readEnum();
+                case REFERENCE:
+                    return references.get((int) input.readVarLong());
+                case STREAM_EVENT:
+                    return readStreamEvents();
+                case EVENT_CHUNK: {
+                    ComplexEventChunk<ComplexEvent> eventChunk = new ComplexEventChunk<ComplexEvent>();
+                    references.add(eventChunk);
+                    ComplexEvent first = (ComplexEvent) read();
+                    if (first != null) {
+                        eventChunk.add(first);
+                    }
+                    return eventChunk;
+                }
+                case BYTE_ARRAY: {
+                    byte[] values = new byte[(int) input.readVarLong()];
+                    references.add(values);
+                    System.arraycopy(input.bytes, input.position, values, 0, values.length);
+                    input.position += values.length;
+                    return values;
+                }
+                case INT_ARRAY: {
+                    int[] values = new int[(int) input.readVarLong()];
+                    references.add(values);
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = (int) unZigZag(input.readVarLong());
+                    }
+                    return values;
+                }
+                case LONG_ARRAY: {
+                    long[] values = new long[(int) input.readVarLong()];
+                    references.add(values);
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = unZigZag(input.readVarLong());
+                    }
+                    return values;
+                }
+                case DOUBLE_ARRAY: {
+                    double[] values = new double[(int) input.readVarLong()];
+                    references.add(values);
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = Double.longBitsToDouble(input.readFixedLong());
+                    }
+                    return values;
+                }
+                case BOOLEAN_ARRAY: {
+                    boolean[] values = new boolean[(int) input.readVarLong()];
+                    references.add(values);
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = input.readByte() != 0;
+                    }
+                    return values;
+                }
+                case OBJECT_ARRAY:
+                    return readArray(Object.class);
+                case TYPED_ARRAY:
+                    return readArray(classOf(readString(input.readByte())));
+                case ARRAY_LIST: {
+                    int size = (int) input.readVarLong();
+                    return readCollection(new ArrayList<Object>(size), size);
+                }
+                case LINKED_LIST:
+                    return readCollection(new LinkedList<Object>(), (int) input.readVarLong());
+                case HASH_SET: {
+                    int size = (int) input.readVarLong();
+                    return readCollection(new HashSet<Object>(size * 2), size);
+                }
+                case LINKED_HASH_SET: {
+                    int size = (int) input.readVarLong();
+                    return readCollection(new LinkedHashSet<Object>(size * 2), size);
+                }
+                case HASH_MAP: {
+                    int size = (int) input.readVarLong();
+                    return readMap(new HashMap<Object, Object>(size * 2), size);
+                }
+                case LINKED_HASH_MAP: {
+                    int size = (int) input.readVarLong();
+                    return readMap(new LinkedHashMap<Object, Object>(size * 2), size);
+                }
+                case CONCURRENT_HASH_MAP: {
+                    int size = (int) input.readVarLong();
+                    return readMap(new ConcurrentHashMap<Object, Object>(size * 2), size);
+                }
+                case INCREMENTAL_SNAPSHOT: {
+                    int index = references.size();
+                    references.add(null);
+                    String previousRevision = (String) read();
+                    Map<String, byte[]> states = (Map<String, byte[]>) read();
+                    Map<String, byte[]> incrementalStates = (Map<String, byte[]>) read();
+                    IncrementalSnapshot snapshot = new IncrementalSnapshot(previousRevision, states,
+                            incrementalStates);
+                    references.set(index, snapshot);
+                    return snapshot;
+                }
+                default:
+                    throw new ExecutionPlanRuntimeException("Unknown state tag " + tag);
+            }
+        }
+
+        private String readString(int tag) {
+            if (tag == STRING_REFERENCE) {
+                return strings.get((int) input.readVarLong());
+            }
+            int length = (int) input.readVarLong();
+            String value = new String(input.bytes, input.position, length, UTF_8);
+            input.position += length;
+            strings.add(value);
+            return value;
+        }
+
+        private Object readEnum() {
+            Class enumType = classOf(readString(input.readByte()));
+            return Enum.valueOf(enumType, readString(input.readByte()));
+        }
+
+        private Class<?> classOf(String className) {
+            try {
+                return Class.forName(className, false, BinaryStateCodec.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new ExecutionPlanRuntimeException("Cannot find class " + className + " of the state", e);
+            }
+        }
+
+        private StreamEvent readStreamEvents() {
+            int beforeWindowLength = -1;
+            int onAfterWindowLength = -1;
+            int outputLength = -1;
+            long previousTimestamp = 0;
+            StreamEvent firstEvent = null;
+            StreamEvent previousEvent = null;
+            while (true) {
+                StreamEvent streamEvent = new StreamEvent(0, 0, 0);
+                references.add(streamEvent);
+                if (previousEvent == null) {
+                    firstEvent = streamEvent;
+                } else {
+                    previousEvent.setNext(streamEvent);
+                }
+                int header = input.readByte();
+                if ((header & LAYOUT_CHANGED) != 0) {
+                    beforeWindowLength = (int) input.readVarLong() - 1;
+                    onAfterWindowLength = (int) input.readVarLong() - 1;
+                    outputLength = (int) input.readVarLong() - 1;
+                }
+                streamEvent.setType(ComplexEvent.Type.values()[header & 3]);
+                previousTimestamp += unZigZag(input.readVarLong());
+                streamEvent.setTimestamp(previousTimestamp);
+                streamEvent.setBeforeWindowData(readValues(beforeWindowLength));
+                streamEvent.setOnAfterWindowData(readValues(onAfterWindowLength));
+                streamEvent.setOutputData(readValues(outputLength));
+
+                int chain = input.readByte();
+                if (chain == CHAIN_END) {
+                    return firstEvent;
+                } else if (chain == CHAIN_REFERENCE) {
+                    streamEvent.setNext((StreamEvent) references.get((int) input.readVarLong()));
+                    return firstEvent;
+                }
+                previousEvent = streamEvent;
+            }
+        }
+
+        private Object[] readValues(int length) {
+            if (length < 0) {
+                return null;
+            }
+            Object[] data = new Object[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = read();
+            }
+            return data;
+        }
+
+        private Object[] readArray(Class<?> componentType) {
+            Object[] values = (Object[]) java.lang.reflect.Array.newInstance(componentType,
+                    (int) input.readVarLong());
+            references.add(values);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = read();
+            }
+            return values;
+        }
+
+        private Collection<Object> readCollection(Collection<Object> collection, int size) {
+            references.add(collection);
+            for (int i = 0; i < size; i++) {
+                collection.add(read());
+            }
+            return collection;
+        }
+
+        private Map<Object, Object> readMap(Map<Object, Object> map, int size) {
+            references.add(map);
+            for (int i = 0; i < size; i++) {
+                Object key = read();
+                map.put(key, read());
+            }
+            return map;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Output {
+
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        private void ensureCapacity(int length) {
+            if (size + length > bytes.length) {
+                byte[] newBytes = new byte[Math.max(bytes.length << 1, size + length)];
+                System.arraycopy(bytes, 0, newBytes, 0, size);
+                bytes = newBytes;
+            }
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] values, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(values, offset, bytes, size, length);
+            size += length;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeFixedInt(int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeFixedLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        private byte[] toByteArray() {
+            byte[] result = new byte[size];
+            System.arraycopy(bytes, 0, result, 0, size);
+            return result;
+        }
+    }
+
+    private static class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private int readByte() {
+            return bytes[position++] & 0xFF;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                int b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+
+        private int readFixedInt() {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private long readFixedLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+    }
+
+    private static class NotEncodableException extends Exception {
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
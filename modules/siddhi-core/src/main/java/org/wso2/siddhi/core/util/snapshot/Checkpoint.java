@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * States of the elements of an execution plan captured at once while processing was held. Each state is either
+ * the element's state frozen by {@link StateCopier}, copied when the checkpoint is serialized, or when the state
+ * cannot be copied its serialized form, so that the checkpoint can be serialized while processing goes on.
+ * A checkpoint is to be released through {@link #release()} once it is serialized or discarded.
+ */
+public class Checkpoint {
+
+    private final boolean incremental;
+    private final String previousRevision;
+    private final Map<String, Object> states = new HashMap<String, Object>();
+    private final Map<String, Object> baseStates = new HashMap<String, Object>();
+    private final Map<String, Object> incrementalStates = new HashMap<String, Object>();
+    private final List<DeferredState> deferredStates = new ArrayList<DeferredState>();
+    private long pauseTime;
+
+    Checkpoint(boolean incremental, String previousRevision) {
+        this.incremental = incremental;
+        this.previousRevision = previousRevision;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @return revision the incremental checkpoint is taken against, null for a base or a full checkpoint
+     */
+    public String getPreviousRevision() {
+        return previousRevision;
+    }
+
+    /**
+     * @return time processing was held to capture the states, in nanoseconds
+     */
+    public long getPauseTime() {
+        return pauseTime;
+    }
+
+    void setPauseTime(long pauseTime) {
+        this.pauseTime = pauseTime;
+    }
+
+    /**
+     * States of the elements, which are persisted whole in each incremental revision when they are not
+     * {@link IncrementalSnapshotable}s
+     */
+    Map<String, Object> getStates() {
+        return states;
+    }
+
+    /**
+     * Whole states of the {@link IncrementalSnapshotable}s
+     */
+    Map<String, Object> getBaseStates() {
+        return baseStates;
+    }
+
+    /**
+     * Changes of the states of the {@link IncrementalSnapshotable}s, null for the ones that have not changed
+     */
+    Map<String, Object> getIncrementalStates() {
+        return incrementalStates;
+    }
+
+    /**
+     * {@link DeferredState}s the frozen states refer to
+     */
+    List<DeferredState> getDeferredStates() {
+        return deferredStates;
+    }
+
+    /**
+     * Releases the {@link DeferredState}s of the checkpoint, whether or not it was serialized. The checkpoint
+     * cannot be serialized afterwards.
+     */
+    public void release() {
+        for (DeferredState deferredState : deferredStates) {
+            deferredState.release();
+        }
+        deferredStates.clear();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ * Part of a state whose value is only given when the state is serialized, so that capturing a checkpoint does not
+ * load it while processing is held. Checkpoints refer to it instead of copying it, hence the value it gives should
+ * not change. Codecs serialize the value in its place, as Java serialization does through {@link #writeReplace()}.
+ * Once the checkpoint is serialized or discarded the state is released through {@link #release()}.
+ */
+public abstract class DeferredState implements Serializable {
+
+    /**
+     * @return the value serialized in place of this state
+     */
+    public abstract Object getValue();
+
+    /**
+     * Releases what is held to give the value, the value is no longer given afterwards
+     */
+    public void release() {
+    }
+
+    protected Object writeReplace() throws ObjectStreamException {
+        return getValue();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+
+/**
+ * Tracks the events added to the tail and removed from the head of an event chunk, so that the changes of the
+ * chunk since the last base or incremental state can be given as the number of events removed from its head and
+ * the events added to its tail.
+ */
+public class EventChunkChangeTracker {
+
+    private int size;
+    private int baseSize;
+    private int removedCount;
+
+    public void added() {
+        size++;
+    }
+
+    public void removed() {
+        size--;
+        removedCount++;
+    }
+
+    /**
+     * Take the current events of the chunk as the base of the next incremental state
+     */
+    public void base() {
+        baseSize = size;
+        removedCount = 0;
+    }
+
+    /**
+     * @param eventChunk tracked chunk
+     * @return number of events removed from the head of the chunk and the first of the events added since the
+     * last base or incremental state, chained to the others
+     */
+    public Object[] incrementalState(ComplexEventChunk<StreamEvent> eventChunk) {
+        int removed = Math.min(removedCount, baseSize);
+        StreamEvent firstAddedEvent = eventChunk.getFirst();
+        for (int i = baseSize - removed; i > 0 && firstAddedEvent != null; i--) {
+            firstAddedEvent = firstAddedEvent.getNext();
+        }
+        base();
+        return new Object[]{removed, firstAddedEvent};
+    }
+
+    /**
+     * @param eventChunk restored chunk
+     */
+    public void restoreState(ComplexEventChunk<StreamEvent> eventChunk) {
+        size = 0;
+        for (StreamEvent streamEvent = eventChunk.getFirst(); streamEvent != null; streamEvent = streamEvent.getNext()) {
+            size++;
+        }
+        base();
+    }
+
+    /**
+     * @param eventChunk       restored chunk
+     * @param incrementalState changes given by {@link #incrementalState(ComplexEventChunk)}
+     */
+    public void restoreIncrementalState(ComplexEventChunk<StreamEvent> eventChunk, Object[] incrementalState) {
+        for (int removed = (Integer) incrementalState[0]; removed > 0; removed--) {
+            eventChunk.poll();
+            size--;
+        }
+        StreamEvent firstAddedEvent = (StreamEvent) incrementalState[1];
+        if (firstAddedEvent != null) {
+            for (StreamEvent streamEvent = firstAddedEvent; streamEvent != null; streamEvent = streamEvent.getNext()) {
+                size++;
+            }
+            eventChunk.add(firstAddedEvent);
+        }
+        base();
+    }
+}
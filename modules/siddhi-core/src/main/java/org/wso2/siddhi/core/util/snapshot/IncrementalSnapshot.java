@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Serialized states of the elements of an execution plan persisted incrementally. A base snapshot holds the
+ * state of all the elements, the others hold the states of the elements changed since the previous revision and
+ * the changes given by the {@link IncrementalSnapshotable}s.
+ */
+public class IncrementalSnapshot implements Serializable {
+
+    private final String previousRevision;
+    private final Map<String, byte[]> states;
+    private final Map<String, byte[]> incrementalStates;
+    private transient Map<String, Object[]> decodedStates;
+    private transient Map<String, Object[]> decodedIncrementalStates;
+
+    /**
+     * @param previousRevision  revision the changes are taken against, null for a base snapshot
+     * @param states            serialized states by element id
+     * @param incrementalStates serialized changes of the states by element id
+     */
+    public IncrementalSnapshot(String previousRevision, Map<String, byte[]> states,
+                               Map<String, byte[]> incrementalStates) {
+        this.previousRevision = previousRevision;
+        this.states = states;
+        this.incrementalStates = incrementalStates;
+    }
+
+    /**
+     * @param decodedStates            decoded states by element id
+     * @param decodedIncrementalStates decoded changes of the states by element id
+     * @return snapshot whose states are decoded as they are read, see {@link #isDecoded()}
+     */
+    static IncrementalSnapshot decoded(String previousRevision, Map<String, Object[]> decodedStates,
+                                       Map<String, Object[]> decodedIncrementalStates) {
+        IncrementalSnapshot snapshot = new IncrementalSnapshot(previousRevision, null, null);
+        snapshot.decodedStates = decodedStates;
+        snapshot.decodedIncrementalStates = decodedIncrementalStates;
+        return snapshot;
+    }
+
+    /**
+     * @return true when the snapshot holds decoded states instead of serialized ones
+     */
+    boolean isDecoded() {
+        return decodedStates != null;
+    }
+
+    Map<String, Object[]> getDecodedStates() {
+        return decodedStates;
+    }
+
+    Map<String, Object[]> getDecodedIncrementalStates() {
+        return decodedIncrementalStates;
+    }
+
+    public boolean isBase() {
+        return previousRevision == null;
+    }
+
+    public String getPreviousRevision() {
+        return previousRevision;
+    }
+
+    public Map<String, byte[]> getStates() {
+        return states;
+    }
+
+    public Map<String, byte[]> getIncrementalStates() {
+        return incrementalStates;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+/**
+ * Snapshotable that can give the changes of its state since the last base or incremental state was taken,
+ * instead of its whole state, when the execution plan is persisted incrementally.
+ */
+public interface IncrementalSnapshotable extends Snapshotable {
+
+    /**
+     * @return the whole state of the element as in {@link #currentState()}, taken as the base of the next
+     * incremental state
+     */
+    public Object[] baseState();
+
+    /**
+     * @return the changes of the state since the last base or incremental state was taken, null when the state
+     * has not changed
+     */
+    public Object[] incrementalState();
+
+    /**
+     * Apply the changes given by {@link #incrementalState()} on the restored state
+     *
+     * @param incrementalState the changes of the state
+     */
+    public void restoreIncrementalState(Object[] incrementalState);
+}
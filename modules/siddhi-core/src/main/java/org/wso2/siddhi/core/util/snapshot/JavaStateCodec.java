@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
+
+/**
+ * Encodes the states with Java serialization
+ */
+public class JavaStateCodec implements StateCodec {
+
+    @Override
+    public byte[] encode(Object state) {
+        byte[] encodedState = ByteSerializer.OToB(state);
+        if (encodedState == null && state != null) {
+            throw new ExecutionPlanRuntimeException("Cannot serialize state " + state.getClass().getName());
+        }
+        return encodedState;
+    }
+
+    @Override
+    public Object decode(byte[] encodedState) {
+        Object state = ByteSerializer.BToO(encodedState);
+        if (state == null && encodedState != null) {
+            throw new ExecutionPlanRuntimeException("Cannot deserialize state");
+        }
+        return state;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+
+/**
+ * Streamed form of an {@link IncrementalSnapshot}: a header with the previous revision followed by one segment
+ * for the serialized state of each element. Full snapshots are streamed as base snapshots.
+ */
+final class SnapshotSegments {
+
+    private static final byte MAGIC_0 = 'S';
+    private static final byte MAGIC_1 = 'S';
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = 4;
+    private static final int BUFFER_SIZE = 65536;
+
+    private static final int END = 0;
+    private static final int STATE = 1;
+    private static final int INCREMENTAL_STATE = 2;
+
+    private SnapshotSegments() {
+    }
+
+    /**
+     * Receives the serialized states of the elements
+     */
+    interface StateWriter {
+
+        void writeState(String elementId, byte[] state) throws IOException;
+
+        void writeIncrementalState(String elementId, byte[] incrementalState) throws IOException;
+    }
+
+    static class Writer implements StateWriter {
+
+        private final DataOutputStream outputStream;
+
+        /**
+         * @param channel          channel to write the segments to, left open
+         * @param previousRevision revision the snapshot is taken against, null for a base or a full snapshot
+         */
+        Writer(WritableByteChannel channel, String previousRevision) throws IOException {
+            outputStream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel),
+                    BUFFER_SIZE));
+            outputStream.writeByte(MAGIC_0);
+            outputStream.writeByte(MAGIC_1);
+            outputStream.writeByte(VERSION);
+            outputStream.writeByte(0);
+            outputStream.writeBoolean(previousRevision != null);
+            if (previousRevision != null) {
+                outputStream.writeUTF(previousRevision);
+            }
+        }
+
+        @Override
+        public void writeState(String elementId, byte[] state) throws IOException {
+            writeSegment(STATE, elementId, state);
+        }
+
+        @Override
+        public void writeIncrementalState(String elementId, byte[] incrementalState) throws IOException {
+            writeSegment(INCREMENTAL_STATE, elementId, incrementalState);
+        }
+
+        private void writeSegment(int type, String elementId, byte[] state) throws IOException {
+            outputStream.writeByte(type);
+            outputStream.writeUTF(elementId);
+            outputStream.writeInt(state.length);
+            outputStream.write(state);
+        }
+
+        /**
+         * Ends the segments and flushes them to the channel
+         */
+        void finish() throws IOException {
+            outputStream.writeByte(END);
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * @param channel    channel to read the snapshot from, left open
+     * @param stateCodec codec to decode snapshots not written as segments
+     * @return the {@link IncrementalSnapshot} read, its states decoded segment by segment, or the decoded
+     * snapshot when it is not written as segments
+     */
+    static Object read(ReadableByteChannel channel, StateCodec stateCodec) throws IOException {
+        InputStream inputStream = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+        byte[] header = new byte[HEADER_LENGTH];
+        int headerLength = readFully(inputStream, header);
+        if (headerLength < HEADER_LENGTH || header[0] != MAGIC_0 || header[1] != MAGIC_1) {
+            //Snapshot saved as a whole
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            outputStream.write(header, 0, headerLength);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int length;
+            while ((length = inputStream.read(buffer)) > 0) {
+                outputStream.write(buffer, 0, length);
+            }
+            return stateCodec.decode(outputStream.toByteArray());
+        }
+        if (header[2] != VERSION) {
+            throw new IOException("Cannot read snapshot segments of version " + header[2]);
+        }
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+        String previousRevision = dataInputStream.readBoolean() ? dataInputStream.readUTF() : null;
+        HashMap<String, Object[]> states = new HashMap<String, Object[]>();
+        HashMap<String, Object[]> incrementalStates = new HashMap<String, Object[]>();
+        while (true) {
+            int type = dataInputStream.readByte();
+            if (type == END) {
+                return IncrementalSnapshot.decoded(previousRevision, states, incrementalStates);
+            }
+            String elementId = dataInputStream.readUTF();
+            if (type != STATE && type != INCREMENTAL_STATE) {
+                throw new IOException("Unknown snapshot segment type " + type);
+            }
+            //Each segment is decoded before the next one is read, so only one serialized state is held at a time
+            byte[] state = new byte[dataInputStream.readInt()];
+            dataInputStream.readFully(state);
+            Object[] decodedState;
+            try {
+                decodedState = (Object[]) stateCodec.decode(state);
+            } catch (ExecutionPlanRuntimeException e) {
+                throw new ExecutionPlanRuntimeException("Cannot deserialize the state of element '" + elementId +
+                        "'", e);
+            }
+            if (type == STATE) {
+                states.put(elementId, decodedState);
+            } else {
+                incrementalStates.put(elementId, decodedState);
+            }
+        }
+    }
+
+    private static int readFully(InputStream inputStream, byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            int read = inputStream.read(bytes, offset, bytes.length - offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+        return offset;
+    }
+}
@@ -17,56 +17,426 @@ package org.wso2.siddhi.core.util.snapshot;
 
 import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.ExecutionPlanContext;
+import org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class SnapshotService {
 
 
     private static final Logger log = Logger.getLogger(SnapshotService.class);
     private List<Snapshotable> snapshotableList = new ArrayList<Snapshotable>();
+    private final ThreadLocal<List<Snapshotable>> collectedSnapshotables = new ThreadLocal<List<Snapshotable>>();
     private ExecutionPlanContext executionPlanContext;
+    private Set<String> incrementalElementIds = new HashSet<String>();
 
     public SnapshotService(ExecutionPlanContext executionPlanContext) {
         this.executionPlanContext = executionPlanContext;
     }
 
     public void addSnapshotable(Snapshotable snapshotable) {
-        snapshotableList.add(snapshotable);
+        //Partition instances are created concurrently, hence the list is guarded by itself
+        synchronized (snapshotableList) {
+            snapshotableList.add(snapshotable);
+        }
+        List<Snapshotable> collected = collectedSnapshotables.get();
+        if (collected != null) {
+            collected.add(snapshotable);
+        }
+    }
+
+    public void removeSnapshotables(Collection<Snapshotable> snapshotables) {
+        synchronized (snapshotableList) {
+            snapshotableList.removeAll(new HashSet<Snapshotable>(snapshotables));
+        }
+    }
+
+    /**
+     * Collects the Snapshotables added by the current thread till {@link #stopCollecting()} is called,
+     * in the order they are added
+     */
+    public void startCollecting() {
+        collectedSnapshotables.set(new ArrayList<Snapshotable>());
+    }
+
+    public List<Snapshotable> stopCollecting() {
+        List<Snapshotable> collected = collectedSnapshotables.get();
+        collectedSnapshotables.remove();
+        return collected;
     }
 
     public byte[] snapshot() {
-        HashMap<String, Object[]> snapshots = new HashMap<String, Object[]>(snapshotableList.size());
+        Checkpoint checkpoint = checkpoint(false, null);
+        try {
+            return serialize(checkpoint);
+        } finally {
+            checkpoint.release();
+        }
+    }
+
+    public void restore(byte[] snapshot) {
+        restore((Map<String, Object>) getStateCodec().decode(snapshot));
+    }
+
+    /**
+     * @param snapshots states by element id, states serialized as a whole by {@link #serialize(Checkpoint)} are
+     *                  decoded before processing is held
+     */
+    public void restore(Map<String, ?> snapshots) {
+        HashMap<String, Object[]> states = new HashMap<String, Object[]>(snapshots.size() * 2);
+        for (Map.Entry<String, ?> entry : snapshots.entrySet()) {
+            Object state = entry.getValue();
+            states.put(entry.getKey(), state instanceof byte[] ? decode(entry.getKey(), (byte[]) state) :
+                    (Object[]) state);
+        }
+        try {
+            this.executionPlanContext.getSharedLock().lock();
+            synchronized (snapshotableList) {
+                for (Snapshotable snapshotable : snapshotableList) {
+                    snapshotable.restoreState(states.get(snapshotable.getElementId()));
+                }
+            }
+        } finally {
+            executionPlanContext.getSharedLock().unlock();
+        }
+    }
+
+    /**
+     * Take the states of the elements changed since the previous incremental snapshot, all the elements are taken
+     * when there is no previous snapshot
+     *
+     * @param previousRevision revision of the previous incremental snapshot, null to take a base snapshot
+     * @return serialized {@link IncrementalSnapshot}
+     */
+    public byte[] incrementalSnapshot(String previousRevision) {
+        Checkpoint checkpoint = checkpoint(true, previousRevision);
+        try {
+            return serialize(checkpoint);
+        } finally {
+            checkpoint.release();
+        }
+    }
+
+    /**
+     * Capture the states of the elements while processing is held. Processing is only held while the states are
+     * frozen, they are copied and serialized by {@link #serialize(Checkpoint)} afterwards. The checkpoint is to be
+     * released through {@link Checkpoint#release()} once it is serialized or discarded.
+     *
+     * @param incremental      whether to capture only the changes of the {@link IncrementalSnapshotable}s
+     * @param previousRevision revision of the previous incremental checkpoint, null to capture a base checkpoint
+     * @return captured states
+     */
+    public Checkpoint checkpoint(boolean incremental, String previousRevision) {
+        Checkpoint checkpoint = new Checkpoint(incremental, incremental ? previousRevision : null);
         log.info("Taking snapshot ...");
         try {
             executionPlanContext.getSharedLock().lock();
-            for (Snapshotable snapshotable : snapshotableList) {
-                snapshots.put(snapshotable.getElementId(), snapshotable.currentState());
+            long startTime = System.nanoTime();
+            synchronized (snapshotableList) {
+                Set<String> elementIds = new HashSet<String>();
+                for (Snapshotable snapshotable : snapshotableList) {
+                    String elementId = snapshotable.getElementId();
+                    if (incremental && snapshotable instanceof IncrementalSnapshotable) {
+                        IncrementalSnapshotable incrementalSnapshotable = (IncrementalSnapshotable) snapshotable;
+                        if (previousRevision != null && incrementalElementIds.contains(elementId)) {
+                            checkpoint.getIncrementalStates().put(elementId, capture(checkpoint, elementId,
+                                    incrementalSnapshotable.incrementalState()));
+                        } else {
+                            checkpoint.getBaseStates().put(elementId, capture(checkpoint, elementId,
+                                    incrementalSnapshotable.baseState()));
+                        }
+                        elementIds.add(elementId);
+                    } else {
+                        checkpoint.getStates().put(elementId, capture(checkpoint, elementId,
+                                snapshotable.currentState()));
+                    }
+                }
+                if (incremental) {
+                    incrementalElementIds = elementIds;
+                }
             }
+            checkpoint.setPauseTime(System.nanoTime() - startTime);
+        } catch (RuntimeException e) {
+            checkpoint.release();
+            throw e;
         } finally {
             executionPlanContext.getSharedLock().unlock();
         }
         log.info("Taking snapshot finished.");
+        return checkpoint;
+    }
 
+    /**
+     * Serialize a captured checkpoint, incremental checkpoints should be serialized in the order they were captured
+     *
+     * @param checkpoint captured states
+     * @return serialized snapshot
+     */
+    public byte[] serialize(Checkpoint checkpoint) {
         log.info("Snapshot serialization started ...");
-        byte[] serializedSnapshots = ByteSerializer.OToB(snapshots);
+        byte[] serializedSnapshots;
+        if (!checkpoint.isIncremental()) {
+            //States serialized when captured are written as they are, and decoded when restored
+            HashMap<String, Object> snapshots = new HashMap<String, Object>(checkpoint.getStates().size() * 2);
+            for (Map.Entry<String, Object> entry : checkpoint.getStates().entrySet()) {
+                Object state = entry.getValue();
+                snapshots.put(entry.getKey(), state == null || state instanceof byte[] ? state :
+                        StateCopier.thaw(state));
+            }
+            serializedSnapshots = getStateCodec().encode(snapshots);
+        } else {
+            final HashMap<String, byte[]> states = new HashMap<String, byte[]>();
+            final HashMap<String, byte[]> incrementalStates = new HashMap<String, byte[]>();
+            try {
+                writeIncrementalStates(checkpoint, new SnapshotSegments.StateWriter() {
+                    @Override
+                    public void writeState(String elementId, byte[] state) {
+                        states.put(elementId, state);
+                    }
+
+                    @Override
+                    public void writeIncrementalState(String elementId, byte[] incrementalState) {
+                        incrementalStates.put(elementId, incrementalState);
+                    }
+                });
+            } catch (IOException e) {
+                throw new ExecutionPlanRuntimeException("Cannot serialize the snapshot", e);
+            }
+            serializedSnapshots = getStateCodec().encode(new IncrementalSnapshot(checkpoint.getPreviousRevision(),
+                    states, incrementalStates));
+        }
         log.info("Snapshot serialization finished.");
         return serializedSnapshots;
+    }
 
+    /**
+     * Serialize a captured checkpoint to a channel, the state of each element is written as its own segment so
+     * that the snapshot is never held as a whole. Incremental checkpoints should be serialized in the order they
+     * were captured.
+     *
+     * @param checkpoint captured states
+     * @param channel    channel to write the snapshot to, left open
+     */
+    public void serialize(Checkpoint checkpoint, WritableByteChannel channel) {
+        log.info("Snapshot serialization started ...");
+        try {
+            SnapshotSegments.Writer writer = new SnapshotSegments.Writer(channel, checkpoint.getPreviousRevision());
+            if (!checkpoint.isIncremental()) {
+                for (Map.Entry<String, Object> entry : checkpoint.getStates().entrySet()) {
+                    Object state = entry.getValue();
+                    writer.writeState(entry.getKey(), state == null ? getStateCodec().encode(null) :
+                            toBytes(entry.getKey(), state));
+                }
+            } else {
+                writeIncrementalStates(checkpoint, writer);
+            }
+            writer.finish();
+        } catch (IOException e) {
+            throw new ExecutionPlanRuntimeException("Cannot write the snapshot, " + e.getMessage(), e);
+        }
+        log.info("Snapshot serialization finished.");
     }
 
-    public void restore(byte[] snapshot) {
-        HashMap<String, Object[]> snapshots = (HashMap<String, Object[]>) ByteSerializer.BToO(snapshot);
+    /**
+     * @param channel channel to read a snapshot written by {@link #serialize(Checkpoint, WritableByteChannel)} or
+     *                a serialized snapshot from, left open
+     * @return the {@link IncrementalSnapshot}, or the snapshot when it is serialized as a whole
+     */
+    public Object deserialize(ReadableByteChannel channel) {
+        try {
+            return SnapshotSegments.read(channel, getStateCodec());
+        } catch (IOException e) {
+            throw new ExecutionPlanRuntimeException("Cannot read the snapshot, " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the states of the elements and the changes of the {@link IncrementalSnapshotable}s, skipping the ones
+     * that have not changed since the previous revision
+     */
+    private void writeIncrementalStates(Checkpoint checkpoint, SnapshotSegments.StateWriter writer)
+            throws IOException {
+        for (Map.Entry<String, Object> entry : checkpoint.getStates().entrySet()) {
+            if (entry.getValue() != null) {
+                writer.writeState(entry.getKey(), toBytes(entry.getKey(), entry.getValue()));
+            }
+        }
+        for (Map.Entry<String, Object> entry : checkpoint.getBaseStates().entrySet()) {
+            writer.writeState(entry.getKey(), toBytes(entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<String, Object> entry : checkpoint.getIncrementalStates().entrySet()) {
+            if (entry.getValue() != null) {
+                writer.writeIncrementalState(entry.getKey(), toBytes(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Restore a base snapshot and the incremental snapshots taken after it, in the order they were taken. Elements
+     * without a state in a snapshot are left as they are.
+     *
+     * @param snapshots base snapshot followed by its incremental snapshots
+     */
+    public void restore(List<IncrementalSnapshot> snapshots) {
+        //States are decoded before processing is held
+        List<Map<String, byte[]>> serializedStates = new ArrayList<Map<String, byte[]>>(snapshots.size() * 2);
+        for (IncrementalSnapshot snapshot : snapshots) {
+            if (!snapshot.isDecoded()) {
+                serializedStates.add(snapshot.getStates());
+                serializedStates.add(snapshot.getIncrementalStates());
+            }
+        }
+        Iterator<Map<String, Object[]>> serializedDecodedStates = decode(serializedStates).iterator();
+        List<Map<String, Object[]>> decodedStates = new ArrayList<Map<String, Object[]>>(snapshots.size() * 2);
+        for (IncrementalSnapshot snapshot : snapshots) {
+            if (snapshot.isDecoded()) {
+                decodedStates.add(snapshot.getDecodedStates());
+                decodedStates.add(snapshot.getDecodedIncrementalStates());
+            } else {
+                decodedStates.add(serializedDecodedStates.next());
+                decodedStates.add(serializedDecodedStates.next());
+            }
+        }
         try {
             this.executionPlanContext.getSharedLock().lock();
-            for (Snapshotable snapshotable : snapshotableList) {
-                snapshotable.restoreState(snapshots.get(snapshotable.getElementId()));
+            synchronized (snapshotableList) {
+                //Restoring partitions adds the elements of their instances to the list
+                for (int j = 0; j < snapshots.size(); j++) {
+                    Map<String, Object[]> states = decodedStates.get(j * 2);
+                    Map<String, Object[]> incrementalStates = decodedStates.get(j * 2 + 1);
+                    for (int i = 0; i < snapshotableList.size(); i++) {
+                        Snapshotable snapshotable = snapshotableList.get(i);
+                        if (states.containsKey(snapshotable.getElementId())) {
+                            snapshotable.restoreState(states.get(snapshotable.getElementId()));
+                            continue;
+                        }
+                        if (incrementalStates.containsKey(snapshotable.getElementId())) {
+                            ((IncrementalSnapshotable) snapshotable).restoreIncrementalState(
+                                    incrementalStates.get(snapshotable.getElementId()));
+                        }
+                    }
+                }
+                incrementalElementIds = new HashSet<String>();
             }
         } finally {
             executionPlanContext.getSharedLock().unlock();
         }
     }
 
+    /**
+     * Decode the serialized states, in parallel on the executor of the execution plan when there are several
+     *
+     * @param serializedStates serialized states by element id
+     * @return decoded states by element id, in the same order
+     */
+    private List<Map<String, Object[]>> decode(List<Map<String, byte[]>> serializedStates) {
+        final List<String> elementIds = new ArrayList<String>();
+        final List<byte[]> states = new ArrayList<byte[]>();
+        List<Integer> stateCounts = new ArrayList<Integer>(serializedStates.size());
+        for (Map<String, byte[]> stateMap : serializedStates) {
+            for (Map.Entry<String, byte[]> entry : stateMap.entrySet()) {
+                elementIds.add(entry.getKey());
+                states.add(entry.getValue());
+            }
+            stateCounts.add(stateMap.size());
+        }
+
+        final Object[][] decodedStates = new Object[states.size()][];
+        ExecutorService executorService = executionPlanContext.getExecutorService();
+        final int tasks = executorService == null ? 1 :
+                Math.min(states.size(), Runtime.getRuntime().availableProcessors());
+        if (tasks <= 1) {
+            for (int i = 0; i < states.size(); i++) {
+                decodedStates[i] = decode(elementIds.get(i), states.get(i));
+            }
+        } else {
+            List<Future<?>> futures = new ArrayList<Future<?>>(tasks);
+            for (int task = 0; task < tasks; task++) {
+                final int firstIndex = task;
+                futures.add(executorService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = firstIndex; i < decodedStates.length; i += tasks) {
+                            decodedStates[i] = decode(elementIds.get(i), states.get(i));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ExecutionPlanRuntimeException("Interrupted while decoding the snapshot", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new ExecutionPlanRuntimeException(e.getCause().getMessage(), e.getCause());
+                }
+            }
+        }
+
+        List<Map<String, Object[]>> decodedStateMaps = new ArrayList<Map<String, Object[]>>(stateCounts.size());
+        int index = 0;
+        for (int stateCount : stateCounts) {
+            Map<String, Object[]> decodedStateMap = new HashMap<String, Object[]>(stateCount * 2);
+            for (int i = 0; i < stateCount; i++, index++) {
+                decodedStateMap.put(elementIds.get(index), decodedStates[index]);
+            }
+            decodedStateMaps.add(decodedStateMap);
+        }
+        return decodedStateMaps;
+    }
+
+    private Object[] decode(String elementId, byte[] state) {
+        try {
+            return (Object[]) getStateCodec().decode(state);
+        } catch (ExecutionPlanRuntimeException e) {
+            throw new ExecutionPlanRuntimeException("Cannot deserialize the state of element '" + elementId + "'", e);
+        }
+    }
+
+    /**
+     * @return frozen state to be copied once processing goes on, or the serialized state when it cannot be copied
+     */
+    private Object capture(Checkpoint checkpoint, String elementId, Object[] state) {
+        if (state == null) {
+            return null;
+        }
+        Object frozenState = StateCopier.freeze(state, checkpoint.getDeferredStates());
+        return frozenState != null ? frozenState : serialize(elementId, state);
+    }
+
+    private byte[] toBytes(String elementId, Object state) {
+        return state instanceof byte[] ? (byte[]) state : serialize(elementId, StateCopier.thaw(state));
+    }
+
+    private StateCodec getStateCodec() {
+        return executionPlanContext.getSiddhiContext().getStateCodec();
+    }
+
+    private byte[] serialize(String elementId, Object[] state) {
+        byte[] serializedState;
+        try {
+            serializedState = getStateCodec().encode(state);
+        } catch (ExecutionPlanRuntimeException e) {
+            throw new ExecutionPlanRuntimeException("Cannot serialize the state of element '" + elementId + "'", e);
+        }
+        return serializedState;
+    }
+
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+/**
+ * Encodes the states of the execution plans to bytes to be persisted, and decodes them back. The codec in use is
+ * set on the SiddhiManager and it is used for the snapshots, the persisted revisions and the spilled partition
+ * states.
+ */
+public interface StateCodec {
+
+    /**
+     * @param state state to encode, made of the objects returned by {@link Snapshotable#currentState()}
+     * @return encoded state
+     * @throws org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException when the state cannot be encoded
+     */
+    public byte[] encode(Object state);
+
+    /**
+     * @param encodedState state encoded by this codec
+     * @return decoded state
+     * @throws org.wso2.siddhi.core.exception.ExecutionPlanRuntimeException when the state cannot be decoded
+     */
+    public Object decode(byte[] encodedState);
+}
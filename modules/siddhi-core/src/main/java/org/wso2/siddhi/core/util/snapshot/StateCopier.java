@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copies the states of the elements so that they can be serialized while the elements keep changing, in two
+ * steps. While processing is held a state is frozen: the references held by its arrays, events, event chunks and
+ * common collections are taken into flat arrays, without building any collection. Once processing goes on the
+ * frozen state is thawed into a copy of the state. Immutable values and {@link DeferredState}s are shared, and
+ * objects referred more than once in a state are copied once.
+ */
+final class StateCopier {
+
+    private static final int ARRAY = 0;
+    private static final int STREAM_EVENT = 1;
+    private static final int EVENT_CHUNK = 2;
+    private static final int ARRAY_LIST = 3;
+    private static final int LINKED_LIST = 4;
+    private static final int HASH_SET = 5;
+    private static final int LINKED_HASH_SET = 6;
+    private static final int HASH_MAP = 7;
+    private static final int LINKED_HASH_MAP = 8;
+    private static final int CONCURRENT_HASH_MAP = 9;
+
+    private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<Object, Object>();
+    private final List<DeferredState> deferredStates;
+
+    private StateCopier(List<DeferredState> deferredStates) {
+        this.deferredStates = deferredStates;
+    }
+
+    /**
+     * References of a mutable object taken while processing is held
+     */
+    private static final class Frozen {
+
+        private final int kind;
+        private Class<?> componentType;
+        private Object references;
+        private long timestamp;
+        private ComplexEvent.Type type;
+        private Frozen next;
+
+        private Frozen(int kind) {
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * @param state          state of an element, to be frozen while processing is held
+     * @param deferredStates list to add the {@link DeferredState}s the state refers to
+     * @return frozen state to be given to {@link #thaw(Object)}, null when it holds objects that cannot be copied
+     */
+    static Object freeze(Object[] state, List<DeferredState> deferredStates) {
+        try {
+            return new StateCopier(deferredStates).freezeObject(state);
+        } catch (NotCopyableException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param frozenState state given by {@link #freeze(Object[], List)}
+     * @return copy of the state
+     */
+    static Object[] thaw(Object frozenState) {
+        return (Object[]) new StateCopier(null).thawObject(frozenState);
+    }
+
+    private Object freezeObject(Object object) throws NotCopyableException {
+        if (object == null || isImmutable(object)) {
+            return object;
+        }
+        if (object instanceof DeferredState) {
+            if (copies.put(object, object) == null) {
+                deferredStates.add((DeferredState) object);
+            }
+            return object;
+        }
+        Frozen frozen = (Frozen) copies.get(object);
+        if (frozen != null) {
+            return frozen;
+        }
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            frozen = freezeArray(object);
+        } else if (type == StreamEvent.class) {
+            frozen = freezeStreamEvents((StreamEvent) object);
+        } else if (type == ComplexEventChunk.class) {
+            frozen = new Frozen(EVENT_CHUNK);
+            copies.put(object, frozen);
+            Object first = ((ComplexEventChunk) object).getFirst();
+            if (first != null && first.getClass() != StreamEvent.class) {
+                throw new NotCopyableException();
+            }
+            frozen.references = freezeObject(first);
+        } else if (type == ArrayList.class) {
+            frozen = freezeCollection(ARRAY_LIST, (Collection<?>) object);
+        } else if (type == LinkedList.class) {
+            frozen = freezeCollection(LINKED_LIST, (Collection<?>) object);
+        } else if (type == HashSet.class) {
+            frozen = freezeCollection(HASH_SET, (Collection<?>) object);
+        } else if (type == LinkedHashSet.class) {
+            frozen = freezeCollection(LINKED_HASH_SET, (Collection<?>) object);
+        } else if (type == HashMap.class) {
+            frozen = freezeMap(HASH_MAP, (Map<?, ?>) object);
+        } else if (type == LinkedHashMap.class) {
+            frozen = freezeMap(LINKED_HASH_MAP, (Map<?, ?>) object);
+        } else if (type == ConcurrentHashMap.class) {
+            frozen = freezeMap(CONCURRENT_HASH_MAP, (Map<?, ?>) object);
+        } else {
+            throw new NotCopyableException();
+        }
+        return frozen;
+    }
+
+    private static boolean isImmutable(Object object) {
+        return object instanceof String || object instanceof Integer || object instanceof Long ||
+                object instanceof Double || object instanceof Float || object instanceof Boolean ||
+                object instanceof Short || object instanceof Byte || object instanceof Character ||
+                object instanceof Enum || object instanceof BigInteger || object instanceof BigDecimal;
+    }
+
+    private Frozen freezeArray(Object array) throws NotCopyableException {
+        Frozen frozen = new Frozen(ARRAY);
+        frozen.componentType = array.getClass().getComponentType();
+        copies.put(array, frozen);
+        if (frozen.componentType.isPrimitive()) {
+            int length = Array.getLength(array);
+            Object references = Array.newInstance(frozen.componentType, length);
+            System.arraycopy(array, 0, references, 0, length);
+            frozen.references = references;
+        } else {
+            frozen.references = freezeReferences(((Object[]) array).clone());
+        }
+        return frozen;
+    }
+
+    /**
+     * Freeze the event and the events chained after it, the chain is frozen till an event already frozen
+     */
+    private Frozen freezeStreamEvents(StreamEvent streamEvent) throws NotCopyableException {
+        Frozen first = freezeStreamEvent(streamEvent);
+        Frozen previous = first;
+        for (StreamEvent nextEvent = streamEvent.getNext(); nextEvent != null; nextEvent = nextEvent.getNext()) {
+            Frozen next = (Frozen) copies.get(nextEvent);
+            if (next != null) {
+                previous.next = next;
+                break;
+            }
+            if (nextEvent.getClass() != StreamEvent.class) {
+                throw new NotCopyableException();
+            }
+            next = freezeStreamEvent(nextEvent);
+            previous.next = next;
+            previous = next;
+        }
+        return first;
+    }
+
+    private Frozen freezeStreamEvent(StreamEvent streamEvent) throws NotCopyableException {
+        Frozen frozen = new Frozen(STREAM_EVENT);
+        copies.put(streamEvent, frozen);
+        frozen.references = new Object[]{freezeObject(streamEvent.getBeforeWindowData()),
+                freezeObject(streamEvent.getOnAfterWindowData()), freezeObject(streamEvent.getOutputData())};
+        frozen.type = streamEvent.getType();
+        frozen.timestamp = streamEvent.getTimestamp();
+        return frozen;
+    }
+
+    private Frozen freezeCollection(int kind, Collection<?> collection) throws NotCopyableException {
+        Frozen frozen = new Frozen(kind);
+        copies.put(collection, frozen);
+        frozen.references = freezeReferences(collection.toArray());
+        return frozen;
+    }
+
+    private Frozen freezeMap(int kind, Map<?, ?> map) throws NotCopyableException {
+        Frozen frozen = new Frozen(kind);
+        copies.put(map, frozen);
+        Object[] references = new Object[map.size() * 2];
+        int i = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            references[i++] = entry.getKey();
+            references[i++] = entry.getValue();
+        }
+        frozen.references = freezeReferences(references);
+        return frozen;
+    }
+
+    private Object[] freezeReferences(Object[] references) throws NotCopyableException {
+        for (int i = 0; i < references.length; i++) {
+            references[i] = freezeObject(references[i]);
+        }
+        return references;
+    }
+
+    private Object thawObject(Object object) {
+        if (!(object instanceof Frozen)) {
+            return object;
+        }
+        Object copy = copies.get(object);
+        if (copy != null) {
+            return copy;
+        }
+        Frozen frozen = (Frozen) object;
+        switch (frozen.kind) {
+            case ARRAY:
+                return thawArray(frozen);
+            case STREAM_EVENT:
+                return thawStreamEvents(frozen);
+            case EVENT_CHUNK: {
+                ComplexEventChunk<StreamEvent> eventChunk = new ComplexEventChunk<StreamEvent>();
+                copies.put(frozen, eventChunk);
+                if (frozen.references != null) {
+                    eventChunk.add((StreamEvent) thawObject(frozen.references));
+                }
+                return eventChunk;
+            }
+            case ARRAY_LIST:
+                return thawCollection(frozen, new ArrayList<Object>(((Object[]) frozen.references).length));
+            case LINKED_LIST:
+                return thawCollection(frozen, new LinkedList<Object>());
+            case HASH_SET:
+                return thawCollection(frozen, new HashSet<Object>());
+            case LINKED_HASH_SET:
+                return thawCollection(frozen, new LinkedHashSet<Object>());
+            case HASH_MAP:
+                return thawMap(frozen, new HashMap<Object, Object>());
+            case LINKED_HASH_MAP:
+                return thawMap(frozen, new LinkedHashMap<Object, Object>());
+            default:
+                return thawMap(frozen, new ConcurrentHashMap<Object, Object>());
+        }
+    }
+
+    private Object thawArray(Frozen frozen) {
+        if (frozen.componentType.isPrimitive()) {
+            //Taken while processing was held, hence not shared with the element
+            copies.put(frozen, frozen.references);
+            return frozen.references;
+        }
+        Object[] references = (Object[]) frozen.references;
+        Object[] copy = (Object[]) Array.newInstance(frozen.componentType, references.length);
+        copies.put(frozen, copy);
+        for (int i = 0; i < references.length; i++) {
+            copy[i] = thawObject(references[i]);
+        }
+        return copy;
+    }
+
+    private StreamEvent thawStreamEvents(Frozen frozen) {
+        StreamEvent first = thawStreamEvent(frozen);
+        StreamEvent previous = first;
+        for (Frozen next = frozen.next; next != null; next = next.next) {
+            StreamEvent nextCopy = (StreamEvent) copies.get(next);
+            if (nextCopy != null) {
+                previous.setNext(nextCopy);
+                break;
+            }
+            nextCopy = thawStreamEvent(next);
+            previous.setNext(nextCopy);
+            previous = nextCopy;
+        }
+        return first;
+    }
+
+    private StreamEvent thawStreamEvent(Frozen frozen) {
+        StreamEvent copy = new StreamEvent(0, 0, 0);
+        copies.put(frozen, copy);
+        Object[] references = (Object[]) frozen.references;
+        copy.setBeforeWindowData((Object[]) thawObject(references[0]));
+        copy.setOnAfterWindowData((Object[]) thawObject(references[1]));
+        copy.setOutputData((Object[]) thawObject(references[2]));
+        copy.setType(frozen.type);
+        copy.setTimestamp(frozen.timestamp);
+        return copy;
+    }
+
+    private Collection<Object> thawCollection(Frozen frozen, Collection<Object> copy) {
+        copies.put(frozen, copy);
+        for (Object element : (Object[]) frozen.references) {
+            copy.add(thawObject(element));
+        }
+        return copy;
+    }
+
+    private Map<Object, Object> thawMap(Frozen frozen, Map<Object, Object> copy) {
+        copies.put(frozen, copy);
+        Object[] references = (Object[]) frozen.references;
+        for (int i = 0; i < references.length; i += 2) {
+            copy.put(thawObject(references[i]), thawObject(references[i + 1]));
+        }
+        return copy;
+    }
+
+    private static class NotCopyableException extends Exception {
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.timestamp;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Event time clock of a playback execution plan. The time is the watermark of the events received, i.e. the
+ * largest event timestamp seen so far, hence out of order events never move it back, and it is advanced in the
+ * thread sending the events so that a replay runs as fast as the events can be processed.
+ * When no events arrive for idleTime milliseconds of wall clock time, heartbeats advance the time by increment
+ * once every idleTime, so that time windows and output rate limiters still expire during gaps in the data.
+ * The time is only changed while holding the execution plan's shared lock.
+ */
+public class EventTimeBasedMillisTimestampGenerator implements TimestampGenerator, EternalReferencedHolder {
+
+    private static final Logger log = Logger.getLogger(EventTimeBasedMillisTimestampGenerator.class);
+
+    private final Lock lock;
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final long idleTime;
+    private final long increment;
+    private final List<TimeChangeListener> timeChangeListeners = new ArrayList<TimeChangeListener>();
+    private volatile long currentTime = -1;
+    private volatile long lastEventReceivedTime;
+    private ScheduledFuture heartbeat;
+
+    /**
+     * @param lock                     shared lock of the execution plan
+     * @param scheduledExecutorService executor sending the heartbeats
+     * @param idleTime                 wall clock time in milliseconds without events before a heartbeat, 0 or
+     *                                 less disables the heartbeats
+     * @param increment                milliseconds the time is advanced by on each heartbeat
+     */
+    public EventTimeBasedMillisTimestampGenerator(Lock lock, ScheduledExecutorService scheduledExecutorService,
+                                                  long idleTime, long increment) {
+        this.lock = lock;
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.idleTime = idleTime;
+        this.increment = increment;
+    }
+
+    /**
+     * @return watermark in milliseconds, -1 until the first event is received
+     */
+    @Override
+    public long currentTime() {
+        return currentTime;
+    }
+
+    public void addTimeChangeListener(TimeChangeListener timeChangeListener) {
+        timeChangeListeners.add(timeChangeListener);
+    }
+
+    /**
+     * Advances the time to the timestamp of a received event, called holding the shared lock
+     *
+     * @param timestamp event timestamp in milliseconds
+     */
+    public void setCurrentTimestamp(long timestamp) {
+        lastEventReceivedTime = System.currentTimeMillis();
+        advanceTo(timestamp);
+    }
+
+    private void advanceTo(long timestamp) {
+        if (timestamp > currentTime) {
+            currentTime = timestamp;
+            for (int i = 0, size = timeChangeListeners.size(); i < size; i++) {
+                timeChangeListeners.get(i).onTimeChange(timestamp);
+            }
+        }
+    }
+
+    public long getIdleTime() {
+        return idleTime;
+    }
+
+    public long getIncrement() {
+        return increment;
+    }
+
+    @Override
+    public void start() {
+        if (idleTime > 0 && heartbeat == null) {
+            lastEventReceivedTime = System.currentTimeMillis();
+            heartbeat = scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    if (currentTime == -1 || System.currentTimeMillis() - lastEventReceivedTime < idleTime) {
+                        return;
+                    }
+                    lock.lock();
+                    try {
+                        advanceTo(currentTime + increment);
+                    } catch (Throwable t) {
+                        log.error("Error when advancing the event time on heartbeat", t);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }, idleTime, idleTime, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
+        }
+    }
+}
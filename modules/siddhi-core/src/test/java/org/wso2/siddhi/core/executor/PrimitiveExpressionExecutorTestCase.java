@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.executor.condition.compare.equal.EqualCompareConditionExpressionExecutorLongFloat;
+import org.wso2.siddhi.core.executor.condition.compare.greater_than.GreaterThanCompareConditionExpressionExecutorFloatDouble;
+import org.wso2.siddhi.core.executor.math.add.AddExpressionExecutorLong;
+import org.wso2.siddhi.core.executor.math.divide.DivideExpressionExecutorInt;
+import org.wso2.siddhi.core.executor.math.mod.ModExpressionExecutorLong;
+import org.wso2.siddhi.core.executor.math.multiply.MultiplyExpressionExecutorFloat;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+public class PrimitiveExpressionExecutorTestCase {
+
+    @Test
+    public void testPrimitiveExpressionExecutors() {
+        VariableExpressionExecutor priceVariableExpressionExecutor = new VariableExpressionExecutor(new Attribute("price", Attribute.Type.FLOAT), 0, 0);
+        priceVariableExpressionExecutor.setPosition(new int[]{0, SiddhiConstants.UNKNOWN_STATE, SiddhiConstants.OUTPUT_DATA_INDEX, 1});
+
+        VariableExpressionExecutor volumeVariableExpressionExecutor = new VariableExpressionExecutor(new Attribute("volume", Attribute.Type.INT), 0, 0);
+        volumeVariableExpressionExecutor.setPosition(new int[]{0, SiddhiConstants.UNKNOWN_STATE, SiddhiConstants.OUTPUT_DATA_INDEX, 2});
+
+        VariableExpressionExecutor symbolVariableExpressionExecutor = new VariableExpressionExecutor(new Attribute("symbol", Attribute.Type.STRING), 0, 0);
+        Assert.assertFalse(symbolVariableExpressionExecutor.isPrimitive());
+
+        PrimitiveExpressionExecutor multiplyExecutor = new MultiplyExpressionExecutorFloat(priceVariableExpressionExecutor, volumeVariableExpressionExecutor);
+        Assert.assertTrue(multiplyExecutor.isPrimitive());
+        ExpressionExecutor compareGreaterThanExecutor = new GreaterThanCompareConditionExpressionExecutorFloatDouble(multiplyExecutor, new ConstantExpressionExecutor(100.0, Attribute.Type.DOUBLE));
+        PrimitiveExpressionExecutor divideExecutor = new DivideExpressionExecutorInt(new ConstantExpressionExecutor(100, Attribute.Type.INT), volumeVariableExpressionExecutor);
+
+        StreamEvent event = new StreamEvent(0, 0, 3);
+        event.setOutputData(new Object[]{"WSO2", 55.5f, 2});
+        Assert.assertEquals(111f, multiplyExecutor.execute(event));
+        Assert.assertEquals(111.0, multiplyExecutor.executeDouble(event), 0);
+        Assert.assertEquals(111L, multiplyExecutor.executeLong(event));
+        Assert.assertEquals(true, compareGreaterThanExecutor.execute(event));
+        Assert.assertEquals(50, divideExecutor.execute(event));
+
+        event.setOutputData(new Object[]{"WSO2", null, 0});
+        Assert.assertNull(multiplyExecutor.execute(event));
+        Assert.assertEquals(false, compareGreaterThanExecutor.execute(event));
+        Assert.assertNull("Division by zero should give null", divideExecutor.execute(event));
+
+        // long and float are checked for equality as doubles, as when comparing the boxed values
+        ExpressionExecutor compareEqualExecutor = new EqualCompareConditionExpressionExecutorLongFloat(new ConstantExpressionExecutor(16777217L, Attribute.Type.LONG), new ConstantExpressionExecutor(16777216f, Attribute.Type.FLOAT));
+        Assert.assertEquals(false, compareEqualExecutor.execute(event));
+    }
+
+    @Test
+    public void testDivisorEvaluatedOnce() {
+        final int[] evaluations = new int[1];
+        VariableExpressionExecutor volumeVariableExpressionExecutor = new VariableExpressionExecutor(new Attribute("volume", Attribute.Type.LONG), 0, 0) {
+            @Override
+            public long executeLong(ComplexEvent event) {
+                evaluations[0]++;
+                return super.executeLong(event);
+            }
+        };
+        volumeVariableExpressionExecutor.setPosition(new int[]{0, SiddhiConstants.UNKNOWN_STATE, SiddhiConstants.OUTPUT_DATA_INDEX, 0});
+        PrimitiveExpressionExecutor modExecutor = new ModExpressionExecutorLong(new ConstantExpressionExecutor(100L, Attribute.Type.LONG), volumeVariableExpressionExecutor);
+        ExpressionExecutor addExecutor = new AddExpressionExecutorLong(modExecutor, new ConstantExpressionExecutor(1L, Attribute.Type.LONG));
+
+        StreamEvent event = new StreamEvent(0, 0, 1);
+        event.setOutputData(new Object[]{30L});
+        Assert.assertEquals(11L, addExecutor.execute(event));
+        Assert.assertEquals(1, evaluations[0]);
+        Assert.assertEquals(10L, modExecutor.execute(event));
+        Assert.assertEquals(2, evaluations[0]);
+
+        event.setOutputData(new Object[]{0L});
+        Assert.assertNull("Modulo by zero should give null", addExecutor.execute(event));
+        Assert.assertEquals(3, evaluations[0]);
+    }
+}
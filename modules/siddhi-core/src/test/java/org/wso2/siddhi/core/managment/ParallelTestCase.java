@@ -16,13 +16,17 @@
 
 package org.wso2.siddhi.core.managment;
 
+import com.lmax.disruptor.dsl.ProducerType;
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.wso2.siddhi.core.ExecutionPlanRuntime;
 import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.config.DisruptorConfig;
 import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.ExecutionPlanCreationException;
+import org.wso2.siddhi.core.query.output.callback.QueryCallback;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.stream.output.StreamCallback;
 import org.wso2.siddhi.core.util.EventPrinter;
@@ -192,5 +196,320 @@ public class ParallelTestCase {
 
     }
 
+    @Test
+    public void parallelTest4() throws InterruptedException {
+        log.info("parallel test 4");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:parallel" +
+                " " +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[70 > price] " +
+                "select * " +
+                "insert into innerStream1 ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from innerStream1#window.length(2) " +
+                "select symbol, price, volume " +
+                "insert into innerStream2 ;" +
+                "" +
+                "@info(name = 'query3') " +
+                "from innerStream2 " +
+                "select volume, symbol " +
+                "insert into innerStream3 ;" +
+                "" +
+                "@info(name = 'query4') " +
+                "from innerStream3[volume > 90] " +
+                "select symbol, volume " +
+                "insert into innerStream4 ;" +
+                "" +
+                "@info(name = 'query5') " +
+                "from innerStream4 " +
+                "select symbol " +
+                "insert into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        executionPlanRuntime.addCallback("outputStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                eventArrived = true;
+                for (Event event : events) {
+                    count++;
+                    Assert.assertEquals(1, event.getData().length);
+                    Assert.assertTrue("WSO2".equals(event.getData(0)) || "ORACLE".equals(event.getData(0)));
+                }
+            }
+
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"WSO2", 55.6f, 100});
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"ORACLE", 50.6f, 100});
+        inputHandler.send(new Object[]{"GOOG", 50.6f, 10});
+
+        Thread.sleep(1000);
+        executionPlanRuntime.shutdown();
+        Assert.assertTrue(eventArrived);
+        Assert.assertEquals(2, count);
+
+    }
+
+    @Test
+    public void parallelTest5() throws InterruptedException {
+        log.info("parallel test 5");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:parallel(wait.strategy='blocking') " +
+                "@Parallel(wait.strategy='yielding', buffer.size='256', producer.type='single') " +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[70 > price] " +
+                "select symbol, price " +
+                "insert into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        executionPlanRuntime.addCallback("outputStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                eventArrived = true;
+                count += events.length;
+            }
+
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+
+        DisruptorConfig disruptorConfig = executionPlanRuntime.getDisruptorConfig("cseEventStream");
+        Assert.assertEquals(DisruptorConfig.WaitStrategyType.YIELDING, disruptorConfig.getWaitStrategyType());
+        Assert.assertEquals(256, disruptorConfig.getBufferSize());
+        Assert.assertEquals(ProducerType.SINGLE, disruptorConfig.getProducerType());
+
+        for (int i = 0; i < 1000; i++) {
+            inputHandler.send(new Object[]{"WSO2", 55.6f, i});
+        }
+
+        Thread.sleep(1000);
+        executionPlanRuntime.shutdown();
+        Assert.assertTrue(eventArrived);
+        Assert.assertEquals(1000, count);
+
+    }
+
+    @Test(expected = ExecutionPlanCreationException.class)
+    public void parallelTest6() throws InterruptedException {
+        log.info("parallel test 6");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@Parallel(buffer.size='1000') " +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream " +
+                "select symbol, price " +
+                "insert into outputStream ;";
+
+        siddhiManager.createExecutionPlanRuntime(executionPlan);
+    }
+
+    @Test
+    public void parallelTest7() throws InterruptedException {
+        log.info("parallel test 7");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@Parallel(workers='4', ordered='true', buffer.size='128') " +
+                "define stream cseEventStream (symbol string, price float, volume long);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[price > 50] " +
+                "select symbol, volume " +
+                "insert into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        executionPlanRuntime.addCallback("outputStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                eventArrived = true;
+                for (Event event : events) {
+                    count++;
+                    long volume = (Long) event.getData(1);
+                    Assert.assertTrue("Expected output after " + lastValue + " but was " + volume,
+                            volume > lastValue);
+                    lastValue = volume;
+                }
+            }
+
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        Assert.assertEquals(4, executionPlanRuntime.getDisruptorConfig("cseEventStream").getWorkers());
+
+        for (long i = 1; i <= 10000; i++) {
+            inputHandler.send(new Object[]{"WSO2", i % 2 == 0 ? 55.6f : 45.6f, i});
+        }
+
+        Thread.sleep(2000);
+        executionPlanRuntime.shutdown();
+        Assert.assertTrue(eventArrived);
+        Assert.assertEquals(5000, count);
+        Assert.assertEquals(10000, lastValue);
+
+    }
+
+    @Test
+    public void parallelTest8() throws InterruptedException {
+        log.info("parallel test 8");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@Parallel(workers='3', ordered='false') " +
+                "define stream cseEventStream (symbol string, price float, volume long);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[price > 50] " +
+                "select symbol, volume " +
+                "insert into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        executionPlanRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                eventArrived = true;
+                count += inEvents.length;
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+
+        for (long i = 1; i <= 10000; i++) {
+            inputHandler.send(new Object[]{"WSO2", i % 2 == 0 ? 55.6f : 45.6f, i});
+        }
+
+        Thread.sleep(2000);
+        executionPlanRuntime.shutdown();
+        Assert.assertTrue(eventArrived);
+        Assert.assertEquals(5000, count);
+
+    }
+
+    @Test
+    public void parallelTest9() throws InterruptedException {
+        log.info("parallel test 9");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@Parallel(workers='4') " +
+                "define stream cseEventStream (symbol string, price float, volume long);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.length(5) " +
+                "select symbol, sum(volume) as totalVolume " +
+                "insert into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        executionPlanRuntime.addCallback("outputStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                eventArrived = true;
+                for (Event event : events) {
+                    lastValue = (Long) event.getData(1);
+                }
+            }
+
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+
+        for (long i = 1; i <= 100; i++) {
+            inputHandler.send(new Object[]{"WSO2", 55.6f, i});
+        }
+
+        Thread.sleep(1000);
+        executionPlanRuntime.shutdown();
+        Assert.assertTrue(eventArrived);
+        Assert.assertEquals(96 + 97 + 98 + 99 + 100, lastValue);
+
+    }
+
+    @Test
+    public void parallelTest10() throws InterruptedException {
+        log.info("parallel test 10");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:parallel " +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "@Parallel(producer.type='single') " +
+                "define stream outputStream (symbol string, price float);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[70 > price] " +
+                "select symbol, price " +
+                "insert into outputStream ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from cseEventStream[70 <= price] " +
+                "select symbol, price " +
+                "insert into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        executionPlanRuntime.addCallback("outputStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                eventArrived = true;
+                count += events.length;
+            }
+
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+
+        DisruptorConfig disruptorConfig = executionPlanRuntime.getDisruptorConfig("outputStream");
+        Assert.assertEquals(ProducerType.MULTI, disruptorConfig.getProducerType());
+
+        for (int i = 0; i < 1000; i++) {
+            inputHandler.send(new Object[]{"WSO2", i % 2 == 0 ? 55.6f : 75.6f, i});
+        }
+
+        Thread.sleep(1000);
+        executionPlanRuntime.shutdown();
+        Assert.assertTrue(eventArrived);
+        Assert.assertEquals(1000, count);
+
+    }
 
 }
@@ -27,8 +27,20 @@ import org.wso2.siddhi.core.exception.NoPersistenceStoreException;
 import org.wso2.siddhi.core.query.output.callback.QueryCallback;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.util.EventPrinter;
+import org.wso2.siddhi.core.util.persistence.FilePersistenceStore;
 import org.wso2.siddhi.core.util.persistence.InMemoryPersistenceStore;
 import org.wso2.siddhi.core.util.persistence.PersistenceStore;
+import org.wso2.siddhi.core.util.snapshot.BinaryStateCodec;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 public class PersistenceTestCase {
     static final Logger log = Logger.getLogger(PersistenceTestCase.class);
@@ -501,6 +513,676 @@ public class PersistenceTestCase {
 
     }
 
+    @Test
+    public void persistenceTest7() throws InterruptedException {
+        log.info("persistence test 7 - group by query");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String executionPlan = "" +
+                "@plan:name('Test') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream " +
+                "select symbol, sum(volume) as totalVol, max(volume) as maxVol " +
+                "group by symbol " +
+                "insert into OutStream ";
+
+        final Map<Object, Object[]> lastValues = new HashMap<Object, Object[]>();
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event inEvent : inEvents) {
+                    count++;
+                    lastValues.put(inEvent.getData(0), inEvent.getData());
+                }
+            }
+        };
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", queryCallback);
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+        executionPlanRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
 
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 200});
+        Thread.sleep(100);
+
+        //persisting
+        Thread.sleep(500);
+        executionPlanRuntime.persist();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+
+        Thread.sleep(100);
+
+        //restarting execution plan
+        Thread.sleep(500);
+        executionPlanRuntime.shutdown();
+        executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", queryCallback);
+        inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+        executionPlanRuntime.start();
+
+        //loading
+        executionPlanRuntime.restoreLastRevision();
+
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 50});
+
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"IBM", 75.6f, 20});
+        Thread.sleep(100);
+
+        //shutdown execution plan
+        Thread.sleep(500);
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(5, count);
+        Assert.assertEquals(250l, lastValues.get("WSO2")[1]);
+        Assert.assertEquals(120l, lastValues.get("IBM")[1]);
+        Assert.assertEquals(100, lastValues.get("IBM")[2]);
+    }
+
+    @Test
+    public void persistenceTest8() throws InterruptedException {
+        log.info("persistence test 8 - incremental persistence of window queries");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String executionPlan = "" +
+                "@plan:name('IncrementalTest') " +
+                "@plan:playback " +
+                "@plan:persistence(incremental='true') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream#window.length(3) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream1; " +
+                "" +
+                "@info(name = 'query2')" +
+                "from StockStream#window.time(10 sec) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream2; ";
+
+        final Map<String, Object> lastValues = new HashMap<String, Object>();
+        ExecutionPlanRuntime executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan,
+                lastValues);
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+        inputHandler.send(1000, new Object[]{"IBM", 75.6f, 100l});
+        inputHandler.send(2000, new Object[]{"WSO2", 75.6f, 200l});
+        String revision1 = executionPlanRuntime.persist();
+        inputHandler.send(3000, new Object[]{"IBM", 75.6f, 300l});
+        inputHandler.send(4000, new Object[]{"WSO2", 75.6f, 400l});
+        String revision2 = executionPlanRuntime.persist();
+        inputHandler.send(5000, new Object[]{"IBM", 75.6f, 500l});
+        String revision3 = executionPlanRuntime.persist();
+        Assert.assertEquals(1200l, lastValues.get("query1"));
+        Assert.assertEquals(1500l, lastValues.get("query2"));
+
+        IncrementalSnapshot snapshot1 = (IncrementalSnapshot) new BinaryStateCodec().decode(
+                persistenceStore.load("IncrementalTest", revision1));
+        IncrementalSnapshot snapshot3 = (IncrementalSnapshot) new BinaryStateCodec().decode(
+                persistenceStore.load("IncrementalTest", revision3));
+        Assert.assertTrue(snapshot1.isBase());
+        Assert.assertEquals(revision2, snapshot3.getPreviousRevision());
+        Assert.assertFalse(snapshot3.getIncrementalStates().isEmpty());
+
+        //restarting execution plan
+        executionPlanRuntime.shutdown();
+        executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan, lastValues);
+        inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+        //loading
+        executionPlanRuntime.restoreRevision(revision2);
+        inputHandler.send(6000, new Object[]{"IBM", 75.6f, 1000l});
+        Assert.assertEquals(1700l, lastValues.get("query1"));
+        Assert.assertEquals(2000l, lastValues.get("query2"));
+
+        executionPlanRuntime.restoreLastRevision();
+        inputHandler.send(6000, new Object[]{"IBM", 75.6f, 1000l});
+        Assert.assertEquals(1900l, lastValues.get("query1"));
+        Assert.assertEquals(2500l, lastValues.get("query2"));
+
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void persistenceTest9() throws InterruptedException {
+        log.info("persistence test 9 - incremental persistence with base revisions");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String executionPlan = "" +
+                "@plan:name('IncrementalTest') " +
+                "@plan:playback " +
+                "@plan:persistence(incremental='true', base.interval='2') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream#window.length(2) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream1; " +
+                "" +
+                "@info(name = 'query2')" +
+                "from StockStream#window.time(3 sec) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream2; ";
+
+        final Map<String, Object> lastValues = new HashMap<String, Object>();
+        ExecutionPlanRuntime executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan,
+                lastValues);
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+        String[] revisions = new String[4];
+        for (int i = 0; i < revisions.length; i++) {
+            inputHandler.send((i + 1) * 1000, new Object[]{"IBM", 75.6f, (i + 1) * 100l});
+            revisions[i] = executionPlanRuntime.persist();
+        }
+        for (int i = 0; i < revisions.length; i++) {
+            IncrementalSnapshot snapshot = (IncrementalSnapshot) new BinaryStateCodec().decode(
+                    persistenceStore.load("IncrementalTest", revisions[i]));
+            Assert.assertEquals(i % 2 == 0, snapshot.isBase());
+        }
+
+        //restarting execution plan
+        executionPlanRuntime.shutdown();
+        executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan, lastValues);
+        inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+        //loading
+        executionPlanRuntime.restoreLastRevision();
+        inputHandler.send(5000, new Object[]{"IBM", 75.6f, 500l});
+        Assert.assertEquals(900l, lastValues.get("query1"));
+        Assert.assertEquals(1200l, lastValues.get("query2"));
+
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void persistenceTest10() throws InterruptedException {
+        log.info("persistence test 10 - incremental persistence of the rows added, updated and deleted in tables");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String executionPlan = "" +
+                "@plan:name('IncrementalTableTest') " +
+                "@plan:playback " +
+                "@plan:persistence(incremental='true') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "define stream UpdateStockStream ( symbol string, price float, volume long );" +
+                "define stream DeleteStockStream ( symbol string );" +
+                "define stream CheckStockStream ( symbol string );" +
+                "define table StockTable ( symbol string, price float, volume long );" +
+                "@IndexBy('symbol') " +
+                "define table IndexedStockTable ( symbol string, price float, volume long );" +
+                "" +
+                "from StockStream " +
+                "insert into StockTable; " +
+                "" +
+                "from StockStream " +
+                "insert into IndexedStockTable; " +
+                "" +
+                "from UpdateStockStream " +
+                "update StockTable " +
+                "   on StockTable.symbol == symbol; " +
+                "" +
+                "from UpdateStockStream " +
+                "update IndexedStockTable " +
+                "   on IndexedStockTable.symbol == symbol; " +
+                "" +
+                "from DeleteStockStream " +
+                "delete StockTable " +
+                "   on StockTable.symbol == symbol; " +
+                "" +
+                "from DeleteStockStream " +
+                "delete IndexedStockTable " +
+                "   on IndexedStockTable.symbol == symbol; " +
+                "" +
+                "@info(name = 'query1')" +
+                "from CheckStockStream#window.length(0) join StockTable " +
+                "   on CheckStockStream.symbol == StockTable.symbol " +
+                "select StockTable.volume as volume " +
+                "insert into OutStream1; " +
+                "" +
+                "@info(name = 'query2')" +
+                "from CheckStockStream#window.length(0) join IndexedStockTable " +
+                "   on CheckStockStream.symbol == IndexedStockTable.symbol " +
+                "select IndexedStockTable.volume as volume " +
+                "insert into OutStream2; ";
+
+        Map<String, Object> lastValues = new HashMap<String, Object>();
+        ExecutionPlanRuntime executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan,
+                lastValues);
+        InputHandler stockStream = executionPlanRuntime.getInputHandler("StockStream");
+        InputHandler updateStockStream = executionPlanRuntime.getInputHandler("UpdateStockStream");
+        InputHandler deleteStockStream = executionPlanRuntime.getInputHandler("DeleteStockStream");
+
+        stockStream.send(1000, new Object[]{"IBM", 75.6f, 100l});
+        stockStream.send(2000, new Object[]{"WSO2", 57.6f, 200l});
+        executionPlanRuntime.persist();
+        updateStockStream.send(3000, new Object[]{"IBM", 75.6f, 300l});
+        deleteStockStream.send(4000, new Object[]{"WSO2"});
+        stockStream.send(5000, new Object[]{"GOOG", 55.6f, 400l});
+        String revision = executionPlanRuntime.persist();
+        stockStream.send(6000, new Object[]{"WSO2", 58.6f, 500l});
+        updateStockStream.send(7000, new Object[]{"GOOG", 55.6f, 600l});
+        executionPlanRuntime.persist();
+
+        //restarting execution plan
+        executionPlanRuntime.shutdown();
+        executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan, lastValues);
+
+        //loading
+        executionPlanRuntime.restoreRevision(revision);
+        assertTableVolume(executionPlanRuntime, lastValues, "IBM", 300l);
+        assertTableVolume(executionPlanRuntime, lastValues, "WSO2", null);
+        assertTableVolume(executionPlanRuntime, lastValues, "GOOG", 400l);
+
+        executionPlanRuntime.restoreLastRevision();
+        assertTableVolume(executionPlanRuntime, lastValues, "IBM", 300l);
+        assertTableVolume(executionPlanRuntime, lastValues, "WSO2", 500l);
+        assertTableVolume(executionPlanRuntime, lastValues, "GOOG", 600l);
+
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void persistenceTest11() throws InterruptedException {
+        log.info("persistence test 11 - asynchronous persistence of window queries");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String executionPlan = "" +
+                "@plan:name('AsyncTest') " +
+                "@plan:playback " +
+                "@plan:persistence(async='true') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream#window.length(3) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream1; " +
+                "" +
+                "@info(name = 'query2')" +
+                "from StockStream#window.time(10 sec) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream2; ";
+
+        final Map<String, Object> lastValues = new HashMap<String, Object>();
+        ExecutionPlanRuntime executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan,
+                lastValues);
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+        inputHandler.send(1000, new Object[]{"IBM", 75.6f, 100l});
+        inputHandler.send(2000, new Object[]{"WSO2", 75.6f, 200l});
+        String revision = executionPlanRuntime.persist();
+        Assert.assertTrue(executionPlanRuntime.getLastPersistPauseTime() > 0);
+        //Events processed while the revision is saved are not part of it
+        for (int i = 3; i < 100; i++) {
+            inputHandler.send(i * 1000, new Object[]{"IBM", 75.6f, 1l});
+        }
+
+        //restarting execution plan
+        executionPlanRuntime.shutdown();
+        executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan, lastValues);
+        inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+        //loading
+        executionPlanRuntime.restoreRevision(revision);
+        inputHandler.send(3000, new Object[]{"IBM", 75.6f, 300l});
+        inputHandler.send(4000, new Object[]{"IBM", 75.6f, 400l});
+        Assert.assertEquals(900l, lastValues.get("query1"));
+        Assert.assertEquals(1000l, lastValues.get("query2"));
+
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void persistenceTest12() throws InterruptedException, IOException {
+        log.info("persistence test 12 - file persistence with revision retention");
+
+        File location = File.createTempFile("siddhi-persistence", "");
+        Assert.assertTrue(location.delete() && location.mkdir());
+        FilePersistenceStore persistenceStore = new FilePersistenceStore(location.getPath());
+        persistenceStore.setRetainRevisions(2);
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String executionPlan = "" +
+                "@plan:name('FileTest') " +
+                "@plan:playback " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream#window.length(3) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream1; " +
+                "" +
+                "@info(name = 'query2')" +
+                "from StockStream#window.time(10 sec) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream2; ";
+
+        try {
+            final Map<String, Object> lastValues = new HashMap<String, Object>();
+            ExecutionPlanRuntime executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan,
+                    lastValues);
+            InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+            String[] revisions = new String[3];
+            for (int i = 0; i < revisions.length; i++) {
+                inputHandler.send((i + 1) * 1000, new Object[]{"IBM", 75.6f, (i + 1) * 100l});
+                revisions[i] = executionPlanRuntime.persist();
+            }
+            Assert.assertEquals(Arrays.asList(revisions[1], revisions[2]), persistenceStore.getRevisions("FileTest"));
+            Assert.assertNull(persistenceStore.load("FileTest", revisions[0]));
+
+            //restarting execution plan with the revisions listed in the index
+            executionPlanRuntime.shutdown();
+            persistenceStore = new FilePersistenceStore(location.getPath());
+            siddhiManager.setPersistenceStore(persistenceStore);
+            Assert.assertEquals(revisions[2], persistenceStore.getLastRevision("FileTest"));
+            executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan, lastValues);
+            inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+            //loading
+            executionPlanRuntime.restoreLastRevision();
+            inputHandler.send(4000, new Object[]{"IBM", 75.6f, 400l});
+            Assert.assertEquals(900l, lastValues.get("query1"));
+            Assert.assertEquals(1000l, lastValues.get("query2"));
+
+            executionPlanRuntime.restoreRevision(revisions[1]);
+            inputHandler.send(4000, new Object[]{"IBM", 75.6f, 400l});
+            Assert.assertEquals(700l, lastValues.get("query1"));
+            Assert.assertEquals(700l, lastValues.get("query2"));
+
+            executionPlanRuntime.shutdown();
+        } finally {
+            for (File directory : location.listFiles()) {
+                for (File file : directory.listFiles()) {
+                    file.delete();
+                }
+                directory.delete();
+            }
+            location.delete();
+        }
+    }
+
+    @Test
+    public void persistenceTest13() throws InterruptedException, IOException {
+        log.info("persistence test 13 - incremental persistence streamed to files");
+
+        File location = File.createTempFile("siddhi-persistence", "");
+        Assert.assertTrue(location.delete() && location.mkdir());
+        PersistenceStore persistenceStore = new FilePersistenceStore(location.getPath());
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String executionPlan = "" +
+                "@plan:name('IncrementalFileTest') " +
+                "@plan:playback " +
+                "@plan:persistence(incremental='true') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream#window.length(3) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream1; " +
+                "" +
+                "@info(name = 'query2')" +
+                "from StockStream#window.time(10 sec) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream2; ";
+
+        try {
+            final Map<String, Object> lastValues = new HashMap<String, Object>();
+            ExecutionPlanRuntime executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan,
+                    lastValues);
+            InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+            inputHandler.send(1000, new Object[]{"IBM", 75.6f, 100l});
+            inputHandler.send(2000, new Object[]{"WSO2", 75.6f, 200l});
+            executionPlanRuntime.persist();
+            inputHandler.send(3000, new Object[]{"IBM", 75.6f, 300l});
+            inputHandler.send(4000, new Object[]{"WSO2", 75.6f, 400l});
+            String revision = executionPlanRuntime.persist();
+            inputHandler.send(5000, new Object[]{"IBM", 75.6f, 500l});
+            executionPlanRuntime.persist();
+
+            //restarting execution plan
+            executionPlanRuntime.shutdown();
+            executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan, lastValues);
+            inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+            //loading
+            executionPlanRuntime.restoreRevision(revision);
+            inputHandler.send(6000, new Object[]{"IBM", 75.6f, 1000l});
+            Assert.assertEquals(1700l, lastValues.get("query1"));
+            Assert.assertEquals(2000l, lastValues.get("query2"));
+
+            executionPlanRuntime.restoreLastRevision();
+            inputHandler.send(6000, new Object[]{"IBM", 75.6f, 1000l});
+            Assert.assertEquals(1900l, lastValues.get("query1"));
+            Assert.assertEquals(2500l, lastValues.get("query2"));
+
+            executionPlanRuntime.shutdown();
+        } finally {
+            for (File directory : location.listFiles()) {
+                for (File file : directory.listFiles()) {
+                    file.delete();
+                }
+                directory.delete();
+            }
+            location.delete();
+        }
+    }
+
+    @Test
+    public void persistenceTest14() throws InterruptedException {
+        log.info("persistence test 14 - incremental revisions persisted in the background after a failed save");
+
+        final CountDownLatch saveFailure = new CountDownLatch(1);
+        final List<String> savedRevisions = new ArrayList<String>();
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore() {
+            private int saves = 0;
+
+            @Override
+            public void save(String executionPlanId, String revision, byte[] data) {
+                if (++saves == 2) {
+                    try {
+                        saveFailure.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new RuntimeException("Cannot save revision " + revision);
+                }
+                super.save(executionPlanId, revision, data);
+                savedRevisions.add(revision);
+            }
+        };
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String executionPlan = "" +
+                "@plan:name('FailedSaveTest') " +
+                "@plan:playback " +
+                "@plan:persistence(incremental='true', async='true') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream#window.length(3) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream1; " +
+                "" +
+                "@info(name = 'query2')" +
+                "from StockStream#window.time(10 sec) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream2; ";
+
+        final Map<String, Object> lastValues = new HashMap<String, Object>();
+        ExecutionPlanRuntime executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan,
+                lastValues);
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+        inputHandler.send(1000, new Object[]{"IBM", 75.6f, 100l});
+        inputHandler.send(2000, new Object[]{"WSO2", 75.6f, 200l});
+        executionPlanRuntime.persist();
+        inputHandler.send(3000, new Object[]{"IBM", 75.6f, 300l});
+        executionPlanRuntime.persist();
+        //taken against the revision failing to be saved
+        inputHandler.send(4000, new Object[]{"WSO2", 75.6f, 400l});
+        executionPlanRuntime.persist();
+        saveFailure.countDown();
+        Thread.sleep(500);
+        inputHandler.send(5000, new Object[]{"IBM", 75.6f, 500l});
+        executionPlanRuntime.persist();
+        Thread.sleep(500);
+        Assert.assertEquals(2, savedRevisions.size());
+
+        //restarting execution plan
+        executionPlanRuntime.shutdown();
+        executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan, lastValues);
+        inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+        //loading
+        executionPlanRuntime.restoreLastRevision();
+        inputHandler.send(6000, new Object[]{"IBM", 75.6f, 1000l});
+        Assert.assertEquals(1900l, lastValues.get("query1"));
+        Assert.assertEquals(2500l, lastValues.get("query2"));
+
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void persistenceTest15() throws InterruptedException, IOException {
+        log.info("persistence test 15 - file persistence retaining the revisions incremental revisions need");
+
+        File location = File.createTempFile("siddhi-persistence", "");
+        Assert.assertTrue(location.delete() && location.mkdir());
+        FilePersistenceStore persistenceStore = new FilePersistenceStore(location.getPath());
+        persistenceStore.setRetainRevisions(2);
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String executionPlan = "" +
+                "@plan:name('IncrementalRetentionTest') " +
+                "@plan:playback " +
+                "@plan:persistence(incremental='true', base.interval='3') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream#window.length(3) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream1; " +
+                "" +
+                "@info(name = 'query2')" +
+                "from StockStream#window.time(10 sec) " +
+                "select sum(volume) as totalVol " +
+                "insert into OutStream2; ";
+
+        try {
+            final Map<String, Object> lastValues = new HashMap<String, Object>();
+            ExecutionPlanRuntime executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan,
+                    lastValues);
+            InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+            //base revisions are the first and the fourth
+            String[] revisions = new String[6];
+            for (int i = 0; i < revisions.length; i++) {
+                inputHandler.send((i + 1) * 1000, new Object[]{"IBM", 75.6f, (i + 1) * 100l});
+                revisions[i] = executionPlanRuntime.persist();
+            }
+            Assert.assertEquals(Arrays.asList(revisions[3], revisions[4], revisions[5]),
+                    persistenceStore.getRevisions("IncrementalRetentionTest"));
+
+            //restarting execution plan
+            executionPlanRuntime.shutdown();
+            executionPlanRuntime = createIncrementalTestRuntime(siddhiManager, executionPlan, lastValues);
+            inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+
+            //loading
+            executionPlanRuntime.restoreLastRevision();
+            inputHandler.send(7000, new Object[]{"IBM", 75.6f, 700l});
+            Assert.assertEquals(1800l, lastValues.get("query1"));
+            Assert.assertEquals(2800l, lastValues.get("query2"));
+
+            executionPlanRuntime.restoreRevision(revisions[4]);
+            inputHandler.send(7000, new Object[]{"IBM", 75.6f, 700l});
+            Assert.assertEquals(1600l, lastValues.get("query1"));
+            Assert.assertEquals(2200l, lastValues.get("query2"));
+
+            executionPlanRuntime.shutdown();
+        } finally {
+            for (File directory : location.listFiles()) {
+                for (File file : directory.listFiles()) {
+                    file.delete();
+                }
+                directory.delete();
+            }
+            location.delete();
+        }
+    }
+
+    private void assertTableVolume(ExecutionPlanRuntime executionPlanRuntime, Map<String, Object> lastValues,
+                                   String symbol, Object volume) throws InterruptedException {
+        lastValues.clear();
+        executionPlanRuntime.getInputHandler("CheckStockStream").send(8000, new Object[]{symbol});
+        Assert.assertEquals(volume, lastValues.get("query1"));
+        Assert.assertEquals(volume, lastValues.get("query2"));
+    }
+
+    private ExecutionPlanRuntime createIncrementalTestRuntime(SiddhiManager siddhiManager, String executionPlan,
+                                                              final Map<String, Object> lastValues) {
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        for (final String queryName : new String[]{"query1", "query2"}) {
+            executionPlanRuntime.addCallback(queryName, new QueryCallback() {
+                @Override
+                public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                    EventPrinter.print(timeStamp, inEvents, removeEvents);
+                    if (inEvents != null) {
+                        lastValues.put(queryName, inEvents[inEvents.length - 1].getData(0));
+                    }
+                }
+            });
+        }
+        executionPlanRuntime.start();
+        return executionPlanRuntime;
+    }
 
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.managment;
+
+import junit.framework.Assert;
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.siddhi.core.ExecutionPlanRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.query.output.callback.QueryCallback;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.util.EventPrinter;
+
+public class PlaybackTestCase {
+    private static final Logger log = Logger.getLogger(PlaybackTestCase.class);
+    private int inEventCount;
+    private int removeEventCount;
+    private long lastRemoveEventTime;
+
+    @Before
+    public void init() {
+        inEventCount = 0;
+        removeEventCount = 0;
+        lastRemoveEventTime = 0;
+    }
+
+    @Test
+    public void playbackTest1() throws InterruptedException {
+        log.info("Playback test1: time window expiry driven by event time");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:playback " +
+                "define stream cseEventStream (symbol string, price float, volume int); " +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(1 sec) " +
+                "select symbol, price, volume " +
+                "insert all events into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                if (inEvents != null) {
+                    inEventCount = inEventCount + inEvents.length;
+                }
+                if (removeEvents != null) {
+                    removeEventCount = removeEventCount + removeEvents.length;
+                    lastRemoveEventTime = removeEvents[removeEvents.length - 1].getTimestamp();
+                }
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        long start = System.currentTimeMillis();
+        inputHandler.send(1000, new Object[]{"IBM", 700f, 0});
+        inputHandler.send(1500, new Object[]{"WSO2", 60.5f, 1});
+        Assert.assertEquals(0, removeEventCount);
+        inputHandler.send(3000, new Object[]{"IBM", 701f, 2});
+        Assert.assertEquals(2, removeEventCount);
+        Assert.assertEquals(2500, lastRemoveEventTime);
+        inputHandler.send(7L * 24 * 60 * 60 * 1000, new Object[]{"WSO2", 61.5f, 3});
+        Assert.assertEquals(4, inEventCount);
+        Assert.assertEquals(3, removeEventCount);
+        Assert.assertEquals(4000, lastRemoveEventTime);
+        Assert.assertTrue("Replay of a week should not wait for the wall clock", System.currentTimeMillis() - start < 1000);
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void playbackTest2() throws InterruptedException {
+        log.info("Playback test2: output rate limiting driven by event time");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:playback " +
+                "define stream cseEventStream (symbol string, price float, volume int); " +
+                "@info(name = 'query1') " +
+                "from cseEventStream " +
+                "select symbol, price, volume " +
+                "output all every 5 sec " +
+                "insert into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                if (inEvents != null) {
+                    inEventCount = inEventCount + inEvents.length;
+                }
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        inputHandler.send(1000, new Object[]{"IBM", 700f, 0});
+        inputHandler.send(2000, new Object[]{"WSO2", 60.5f, 1});
+        Assert.assertEquals(0, inEventCount);
+        inputHandler.send(6000, new Object[]{"IBM", 701f, 2});
+        Assert.assertEquals(2, inEventCount);
+        inputHandler.send(1000000, new Object[]{"WSO2", 61.5f, 3});
+        Assert.assertEquals(3, inEventCount);
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void playbackTest3() throws InterruptedException {
+        log.info("Playback test3: heartbeats expiring a time window during a gap in the events");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:playback(idle.time = '100', increment = '1000') " +
+                "define stream cseEventStream (symbol string, price float, volume int); " +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(2 sec) " +
+                "select symbol, price, volume " +
+                "insert all events into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                if (inEvents != null) {
+                    inEventCount = inEventCount + inEvents.length;
+                }
+                if (removeEvents != null) {
+                    removeEventCount = removeEventCount + removeEvents.length;
+                    lastRemoveEventTime = removeEvents[removeEvents.length - 1].getTimestamp();
+                }
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        inputHandler.send(1000, new Object[]{"IBM", 700f, 0});
+        Thread.sleep(1000);
+        Assert.assertEquals(1, inEventCount);
+        Assert.assertEquals(1, removeEventCount);
+        Assert.assertEquals(3000, lastRemoveEventTime);
+        executionPlanRuntime.shutdown();
+    }
+}
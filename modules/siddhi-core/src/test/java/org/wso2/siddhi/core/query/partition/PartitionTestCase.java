@@ -22,10 +22,13 @@ import org.junit.Test;
 import org.wso2.siddhi.core.ExecutionPlanRuntime;
 import org.wso2.siddhi.core.SiddhiManager;
 import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.partition.PartitionRuntime;
+import org.wso2.siddhi.core.partition.PartitionSpillStore;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.stream.output.StreamCallback;
 import org.wso2.siddhi.core.test.util.SiddhiTestHelper;
 import org.wso2.siddhi.core.util.EventPrinter;
+import org.wso2.siddhi.core.util.snapshot.DeferredState;
 import org.wso2.siddhi.query.api.ExecutionPlan;
 import org.wso2.siddhi.query.api.annotation.Annotation;
 import org.wso2.siddhi.query.api.definition.Attribute;
@@ -37,6 +40,14 @@ import org.wso2.siddhi.query.api.execution.query.selection.Selector;
 import org.wso2.siddhi.query.api.expression.Expression;
 import org.wso2.siddhi.query.api.expression.condition.Compare;
 
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -1290,4 +1301,442 @@ public class PartitionTestCase {
         Assert.assertEquals(1, count.get());
         executionRuntime.shutdown();
     }
+
+    @Test
+    public void testPartitionQuery24() throws InterruptedException {
+        log.info("Partition test24");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "@plan:name('PartitionTest24') @plan:parallel " +
+                "define stream streamA (symbol string, price int);" +
+                "define stream streamB (symbol string, price int);" +
+                "partition with (symbol of streamA, symbol of streamB) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from streamA select symbol, count() as eventCount insert into StockQuote ;  " +
+                "@info(name = 'query2') " +
+                "from streamB select symbol, count() as eventCount insert into StockQuote ;  " +
+                "end ";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        final AtomicInteger secondEventCount = new AtomicInteger(0);
+        executionPlanRuntime.addCallback("StockQuote", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    if ((Long) event.getData(1) == 2) {
+                        secondEventCount.incrementAndGet();
+                    }
+                }
+                count.addAndGet(events.length);
+            }
+        });
+
+        final int keys = 500;
+        executionPlanRuntime.start();
+        Thread[] senders = new Thread[2];
+        for (int i = 0; i < senders.length; i++) {
+            final InputHandler inputHandler = executionPlanRuntime.getInputHandler(i == 0 ? "streamA" : "streamB");
+            senders[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < keys * 2; j++) {
+                            inputHandler.send(new Object[]{"S" + (j % keys), j});
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            senders[i].start();
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        SiddhiTestHelper.waitForEvents(100, keys * 4, count, 60000);
+        Assert.assertEquals(keys * 4, count.get());
+        //each partition key is instantiated once, hence every query counts the second event of each key
+        Assert.assertEquals(keys * 2, secondEventCount.get());
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void testPartitionQuery25() throws InterruptedException {
+        log.info("Partition test25");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "@plan:name('PartitionTest25') " +
+                "define stream streamA (symbol string, price int);" +
+                "@info(name = 'partition1') @Purge(idle.period = '200', interval = '50') " +
+                "partition with (symbol of streamA) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from streamA select symbol, count() as eventCount, sum(price) as totalPrice insert into StockQuote ;  " +
+                "end ";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        final List<Object[]> outputs = Collections.synchronizedList(new ArrayList<Object[]>());
+        executionPlanRuntime.addCallback("StockQuote", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    outputs.add(event.getData());
+                }
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("streamA");
+        PartitionRuntime partitionRuntime = executionPlanRuntime.getPartitionRuntime("partition1");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"IBM", 10});
+        inputHandler.send(new Object[]{"WSO2", 20});
+        SiddhiTestHelper.waitForEvents(100, 2, count, 60000);
+        Assert.assertEquals(2, partitionRuntime.getPartitionInstanceCount());
+
+        Thread.sleep(500);
+        Assert.assertEquals(0, partitionRuntime.getPartitionInstanceCount());
+        Assert.assertEquals(2, partitionRuntime.getPurgedPartitionCount());
+
+        inputHandler.send(new Object[]{"IBM", 10});
+        SiddhiTestHelper.waitForEvents(100, 3, count, 60000);
+        Assert.assertEquals(3, count.get());
+        Assert.assertEquals(1, partitionRuntime.getPartitionInstanceCount());
+        Assert.assertEquals(1, partitionRuntime.getPurgedPartitionCount());
+        Assert.assertEquals(Arrays.asList("IBM", 2l, 20l), Arrays.asList(outputs.get(2)));
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void testPartitionQuery26() throws InterruptedException {
+        log.info("Partition test26");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "@plan:name('PartitionTest26') " +
+                "define stream streamA (symbol string, price int);" +
+                "@info(name = 'partition1') @Purge(max.instances = '2', interval = '50') " +
+                "partition with (symbol of streamA) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from streamA select symbol, count() as eventCount insert into StockQuote ;  " +
+                "end ";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        final List<Object[]> outputs = Collections.synchronizedList(new ArrayList<Object[]>());
+        executionPlanRuntime.addCallback("StockQuote", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    outputs.add(event.getData());
+                }
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("streamA");
+        PartitionRuntime partitionRuntime = executionPlanRuntime.getPartitionRuntime("partition1");
+        executionPlanRuntime.start();
+        for (String symbol : new String[]{"A", "B", "C", "D", "E"}) {
+            inputHandler.send(new Object[]{symbol, 10});
+            Thread.sleep(5);
+        }
+
+        Thread.sleep(300);
+        Assert.assertEquals(2, partitionRuntime.getPartitionInstanceCount());
+        Assert.assertEquals(3, partitionRuntime.getPurgedPartitionCount());
+
+        inputHandler.send(new Object[]{"A", 10});
+        inputHandler.send(new Object[]{"E", 10});
+        SiddhiTestHelper.waitForEvents(100, 7, count, 60000);
+        Assert.assertEquals(7, count.get());
+        Assert.assertEquals(Arrays.asList("A", 2l), Arrays.asList(outputs.get(5)));
+        Assert.assertEquals(Arrays.asList("E", 2l), Arrays.asList(outputs.get(6)));
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void testPartitionQuery27() throws InterruptedException {
+        log.info("Partition test27");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "@plan:name('PartitionTest27') @plan:parallel " +
+                "define stream streamA (symbol string, price long);" +
+                "@info(name = 'partition1') @Parallel(workers = '4') " +
+                "partition with (symbol of streamA) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from streamA select symbol, price, count() as eventCount insert into StockQuote ;  " +
+                "end ";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        final Map<Object, Long> lastCounts = new HashMap<Object, Long>();
+        final AtomicInteger outOfOrderCount = new AtomicInteger(0);
+        executionPlanRuntime.addCallback("StockQuote", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    Long lastCount = lastCounts.get(event.getData(0));
+                    long eventCount = (Long) event.getData(2);
+                    if (eventCount != (lastCount == null ? 1 : lastCount + 1) || eventCount != (Long) event.getData(1)) {
+                        outOfOrderCount.incrementAndGet();
+                    }
+                    lastCounts.put(event.getData(0), eventCount);
+                }
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("streamA");
+        PartitionRuntime partitionRuntime = executionPlanRuntime.getPartitionRuntime("partition1");
+        Assert.assertEquals(4, partitionRuntime.getLanes().length);
+        executionPlanRuntime.start();
+        for (long i = 1; i <= 500; i++) {
+            for (int key = 0; key < 20; key++) {
+                inputHandler.send(new Object[]{"WSO2" + key, i});
+            }
+        }
+        SiddhiTestHelper.waitForEvents(100, 10000, count, 60000);
+        Assert.assertEquals(10000, count.get());
+        Assert.assertEquals(0, outOfOrderCount.get());
+        Assert.assertEquals(20, partitionRuntime.getPartitionInstanceCount());
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void testPartitionQuery28() throws InterruptedException {
+        log.info("Partition test28");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "@plan:name('PartitionTest28') " +
+                "define stream streamA (symbol string, price int);" +
+                "@info(name = 'partition1') @Parallel(workers = '4') " +
+                "partition with (symbol of streamA) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from streamA select symbol, count() as eventCount insert into StockQuote ;  " +
+                "end ";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("StockQuote", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("streamA");
+        Assert.assertNull(executionPlanRuntime.getPartitionRuntime("partition1").getLanes());
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"IBM", 10});
+        inputHandler.send(new Object[]{"WSO2", 20});
+        SiddhiTestHelper.waitForEvents(100, 2, count, 60000);
+        Assert.assertEquals(2, count.get());
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void testPartitionQuery29() throws InterruptedException {
+        log.info("Partition test29");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "@plan:name('PartitionTest29') " +
+                "define stream streamA (symbol string, volume long);" +
+                "@info(name = 'partition1') " +
+                "partition with (volume of streamA) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from streamA select volume, count() as eventCount insert into StockQuote ;  " +
+                "end ";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        final List<Object[]> outputs = Collections.synchronizedList(new ArrayList<Object[]>());
+        executionPlanRuntime.addCallback("StockQuote", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    outputs.add(event.getData());
+                }
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("streamA");
+        PartitionRuntime partitionRuntime = executionPlanRuntime.getPartitionRuntime("partition1");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"IBM", 100l});
+        inputHandler.send(new Object[]{"WSO2", 200l});
+        inputHandler.send(new Object[]{"ORACLE", 100l});
+        SiddhiTestHelper.waitForEvents(100, 3, count, 60000);
+        Assert.assertEquals(3, count.get());
+        Assert.assertEquals(Arrays.asList(100l, 2l), Arrays.asList(outputs.get(2)));
+        Assert.assertEquals(2, partitionRuntime.getPartitionInstanceCount());
+        Assert.assertNotNull(partitionRuntime.getPartitionInstanceRuntime(100l));
+        Assert.assertNull(partitionRuntime.getPartitionInstanceRuntime("100"));
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void testPartitionQuery30() throws InterruptedException {
+        log.info("Partition test30");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "@plan:name('PartitionTest30') " +
+                "define stream streamA (symbol string, id int);" +
+                "define stream streamB (symbol string, id long);" +
+                "@info(name = 'partition1') " +
+                "partition with (id of streamA, id of streamB) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from e1=streamA -> e2=streamB select e1.symbol as symbol1, e2.symbol as symbol2 insert into StockQuote ;  " +
+                "end ";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("StockQuote", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandlerA = executionPlanRuntime.getInputHandler("streamA");
+        InputHandler inputHandlerB = executionPlanRuntime.getInputHandler("streamB");
+        PartitionRuntime partitionRuntime = executionPlanRuntime.getPartitionRuntime("partition1");
+        executionPlanRuntime.start();
+        inputHandlerA.send(new Object[]{"IBM", 1});
+        Thread.sleep(100);
+        inputHandlerB.send(new Object[]{"WSO2", 1l});
+        SiddhiTestHelper.waitForEvents(100, 1, count, 60000);
+        Assert.assertEquals(1, count.get());
+        Assert.assertEquals(1, partitionRuntime.getPartitionInstanceCount());
+        Assert.assertNotNull(partitionRuntime.getPartitionInstanceRuntime("1"));
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void testPartitionQuery31() throws InterruptedException {
+        log.info("Partition test31");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "@plan:name('PartitionTest31') " +
+                "@config(async = 'true') define stream streamA (symbol string, price int);" +
+                "@info(name = 'partition1') @Purge(idle.period = '10', interval = '5') " +
+                "partition with (symbol of streamA) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from streamA#window.time(1 sec) select symbol, count() as eventCount insert into StockQuote ;  " +
+                "end ";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("StockQuote", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("streamA");
+        PartitionRuntime partitionRuntime = executionPlanRuntime.getPartitionRuntime("partition1");
+        executionPlanRuntime.start();
+        //events are routed on the async stream's thread while the partitions are purged
+        int events = 5000;
+        for (int i = 0; i < events; i++) {
+            inputHandler.send(new Object[]{"SYMBOL" + (i % 50), i});
+            if (i % 100 == 0) {
+                Thread.sleep(10);
+            }
+        }
+        SiddhiTestHelper.waitForEvents(100, events, count, 60000);
+        Assert.assertEquals(events, count.get());
+        Thread.sleep(100);
+        Assert.assertEquals(0, partitionRuntime.getPartitionInstanceCount());
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void testPartitionQuery32() throws InterruptedException {
+        log.info("Partition test32");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "@plan:name('PartitionTest32') " +
+                "define stream streamA (symbol string, price int);" +
+                "@info(name = 'partition1') @Purge(idle.period = '100', spill.period = '200', interval = '50') " +
+                "partition with (symbol of streamA) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from streamA select symbol, count() as eventCount, sum(price) as totalPrice insert into StockQuote ;  " +
+                "end ";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+
+        final List<Object[]> outputs = Collections.synchronizedList(new ArrayList<Object[]>());
+        executionPlanRuntime.addCallback("StockQuote", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    outputs.add(event.getData());
+                }
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("streamA");
+        PartitionRuntime partitionRuntime = executionPlanRuntime.getPartitionRuntime("partition1");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"IBM", 10});
+        inputHandler.send(new Object[]{"WSO2", 20});
+        SiddhiTestHelper.waitForEvents(100, 2, count, 60000);
+
+        //spilled states are dropped once kept for the spill period
+        Thread.sleep(800);
+        Assert.assertEquals(0, partitionRuntime.getPartitionInstanceCount());
+        Assert.assertEquals(0, partitionRuntime.getPurgedPartitionCount());
+
+        inputHandler.send(new Object[]{"IBM", 10});
+        SiddhiTestHelper.waitForEvents(100, 3, count, 60000);
+        Assert.assertEquals(3, count.get());
+        Assert.assertEquals(Arrays.asList("IBM", 1l, 10l), Arrays.asList(outputs.get(2)));
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void testPartitionSpillStoreSnapshotRelease() {
+        log.info("Partition spill store snapshot release test");
+        final String name = "SpillStoreTest" + System.nanoTime();
+        PartitionSpillStore spillStore = new PartitionSpillStore(name);
+        spillStore.save("IBM", new byte[]{1, 2, 3}, 0);
+        DeferredState releasedSnapshot = spillStore.snapshot();
+        DeferredState serializedSnapshot = spillStore.snapshot();
+        spillStore.clear();
+        Assert.assertEquals(1, getSpillDirectories(name).length);
+
+        //a snapshot released without being serialized no longer refers to the files
+        releasedSnapshot.release();
+        releasedSnapshot.release();
+        Assert.assertEquals(1, getSpillDirectories(name).length);
+
+        Map<?, ?> states = (Map<?, ?>) serializedSnapshot.getValue();
+        Assert.assertEquals(3, ((byte[]) states.get("IBM")).length);
+        serializedSnapshot.release();
+        Assert.assertEquals(0, getSpillDirectories(name).length);
+    }
+
+    private static File[] getSpillDirectories(final String name) {
+        return new File(System.getProperty("java.io.tmpdir")).listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String fileName) {
+                return fileName.startsWith("siddhi-" + name + "-");
+            }
+        });
+    }
 }
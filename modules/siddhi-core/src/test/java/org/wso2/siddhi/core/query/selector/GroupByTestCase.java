@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.siddhi.core.query.selector;
+
+import junit.framework.Assert;
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.siddhi.core.ExecutionPlanRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.query.output.callback.QueryCallback;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.test.util.SiddhiTestHelper;
+import org.wso2.siddhi.core.util.EventPrinter;
+import org.wso2.siddhi.query.api.exception.ExecutionPlanValidationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GroupByTestCase {
+    static final Logger log = Logger.getLogger(GroupByTestCase.class);
+    private AtomicInteger count;
+    private List<List<Object>> outputs;
+
+    @Before
+    public void init() {
+        count = new AtomicInteger(0);
+        outputs = new ArrayList<List<Object>>();
+    }
+
+    @Test
+    public void groupByTest1() throws InterruptedException {
+        log.info("group by test 1 - long key with count, sum and avg over a window");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream DeviceStream (deviceId long, reading double); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from DeviceStream#window.length(3) " +
+                "select deviceId, count() as readings, sum(reading) as total, avg(reading) as average " +
+                "group by deviceId " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new OutputCollector());
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("DeviceStream");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{1l, 10.0});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{2l, 20.0});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{1l, 30.0});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{2l, 40.0});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{1l, 50.0});
+        Thread.sleep(100);
+        SiddhiTestHelper.waitForEvents(10, 5, count, 2000);
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(5, count.get());
+        Assert.assertEquals(Arrays.<Object>asList(1l, 1l, 10.0, 10.0), outputs.get(0));
+        Assert.assertEquals(Arrays.<Object>asList(2l, 1l, 20.0, 20.0), outputs.get(1));
+        Assert.assertEquals(Arrays.<Object>asList(1l, 2l, 40.0, 20.0), outputs.get(2));
+        Assert.assertEquals(Arrays.<Object>asList(2l, 2l, 60.0, 30.0), outputs.get(3));
+        Assert.assertEquals(Arrays.<Object>asList(1l, 2l, 80.0, 40.0), outputs.get(4));
+    }
+
+    @Test
+    public void groupByTest2() throws InterruptedException {
+        log.info("group by test 2 - composite key with sum and max");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream StockStream (symbol string, exchange string, volume int); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "select symbol, exchange, sum(volume) as totalVolume, max(volume) as maxVolume " +
+                "group by symbol, exchange " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new OutputCollector());
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"IBM", "NYSE", 100});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"IBM", "LSE", 50});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"IBM", "NYSE", 300});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"WSO2", "NYSE", 20});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"IBM", "LSE", 10});
+        Thread.sleep(100);
+        SiddhiTestHelper.waitForEvents(10, 5, count, 2000);
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(5, count.get());
+        Assert.assertEquals(Arrays.<Object>asList("IBM", "NYSE", 100l, 100), outputs.get(0));
+        Assert.assertEquals(Arrays.<Object>asList("IBM", "LSE", 50l, 50), outputs.get(1));
+        Assert.assertEquals(Arrays.<Object>asList("IBM", "NYSE", 400l, 300), outputs.get(2));
+        Assert.assertEquals(Arrays.<Object>asList("WSO2", "NYSE", 20l, 20), outputs.get(3));
+        Assert.assertEquals(Arrays.<Object>asList("IBM", "LSE", 60l, 50), outputs.get(4));
+    }
+
+    @Test
+    public void groupByTest3() throws InterruptedException {
+        log.info("group by test 3 - null group by values");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream StockStream (symbol string, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "select symbol, sum(volume) as totalVolume " +
+                "group by symbol " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new OutputCollector());
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{null, 10l});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"IBM", 5l});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{null, 7l});
+        Thread.sleep(100);
+        SiddhiTestHelper.waitForEvents(10, 3, count, 2000);
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(3, count.get());
+        Assert.assertEquals(Arrays.<Object>asList(null, 10l), outputs.get(0));
+        Assert.assertEquals(Arrays.<Object>asList("IBM", 5l), outputs.get(1));
+        Assert.assertEquals(Arrays.<Object>asList(null, 17l), outputs.get(2));
+    }
+
+    @Test
+    public void groupByTest4() throws InterruptedException {
+        log.info("group by test 4 - groups removed once their events expire from the window");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream StockStream (symbol string, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream#window.length(2) " +
+                "select symbol, sum(volume) as totalVolume, max(volume) as maxVolume " +
+                "group by symbol " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new OutputCollector());
+        QuerySelector selector = executionPlanRuntime.getQueryRuntime("query1").getSelector();
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"IBM", 10l});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"WSO2", 20l});
+        Thread.sleep(100);
+        Assert.assertEquals(2, selector.getGroupCount());
+        inputHandler.send(new Object[]{"ORACLE", 30l});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"GOOG", 40l});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"IBM", 5l});
+        Thread.sleep(100);
+        SiddhiTestHelper.waitForEvents(10, 5, count, 2000);
+        Assert.assertEquals(2, selector.getGroupCount());
+        Assert.assertEquals(3, selector.getRemovedGroupCount());
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(5, count.get());
+        Assert.assertEquals(Arrays.<Object>asList("ORACLE", 30l, 30l), outputs.get(2));
+        Assert.assertEquals(Arrays.<Object>asList("GOOG", 40l, 40l), outputs.get(3));
+        Assert.assertEquals(Arrays.<Object>asList("IBM", 5l, 5l), outputs.get(4));
+    }
+
+    @Test
+    public void groupByTest5() throws InterruptedException {
+        log.info("group by test 5 - idle groups removed by @Purge");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream StockStream (symbol string, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "@Purge(idle.period='300', interval='100') " +
+                "from StockStream " +
+                "select symbol, sum(volume) as totalVolume " +
+                "group by symbol " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new OutputCollector());
+        QuerySelector selector = executionPlanRuntime.getQueryRuntime("query1").getSelector();
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"IBM", 10l});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"WSO2", 5l});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"IBM", 10l});
+        Thread.sleep(500);
+        inputHandler.send(new Object[]{"WSO2", 1l});
+        Thread.sleep(100);
+        Assert.assertEquals(1, selector.getGroupCount());
+        inputHandler.send(new Object[]{"IBM", 3l});
+        Thread.sleep(100);
+        SiddhiTestHelper.waitForEvents(10, 5, count, 2000);
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(5, count.get());
+        Assert.assertEquals(Arrays.<Object>asList("IBM", 20l), outputs.get(2));
+        Assert.assertEquals(Arrays.<Object>asList("WSO2", 6l), outputs.get(3));
+        Assert.assertEquals(Arrays.<Object>asList("IBM", 3l), outputs.get(4));
+        Assert.assertEquals(1, selector.getRemovedGroupCount());
+    }
+
+    @Test(expected = ExecutionPlanValidationException.class)
+    public void groupByTest6() throws InterruptedException {
+        log.info("group by test 6 - @Purge on a query without group by");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream StockStream (symbol string, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "@Purge(idle.period='300') " +
+                "from StockStream " +
+                "select symbol, sum(volume) as totalVolume " +
+                "insert into OutStream;";
+
+        siddhiManager.createExecutionPlanRuntime(executionPlan);
+    }
+
+    @Test
+    public void groupByTest7() throws InterruptedException {
+        log.info("group by test 7 - idle groups still holding events of the window kept by @Purge");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream StockStream (symbol string, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "@Purge(idle.period='100', interval='50') " +
+                "from StockStream#window.length(5) " +
+                "select symbol, sum(volume) as totalVolume " +
+                "group by symbol " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new OutputCollector());
+        QuerySelector selector = executionPlanRuntime.getQueryRuntime("query1").getSelector();
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"IBM", 10l});
+        Thread.sleep(300);
+        inputHandler.send(new Object[]{"WSO2", 5l});
+        Thread.sleep(300);
+        inputHandler.send(new Object[]{"WSO2", 1l});
+        inputHandler.send(new Object[]{"IBM", 10l});
+        SiddhiTestHelper.waitForEvents(10, 4, count, 2000);
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(4, count.get());
+        Assert.assertEquals(Arrays.<Object>asList("IBM", 20l), outputs.get(3));
+        Assert.assertEquals(2, selector.getGroupCount());
+        Assert.assertEquals(0, selector.getRemovedGroupCount());
+    }
+
+    private class OutputCollector extends QueryCallback {
+        @Override
+        public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+            EventPrinter.print(timeStamp, inEvents, removeEvents);
+            if (inEvents != null) {
+                for (Event event : inEvents) {
+                    outputs.add(Arrays.asList(event.getData()));
+                    count.incrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.query.selector.attribute.aggregator;
+
+import junit.framework.Assert;
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.siddhi.core.ExecutionPlanRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.query.output.callback.QueryCallback;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.test.util.SiddhiTestHelper;
+import org.wso2.siddhi.core.util.EventPrinter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ColumnAggregationTestCase {
+    static final Logger log = Logger.getLogger(ColumnAggregationTestCase.class);
+    private final double epsilon = 0.00001;
+    private static final int[] VALUES = {5, 3, 8, 1, 9, 2, 7, 4, 6, 0};
+    private AtomicInteger count;
+    private volatile Event lastEvent;
+
+    @Before
+    public void init() {
+        count = new AtomicInteger(0);
+        lastEvent = null;
+    }
+
+    @Test
+    public void columnAggregationTest1() throws InterruptedException {
+        log.info("column aggregation test 1 - int values of a chunk aggregated as columns");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream ReadingStream (id string, value int); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from ReadingStream#window.length(4) " +
+                "select sum(value) as total, avg(value) as average, min(value) as minValue, " +
+                "max(value) as maxValue, count() as readings, stddev(value) as deviation " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new LastEventCollector());
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("ReadingStream");
+        executionPlanRuntime.start();
+        Event[] events = new Event[VALUES.length];
+        for (int i = 0; i < VALUES.length; i++) {
+            events[i] = new Event(System.currentTimeMillis(), new Object[]{"R" + i, VALUES[i]});
+        }
+        inputHandler.send(events);
+        SiddhiTestHelper.waitForEvents(100, 1, count, 2000);
+        Thread.sleep(100);
+        executionPlanRuntime.shutdown();
+
+        // last four values: 7, 4, 6, 0
+        Assert.assertEquals(17l, lastEvent.getData(0));
+        Assert.assertEquals(4.25, (Double) lastEvent.getData(1), epsilon);
+        Assert.assertEquals(0, lastEvent.getData(2));
+        Assert.assertEquals(7, lastEvent.getData(3));
+        Assert.assertEquals(4l, lastEvent.getData(4));
+        Assert.assertEquals(Math.sqrt(28.75 / 4), (Double) lastEvent.getData(5), epsilon);
+    }
+
+    @Test
+    public void columnAggregationTest2() throws InterruptedException {
+        log.info("column aggregation test 2 - double values aggregated as columns, emitting expired events");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream ReadingStream (id string, value double); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from ReadingStream#window.length(4) " +
+                "select sum(value) as total, min(value) as minValue, max(value) as maxValue, count() as readings " +
+                "insert expired events into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new LastEventCollector());
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("ReadingStream");
+        executionPlanRuntime.start();
+        Event[] events = new Event[VALUES.length];
+        for (int i = 0; i < VALUES.length; i++) {
+            events[i] = new Event(System.currentTimeMillis(), new Object[]{"R" + i, (double) VALUES[i]});
+        }
+        inputHandler.send(events);
+        SiddhiTestHelper.waitForEvents(100, 1, count, 2000);
+        Thread.sleep(100);
+        executionPlanRuntime.shutdown();
+
+        // 2.0 expired before 0.0 arrives, leaving 7, 4, 6
+        Assert.assertEquals(17.0, (Double) lastEvent.getData(0), epsilon);
+        Assert.assertEquals(4.0, lastEvent.getData(1));
+        Assert.assertEquals(7.0, lastEvent.getData(2));
+        Assert.assertEquals(3l, lastEvent.getData(3));
+    }
+
+    @Test
+    public void columnAggregationTest3() throws InterruptedException {
+        log.info("column aggregation test 3 - chunks aggregated as columns match events aggregated one by one");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream ReadingStream (id string, value long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from ReadingStream#window.length(3) " +
+                "select sum(value) as total, min(value) as minValue, max(value) as maxValue " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new LastEventCollector());
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("ReadingStream");
+        executionPlanRuntime.start();
+        inputHandler.send(new Event[]{new Event(System.currentTimeMillis(), new Object[]{"R0", 5l}),
+                new Event(System.currentTimeMillis(), new Object[]{"R1", 9l})});
+        SiddhiTestHelper.waitForEvents(100, 1, count, 2000);
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"R2", 9l});
+        Thread.sleep(100);
+        inputHandler.send(new Event[]{new Event(System.currentTimeMillis(), new Object[]{"R3", 1l}),
+                new Event(System.currentTimeMillis(), new Object[]{"R4", 3l})});
+        Thread.sleep(100);
+        executionPlanRuntime.shutdown();
+
+        // 9, 1, 3 left, the 9 of R2 still bounding the max
+        Assert.assertEquals(13l, lastEvent.getData(0));
+        Assert.assertEquals(1l, lastEvent.getData(1));
+        Assert.assertEquals(9l, lastEvent.getData(2));
+    }
+
+    private class LastEventCollector extends QueryCallback {
+        @Override
+        public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+            EventPrinter.print(timeStamp, inEvents, removeEvents);
+            Event[] events = inEvents != null ? inEvents : removeEvents;
+            if (events != null) {
+                lastEvent = events[events.length - 1];
+                count.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.query.selector.attribute.aggregator;
+
+import junit.framework.Assert;
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.siddhi.core.ExecutionPlanRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.query.output.callback.QueryCallback;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.test.util.SiddhiTestHelper;
+import org.wso2.siddhi.core.util.EventPrinter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MinMaxAttributeAggregatorTestCase {
+    static final Logger log = Logger.getLogger(MinMaxAttributeAggregatorTestCase.class);
+    private AtomicInteger count;
+    private List<List<Object>> outputs;
+
+    @Before
+    public void init() {
+        count = new AtomicInteger(0);
+        outputs = new ArrayList<List<Object>>();
+    }
+
+    @Test
+    public void minMaxTest1() throws InterruptedException {
+        log.info("min max test 1 - int values sliding out of a length window, with duplicates");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream ReadingStream (id string, value int); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from ReadingStream#window.length(3) " +
+                "select min(value) as minValue, max(value) as maxValue " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new OutputCollector());
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("ReadingStream");
+        executionPlanRuntime.start();
+        for (int value : new int[]{5, 5, 3, 1, 4, 2}) {
+            inputHandler.send(new Object[]{"R", value});
+            Thread.sleep(100);
+        }
+        SiddhiTestHelper.waitForEvents(10, 6, count, 2000);
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(6, count.get());
+        Assert.assertEquals(Arrays.<Object>asList(5, 5), outputs.get(0));
+        Assert.assertEquals(Arrays.<Object>asList(5, 5), outputs.get(1));
+        Assert.assertEquals(Arrays.<Object>asList(3, 5), outputs.get(2));
+        Assert.assertEquals(Arrays.<Object>asList(1, 5), outputs.get(3));
+        Assert.assertEquals(Arrays.<Object>asList(1, 4), outputs.get(4));
+        Assert.assertEquals(Arrays.<Object>asList(1, 4), outputs.get(5));
+    }
+
+    @Test
+    public void minMaxTest2() throws InterruptedException {
+        log.info("min max test 2 - float values, the window emptied by a batch");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream ReadingStream (id string, value float); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from ReadingStream#window.lengthBatch(2) " +
+                "select min(value) as minValue, max(value) as maxValue " +
+                "insert all events into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new OutputCollector());
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("ReadingStream");
+        executionPlanRuntime.start();
+        for (float value : new float[]{2.5f, 1.5f, 7.5f, 9.5f}) {
+            inputHandler.send(new Object[]{"R", value});
+            Thread.sleep(100);
+        }
+        SiddhiTestHelper.waitForEvents(10, 2, count, 2000);
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(Arrays.<Object>asList(1.5f, 2.5f), outputs.get(0));
+        Assert.assertEquals(Arrays.<Object>asList(7.5f, 9.5f), outputs.get(outputs.size() - 1));
+    }
+
+    @Test
+    public void minMaxTest3() throws InterruptedException {
+        log.info("min max test 3 - values expiring out of the order they arrived from a sort window");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream ReadingStream (id string, value int); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from ReadingStream#window.sort(2, value, 'asc') " +
+                "select min(value) as minValue, max(value) as maxValue " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new OutputCollector());
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("ReadingStream");
+        executionPlanRuntime.start();
+        for (int value : new int[]{5, 1, 3, 2, 0, -1}) {
+            inputHandler.send(new Object[]{"R", value});
+            Thread.sleep(100);
+        }
+        SiddhiTestHelper.waitForEvents(10, 6, count, 2000);
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(6, count.get());
+        Assert.assertEquals(Arrays.<Object>asList(5, 5), outputs.get(0));
+        Assert.assertEquals(Arrays.<Object>asList(1, 5), outputs.get(1));
+        Assert.assertEquals(Arrays.<Object>asList(1, 5), outputs.get(2));
+        Assert.assertEquals(Arrays.<Object>asList(1, 3), outputs.get(3));
+        Assert.assertEquals(Arrays.<Object>asList(0, 2), outputs.get(4));
+        Assert.assertEquals(Arrays.<Object>asList(-1, 1), outputs.get(5));
+    }
+
+    @Test
+    public void minMaxTest4() throws InterruptedException {
+        log.info("min max test 4 - double values never expiring without a window");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String executionPlan = "" +
+                "define stream ReadingStream (id string, value double); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from ReadingStream " +
+                "select min(value) as minValue, max(value) as maxValue " +
+                "insert into OutStream;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        executionPlanRuntime.addCallback("query1", new OutputCollector());
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("ReadingStream");
+        executionPlanRuntime.start();
+        for (double value : new double[]{2.5, -0.5, 4.0, -3.25, 1.0}) {
+            inputHandler.send(new Object[]{"R", value});
+            Thread.sleep(100);
+        }
+        SiddhiTestHelper.waitForEvents(10, 5, count, 2000);
+        executionPlanRuntime.shutdown();
+
+        Assert.assertEquals(5, count.get());
+        Assert.assertEquals(Arrays.<Object>asList(2.5, 2.5), outputs.get(0));
+        Assert.assertEquals(Arrays.<Object>asList(-0.5, 2.5), outputs.get(1));
+        Assert.assertEquals(Arrays.<Object>asList(-0.5, 4.0), outputs.get(2));
+        Assert.assertEquals(Arrays.<Object>asList(-3.25, 4.0), outputs.get(3));
+        Assert.assertEquals(Arrays.<Object>asList(-3.25, 4.0), outputs.get(4));
+    }
+
+    @Test
+    public void minMaxTest5() {
+        log.info("min max test 5 - values kept as the order in which they expire allows");
+
+        MonotonicDeque arrivalDeque = new MonotonicDeque(true, AttributeAggregator.ExpiryOrder.ARRIVAL);
+        MonotonicDeque unexpiringDeque = new MonotonicDeque(true, AttributeAggregator.ExpiryOrder.NONE);
+        for (int i = 0; i < 1000; i++) {
+            arrivalDeque.add(i);
+            unexpiringDeque.add(-i);
+        }
+        Assert.assertEquals(1, ((long[]) arrivalDeque.currentState()[0]).length);
+        Assert.assertEquals(1, ((long[]) unexpiringDeque.currentState()[0]).length);
+        Assert.assertEquals(999, arrivalDeque.getFirst());
+        Assert.assertEquals(0, unexpiringDeque.getFirst());
+
+        arrivalDeque.clear();
+        for (long value : new long[]{3, 1, 3, 2}) {
+            arrivalDeque.add(value);
+        }
+        arrivalDeque.remove(3);
+        Assert.assertEquals(3, arrivalDeque.getFirst());
+        arrivalDeque.remove(1);
+        arrivalDeque.remove(3);
+        Assert.assertEquals(2, arrivalDeque.getFirst());
+
+        MonotonicDeque minDeque = new MonotonicDeque(false, AttributeAggregator.ExpiryOrder.ANY);
+        for (double value : new double[]{0.0, -0.0, 1.5, -2.5}) {
+            minDeque.add(MonotonicDeque.toLong(value));
+        }
+        Assert.assertEquals(-2.5, MonotonicDeque.toDouble(minDeque.getFirst()));
+        minDeque.remove(MonotonicDeque.toLong(-2.5));
+        Assert.assertEquals(-0.0, MonotonicDeque.toDouble(minDeque.getFirst()));
+    }
+
+    private class OutputCollector extends QueryCallback {
+        @Override
+        public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+            EventPrinter.print(timeStamp, inEvents, removeEvents);
+            if (inEvents != null) {
+                for (Event event : inEvents) {
+                    outputs.add(Arrays.asList(event.getData()));
+                    count.incrementAndGet();
+                }
+            }
+        }
+    }
+}
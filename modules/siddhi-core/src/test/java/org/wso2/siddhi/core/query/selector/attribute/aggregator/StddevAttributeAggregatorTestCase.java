@@ -268,4 +268,49 @@ public class StddevAttributeAggregatorTestCase {
         Thread.sleep(100);
         execPlanRunTime.shutdown();
     }
+
+    @Test
+    public void StddevAggregatorTest7() throws InterruptedException {
+        log.info("StddevAggregator Test #7: Sliding stddev of values with a large offset");
+
+        final double[] results = new double[]{0.0, 1.5, 3.74166, 3.74166};
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String windowExecPlan = "" +
+                "@Plan:name('StddevAggregatorTests') " +
+                "" +
+                "define stream cseEventStream (symbol string, price double);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.length(3) " +
+                "select stddev(price) as deviation " +
+                "insert into outputStream;";
+
+        ExecutionPlanRuntime execPlanRunTime = siddhiManager.createExecutionPlanRuntime(windowExecPlan);
+        execPlanRunTime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                for (Event event : inEvents) {
+                    Assert.assertTrue(Math.abs(results[inEventCount] - (Double) event.getData(0)) < epsilon);
+                    inEventCount++;
+                }
+            }
+        });
+
+        InputHandler inputHandler = execPlanRunTime.getInputHandler("cseEventStream");
+
+        execPlanRunTime.start();
+        inputHandler.send(new Object[]{"WSO2", 1e9 + 4});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"WSO2", 1e9 + 7});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"WSO2", 1e9 + 13});
+        Thread.sleep(100);
+        inputHandler.send(new Object[]{"WSO2", 1e9 + 16});
+        Thread.sleep(100);
+        execPlanRunTime.shutdown();
+        Assert.assertEquals(4, inEventCount);
+    }
 }
@@ -27,6 +27,10 @@ import org.wso2.siddhi.core.query.output.callback.QueryCallback;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.util.EventPrinter;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class JoinTableTestCase {
     private static final Logger log = Logger.getLogger(JoinTableTestCase.class);
     private int inEventCount;
@@ -387,4 +391,110 @@ public class JoinTableTestCase {
 
     }
 
+    @Test
+    public void testTableJoinQuery6() throws InterruptedException {
+        log.info("testTableJoinQuery6 - concurrent readers and writer");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        final int readers = 4;
+        final int symbols = 10;
+        final int eventsPerReader = 1000;
+        StringBuilder streams = new StringBuilder("" +
+                "@plan:parallel " +
+                "define stream UpdateStockStream (symbol string, price float, volume long); " +
+                "@IndexBy('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); ");
+        StringBuilder query = new StringBuilder("" +
+                "@info(name = 'update') " +
+                "from UpdateStockStream " +
+                "update StockTable " +
+                "   on StockTable.symbol==symbol;");
+        for (int i = 0; i < readers; i++) {
+            streams.append("define stream CheckStockStream").append(i).append(" (symbol string); ");
+            query.append("" +
+                    "@info(name = 'query").append(i).append("') " +
+                    "from CheckStockStream").append(i).append(" join StockTable " +
+                    " on CheckStockStream").append(i).append(".symbol==StockTable.symbol " +
+                    "select CheckStockStream").append(i).append(".symbol as checkSymbol, StockTable.symbol as symbol " +
+                    "insert into OutputStream;");
+        }
+        query.append("" +
+                "@info(name = 'insert') " +
+                "from UpdateStockStream[volume < 0] " +
+                "insert into StockTable ;");
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(streams.toString() +
+                query.toString());
+
+        final AtomicInteger joinedEventCount = new AtomicInteger();
+        final AtomicInteger mismatchedEventCount = new AtomicInteger();
+        for (int i = 0; i < readers; i++) {
+            executionPlanRuntime.addCallback("query" + i, new QueryCallback() {
+                @Override
+                public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                    if (inEvents != null) {
+                        for (Event event : inEvents) {
+                            joinedEventCount.incrementAndGet();
+                            if (!event.getData(0).equals(event.getData(1))) {
+                                mismatchedEventCount.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            });
+        }
+
+        final InputHandler updateStockStream = executionPlanRuntime.getInputHandler("UpdateStockStream");
+        executionPlanRuntime.start();
+
+        for (int i = 0; i < symbols; i++) {
+            updateStockStream.send(new Object[]{"S" + i, 10f, -1l});
+        }
+
+        final CountDownLatch latch = new CountDownLatch(readers + 1);
+        for (int i = 0; i < readers; i++) {
+            final InputHandler checkStockStream = executionPlanRuntime.getInputHandler("CheckStockStream" + i);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < eventsPerReader; j++) {
+                            checkStockStream.send(new Object[]{"S" + (j % symbols)});
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int j = 0; j < eventsPerReader; j++) {
+                        updateStockStream.send(new Object[]{"S" + (j % symbols), 10f + j, (long) j});
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latch.countDown();
+                }
+            }
+        }).start();
+
+        Assert.assertTrue("Senders completed", latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 50 && joinedEventCount.get() < readers * eventsPerReader; i++) {
+            Thread.sleep(100);
+        }
+
+        Assert.assertEquals("Number of joined events", readers * eventsPerReader, joinedEventCount.get());
+        Assert.assertEquals("Number of mismatched events", 0, mismatchedEventCount.get());
+
+        executionPlanRuntime.shutdown();
+
+    }
+
 }
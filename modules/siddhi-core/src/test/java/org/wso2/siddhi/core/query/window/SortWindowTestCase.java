@@ -28,6 +28,10 @@ import org.wso2.siddhi.core.query.output.callback.QueryCallback;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.util.EventPrinter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class SortWindowTestCase {
     private static final Logger log = Logger.getLogger(SortWindowTestCase.class);
     private int inEventCount;
@@ -134,4 +138,112 @@ public class SortWindowTestCase {
         executionPlanRuntime.shutdown();
 
     }
+
+    @Test
+    public void sortWindowTest3() throws InterruptedException {
+        log.info("sortWindow test3: evicted events");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String cseEventStream = "" +
+                "define stream cseEventStream (symbol string, price int, volume long);";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.sort(2,volume, 'asc', price, 'desc') " +
+                "select price, volume " +
+                "insert all events into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(cseEventStream + query);
+        final List<Object> removedPrices = new ArrayList<Object>();
+        executionPlanRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                if (removeEvents != null) {
+                    for (Event event : removeEvents) {
+                        removedPrices.add(event.getData(0));
+                    }
+                }
+            }
+
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        inputHandler.send(new Object[]{"WSO2", 50, 100l});
+        inputHandler.send(new Object[]{"IBM", 20, 100l});
+        inputHandler.send(new Object[]{"WSO2", 40, 50l});
+        inputHandler.send(new Object[]{"WSO2", 100, 20l});
+        inputHandler.send(new Object[]{"WSO2", 50, 50l});
+        Thread.sleep(500);
+        Assert.assertEquals(Arrays.<Object>asList(20, 50, 40), removedPrices);
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void sortWindowTest4() throws InterruptedException {
+        log.info("sortWindow test4: join on a range of the sort attribute");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream cseEventStream (symbol string, price int, volume long); " +
+                "define stream checkStream (threshold int); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.sort(3, price, 'desc') join checkStream#window.length(1) " +
+                "on cseEventStream.price > checkStream.threshold " +
+                "select symbol, price, threshold " +
+                "insert into outputStream1 ;" +
+                "@info(name = 'query2') " +
+                "from cseEventStream#window.sort(3, price) join checkStream#window.length(1) " +
+                "on checkStream.threshold >= cseEventStream.price " +
+                "select symbol, price, threshold " +
+                "insert into outputStream2 ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(streams + query);
+        final List<Object> prices1 = new ArrayList<Object>();
+        final List<Object> prices2 = new ArrayList<Object>();
+        executionPlanRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                if (inEvents != null) {
+                    for (Event event : inEvents) {
+                        prices1.add(event.getData(1));
+                    }
+                }
+            }
+        });
+        executionPlanRuntime.addCallback("query2", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                if (inEvents != null) {
+                    for (Event event : inEvents) {
+                        prices2.add(event.getData(1));
+                    }
+                }
+            }
+        });
+
+        InputHandler cseInputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        InputHandler checkInputHandler = executionPlanRuntime.getInputHandler("checkStream");
+        executionPlanRuntime.start();
+        cseInputHandler.send(new Object[]{"WSO2", 10, 100l});
+        cseInputHandler.send(new Object[]{"IBM", 50, 100l});
+        cseInputHandler.send(new Object[]{"WSO2", 30, 100l});
+        cseInputHandler.send(new Object[]{"IBM", 70, 100l});
+        cseInputHandler.send(new Object[]{"WSO2", 20, 100l});
+        Thread.sleep(100);
+        checkInputHandler.send(new Object[]{40});
+        Thread.sleep(100);
+        Assert.assertEquals(Arrays.<Object>asList(70, 50), prices1);
+        Assert.assertEquals(Arrays.<Object>asList(10, 20, 30), prices2);
+        prices1.clear();
+        prices2.clear();
+        checkInputHandler.send(new Object[]{25});
+        Thread.sleep(100);
+        Assert.assertEquals(Arrays.<Object>asList(70, 50, 30), prices1);
+        Assert.assertEquals(Arrays.<Object>asList(10, 20), prices2);
+        executionPlanRuntime.shutdown();
+    }
 }
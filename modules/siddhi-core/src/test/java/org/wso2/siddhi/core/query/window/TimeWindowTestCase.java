@@ -27,6 +27,9 @@ import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.stream.output.StreamCallback;
 import org.wso2.siddhi.core.util.EventPrinter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TimeWindowTestCase {
     private static final Logger log = Logger.getLogger(TimeWindowTestCase.class);
     private int inEventCount;
@@ -170,4 +173,207 @@ public class TimeWindowTestCase {
 
     }
 
+    @Test
+    public void timeWindowTest4() throws InterruptedException {
+        log.info("timeWindow test4: time windows of different lengths on the same stream");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:playback " +
+                "define stream cseEventStream (symbol string, price float, volume int); " +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(1 sec) " +
+                "select symbol, sum(volume) as total " +
+                "insert into outputStream1 ;" +
+                "@info(name = 'query2') " +
+                "from cseEventStream#window.time(2 sec) " +
+                "select symbol, sum(volume) as total " +
+                "insert into outputStream2 ;" +
+                "@info(name = 'query3') " +
+                "from cseEventStream#window.time(2 sec) " +
+                "select symbol, count() as total " +
+                "insert into outputStream3 ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        final long[] totals = new long[3];
+        for (int i = 0; i < totals.length; i++) {
+            final int index = i;
+            executionPlanRuntime.addCallback("query" + (i + 1), new QueryCallback() {
+                @Override
+                public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                    EventPrinter.print(timeStamp, inEvents, removeEvents);
+                    totals[index] = ((Number) inEvents[inEvents.length - 1].getData(1)).longValue();
+                }
+            });
+        }
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        inputHandler.send(1000, new Object[]{"IBM", 700f, 1});
+        inputHandler.send(1500, new Object[]{"WSO2", 60.5f, 2});
+        inputHandler.send(2000, new Object[]{"IBM", 700f, 3});
+        Assert.assertEquals(5, totals[0]);
+        Assert.assertEquals(6, totals[1]);
+        Assert.assertEquals(3, totals[2]);
+        inputHandler.send(3200, new Object[]{"WSO2", 60.5f, 4});
+        Assert.assertEquals(4, totals[0]);
+        Assert.assertEquals(9, totals[1]);
+        Assert.assertEquals(3, totals[2]);
+        inputHandler.send(4100, new Object[]{"IBM", 700f, 5});
+        Assert.assertEquals(9, totals[0]);
+        Assert.assertEquals(9, totals[1]);
+        Assert.assertEquals(2, totals[2]);
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void timeWindowTest5() throws InterruptedException {
+        log.info("timeWindow test5: restoring time windows of different lengths on the same stream");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:name('timeWindowTest5') " +
+                "@plan:playback " +
+                "define stream cseEventStream (symbol string, price float, volume int); " +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(1 sec) " +
+                "select symbol, sum(volume) as total " +
+                "insert into outputStream1 ;" +
+                "@info(name = 'query2') " +
+                "from cseEventStream#window.time(2 sec) " +
+                "select symbol, sum(volume) as total " +
+                "insert into outputStream2 ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        inputHandler.send(1000, new Object[]{"IBM", 700f, 1});
+        inputHandler.send(1500, new Object[]{"WSO2", 60.5f, 2});
+        inputHandler.send(2000, new Object[]{"IBM", 700f, 3});
+        byte[] snapshot = executionPlanRuntime.snapshot();
+        executionPlanRuntime.shutdown();
+
+        executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        final long[] totals = new long[2];
+        for (int i = 0; i < totals.length; i++) {
+            final int index = i;
+            executionPlanRuntime.addCallback("query" + (i + 1), new QueryCallback() {
+                @Override
+                public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                    EventPrinter.print(timeStamp, inEvents, removeEvents);
+                    totals[index] = ((Number) inEvents[inEvents.length - 1].getData(1)).longValue();
+                }
+            });
+        }
+        inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        executionPlanRuntime.restore(snapshot);
+        inputHandler.send(3200, new Object[]{"WSO2", 60.5f, 4});
+        Assert.assertEquals(4, totals[0]);
+        Assert.assertEquals(9, totals[1]);
+        inputHandler.send(4100, new Object[]{"IBM", 700f, 5});
+        Assert.assertEquals(9, totals[0]);
+        Assert.assertEquals(9, totals[1]);
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void timeWindowTest6() throws InterruptedException {
+        log.info("timeWindow test6: events sent without timestamps before the first timestamped event on playback");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:playback " +
+                "define stream cseEventStream (symbol string, price float, volume int); " +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(1 sec) " +
+                "select symbol, sum(volume) as total " +
+                "insert into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        final List<Long> timestamps = new ArrayList<Long>();
+        final long[] total = new long[1];
+        executionPlanRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                for (Event event : inEvents) {
+                    timestamps.add(event.getTimestamp());
+                }
+                total[0] = ((Number) inEvents[inEvents.length - 1].getData(1)).longValue();
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        long startTime = System.currentTimeMillis();
+        inputHandler.send(new Object[]{"IBM", 700f, 1});
+        inputHandler.send(new Object[]{"WSO2", 60.5f, 2});
+        Assert.assertEquals(2, timestamps.size());
+        Assert.assertTrue(timestamps.get(0) >= startTime);
+        Assert.assertTrue(timestamps.get(1) >= timestamps.get(0));
+        Assert.assertEquals(3, total[0]);
+        executionPlanRuntime.shutdown();
+    }
+
+    @Test
+    public void timeWindowTest7() throws InterruptedException {
+        log.info("timeWindow test7: sums and averages of time windows of different lengths on the same stream");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:playback " +
+                "define stream cseEventStream (symbol string, price double, volume long); " +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(1 sec) " +
+                "select sum(price) as totalPrice, avg(volume) as avgVolume " +
+                "insert into outputStream1 ;" +
+                "@info(name = 'query2') " +
+                "from cseEventStream#window.time(3 sec) " +
+                "select symbol, avg(price) as avgPrice, count() as events " +
+                "insert into outputStream2 ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        final Object[][] outputs = new Object[2][];
+        for (int i = 0; i < outputs.length; i++) {
+            final int index = i;
+            executionPlanRuntime.addCallback("query" + (i + 1), new QueryCallback() {
+                @Override
+                public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                    outputs[index] = inEvents[inEvents.length - 1].getData();
+                }
+            });
+        }
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+        int events = 200;
+        for (int i = 0; i < events; i++) {
+            long timestamp = 1000 + i * 150;
+            inputHandler.send(timestamp, new Object[]{"IBM", i * 0.5, (long) i});
+            double totalPrice = 0;
+            double totalVolume = 0;
+            int count1 = 0;
+            int count2 = 0;
+            double totalPrice2 = 0;
+            for (int j = 0; j <= i; j++) {
+                long age = timestamp - (1000 + j * 150);
+                if (age < 1000) {
+                    totalPrice += j * 0.5;
+                    totalVolume += j;
+                    count1++;
+                }
+                if (age < 3000) {
+                    totalPrice2 += j * 0.5;
+                    count2++;
+                }
+            }
+            Assert.assertEquals(totalPrice, (Double) outputs[0][0], 1e-9);
+            Assert.assertEquals(totalVolume / count1, (Double) outputs[0][1], 1e-9);
+            Assert.assertEquals(totalPrice2 / count2, (Double) outputs[1][1], 1e-9);
+            Assert.assertEquals((long) count2, outputs[1][2]);
+        }
+        executionPlanRuntime.shutdown();
+    }
+
 }
@@ -578,4 +578,58 @@ public class JunctionTestCase {
         streamJunctionB.stopProcessing();
         streamJunctionC.stopProcessing();
     }
+
+    @Test
+    public void BatchPublishTest() throws InterruptedException {
+        log.info("batch publish larger than the buffer");
+
+        StreamDefinition streamA = StreamDefinition.id("streamA").attribute("symbol", Attribute.Type.STRING).attribute("price", Attribute.Type.INT).
+                annotation(Annotation.annotation("parallel"));
+        StreamJunction streamJunctionA = new StreamJunction(streamA, executorService, 1024, executionPlanContext);
+        StreamJunction.Publisher streamPublisherA = streamJunctionA.constructPublisher();
+
+        final boolean[] inOrder = {true};
+        StreamCallback streamCallback = new StreamCallback() {
+            @Override
+            public void receive(Event[] streamEvents) {
+                for (Event streamEvent : streamEvents) {
+                    if ((Integer) streamEvent.getData()[1] != count) {
+                        inOrder[0] = false;
+                    }
+                    count++;
+                }
+                eventArrived = true;
+            }
+        };
+
+        streamJunctionA.subscribe(streamCallback);
+        streamJunctionA.startProcessing();
+
+        Event[] events = new Event[3000];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Event(System.currentTimeMillis(), new Object[]{"IBM", i});
+        }
+        streamPublisherA.send(events, 0);
+
+        StreamEvent first = null;
+        StreamEvent last = null;
+        for (int i = 3000; i < 5000; i++) {
+            StreamEvent streamEvent = new StreamEvent(2, 2, 2);
+            streamEvent.setTimestamp(System.currentTimeMillis());
+            streamEvent.setOutputData(new Object[]{"WSO2", i});
+            if (first == null) {
+                first = streamEvent;
+            } else {
+                last.setNext(streamEvent);
+            }
+            last = streamEvent;
+        }
+        streamPublisherA.send(first);
+
+        Thread.sleep(500);
+        Assert.assertTrue(eventArrived);
+        Assert.assertEquals(5000, count);
+        Assert.assertTrue(inOrder[0]);
+        streamJunctionA.stopProcessing();
+    }
 }
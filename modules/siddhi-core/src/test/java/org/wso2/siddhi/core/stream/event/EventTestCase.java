@@ -91,6 +91,91 @@ public class EventTestCase {
 
     }
 
+    @Test
+    public void testEventPoolAcrossThreads() throws InterruptedException {
+        final StreamEventPool streamEventPool = new StreamEventPool(2, 3, 1, 4);
+
+        final StreamEvent[] streamEvents = new StreamEvent[8];
+        for (int i = 0; i < 8; i++) {
+            streamEvents[i] = streamEventPool.borrowEvent();
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 8; i++) {
+                    streamEventPool.returnEvents(streamEvents[i]);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        Assert.assertEquals(4, streamEventPool.getBufferedEventsSize());
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertNotNull(streamEventPool.borrowEvent());
+        }
+        Assert.assertEquals(8, streamEventPool.getMissCount());
+        Assert.assertEquals(4, streamEventPool.getHitCount());
+        Assert.assertEquals(0, streamEventPool.getBufferedEventsSize());
+    }
+
+    @Test
+    public void testEventPoolDiscard() throws InterruptedException {
+        final StreamEventPool streamEventPool = new StreamEventPool(2, 3, 1, 4);
+
+        final StreamEvent[] streamEvents = new StreamEvent[4];
+        for (int i = 0; i < 4; i++) {
+            streamEvents[i] = streamEventPool.borrowEvent();
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 4; i++) {
+                    streamEventPool.returnEvents(streamEvents[i]);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        Assert.assertEquals(4, streamEventPool.getBufferedEventsSize());
+
+        streamEventPool.discard();
+        Assert.assertEquals(0, streamEventPool.getBufferedEventsSize());
+        Assert.assertEquals(0, streamEventPool.getMissCount());
+
+        StreamEvent streamEvent = streamEventPool.borrowEvent();
+        Assert.assertEquals(1, streamEventPool.getMissCount());
+        streamEventPool.returnEvents(streamEvent);
+        Assert.assertEquals(1, streamEventPool.getBufferedEventsSize());
+    }
+
+    @Test
+    public void testEventPoolAdaptiveSize() {
+        StreamEventPool streamEventPool = new StreamEventPool(2, 3, 1, 4);
+
+        StreamEvent[] streamEvents = new StreamEvent[64];
+        for (int round = 0; round < 64; round++) {
+            for (int i = 0; i < 64; i++) {
+                streamEvents[i] = streamEventPool.borrowEvent();
+            }
+            for (int i = 0; i < 64; i++) {
+                streamEventPool.returnEvents(streamEvents[i]);
+            }
+        }
+        Assert.assertTrue(streamEventPool.getSize() >= 64);
+        Assert.assertTrue(streamEventPool.getHitCount() > streamEventPool.getMissCount());
+
+        for (int round = 0; round < 2048; round++) {
+            for (int i = 0; i < 4; i++) {
+                streamEvents[i] = streamEventPool.borrowEvent();
+            }
+            for (int i = 0; i < 4; i++) {
+                streamEventPool.returnEvents(streamEvents[i]);
+            }
+        }
+        Assert.assertTrue(streamEventPool.getSize() < 64);
+    }
+
     @Test
     public void testPassThroughStreamEventConverter() {
         Attribute symbol = new Attribute("symbol", Attribute.Type.STRING);
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util;
+
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.util.timestamp.EventTimeBasedMillisTimestampGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class TimerWheelTestCase {
+    private ScheduledExecutorService scheduledExecutorService;
+    private final List<Long> timerEventTimes = Collections.synchronizedList(new ArrayList<Long>());
+
+    @Before
+    public void init() {
+        scheduledExecutorService = Executors.newScheduledThreadPool(1);
+        timerEventTimes.clear();
+    }
+
+    @After
+    public void shutdown() {
+        scheduledExecutorService.shutdownNow();
+    }
+
+    private Scheduler createScheduler(TimerWheel timerWheel) {
+        Scheduler scheduler = new Scheduler(timerWheel, new Schedulable() {
+            @Override
+            public void process(ComplexEventChunk complexEventChunk) {
+                ComplexEvent timerEvent = complexEventChunk.getFirst();
+                Assert.assertEquals(ComplexEvent.Type.TIMER, timerEvent.getType());
+                timerEventTimes.add(timerEvent.getTimestamp());
+            }
+        });
+        scheduler.setStreamEventPool(new StreamEventPool(0, 0, 0, 5));
+        return scheduler;
+    }
+
+    @Test
+    public void timerWheelTest1() throws InterruptedException {
+        TimerWheel timerWheel = new TimerWheel(scheduledExecutorService, 1, 8);
+        Scheduler scheduler = createScheduler(timerWheel);
+        long currentTime = System.currentTimeMillis();
+
+        scheduler.notifyAt(currentTime + 300);
+        scheduler.notifyAt(currentTime + 100);
+        scheduler.notifyAt(currentTime + 200);
+        scheduler.notifyAt(currentTime - 100);
+        Assert.assertEquals(4, timerWheel.getPendingTimerCount());
+
+        Thread.sleep(500);
+        Assert.assertEquals(0, timerWheel.getPendingTimerCount());
+        Assert.assertEquals(4, timerEventTimes.size());
+        Assert.assertTrue(timerEventTimes.get(1) >= currentTime + 100);
+        Assert.assertTrue(timerEventTimes.get(2) >= currentTime + 200);
+        Assert.assertTrue(timerEventTimes.get(3) >= currentTime + 300);
+    }
+
+    @Test
+    public void timerWheelTest2() throws InterruptedException {
+        TimerWheel timerWheel = new TimerWheel(scheduledExecutorService);
+        Scheduler scheduler1 = createScheduler(timerWheel);
+        Scheduler scheduler2 = createScheduler(timerWheel);
+        long time = System.currentTimeMillis() + 100;
+
+        for (int i = 0; i < 100; i++) {
+            scheduler1.notifyAt(time);
+            scheduler2.notifyAt(time);
+        }
+        Assert.assertEquals(2, timerWheel.getPendingTimerCount());
+        Assert.assertEquals(1, timerWheel.getPendingTimes(scheduler1).length);
+        Assert.assertEquals(time, timerWheel.getPendingTimes(scheduler1)[0]);
+
+        Thread.sleep(300);
+        Assert.assertEquals(2, timerEventTimes.size());
+    }
+
+    @Test
+    public void timerWheelTest3() throws InterruptedException {
+        TimerWheel timerWheel = new TimerWheel(scheduledExecutorService, 10, 4);
+        Scheduler scheduler = createScheduler(timerWheel);
+        long currentTime = System.currentTimeMillis();
+
+        scheduler.notifyAt(currentTime + 5);
+        scheduler.notifyAt(currentTime + 155);
+
+        Thread.sleep(100);
+        Assert.assertEquals(1, timerEventTimes.size());
+        Assert.assertTrue(timerEventTimes.get(0) >= currentTime + 5);
+
+        Thread.sleep(200);
+        Assert.assertEquals(2, timerEventTimes.size());
+        Assert.assertTrue(timerEventTimes.get(1) >= currentTime + 155);
+    }
+
+    @Test
+    public void timerWheelTest4() throws InterruptedException {
+        EventTimeBasedMillisTimestampGenerator timestampGenerator = new EventTimeBasedMillisTimestampGenerator(
+                new ReentrantLock(), scheduledExecutorService, 0, 0);
+        TimerWheel timerWheel = new TimerWheel(scheduledExecutorService, timestampGenerator);
+        Scheduler scheduler = createScheduler(timerWheel);
+        timestampGenerator.setCurrentTimestamp(1000);
+
+        scheduler.notifyAt(3000);
+        scheduler.notifyAt(1100);
+        scheduler.notifyAt(3000);
+        Assert.assertEquals(2, timerWheel.getPendingTimerCount());
+        Assert.assertEquals(2, timerWheel.getPendingTimes(scheduler).length);
+
+        timestampGenerator.setCurrentTimestamp(1200);
+        Assert.assertEquals(1, timerEventTimes.size());
+        Assert.assertEquals(1200L, (long) timerEventTimes.get(0));
+
+        timestampGenerator.setCurrentTimestamp(2600);
+        Assert.assertEquals(1, timerEventTimes.size());
+        timestampGenerator.setCurrentTimestamp(3000);
+        Assert.assertEquals(2, timerEventTimes.size());
+        Assert.assertEquals(0, timerWheel.getPendingTimerCount());
+
+        scheduler.notifyAt(10000);
+        scheduler.notifyAt(3000);
+        timestampGenerator.setCurrentTimestamp(20000);
+        Assert.assertEquals(3, timerEventTimes.size());
+        Assert.assertEquals(20000L, (long) timerEventTimes.get(2));
+        Assert.assertEquals(0, timerWheel.getPendingTimerCount());
+    }
+}
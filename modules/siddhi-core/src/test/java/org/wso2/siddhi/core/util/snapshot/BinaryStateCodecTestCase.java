@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.core.util.snapshot;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.TreeMap;
+
+public class BinaryStateCodecTestCase {
+
+    private static StreamEvent createEvent(long timestamp, Object... data) {
+        StreamEvent streamEvent = new StreamEvent(0, 0, data.length);
+        streamEvent.setOutputData(data);
+        streamEvent.setTimestamp(timestamp);
+        streamEvent.setType(ComplexEvent.Type.EXPIRED);
+        return streamEvent;
+    }
+
+    private static HashMap<String, Object[]> createSnapshot() {
+        ComplexEventChunk<StreamEvent> eventChunk = new ComplexEventChunk<StreamEvent>();
+        for (int i = 0; i < 5; i++) {
+            eventChunk.add(createEvent(1000 + i * 10, i % 2 == 0 ? "IBM" : "WSO2", 75.6f + i, (long) i, null));
+        }
+        LinkedList<StreamEvent> eventList = new LinkedList<StreamEvent>();
+        eventList.add(eventChunk.getFirst().getNext());
+        TreeMap<String, Integer> treeMap = new TreeMap<String, Integer>();
+        treeMap.put("IBM", 2);
+
+        HashMap<String, Object[]> snapshot = new HashMap<String, Object[]>();
+        snapshot.put("plan-1", new Object[]{eventChunk, eventList, 5});
+        snapshot.put("plan-2", new Object[]{treeMap, new long[]{1, -2, 3}, 2.5});
+        snapshot.put("plan-3", null);
+        return snapshot;
+    }
+
+    private static void assertSnapshot(HashMap<String, Object[]> snapshot, boolean eventsShared) {
+        Assert.assertEquals(3, snapshot.size());
+        Object[] state = snapshot.get("plan-1");
+        ComplexEventChunk<StreamEvent> eventChunk = (ComplexEventChunk<StreamEvent>) state[0];
+        int count = 0;
+        for (StreamEvent streamEvent = eventChunk.getFirst(); streamEvent != null;
+             streamEvent = streamEvent.getNext()) {
+            Assert.assertEquals(1000 + count * 10, streamEvent.getTimestamp());
+            Assert.assertEquals(ComplexEvent.Type.EXPIRED, streamEvent.getType());
+            Assert.assertEquals(Arrays.asList(count % 2 == 0 ? "IBM" : "WSO2", 75.6f + count, (long) count, null),
+                    Arrays.asList(streamEvent.getOutputData()));
+            count++;
+        }
+        Assert.assertEquals(5, count);
+        if (eventsShared) {
+            //Events referred from several places are decoded once
+            Assert.assertSame(eventChunk.getFirst().getNext(), ((LinkedList<StreamEvent>) state[1]).getFirst());
+        }
+        Assert.assertEquals(5, state[2]);
+        eventChunk.add(createEvent(2000, "ORACLE", 1f, 1L, null));
+        Assert.assertEquals(2000, eventChunk.getLast().getTimestamp());
+
+        state = snapshot.get("plan-2");
+        Assert.assertEquals(2, (int) ((TreeMap<String, Integer>) state[0]).get("IBM"));
+        Assert.assertTrue(Arrays.equals(new long[]{1, -2, 3}, (long[]) state[1]));
+        Assert.assertEquals(2.5, state[2]);
+        Assert.assertTrue(snapshot.containsKey("plan-3"));
+        Assert.assertNull(snapshot.get("plan-3"));
+    }
+
+    @Test
+    public void binaryStateCodecTest1() {
+        BinaryStateCodec stateCodec = new BinaryStateCodec();
+        byte[] encodedState = stateCodec.encode(createSnapshot());
+        Assert.assertTrue(encodedState.length < new JavaStateCodec().encode(createSnapshot()).length);
+        assertSnapshot((HashMap<String, Object[]>) stateCodec.decode(encodedState), true);
+    }
+
+    @Test
+    public void binaryStateCodecTest2() {
+        BinaryStateCodec stateCodec = new BinaryStateCodec(true);
+        assertSnapshot((HashMap<String, Object[]>) stateCodec.decode(stateCodec.encode(createSnapshot())), true);
+    }
+
+    @Test
+    public void binaryStateCodecTest3() {
+        //States persisted with Java serialization
+        byte[] encodedState = new JavaStateCodec().encode(createSnapshot());
+        assertSnapshot((HashMap<String, Object[]>) new BinaryStateCodec().decode(encodedState), false);
+    }
+
+    @Test
+    public void binaryStateCodecTest4() {
+        HashMap<String, byte[]> states = new HashMap<String, byte[]>();
+        states.put("plan-1", new byte[]{1, 2, 3});
+        IncrementalSnapshot snapshot = new IncrementalSnapshot("1000_plan", states, new HashMap<String, byte[]>());
+        BinaryStateCodec stateCodec = new BinaryStateCodec();
+        snapshot = (IncrementalSnapshot) stateCodec.decode(stateCodec.encode(snapshot));
+        Assert.assertEquals("1000_plan", snapshot.getPreviousRevision());
+        Assert.assertTrue(Arrays.equals(new byte[]{1, 2, 3}, snapshot.getStates().get("plan-1")));
+        Assert.assertTrue(snapshot.getIncrementalStates().isEmpty());
+    }
+}
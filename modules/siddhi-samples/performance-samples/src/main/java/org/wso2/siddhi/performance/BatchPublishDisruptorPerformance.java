@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.performance;
+
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.PhasedBackoffWaitStrategy;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.event.EventFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares publishing Event[] batches to a StreamJunction style ring buffer one slot at a time
+ * against claiming and publishing the whole batch range at once, for batch sizes 1 to 1024.
+ */
+public class BatchPublishDisruptorPerformance {
+    private static final int BUFFER_SIZE = 1024;
+    private static final int EVENT_COUNT = 10000000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        final AtomicLong consumed = new AtomicLong();
+
+        Disruptor<Event> disruptor = new Disruptor<Event>(new EventFactory(3), BUFFER_SIZE, executorService,
+                ProducerType.SINGLE, PhasedBackoffWaitStrategy.withLiteLock(1, 4, TimeUnit.SECONDS));
+        disruptor.handleEventsWith(new EventHandler<Event>() {
+            @Override
+            public void onEvent(Event event, long sequence, boolean endOfBatch) {
+                consumed.lazySet(sequence + 1);
+            }
+        });
+        RingBuffer<Event> ringBuffer = disruptor.start();
+
+        long published = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.println("Round " + (round + 1) + (round == 0 ? " (warm up)" : ""));
+            for (int batchSize = 1; batchSize <= 1024; batchSize *= 2) {
+                Event[] events = new Event[batchSize];
+                for (int i = 0; i < batchSize; i++) {
+                    events[i] = new Event(System.currentTimeMillis(), new Object[]{"WSO2", 55.6f, 100l});
+                }
+                int iterations = EVENT_COUNT / batchSize;
+
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    publishPerEvent(ringBuffer, events);
+                }
+                published += (long) iterations * batchSize;
+                awaitConsumed(consumed, published);
+                long perEventTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    publishBatch(ringBuffer, events);
+                }
+                published += (long) iterations * batchSize;
+                awaitConsumed(consumed, published);
+                long batchTime = System.nanoTime() - start;
+
+                long eventCount = (long) iterations * batchSize;
+                System.out.println("Batch size " + batchSize +
+                        " : per event = " + (eventCount * 1000000000.0 / perEventTime) + " Event/sec" +
+                        ", batched = " + (eventCount * 1000000000.0 / batchTime) + " Event/sec");
+            }
+        }
+        disruptor.shutdown();
+        executorService.shutdown();
+    }
+
+    private static void publishPerEvent(RingBuffer<Event> ringBuffer, Event[] events) {
+        for (Event event : events) {
+            long sequenceNo = ringBuffer.next();
+            try {
+                ringBuffer.get(sequenceNo).copyFrom(event);
+            } finally {
+                ringBuffer.publish(sequenceNo);
+            }
+        }
+    }
+
+    private static void publishBatch(RingBuffer<Event> ringBuffer, Event[] events) {
+        int index = 0;
+        while (index < events.length) {
+            int batchSize = Math.min(events.length - index, BUFFER_SIZE);
+            long hi = ringBuffer.next(batchSize);
+            long lo = hi - (batchSize - 1);
+            try {
+                for (long sequenceNo = lo; sequenceNo <= hi; sequenceNo++) {
+                    ringBuffer.get(sequenceNo).copyFrom(events[index++]);
+                }
+            } finally {
+                ringBuffer.publish(lo, hi);
+            }
+        }
+    }
+
+    private static void awaitConsumed(AtomicLong consumed, long published) {
+        while (consumed.get() < published) {
+            Thread.yield();
+        }
+    }
+}
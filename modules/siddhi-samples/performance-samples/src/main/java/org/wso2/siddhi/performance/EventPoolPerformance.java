@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.performance;
+
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEventPool;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Borrows 500K events per second from a StreamEventPool in one thread and returns them from another, as a
+ * StreamJunction consumer would, and reports the pool hits, misses and capacity every second.
+ * Once the pool has adapted to the demand the misses, i.e. the events allocated, should drop to near zero.
+ */
+public class EventPoolPerformance {
+    private static final int EVENTS_PER_SECOND = 500000;
+    private static final int SLOTS_PER_SECOND = 100;
+    private static final int BATCH_SIZE = 500;
+    private static final int SECONDS = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        final StreamEventPool streamEventPool = new StreamEventPool(0, 0, 3, 5);
+        final BlockingQueue<StreamEvent> queue = new ArrayBlockingQueue<StreamEvent>(64);
+
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        streamEventPool.returnEvents(queue.take());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        consumer.setDaemon(true);
+        consumer.start();
+
+        long lastHitCount = 0;
+        long lastMissCount = 0;
+        for (int second = 0; second < SECONDS; second++) {
+            for (int slot = 0; slot < SLOTS_PER_SECOND; slot++) {
+                long slotStart = System.nanoTime();
+                for (int i = 0; i < EVENTS_PER_SECOND / SLOTS_PER_SECOND / BATCH_SIZE; i++) {
+                    StreamEvent first = streamEventPool.borrowEvent();
+                    StreamEvent last = first;
+                    for (int j = 1; j < BATCH_SIZE; j++) {
+                        StreamEvent streamEvent = streamEventPool.borrowEvent();
+                        last.setNext(streamEvent);
+                        last = streamEvent;
+                    }
+                    queue.put(first);
+                }
+                long sleepTime = 1000000000L / SLOTS_PER_SECOND - (System.nanoTime() - slotStart);
+                if (sleepTime > 0) {
+                    Thread.sleep(sleepTime / 1000000, (int) (sleepTime % 1000000));
+                }
+            }
+            long hitCount = streamEventPool.getHitCount();
+            long missCount = streamEventPool.getMissCount();
+            System.out.println("Second " + (second + 1) +
+                    " : hits = " + (hitCount - lastHitCount) +
+                    ", misses = " + (missCount - lastMissCount) +
+                    ", pool size = " + streamEventPool.getSize() +
+                    ", buffered events = " + streamEventPool.getBufferedEventsSize());
+            lastHitCount = hitCount;
+            lastMissCount = missCount;
+        }
+        consumer.interrupt();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.performance;
+
+import org.wso2.siddhi.core.ExecutionPlanRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+
+/**
+ * Aggregates 2M events of 1K to 1M distinct long device ids with count, sum and avg grouped by the device id, and
+ * reports the average time taken per event and the heap used once all the groups are created.
+ */
+public class GroupByPerformance {
+    private static final int[] GROUPS = {1000, 100000, 1000000};
+    private static final int EVENTS = 2000000;
+    private static final long LAST_DEVICE = -1;
+    private static volatile boolean lastEventArrived;
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int groups : GROUPS) {
+            run(groups);
+        }
+    }
+
+    private static void run(int groups) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "define stream DeviceStream (deviceId long, reading double);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from DeviceStream " +
+                "select deviceId, count() as readings, sum(reading) as total, avg(reading) as average " +
+                "group by deviceId " +
+                "insert into outputStream ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        lastEventArrived = false;
+        executionPlanRuntime.addCallback("outputStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    if ((Long) event.getData(0) == LAST_DEVICE) {
+                        lastEventArrived = true;
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("DeviceStream");
+        executionPlanRuntime.start();
+
+        Long[] deviceIds = new Long[groups];
+        for (int i = 0; i < groups; i++) {
+            deviceIds[i] = (long) i;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            inputHandler.send(new Object[]{deviceIds[i % groups], 10.5});
+        }
+        inputHandler.send(new Object[]{LAST_DEVICE, 0.0});
+        while (!lastEventArrived) {
+            Thread.sleep(1);
+        }
+        long time = System.nanoTime() - start;
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println("Groups " + groups +
+                " : " + (time / EVENTS) + " ns/event" +
+                ", heap used = " + ((runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024)) + " MB");
+        executionPlanRuntime.shutdown();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.performance;
+
+import org.wso2.siddhi.core.ExecutionPlanRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends 2M events across 1000 partitions of a length window average query, processing the partition keys on
+ * 1 to 8 lanes, and reports the throughput. As the instances of different keys are independent the throughput
+ * should grow with the lanes up to the number of cores.
+ */
+public class PartitionLanePerformance {
+    private static final int[] LANES = {1, 2, 4, 8};
+    private static final int PARTITIONS = 1000;
+    private static final int EVENTS = 2000000;
+    private static final AtomicLong count = new AtomicLong();
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int lanes : LANES) {
+            run(lanes);
+        }
+    }
+
+    private static void run(int lanes) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:parallel " +
+                "define stream cseEventStream (symbol string, price float, volume long);" +
+                "" +
+                (lanes > 1 ? "@Parallel(workers = '" + lanes + "') " : "") +
+                "partition with (symbol of cseEventStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from cseEventStream#window.length(100) " +
+                "   select symbol, avg(price) as avgPrice, max(volume) as maxVolume " +
+                "   insert into outputStream ;" +
+                "end;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        count.set(0);
+        executionPlanRuntime.addCallback("outputStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+
+        String[] symbols = new String[PARTITIONS];
+        for (int i = 0; i < PARTITIONS; i++) {
+            symbols[i] = "WSO2" + i;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            inputHandler.send(new Object[]{symbols[i % PARTITIONS], 55.6f + i % 10, (long) i});
+        }
+        long sendTime = System.nanoTime() - start;
+        while (count.get() < EVENTS) {
+            Thread.sleep(1);
+        }
+        long processTime = System.nanoTime() - start;
+
+        System.out.println("Lanes " + lanes +
+                " : throughput = " + (EVENTS * 1000000000.0 / processTime) + " events/sec" +
+                ", send time = " + (sendTime / 1000000) + " ms" +
+                ", output events = " + count.get());
+        executionPlanRuntime.shutdown();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.performance;
+
+import org.wso2.siddhi.core.ExecutionPlanRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates 10 to 1M partitions of a filter query, one for each distinct symbol, and then routes 1M events
+ * across all of them reporting the average time taken per event. As partitions are looked up by their key
+ * the routing time should stay flat as the number of partitions grows.
+ */
+public class PartitionRoutingPerformance {
+    private static final int[] PARTITIONS = {10, 1000, 100000, 1000000};
+    private static final int EVENTS = 1000000;
+    private static final AtomicLong count = new AtomicLong();
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int partitions : PARTITIONS) {
+            run(partitions);
+        }
+    }
+
+    private static void run(int partitions) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "define stream cseEventStream (symbol string, price float, volume long);" +
+                "" +
+                "partition with (symbol of cseEventStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from cseEventStream[700 > price] " +
+                "   select * " +
+                "   insert into outputStream ;" +
+                "end;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        count.set(0);
+        executionPlanRuntime.addCallback("outputStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("cseEventStream");
+        executionPlanRuntime.start();
+
+        String[] symbols = new String[partitions];
+        for (int i = 0; i < partitions; i++) {
+            symbols[i] = "WSO2" + i;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < partitions; i++) {
+            inputHandler.send(new Object[]{symbols[i], 55.6f, 100L});
+        }
+        waitForEvents(partitions);
+        long creationTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            inputHandler.send(new Object[]{symbols[i % partitions], 55.6f, 100L});
+        }
+        waitForEvents(partitions + EVENTS);
+        long routingTime = System.nanoTime() - start;
+
+        System.out.println("Partitions " + partitions +
+                " : creation = " + (creationTime / partitions) + " ns/partition" +
+                ", routing = " + (routingTime / EVENTS) + " ns/event" +
+                ", output events = " + count.get());
+        executionPlanRuntime.shutdown();
+    }
+
+    private static void waitForEvents(long events) throws InterruptedException {
+        while (count.get() < events) {
+            Thread.sleep(1);
+        }
+    }
+}
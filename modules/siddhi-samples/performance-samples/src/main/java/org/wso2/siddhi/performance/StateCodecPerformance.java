@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.performance;
+
+import org.wso2.siddhi.core.ExecutionPlanRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.util.snapshot.BinaryStateCodec;
+import org.wso2.siddhi.core.util.snapshot.JavaStateCodec;
+import org.wso2.siddhi.core.util.snapshot.StateCodec;
+
+/**
+ * Fills a length window, a time window, a group by and a table with 100K events, and reports the snapshot size
+ * and the average time to take and to restore a snapshot with Java serialization and with the binary state codec,
+ * with and without compression.
+ */
+public class StateCodecPerformance {
+    private static final int EVENTS = 100000;
+    private static final int SYMBOLS = 100;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String executionPlan = "" +
+                "@plan:playback " +
+                "define stream StockStream (symbol string, price float, volume long);" +
+                "define table StockTable (symbol string, price float, volume long);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream#window.length(" + EVENTS + ") " +
+                "select symbol, sum(volume) as totalVolume " +
+                "group by symbol " +
+                "insert into OutStream1 ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from StockStream#window.time(1 hour) " +
+                "select avg(price) as averagePrice " +
+                "insert into OutStream2 ;" +
+                "" +
+                "@info(name = 'query3') " +
+                "from StockStream " +
+                "insert into StockTable ;";
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(executionPlan);
+        InputHandler inputHandler = executionPlanRuntime.getInputHandler("StockStream");
+        executionPlanRuntime.start();
+        for (int i = 0; i < EVENTS; i++) {
+            inputHandler.send(i, new Object[]{"SYMBOL" + (i % SYMBOLS), 50f + i % 1000 / 10f, (long) i});
+        }
+
+        StateCodec[] stateCodecs = {new JavaStateCodec(), new BinaryStateCodec(), new BinaryStateCodec(true)};
+        String[] names = {"Java serialization", "Binary", "Binary compressed"};
+        for (int i = 0; i < stateCodecs.length; i++) {
+            siddhiManager.setStateCodec(stateCodecs[i]);
+            byte[] snapshot = null;
+            long snapshotTime = 0;
+            long restoreTime = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                snapshot = executionPlanRuntime.snapshot();
+                snapshotTime += System.nanoTime() - start;
+                start = System.nanoTime();
+                executionPlanRuntime.restore(snapshot);
+                restoreTime += System.nanoTime() - start;
+            }
+            System.out.println(names[i] + " : size = " + (snapshot.length / 1024) + " KB" +
+                    ", snapshot = " + (snapshotTime / ROUNDS / 1000000) + " ms" +
+                    ", restore = " + (restoreTime / ROUNDS / 1000000) + " ms");
+        }
+        executionPlanRuntime.shutdown();
+    }
+}
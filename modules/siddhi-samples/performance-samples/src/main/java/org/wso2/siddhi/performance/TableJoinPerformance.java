@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.performance;
+
+import org.wso2.siddhi.core.ExecutionPlanRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.query.output.callback.QueryCallback;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Joins events of 1, 2, 4 and 8 threads, each sending to its own stream consumed by its own join query, with
+ * a table of 100 rows which is updated by another thread, and reports the join throughput for each number of
+ * reader queries.
+ * As the queries only read the table they proceed concurrently, hence the throughput should grow with the
+ * number of readers up to the number of available cores.
+ */
+public class TableJoinPerformance {
+    private static final int TABLE_SIZE = 100;
+    private static final int EVENTS_PER_READER = 200000;
+    private static final int[] READERS = {1, 2, 4, 8};
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int readers : READERS) {
+            run(readers);
+        }
+    }
+
+    private static void run(int readers) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        StringBuilder streams = new StringBuilder("" +
+                "@plan:parallel " +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define table StockTable (symbol string, price float, volume long); ");
+        StringBuilder queries = new StringBuilder("" +
+                "from StockStream[volume < 0] " +
+                "insert into StockTable; " +
+                "from StockStream " +
+                "update StockTable " +
+                "   on StockTable.symbol == symbol; ");
+        for (int i = 0; i < readers; i++) {
+            streams.append("define stream CheckStockStream").append(i).append(" (symbol string); ");
+            queries.append("" +
+                    "@info(name = 'query").append(i).append("') " +
+                    "from CheckStockStream").append(i).append(" join StockTable " +
+                    "   on CheckStockStream").append(i).append(".symbol == StockTable.symbol " +
+                    "select StockTable.symbol, StockTable.price " +
+                    "insert into OutputStream; ");
+        }
+
+        ExecutionPlanRuntime executionPlanRuntime = siddhiManager.createExecutionPlanRuntime(streams.toString() +
+                queries.toString());
+        final AtomicLong joinedEvents = new AtomicLong();
+        for (int i = 0; i < readers; i++) {
+            executionPlanRuntime.addCallback("query" + i, new QueryCallback() {
+                @Override
+                public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                    joinedEvents.addAndGet(inEvents.length);
+                }
+            });
+        }
+        final InputHandler stockStream = executionPlanRuntime.getInputHandler("StockStream");
+        executionPlanRuntime.start();
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            stockStream.send(new Object[]{"S" + i, 10f, -1L});
+        }
+        // Streams of a parallel execution plan are consumed asynchronously, waiting till the table is populated
+        Thread.sleep(500);
+
+        final CountDownLatch latch = new CountDownLatch(readers);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (long i = 0; latch.getCount() > 0; i++) {
+                        stockStream.send(new Object[]{"S" + (i % TABLE_SIZE), 10f + i % 10, i});
+                        Thread.sleep(1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        writer.start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < readers; i++) {
+            final InputHandler checkStockStream = executionPlanRuntime.getInputHandler("CheckStockStream" + i);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < EVENTS_PER_READER; j++) {
+                            checkStockStream.send(new Object[]{"S" + (j % TABLE_SIZE)});
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+        latch.await();
+        while (joinedEvents.get() < readers * (long) EVENTS_PER_READER) {
+            Thread.sleep(1);
+        }
+        long time = System.nanoTime() - start;
+        writer.join();
+
+        System.out.println("Readers " + readers +
+                " : throughput = " + (readers * (long) EVENTS_PER_READER * 1000000000.0 / time) + " events/sec" +
+                ", joined events = " + joinedEvents.get());
+        executionPlanRuntime.shutdown();
+    }
+}
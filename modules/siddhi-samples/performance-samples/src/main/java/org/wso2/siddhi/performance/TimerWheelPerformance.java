@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.siddhi.performance;
+
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.util.Schedulable;
+import org.wso2.siddhi.core.util.Scheduler;
+import org.wso2.siddhi.core.util.TimerWheel;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registers 1M timers per second on a TimerWheel shared by 100 Schedulers, with deadlines spread over the
+ * next second as a time window would, and reports the achieved notify rate and the timer events sent.
+ * Notifications of a Scheduler for the same millisecond are coalesced, hence up to 100K timer events are
+ * expected per second.
+ */
+public class TimerWheelPerformance {
+    private static final int SCHEDULERS = 100;
+    private static final int TIMERS_PER_SECOND = 1000000;
+    private static final int SECONDS = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(1);
+        TimerWheel timerWheel = new TimerWheel(scheduledExecutorService);
+        final AtomicLong timerEvents = new AtomicLong();
+
+        Scheduler[] schedulers = new Scheduler[SCHEDULERS];
+        for (int i = 0; i < SCHEDULERS; i++) {
+            schedulers[i] = new Scheduler(timerWheel, new Schedulable() {
+                @Override
+                public void process(ComplexEventChunk complexEventChunk) {
+                    timerEvents.incrementAndGet();
+                }
+            });
+            schedulers[i].setStreamEventPool(new StreamEventPool(0, 0, 0, 5));
+        }
+
+        for (int second = 0; second < SECONDS; second++) {
+            long start = System.nanoTime();
+            long secondStart = System.currentTimeMillis();
+            for (int i = 0; i < TIMERS_PER_SECOND; i++) {
+                schedulers[i % SCHEDULERS].notifyAt(secondStart + 1000 + i / (TIMERS_PER_SECOND / 1000));
+            }
+            long notifyTime = System.nanoTime() - start;
+            System.out.println("Second " + (second + 1) +
+                    " : notify rate = " + (TIMERS_PER_SECOND * 1000000000.0 / notifyTime) + " notifications/sec" +
+                    ", pending timers = " + timerWheel.getPendingTimerCount() +
+                    ", timer events = " + timerEvents.getAndSet(0));
+            long sleepTime = 1000 - notifyTime / 1000000;
+            if (sleepTime > 0) {
+                Thread.sleep(sleepTime);
+            }
+        }
+        scheduledExecutorService.shutdownNow();
+    }
+}